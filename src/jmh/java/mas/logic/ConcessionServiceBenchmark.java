@@ -0,0 +1,70 @@
+package mas.logic;
+
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.EvaluationServiceBenchmark.IssueMix;
+import mas.models.Bid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static mas.logic.EvaluationServiceBenchmark.VARIANTS;
+
+/**
+ * Custo por chamada da geração de contra-lances (Eqs. 5 e 6), executada a cada rodada.
+ * <p>
+ * γ cobre os dois regimes da Eq. 5: polinomial (γ &lt;= 1, incluindo o linear γ = 1) e
+ * exponencial (γ &gt; 1, como o vendedor do config). O progresso varia entre as chamadas
+ * e inclui os extremos 0 e 1.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConcessionServiceBenchmark {
+
+    @Param({"0.5", "1.0", "5.0"})
+    double gamma;
+
+    @Param({"MIXED", "QUANTITATIVE", "QUALITATIVE"})
+    IssueMix issueMix;
+
+    @Param({"buyer", "seller"})
+    String agentType;
+
+    private ConcessionService service;
+    private Map<String, IssueParameters> issueParams;
+    private Bid[] referenceBids;
+    private double[] progress;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        service = new ConcessionService();
+        issueParams = EvaluationServiceBenchmark.issueParams();
+        referenceBids = new Bid[VARIANTS];
+        progress = new double[VARIANTS];
+        for (int i = 0; i < VARIANTS; i++) {
+            referenceBids[i] = EvaluationServiceBenchmark.bid(issueMix, i);
+            progress[i] = i / (double) (VARIANTS - 1);
+        }
+    }
+
+    @Benchmark
+    public Bid generateCounterBid() {
+        int i = next++ & (VARIANTS - 1);
+        return service.generateCounterBid(referenceBids[i], progress[i], gamma, 0.1, issueParams, agentType);
+    }
+}
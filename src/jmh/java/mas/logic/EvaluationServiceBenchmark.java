@@ -0,0 +1,179 @@
+package mas.logic;
+
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.EvaluationService.IssueType;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por chamada da avaliação de lances, executada a cada rodada de cada negociação.
+ * <p>
+ * O perfil de risco cobre os três ramos das Eqs. 1 e 2 (β &lt; 1, β = 1 e β &gt; 1) e o lance
+ * pode ter só issues quantitativos, só qualitativos ou os quatro do config. Cada chamada usa o
+ * próximo de {@value #VARIANTS} valores pré-calculados, para que o JIT não trate a entrada
+ * como constante.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationServiceBenchmark {
+
+    static final int VARIANTS = 16; // Potência de 2: o índice é um AND
+
+    /**
+     * Lances e preferências de um agente para {@code calculateUtility}.
+     */
+    @State(Scope.Thread)
+    public static class UtilityState {
+        @Param({"0.5", "1.0", "2.0"})
+        double riskBeta;
+
+        @Param({"MIXED", "QUANTITATIVE", "QUALITATIVE"})
+        IssueMix issueMix;
+
+        @Param({"buyer", "seller"})
+        String agentType;
+
+        EvaluationService service;
+        Map<String, Double> weights;
+        Map<String, IssueParameters> issueParams;
+        Bid[] bids;
+        int next;
+
+        @Setup
+        public void setUp() {
+            service = new EvaluationService();
+            weights = new HashMap<>();
+            weights.put("price", 0.4);
+            weights.put("quality", 0.3);
+            weights.put("delivery", 0.15);
+            weights.put("service", 0.15);
+            issueParams = issueParams();
+            bids = new Bid[VARIANTS];
+            for (int i = 0; i < VARIANTS; i++) {
+                bids[i] = bid(issueMix, i);
+            }
+        }
+    }
+
+    /**
+     * Valores e limites de um issue quantitativo para {@code normalizeQuantitativeUtility}.
+     */
+    @State(Scope.Thread)
+    public static class QuantitativeState {
+        @Param({"0.5", "1.0", "2.0"})
+        double riskBeta;
+
+        @Param({"COST", "BENEFIT"})
+        IssueType issueType;
+
+        EvaluationService service;
+        IssueParameters params;
+        double[] values;
+        int next;
+
+        @Setup
+        public void setUp() {
+            service = new EvaluationService();
+            params = new IssueParameters(50.0, 60.0, issueType);
+            values = new double[VARIANTS];
+            for (int i = 0; i < VARIANTS; i++) {
+                values[i] = 48.0 + i * 14.0 / (VARIANTS - 1); // Inclui valores fora de [min, max]
+            }
+        }
+    }
+
+    /**
+     * Termos linguísticos, na grafia do config e na dos lances, para {@code normalizeQualitativeUtility}.
+     */
+    @State(Scope.Thread)
+    public static class QualitativeState {
+        @Param({"buyer", "seller"})
+        String agentType;
+
+        EvaluationService service;
+        String[] terms;
+        int next;
+
+        @Setup
+        public void setUp() {
+            service = new EvaluationService();
+            String[] vocabulary = {"very poor", "poor", "medium", "good", "very good", "very_poor", "very_good", "Good"};
+            terms = new String[VARIANTS];
+            for (int i = 0; i < VARIANTS; i++) {
+                terms[i] = vocabulary[i % vocabulary.length];
+            }
+        }
+    }
+
+    @Benchmark
+    public double calculateUtility(UtilityState s) {
+        Bid bid = s.bids[s.next++ & (VARIANTS - 1)];
+        return s.service.calculateUtility(s.agentType, bid, s.weights, s.issueParams, s.riskBeta);
+    }
+
+    @Benchmark
+    public double normalizeQuantitativeUtility(QuantitativeState s) {
+        return s.service.normalizeQuantitativeUtility(s.values[s.next++ & (VARIANTS - 1)], s.params, s.riskBeta);
+    }
+
+    @Benchmark
+    public double normalizeQualitativeUtility(QualitativeState s) {
+        return s.service.normalizeQualitativeUtility(s.agentType, s.terms[s.next++ & (VARIANTS - 1)]);
+    }
+
+    /**
+     * Composição dos issues de cada lance.
+     */
+    public enum IssueMix { MIXED, QUANTITATIVE, QUALITATIVE }
+
+    static Map<String, IssueParameters> issueParams() {
+        Map<String, IssueParameters> params = new HashMap<>();
+        params.put("price", new IssueParameters(50.0, 60.0, IssueType.COST));
+        params.put("delivery", new IssueParameters(1.0, 10.0, IssueType.COST));
+        params.put("quality", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+        params.put("service", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+        return params;
+    }
+
+    /**
+     * O i-ésimo lance de uma série com preços, prazos e termos variados.
+     */
+    static Bid bid(IssueMix mix, int i) {
+        String[] terms = {"very poor", "poor", "medium", "good", "very good"};
+        List<NegotiationIssue> issues = new ArrayList<>();
+        if (mix != IssueMix.QUALITATIVE) {
+            issues.add(new NegotiationIssue("Price", 50.0 + (i * 7 % 11)));
+        }
+        if (mix != IssueMix.QUANTITATIVE) {
+            issues.add(new NegotiationIssue("Quality", terms[i % terms.length]));
+        }
+        if (mix != IssueMix.QUALITATIVE) {
+            issues.add(new NegotiationIssue("Delivery", 1.0 + (i * 5 % 10)));
+        }
+        if (mix != IssueMix.QUANTITATIVE) {
+            issues.add(new NegotiationIssue("Service", terms[(i + 2) % terms.length]));
+        }
+        return new Bid(new ProductBundle(new int[]{1, 1, 0, 0}), issues, new int[]{1000, 1000, 0, 0});
+    }
+}
@@ -5,28 +5,34 @@ import jade.core.ProfileImpl;
 import jade.core.Runtime;
 import jade.wrapper.AgentController;
 import jade.wrapper.ContainerController;
+import mas.logic.ConfigLoader;
 
 public class App {
     public static void main(String[] args) throws Exception {
         Runtime rt = Runtime.instance();
         Profile p = new ProfileImpl();
         p.setParameter(Profile.GUI, "true");
+        // Tamanho máximo de página das buscas no DF (o padrão do JADE é 100)
+        p.setParameter("jade_domain_df_maxresult", ConfigLoader.getInstance().getString("discovery.pageSize"));
         ContainerController cc = rt.createMainContainer(p);
 
         // Create agents
         AgentController ca = cc.createNewAgent("ca", "mas.agents.CoordinatorAgent", null);
         AgentController sda = cc.createNewAgent("sda", "mas.agents.SynergyDeterminationAgent", null);
         AgentController tda = cc.createNewAgent("tda", "mas.agents.TaskDecomposerAgent", null);
-        AgentController s1 = cc.createNewAgent("s1", "mas.agents.SellerAgent", null);
-        AgentController s2 = cc.createNewAgent("s2", "mas.agents.SellerAgent", null);
-        AgentController s3 = cc.createNewAgent("s3", "mas.agents.SellerAgent", null);
+        // Os vendedores se registram no DF; o CA os descobre a partir dos produtos demandados
+        int sellers = ConfigLoader.getInstance().getInt("app.sellers");
+        AgentController[] sellerAgents = new AgentController[sellers];
+        for (int i = 0; i < sellers; i++) {
+            sellerAgents[i] = cc.createNewAgent("s" + (i + 1), "mas.agents.SellerAgent", null);
+        }
 
         // Start agents
         ca.start();
         sda.start();
         tda.start();
-        s1.start();
-        s2.start();
-        s3.start();
+        for (AgentController seller : sellerAgents) {
+            seller.start();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package mas;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+import mas.agents.AgentPlacement;
+import mas.logic.ConfigLoader;
+import mas.logic.PlacementPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inicia a plataforma distribuída: um Main-Container (CA, SDA e TDA) mais
+ * 'launcher.containers' containers periféricos ("worker-1", "worker-2", ...), que recebem os
+ * vendedores e, via {@link AgentPlacement}, os BAs criados pelo Coordenador.
+ * <p>
+ * 'launcher.mode' define onde ficam os periféricos: "local" (na mesma JVM) ou "process"
+ * (uma JVM por container, na mesma máquina, cada uma com o seu heap e as suas threads).
+ * Os vendedores são distribuídos entre os periféricos segundo 'placement.policy'.
+ */
+public class DistributedLauncher {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedLauncher.class);
+
+    private static final String SELLER_CLASS = "mas.agents.SellerAgent";
+
+    public static void main(String[] args) throws Exception {
+        ConfigLoader config = ConfigLoader.getInstance();
+        int containers = config.getInt("launcher.containers");
+        boolean separateProcesses = "process".equalsIgnoreCase(config.getString("launcher.mode"));
+
+        Runtime rt = Runtime.instance();
+        Profile p = new ProfileImpl();
+        p.setParameter(Profile.GUI, config.getString("launcher.gui"));
+        // Tamanho máximo de página das buscas no DF (o padrão do JADE é 100)
+        p.setParameter("jade_domain_df_maxresult", config.getString("discovery.pageSize"));
+        ContainerController main = rt.createMainContainer(p);
+        String port = p.getParameter(Profile.LOCAL_PORT, "1099");
+
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= containers; i++) {
+            names.add("worker-" + i);
+        }
+        Map<String, List<String>> sellersByContainer = placeSellers(config.getInt("app.sellers"),
+                names.isEmpty() ? List.of(main.getContainerName()) : names);
+
+        if (names.isEmpty()) {
+            startAgents(main, sellersByContainer.get(main.getContainerName()));
+        }
+        for (String name : names) {
+            List<String> sellers = sellersByContainer.get(name);
+            if (separateProcesses) {
+                startProcess(name, port, sellers);
+            } else {
+                Profile peripheral = new ProfileImpl(false);
+                peripheral.setParameter(Profile.MAIN_HOST, "localhost");
+                peripheral.setParameter(Profile.MAIN_PORT, port);
+                peripheral.setParameter(Profile.CONTAINER_NAME, name);
+                ContainerController container = rt.createAgentContainer(peripheral);
+                AgentPlacement.registerLocalContainer(name, container);
+                startAgents(container, sellers);
+            }
+            logger.info("Launcher: Container {} started with {} seller(s){}.", name, sellers.size(),
+                    separateProcesses ? " in a separate JVM" : "");
+        }
+
+        main.createNewAgent("ca", "mas.agents.CoordinatorAgent", null).start();
+        main.createNewAgent("sda", "mas.agents.SynergyDeterminationAgent", null).start();
+        main.createNewAgent("tda", "mas.agents.TaskDecomposerAgent", null).start();
+    }
+
+    /**
+     * Distribui os vendedores s1..sN entre os containers segundo 'placement.policy'.
+     */
+    private static Map<String, List<String>> placeSellers(int sellers, List<String> containers) {
+        PlacementPolicy policy = new PlacementPolicy(
+                PlacementPolicy.parse(ConfigLoader.getInstance().getString("placement.policy")), containers);
+        Map<String, List<String>> placement = new LinkedHashMap<>();
+        for (String container : containers) {
+            placement.put(container, new ArrayList<>());
+        }
+        for (int i = 1; i <= sellers; i++) {
+            String container = policy.choose();
+            policy.acquire(container);
+            placement.get(container).add("s" + i);
+        }
+        return placement;
+    }
+
+    private static void startAgents(ContainerController container, List<String> sellers) throws Exception {
+        for (String seller : sellers) {
+            AgentController agent = container.createNewAgent(seller, SELLER_CLASS, null);
+            agent.start();
+        }
+    }
+
+    /**
+     * Inicia um container periférico numa nova JVM, com o mesmo classpath, já com os seus vendedores.
+     */
+    private static void startProcess(String name, String port, List<String> sellers) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("jade.Boot");
+        command.add("-container");
+        command.add("-host");
+        command.add("localhost");
+        command.add("-port");
+        command.add(port);
+        command.add("-container-name");
+        command.add(name);
+        if (!sellers.isEmpty()) {
+            List<String> specs = new ArrayList<>();
+            for (String seller : sellers) {
+                specs.add(seller + ":" + SELLER_CLASS);
+            }
+            command.add("-agents");
+            command.add(String.join(";", specs));
+        }
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        java.lang.Runtime.getRuntime().addShutdownHook(new Thread(process::destroy));
+    }
+}
@@ -0,0 +1,309 @@
+package mas.agents;
+
+import jade.content.ContentElement;
+import jade.content.lang.sl.SLCodec;
+import jade.content.onto.basic.Action;
+import jade.content.onto.basic.Result;
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.ContainerID;
+import jade.core.Location;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.FIPANames;
+import jade.domain.JADEAgentManagement.CreateAgent;
+import jade.domain.JADEAgentManagement.JADEManagementOntology;
+import jade.domain.JADEAgentManagement.QueryPlatformLocationsAction;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+import mas.logic.ConfigLoader;
+import mas.logic.PlacementPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Distribui os agentes criados por um agente (ex: os BAs do Coordenador) entre os containers
+ * da plataforma, segundo a {@link PlacementPolicy} de 'placement.policy'.
+ * <p>
+ * Os containers são descobertos no AMS. Havendo containers periféricos, o Main-Container
+ * (onde ficam CA, SDA e TDA) não recebe BAs. Containers da mesma JVM (registrados pelo
+ * {@link mas.DistributedLauncher}) são usados diretamente; nos demais (outros processos),
+ * o agente é criado por uma requisição CreateAgent ao AMS, sem esperar a resposta: ela chega a
+ * um comportamento do agente dono, pelo id da conversa, que então avisa quem pediu a criação.
+ * <p>
+ * A carga de cada container, para a política 'least-loaded', é o número de negociações em
+ * andamento nos BAs que ele hospeda ({@link #acquire(AID)} / {@link #release(AID)}).
+ * Usado apenas na thread do agente dono.
+ */
+public final class AgentPlacement {
+    private static final Logger logger = LoggerFactory.getLogger(AgentPlacement.class);
+
+    private static final String MAIN_CONTAINER = "Main-Container";
+    private static final long AMS_TIMEOUT_MILLIS = 10000;
+    private static final Map<String, ContainerController> localContainers = new ConcurrentHashMap<>();
+
+    private final Agent owner;
+    private final PlacementPolicy policy;
+    private final Map<String, String> containerOf = new HashMap<>(); // Nome local do agente -> container
+    private final Map<String, PendingCreation> pendingCreations = new LinkedHashMap<>(); // Id da conversa -> criação no AMS
+    private final Deque<Runnable> completions = new ArrayDeque<>(); // Avisos de criação a entregar
+    private final AmsReplies replies = new AmsReplies();
+
+    private AgentPlacement(Agent owner, PlacementPolicy policy) {
+        this.owner = owner;
+        this.policy = policy;
+    }
+
+    /**
+     * Registra um container criado nesta JVM, para criar agentes nele sem passar pelo AMS.
+     */
+    public static void registerLocalContainer(String name, ContainerController container) {
+        localContainers.put(name, container);
+    }
+
+    /**
+     * Descobre os containers da plataforma e monta a política configurada. Aguarda a resposta
+     * do AMS: deve ser chamado no setup do agente, antes de ele atender as tarefas.
+     */
+    public static AgentPlacement discover(Agent owner) {
+        prepareContentManager(owner);
+        List<String> containers = queryContainers(owner);
+        List<String> peripheral = containers.stream().filter(c -> !MAIN_CONTAINER.equals(c)).sorted().collect(Collectors.toList());
+        if (!peripheral.isEmpty()) {
+            containers = peripheral;
+        }
+        if (containers.isEmpty()) {
+            containers = new ArrayList<>(Arrays.asList(owner.here().getName()));
+        }
+        PlacementPolicy.Kind kind = PlacementPolicy.parse(ConfigLoader.getInstance().getString("placement.policy"));
+        logger.info("{}: Placing agents on {} container(s) {} ({}).", owner.getLocalName(), containers.size(), containers, kind);
+        AgentPlacement placement = new AgentPlacement(owner, new PlacementPolicy(kind, containers));
+        owner.addBehaviour(placement.replies);
+        return placement;
+    }
+
+    /**
+     * Cria e inicia um agente no container escolhido pela política, sem bloquear o agente dono.
+     * Os argumentos são textos, pois são os únicos que chegam intactos a um container de outro
+     * processo.
+     * <p>
+     * {@code onCreated} recebe o AID do agente criado, ou null em caso de falha. É sempre
+     * chamado depois do retorno, na thread do agente dono (também quando a criação é local),
+     * para que quem pede a criação não seja reentrado.
+     */
+    public void create(String name, String className, Consumer<AID> onCreated, String... args) {
+        String container = policy.choose();
+        try {
+            ContainerController controller = container.equals(owner.here().getName())
+                    ? owner.getContainerController() : localContainers.get(container);
+            if (controller != null) {
+                AgentController agent = controller.createNewAgent(name, className, args.length == 0 ? null : args);
+                agent.start();
+                complete(name, container, onCreated, true);
+            } else {
+                requestCreation(name, className, container, args, onCreated);
+            }
+        } catch (Exception e) {
+            logger.error("{}: Failed to create {} in {}", owner.getLocalName(), name, container, e);
+            complete(name, container, onCreated, false);
+        }
+    }
+
+    private void complete(String name, String container, Consumer<AID> onCreated, boolean created) {
+        if (created) {
+            containerOf.put(name, container);
+            logger.debug("{}: Created {} in {}", owner.getLocalName(), name, container);
+        }
+        AID aid = created ? new AID(name, AID.ISLOCALNAME) : null;
+        completions.add(() -> onCreated.accept(aid));
+        replies.restart();
+    }
+
+    /**
+     * Uma negociação começou no agente (conta para a carga do seu container).
+     */
+    public void acquire(AID agent) {
+        String container = agent == null ? null : containerOf.get(agent.getLocalName());
+        if (container != null) {
+            policy.acquire(container);
+        }
+    }
+
+    public void release(AID agent) {
+        String container = agent == null ? null : containerOf.get(agent.getLocalName());
+        if (container != null) {
+            policy.release(container);
+        }
+    }
+
+    public List<String> getContainers() {
+        return policy.getContainers();
+    }
+
+    private void requestCreation(String name, String className, String container, String[] args,
+                                 Consumer<AID> onCreated) throws Exception {
+        CreateAgent create = new CreateAgent();
+        create.setAgentName(name);
+        create.setClassName(className);
+        for (String arg : args) {
+            create.addArguments(arg);
+        }
+        create.setContainer(new ContainerID(container, null));
+        String conversationId = sendAmsRequest(owner, create);
+        pendingCreations.put(conversationId, new PendingCreation(name, container, onCreated,
+                System.currentTimeMillis() + AMS_TIMEOUT_MILLIS));
+        replies.restart();
+    }
+
+    /**
+     * Uma criação pedida ao AMS, aguardando a resposta.
+     */
+    private static final class PendingCreation {
+        private final String name;
+        private final String container;
+        private final Consumer<AID> onCreated;
+        private final long deadline;
+
+        private PendingCreation(String name, String container, Consumer<AID> onCreated, long deadline) {
+            this.name = name;
+            this.container = container;
+            this.onCreated = onCreated;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Recebe as respostas do AMS às criações pendentes (pelo id da conversa), encerra as que
+     * passaram do prazo e entrega os avisos de criação a quem os pediu. Consome toda resposta
+     * a pedidos deste agente: as que chegam depois do prazo (e os AGREE) são descartadas em vez
+     * de ficarem para sempre na fila de mensagens.
+     */
+    private final class AmsReplies extends CyclicBehaviour {
+        private final MessageTemplate mt = new MessageTemplate((MessageTemplate.MatchExpression) msg ->
+                msg.getConversationId() != null && msg.getConversationId().startsWith(conversationPrefix(owner)));
+
+        @Override
+        public void action() {
+            ACLMessage reply;
+            while ((reply = myAgent.receive(mt)) != null) {
+                if (reply.getPerformative() == ACLMessage.AGREE) {
+                    continue; // Passo intermediário do FIPA-Request
+                }
+                PendingCreation pending = pendingCreations.remove(reply.getConversationId());
+                if (pending == null) {
+                    logger.debug("{}: Discarding late AMS reply {}.", owner.getLocalName(), reply.getConversationId());
+                    continue;
+                }
+                boolean created = reply.getPerformative() == ACLMessage.INFORM;
+                if (!created) {
+                    logger.error("{}: AMS did not create {} in {}: {}", owner.getLocalName(), pending.name, pending.container,
+                            reply.getContent());
+                }
+                complete(pending.name, pending.container, pending.onCreated, created);
+            }
+
+            long now = System.currentTimeMillis();
+            long nextDeadline = Long.MAX_VALUE;
+            for (Iterator<PendingCreation> it = pendingCreations.values().iterator(); it.hasNext(); ) {
+                PendingCreation pending = it.next();
+                if (pending.deadline <= now) {
+                    it.remove();
+                    logger.error("{}: AMS did not create {} in {}: timeout", owner.getLocalName(), pending.name, pending.container);
+                    complete(pending.name, pending.container, pending.onCreated, false);
+                } else {
+                    nextDeadline = Math.min(nextDeadline, pending.deadline);
+                }
+            }
+
+            Runnable completion;
+            while ((completion = completions.poll()) != null) {
+                completion.run();
+            }
+            if (nextDeadline == Long.MAX_VALUE) {
+                block();
+            } else {
+                block(nextDeadline - now);
+            }
+        }
+    }
+
+    private static List<String> queryContainers(Agent owner) {
+        List<String> names = new ArrayList<>();
+        try {
+            ACLMessage reply = requestAms(owner, new QueryPlatformLocationsAction());
+            if (reply == null || reply.getPerformative() != ACLMessage.INFORM) {
+                logger.warn("{}: Could not list platform containers; using the local one.", owner.getLocalName());
+                return names;
+            }
+            ContentElement content = owner.getContentManager().extractContent(reply);
+            jade.util.leap.Iterator it = ((Result) content).getItems().iterator();
+            while (it.hasNext()) {
+                names.add(((Location) it.next()).getName());
+            }
+        } catch (Exception e) {
+            logger.warn("{}: Could not list platform containers; using the local one.", owner.getLocalName(), e);
+        }
+        return names;
+    }
+
+    /**
+     * Envia uma ação de gerenciamento ao AMS e aguarda a resposta final (INFORM ou falha),
+     * ignorando o AGREE intermediário do protocolo FIPA-Request.
+     */
+    private static ACLMessage requestAms(Agent owner, jade.content.Concept action) throws Exception {
+        String conversationId = sendAmsRequest(owner, action);
+        MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchConversationId(conversationId),
+                MessageTemplate.not(MessageTemplate.MatchPerformative(ACLMessage.AGREE)));
+        ACLMessage reply = owner.blockingReceive(mt, AMS_TIMEOUT_MILLIS);
+        // Descarta o AGREE já recebido, se houver
+        owner.receive(MessageTemplate.and(MessageTemplate.MatchConversationId(conversationId),
+                MessageTemplate.MatchPerformative(ACLMessage.AGREE)));
+        return reply;
+    }
+
+    /**
+     * Envia uma ação de gerenciamento ao AMS sem aguardar a resposta.
+     *
+     * @return O id da conversa, pelo qual a resposta é reconhecida.
+     */
+    private static String sendAmsRequest(Agent owner, jade.content.Concept action) throws Exception {
+        ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+        request.addReceiver(owner.getAMS());
+        request.setLanguage(FIPANames.ContentLanguage.FIPA_SL);
+        request.setOntology(JADEManagementOntology.getInstance().getName());
+        request.setProtocol(FIPANames.InteractionProtocol.FIPA_REQUEST);
+        String conversationId = conversationPrefix(owner) + System.currentTimeMillis() + "-" + System.nanoTime();
+        request.setConversationId(conversationId);
+        owner.getContentManager().fillContent(request, new Action(owner.getAMS(), action));
+        owner.send(request);
+        return conversationId;
+    }
+
+    private static String conversationPrefix(Agent owner) {
+        return "placement-" + owner.getLocalName() + "-";
+    }
+
+    private static void prepareContentManager(Agent owner) {
+        if (owner.getContentManager().lookupLanguage(FIPANames.ContentLanguage.FIPA_SL) == null) {
+            owner.getContentManager().registerLanguage(new SLCodec(), FIPANames.ContentLanguage.FIPA_SL);
+        }
+        if (owner.getContentManager().lookupOntology(JADEManagementOntology.getInstance().getName()) == null) {
+            owner.getContentManager().registerOntology(JADEManagementOntology.getInstance());
+        }
+    }
+}
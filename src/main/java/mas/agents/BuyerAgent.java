@@ -2,132 +2,164 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.Behaviour;
-import jade.core.behaviours.FSMBehaviour;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.OneShotBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import jade.lang.acl.UnreadableException;
+import mas.logic.AdaptiveTimeout;
 import mas.logic.ConcessionService;
 import mas.logic.ConfigLoader;
 import mas.logic.EvaluationService;
 import mas.logic.EvaluationService.IssueParameters;
 import mas.logic.EvaluationService.IssueType;
+import mas.logic.NegotiationClock;
+import mas.metrics.NegotiationMetrics;
+import mas.metrics.NegotiationMetrics.Outcome;
 import mas.models.Bid;
 import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
 import mas.models.Proposal;
+import mas.trace.NegotiationTraceRecorder;
+import mas.trace.NegotiationTraceRecorder.Decision;
+import mas.trace.NegotiationTraceRecorder.Role;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Representa a empresa compradora na negociação bilateral.
- * Este agente é criado pelo CoordinatorAgent para negociar com um SellerAgent específico.
- * Ele implementa uma Máquina de Estados Finitos (FSM) para gerenciar o protocolo de
- * oferta alternada (alternating-offer protocol).
+ * Este agente é criado pelo CoordinatorAgent para negociar com um ou mais SellerAgents,
+ * seguindo o protocolo de oferta alternada (alternating-offer protocol).
  * <p>
- * TODO (Simplificação de Arquitetura):
- * Esta implementação negocia apenas UM ÚNICO LANCE (Bid) com o vendedor.
- * O artigo exige que o BA negocie uma PROPOSTA (Proposal) contendo MÚLTIPLOS LANCES
- * simultaneamente. A lógica nos estados (ex: EvaluateProposal)
- * deve ser refatorada para iterar sobre uma lista de lances "bid-by-bid",
- * em vez de apenas processar `getBids().get(0)`.
+ * A negociação é feita "bid-by-bid": cada Proposal do vendedor contém vários lances
+ * (um por pacote) e, a cada rodada, cada lance é avaliado e aceito ou contra-ofertado
+ * individualmente. Lances aceitos saem da negociação; os demais seguem para a próxima rodada.
+ * Cada lance acordado vira um NegotiationResult reportado ao Coordenador.
+ * <p>
+ * Um único agente pode conduzir várias negociações ao mesmo tempo (modo multiplexado):
+ * o estado de cada negociação fica numa {@link NegotiationSession}, indexada pelo id da
+ * conversa, e um único comportamento ({@link MessageDispatcher}) entrega cada mensagem
+ * recebida à sessão correspondente. O avaliador, o perfil de concessão e as preferências
+ * são compartilhados entre as sessões.
+ * <p>
+ * Argumentos: [0] o AID do Vendedor (ou uma coleção de AIDs, no modo multiplexado);
+ * [1] o AID do Coordenador. Sem argumentos, o agente fica ocioso no {@link BuyerPool},
+ * aguardando negociações atribuídas por mensagem ({@value #PROTOCOL_ASSIGN_NEGOTIATION}).
  */
 public class BuyerAgent extends Agent {
     private static final Logger logger = LoggerFactory.getLogger(BuyerAgent.class);
 
     private static final String PROTOCOL_REPORT_RESULT = "report-negotiation-result";
-    // Nomes dos estados
-    private static final String STATE_SEND_REQUEST = "SendRequest";
-    private static final String STATE_WAIT_FOR_PROPOSAL = "WaitForProposal";
-    private static final String STATE_EVALUATE_PROPOSAL = "EvaluateProposal";
-    private static final String STATE_ACCEPT_OFFER = "AcceptOffer";
-    private static final String STATE_MAKE_COUNTER_OFFER = "MakeCounterOffer";
-    private static final String STATE_END_NEGOTIATION = "EndNegotiation";
-
-    // Variáveis de estado da negociação
-    private AID sellerAgent;
-    private AID coordinatorAgent;
-    private ACLMessage receivedProposalMsg;
-    private Bid finalAcceptedBid = null; // TODO: Deve ser uma List<Bid> ou List<NegotiationResult>
-    private double finalUtility = 0.0;
-    private int currentRound = 0;
-    private String negotiationId;
-    private String lastMessageReplyWith;
-    // Serviços e Configurações
+    private static final String PARAM_SELLER = "seller"; // Vendedor a que o relatório se refere
+    private static final String PARAM_ROUNDS = "rounds"; // Rodadas usadas na negociação
+    private static final String PARAM_OUTCOME = "outcome"; // COMPLETED, FAILED ou TIMED_OUT
+    static final String PARAM_BUDGET = "budget-millis"; // Orçamento da negociação (modo por tempo)
+    static final String PARAM_TASK = "task"; // Tarefa do Coordenador, devolvida no relatório
+    static final String PROTOCOL_ASSIGN_NEGOTIATION = "assign-negotiation";
+    static final String PROTOCOL_CANCEL_NEGOTIATION = "cancel-negotiation";
+
+    private final Map<String, NegotiationSession> sessions = new HashMap<>(); // Id da conversa -> sessão
+    private long sessionSequence = 0;
+    private AdaptiveTimeout timeouts; // RTT das conversas -> prazo de resposta do vendedor
+    private DeadlineWatcher deadlines; // Temporizador único de todas as sessões
+    // Serviços e Configurações (compartilhados por todas as sessões)
     private EvaluationService evalService;
     private ConcessionService concessionService;
+    private NegotiationTraceRecorder trace;
+    private NegotiationMetrics metrics;
     private Map<String, Double> weights;
     private Map<String, IssueParameters> issueParams; // TODO: Deve ser um Map<String, Map<String, IssueParameters>> (Bundle -> Issue -> Params)
     private double acceptanceThreshold;
     private double buyerRiskBeta;
     private double buyerGamma;
-    private int maxRounds;
     private double discountRate;
-    private Bid lastSentCounterBid = null;
+    private int parallelBidThreshold;
 
     protected void setup() {
         logger.info("Buyer Agent {} is ready.", getAID().getName());
+        LocalContentExchange.register(this);
+
+        setupBuyerPreferences();
+        metrics = NegotiationMetrics.register("BuyerAgent", getLocalName());
+        addBehaviour(new MessageDispatcher());
+        timeouts = AdaptiveTimeout.fromConfig();
+        deadlines = new DeadlineWatcher(this, conversationId -> {
+            NegotiationSession session = sessions.get(conversationId);
+            if (session != null) {
+                session.timeout();
+            }
+        });
+        addBehaviour(deadlines);
+        addBehaviour(new AssignmentReceiver());
+        addBehaviour(new CancellationReceiver());
 
         Object[] args = getArguments();
-        if (args != null && args.length > 1) {
-            sellerAgent = (AID) args[0];
+        if (args == null || args.length == 0) {
+            logger.info("{}: Started without sellers, waiting for assignments.", getName());
+            return;
+        }
+        List<AID> sellers = new ArrayList<>();
+        AID coordinatorAgent = null;
+        if (args.length > 1) {
+            if (args[0] instanceof AID) {
+                sellers.add((AID) args[0]);
+            } else if (args[0] instanceof Collection) {
+                for (Object seller : (Collection<?>) args[0]) {
+                    sellers.add((AID) seller);
+                }
+            }
             coordinatorAgent = (AID) args[1];
-            logger.info("{}: Assigned seller is {}", getName(), sellerAgent.getName());
-        } else {
-            logger.error("{}: Missing arguments (sellerAID, coordinatorAID). Terminating.", getName());
+        }
+        if (sellers.isEmpty() || coordinatorAgent == null) {
+            logger.error("{}: Missing arguments (sellerAID(s), coordinatorAID). Terminating.", getName());
             doDelete();
             return;
         }
+        logger.info("{}: Assigned {} seller(s): {}", getName(), sellers.size(),
+                sellers.stream().map(AID::getLocalName).collect(Collectors.joining(", ")));
 
-        setupBuyerPreferences();
-
-        FSMBehaviour fsm = new FSMBehaviour(this) {
+        AID coordinator = coordinatorAgent;
+        addBehaviour(new OneShotBehaviour() {
             @Override
-            public int onEnd() {
-                logger.info("{}: FSM finished negotiation with {}.", myAgent.getLocalName(), sellerAgent.getLocalName());
-                myAgent.addBehaviour(new InformCoordinatorDone());
-                return super.onEnd();
+            public void action() {
+                for (AID seller : sellers) {
+                    startSession(seller, coordinator, null);
+                }
             }
-        };
-
-        // REGISTRA ESTADOS
-        fsm.registerFirstState(new SendRequest(), STATE_SEND_REQUEST);
-        fsm.registerState(new WaitForProposal(this), STATE_WAIT_FOR_PROPOSAL);
-        fsm.registerState(new EvaluateProposal(), STATE_EVALUATE_PROPOSAL);
-        fsm.registerState(new AcceptOffer(), STATE_ACCEPT_OFFER);
-        fsm.registerState(new MakeCounterOffer(), STATE_MAKE_COUNTER_OFFER);
-        fsm.registerLastState(new EndNegotiation(), STATE_END_NEGOTIATION);
-
-        // REGISTRA TRANSIÇÕES
-        fsm.registerDefaultTransition(STATE_SEND_REQUEST, STATE_WAIT_FOR_PROPOSAL);
-        fsm.registerTransition(STATE_WAIT_FOR_PROPOSAL, STATE_EVALUATE_PROPOSAL, 1); // 1 = Proposta recebida
-        fsm.registerTransition(STATE_WAIT_FOR_PROPOSAL, STATE_END_NEGOTIATION, 0);  // 0 = Timeout ou erro
-        fsm.registerTransition(STATE_WAIT_FOR_PROPOSAL, STATE_END_NEGOTIATION, 2);  // 2 = Vendedor aceitou
-        fsm.registerTransition(STATE_EVALUATE_PROPOSAL, STATE_ACCEPT_OFFER, 1);      // Utilidade aceitável
-        fsm.registerTransition(STATE_EVALUATE_PROPOSAL, STATE_MAKE_COUNTER_OFFER, 0);// Utilidade baixa, fazer contraproposta
-        fsm.registerTransition(STATE_EVALUATE_PROPOSAL, STATE_END_NEGOTIATION, 2);   // Deadline atingido ou falha
-        fsm.registerDefaultTransition(STATE_ACCEPT_OFFER, STATE_END_NEGOTIATION);
-        fsm.registerDefaultTransition(STATE_MAKE_COUNTER_OFFER, STATE_WAIT_FOR_PROPOSAL);
-
-        addBehaviour(fsm);
+        });
+    }
+
+    @Override
+    protected void takeDown() {
+        LocalContentExchange.deregister(this);
+        if (metrics != null) {
+            metrics.unregister();
+        }
     }
 
     private void setupBuyerPreferences() {
         ConfigLoader config = ConfigLoader.getInstance();
         this.evalService = new EvaluationService();
         this.concessionService = new ConcessionService();
+        this.trace = NegotiationTraceRecorder.getInstance();
 
         this.acceptanceThreshold = config.getDouble("buyer.acceptanceThreshold");
         this.buyerRiskBeta = config.getDouble("buyer.riskBeta");
         this.buyerGamma = config.getDouble("buyer.gamma");
-        this.maxRounds = config.getInt("negotiation.maxRounds");
         this.discountRate = config.getDouble("negotiation.discountRate");
+        this.parallelBidThreshold = config.getInt("negotiation.parallelBidThreshold");
 
         weights = new HashMap<>();
         weights.put("price", config.getDouble("weights.price"));
@@ -164,295 +196,528 @@ public class BuyerAgent extends Agent {
         }
     }
 
-    // --- Comportamentos da FSM ---
-
     /**
-     * Estado 1: Envia o "Call for Proposal" (CFP) para o Vendedor.
-     * Inicia a negociação.
+     * Inicia uma nova negociação bilateral com o vendedor.
+     *
+     * @param seller      O vendedor.
+     * @param coordinator O Coordenador que recebe o resultado.
+     * @param task        A tarefa do Coordenador a que a negociação pertence (ou null).
      */
-    private class SendRequest extends OneShotBehaviour {
-        @Override
-        public void action() {
-            currentRound = 1;
-            negotiationId = "neg-" + sellerAgent.getLocalName() + "-" + System.currentTimeMillis();
-            logger.info("{} [R{}]: Sending call for proposal to {}", myAgent.getLocalName(), currentRound, sellerAgent.getLocalName());
-            ACLMessage cfp = new ACLMessage(ACLMessage.REQUEST);
-            cfp.addReceiver(sellerAgent);
-            cfp.setContent("send-proposal");
-            cfp.setConversationId(negotiationId);
-            lastMessageReplyWith = "req-" + negotiationId + "-" + System.currentTimeMillis();
-            cfp.setReplyWith(lastMessageReplyWith);
-            myAgent.send(cfp);
-        }
+    private void startSession(AID seller, AID coordinator, String task) {
+        NegotiationSession session = new NegotiationSession(seller, coordinator, task);
+        sessions.put(session.negotiationId, session);
+        session.sendRequest();
     }
 
     /**
-     * Estado 2: Aguarda uma resposta (Proposta) do Vendedor.
-     * Implementa um timeout para evitar bloqueio infinito.
+     * Avalia um único lance do vendedor (Eq. 7) e, se não for aceitável, já gera o contra-lance.
+     * Não altera o estado do agente, podendo ser executado em paralelo para vários lances.
+     *
+     * @param progress     Progresso da negociação nesta rodada (ver {@link NegotiationClock}).
+     * @param nextProgress Progresso estimado da próxima rodada.
+     * @param finalRound   Se não haverá próxima rodada: aceita qualquer lance acima do limiar.
      */
+    private BidDecision decide(Bid receivedBid, double progress, double nextProgress, boolean finalRound) {
+        // TODO (SINERGIA): O 'issueParams' usado aqui é genérico.
+        // Para a sinergia, o EvaluationService deveria ser chamado com
+        // parâmetros [min, max] específicos para o
+        // 'receivedBid.getProductBundle()'.
+        double utility = evalService.calculateUtility("buyer", receivedBid, weights, issueParams, buyerRiskBeta);
+
+        // Implementação da Eq. 7: U(Bid_s) >= U_min E U(Bid_s) >= U(Bid_b(t+1))
+        Bid hypotheticalCounter = concessionService.generateCounterBid(receivedBid, nextProgress, buyerGamma, discountRate, issueParams, "buyer");
+        double nextCounterUtility = evalService.calculateUtility("buyer", hypotheticalCounter, weights, issueParams, buyerRiskBeta);
+
+        if (utility >= acceptanceThreshold && (finalRound || utility >= nextCounterUtility)) {
+            return new BidDecision(receivedBid, utility, null);
+        }
+        Bid counterBid = concessionService.generateCounterBid(receivedBid, progress, buyerGamma, discountRate, issueParams, "buyer");
+        return new BidDecision(receivedBid, utility, counterBid);
+    }
+
+    // --- Comportamentos ---
+
     /**
-     * Estado 2: Aguarda uma resposta (Proposta OU Aceitação) do Vendedor.
-     * Implementa um timeout para evitar bloqueio infinito.
-     * Esta versão foi CORRIGIDA para lidar com ACCEPT_PROPOSAL.
+     * Comportamento único que recebe as respostas (Proposta OU Aceitação) de todos os
+     * vendedores e as entrega à sessão da conversa correspondente. Respostas de
+     * conversas encerradas ou fora de ordem (in-reply-to antigo) são descartadas.
      */
-    private class WaitForProposal extends Behaviour {
-        private boolean responseReceived = false;
-        private long startTime;
-        private long timeoutMillis = 15000;
-        private int exitValue = 0; // 0=Timeout, 1=Propose (avaliar), 2=Accept (terminar)
-
-        public WaitForProposal(Agent a) {
-            super(a);
-        }
+    private class MessageDispatcher extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.or(
+                MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL)
+        );
 
         @Override
-        public void onStart() {
-            responseReceived = false;
-            startTime = System.currentTimeMillis();
-            exitValue = 0; // Reseta o valor de saída
-            // logger.debug("{} [R{}]: Waiting for response from {}", myAgent.getLocalName(), currentRound, sellerAgent.getLocalName());
+        public void action() {
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            NegotiationSession session = msg.getConversationId() == null ? null : sessions.get(msg.getConversationId());
+            if (session == null || !session.seller.equals(msg.getSender())
+                    || !session.lastMessageReplyWith.equals(msg.getInReplyTo())) {
+                logger.debug("{}: Discarding unexpected message from {} (conversation {}).",
+                        myAgent.getLocalName(), msg.getSender().getLocalName(), msg.getConversationId());
+                LocalContentExchange.discard(msg);
+                return;
+            }
+            session.replyReceived();
+            if (msg.getPerformative() == ACLMessage.PROPOSE) {
+                session.evaluateProposal(msg);
+            } else {
+                session.handleSellerAcceptance(msg);
+            }
         }
+    }
+
+    /**
+     * Recebe negociações atribuídas pelo Coordenador (ex: agente emprestado do {@link BuyerPool}).
+     * O conteúdo é o AID do vendedor; o resultado é reportado ao remetente da atribuição,
+     * com a tarefa do parâmetro 'task' (um Coordenador pode conduzir várias tarefas ao mesmo tempo).
+     */
+    private class AssignmentReceiver extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                MessageTemplate.MatchProtocol(PROTOCOL_ASSIGN_NEGOTIATION)
+        );
 
         @Override
         public void action() {
-
-            MessageTemplate idTemplate = MessageTemplate.and(
-                    MessageTemplate.MatchConversationId(negotiationId),
-                    MessageTemplate.MatchInReplyTo(lastMessageReplyWith)
-            );
-
-            // Template para Proposta
-            MessageTemplate proposeTemplate = MessageTemplate.MatchPerformative(ACLMessage.PROPOSE);
-            // Template para Aceitação
-            MessageTemplate acceptTemplate = MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL);
-            // Combina ambos com OR
-            MessageTemplate performativeTemplate = MessageTemplate.or(proposeTemplate, acceptTemplate);
-
-            // Combina com o Remetente (Seller)
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchSender(sellerAgent),
-                    MessageTemplate.and(performativeTemplate, idTemplate)
-            );
-
-            ACLMessage msg = myAgent.receive(mt);
-
-            if (msg != null) {
-                responseReceived = true;
-                receivedProposalMsg = msg; // Armazena a mensagem (seja ela qual for)
-
-                if (msg.getPerformative() == ACLMessage.PROPOSE) {
-                    // logger.debug("{} [R{}]: Received proposal.", myAgent.getLocalName(), currentRound);
-                    exitValue = 1; // Proposta recebida, ir para EvaluateProposal
-                } else { // Deve ser ACCEPT_PROPOSAL
-                    logger.info("{}: Seller ACCEPTED my last counter-offer.", myAgent.getLocalName());
-                    if (lastSentCounterBid != null) {
-                        finalAcceptedBid = lastSentCounterBid;
-                        finalUtility = evalService.calculateUtility("buyer", finalAcceptedBid, weights, issueParams, buyerRiskBeta);
-                    } else {
-                        logger.warn("{}: Seller accepted, but lastSentCounterBid is null!", myAgent.getLocalName());
-                    }
-                    exitValue = 2;
-                }
-
-            } else {
-                long elapsed = System.currentTimeMillis() - startTime;
-                if (elapsed > timeoutMillis) {
-                    logger.warn("{}: Timeout waiting for proposal from {}. Ending negotiation.", myAgent.getLocalName(), sellerAgent.getLocalName());
-                    responseReceived = true; // Marca 'done' para sair
-                    exitValue = 0; // Sai com timeout
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            try {
+                Serializable content = LocalContentExchange.getContent(msg);
+                if (content instanceof AID) {
+                    logger.info("{}: Assigned seller {} by {}", myAgent.getLocalName(), ((AID) content).getLocalName(), msg.getSender().getLocalName());
+                    startSession((AID) content, msg.getSender(), msg.getUserDefinedParameter(PARAM_TASK));
                 } else {
-                    block(500); // Espera um pouco antes de checar de novo
+                    logger.warn("{}: Invalid negotiation assignment from {}", myAgent.getLocalName(), msg.getSender().getLocalName());
                 }
+            } catch (UnreadableException e) {
+                logger.error("{}: Failed to read negotiation assignment.", myAgent.getLocalName(), e);
             }
         }
+    }
 
-        @Override
-        public boolean done() {
-            return responseReceived;
-        }
+    /**
+     * Recebe do Coordenador o cancelamento de negociações que já não podem melhorar a
+     * solução da WDP. O vendedor a que o cancelamento se refere vem no parâmetro 'seller' e,
+     * se houver, a tarefa no parâmetro 'task'.
+     */
+    private class CancellationReceiver extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.CANCEL),
+                MessageTemplate.MatchProtocol(PROTOCOL_CANCEL_NEGOTIATION)
+        );
 
         @Override
-        public int onEnd() {
-            return exitValue; // Retorna 0 (Timeout), 1 (Propose) ou 2 (Accept)
+        public void action() {
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            String sellerName = msg.getUserDefinedParameter(PARAM_SELLER);
+            String task = msg.getUserDefinedParameter(PARAM_TASK);
+            List<NegotiationSession> cancelled = sessions.values().stream()
+                    .filter(s -> s.seller.getLocalName().equals(sellerName) && s.coordinator.equals(msg.getSender())
+                            && (task == null || task.equals(s.task)))
+                    .collect(Collectors.toList());
+            if (cancelled.isEmpty()) {
+                // A negociação já terminou; o relatório está a caminho do Coordenador
+                logger.debug("{}: Nothing to cancel for seller {}.", myAgent.getLocalName(), sellerName);
+            }
+            for (NegotiationSession session : cancelled) {
+                session.cancel();
+            }
         }
     }
 
     /**
-     * Estado 3: Avalia a proposta recebida do Vendedor.
-     * Decide se aceita, rejeita (faz contraproposta) ou encerra por deadline.
+     * Estado de uma negociação bilateral com um vendedor.
+     * Cada método corresponde a um estado do protocolo; as transições acontecem
+     * conforme as respostas do vendedor são entregues pelo {@link MessageDispatcher}.
      */
-    private class EvaluateProposal extends OneShotBehaviour {
-        private int transitionEvent = 2; // Default: falha/deadline
+    private class NegotiationSession {
+        private final AID seller;
+        private final AID coordinator;
+        private final String task;
+        private final String negotiationId;
+        private final List<NegotiationResult> agreedResults = new ArrayList<>(); // Lances acordados com este vendedor
+        private final Set<ProductBundle> openBundles = new LinkedHashSet<>(); // Pacotes ainda em negociação
+        private final Map<ProductBundle, Bid> lastSentCounterBids = new HashMap<>();
+        private List<BidDecision> roundDecisions = new ArrayList<>();
+        private ACLMessage receivedProposalMsg;
+        private String lastMessageReplyWith;
+        private int currentRound = 0;
+        private final AdaptiveTimeout.Conversation rtt = timeouts.newConversation();
+        private final NegotiationClock clock = NegotiationClock.start(0); // Prazo por rodadas ou por tempo
+        private long sentAt; // Envio da última mensagem ainda sem resposta (0 se nenhuma)
+        private boolean timedOut = false;
+        private boolean cancelled = false;
+
+        private NegotiationSession(AID seller, AID coordinator, String task) {
+            this.seller = seller;
+            this.coordinator = coordinator;
+            this.task = task;
+            // Único por vendedor: um vendedor atende várias sessões (de BAs diferentes) ao mesmo tempo
+            this.negotiationId = "neg-" + seller.getLocalName() + "-" + getLocalName() + "-" + System.currentTimeMillis() + "-" + (++sessionSequence);
+        }
 
-        @Override
-        public void action() {
-            currentRound++;
-            logger.info("{} [R{}]: Evaluating proposal from {}", myAgent.getLocalName(), currentRound, sellerAgent.getLocalName());
+        private String name() {
+            return getLocalName() + "/" + seller.getLocalName();
+        }
+
+        /**
+         * Estado 1: Envia o "Call for Proposal" (CFP) para o Vendedor.
+         * Inicia a negociação.
+         */
+        private void sendRequest() {
+            currentRound = 1;
+            logger.info("{} [R{}]: Sending call for proposal to {}", getLocalName(), currentRound, seller.getLocalName());
+            ACLMessage cfp = new ACLMessage(ACLMessage.REQUEST);
+            cfp.addReceiver(seller);
+            cfp.setContent("send-proposal");
+            cfp.setConversationId(negotiationId);
+            if (clock.getMode() == NegotiationClock.Mode.TIME) {
+                // O vendedor concede na mesma escala de tempo
+                cfp.addUserDefinedParameter(PARAM_BUDGET, String.valueOf(clock.getBudgetMillis()));
+            }
+            lastMessageReplyWith = "req-" + negotiationId + "-" + System.currentTimeMillis();
+            cfp.setReplyWith(lastMessageReplyWith);
+            send(cfp);
+            metrics.negotiationStarted();
+            metrics.messageSent();
+            awaitReply();
+        }
+
+        /**
+         * Arma o prazo de resposta do vendedor, adaptado ao RTT medido nesta conversa.
+         */
+        private void awaitReply() {
+            sentAt = System.currentTimeMillis();
+            // Nunca espera além do fim do orçamento (modo por tempo)
+            deadlines.schedule(negotiationId, Math.min(rtt.timeoutMillis(), clock.remainingMillis()));
+        }
+
+        /**
+         * Registra o RTT da rodada na chegada da (primeira) resposta à última mensagem enviada.
+         */
+        private void replyReceived() {
+            if (sentAt > 0) {
+                rtt.sample(System.currentTimeMillis() - sentAt);
+                sentAt = 0;
+            }
+            deadlines.cancel(negotiationId);
+        }
 
-            if (currentRound > maxRounds) {
-                logger.warn("{}: Deadline reached ({}/{}) . Ending negotiation.", myAgent.getLocalName(), currentRound, maxRounds);
-                finalAcceptedBid = null;
-                transitionEvent = 2;
+        /**
+         * Estado 2: Aceitação do Vendedor. Uma aceitação pode cobrir apenas parte dos lances
+         * em aberto; nesse caso a sessão continua aguardando a nova proposta com os lances restantes.
+         */
+        private void handleSellerAcceptance(ACLMessage msg) {
+            try {
+                Serializable content = LocalContentExchange.getContent(msg);
+                if (!(content instanceof Proposal)) {
+                    logger.warn("{}: Seller acceptance without bids: {}", name(), msg.getContent());
+                    openBundles.clear();
+                } else {
+                    for (Bid acceptedBid : ((Proposal) content).getBids()) {
+                        Bid counterBid = lastSentCounterBids.get(acceptedBid.getProductBundle());
+                        if (counterBid == null) {
+                            logger.warn("{}: Seller accepted {} but no counter-offer was sent for it!", name(), acceptedBid.getProductBundle());
+                            continue;
+                        }
+                        double utility = evalService.calculateUtility("buyer", counterBid, weights, issueParams, buyerRiskBeta);
+                        recordAgreement(counterBid, utility);
+                        logger.info("{}: Seller ACCEPTED my counter-offer for {}.", name(), counterBid.getProductBundle());
+                    }
+                }
+            } catch (UnreadableException e) {
+                logger.error("{}: Failed to read seller acceptance content.", name(), e);
+                openBundles.clear();
+            }
+            if (openBundles.isEmpty()) {
+                end();
+            } else {
+                // A nova proposta com os lances restantes vem em seguida
+                deadlines.schedule(negotiationId, Math.min(rtt.timeoutMillis(), clock.remainingMillis()));
+            }
+        }
+
+        /**
+         * Estado 3: Avalia, lance a lance, a proposta recebida do Vendedor.
+         * Lances aceitáveis são aceitos; os demais recebem contra-lances.
+         * Com muitos lances, a avaliação é feita em paralelo.
+         */
+        private void evaluateProposal(ACLMessage msg) {
+            receivedProposalMsg = msg;
+            roundDecisions = new ArrayList<>();
+            currentRound++;
+            logger.info("{} [R{}]: Evaluating proposal from {}", getLocalName(), currentRound, seller.getLocalName());
+
+            if (clock.isExpired(currentRound)) {
+                logger.warn("{}: Deadline reached (round {}, {} ms). Ending negotiation.", name(), currentRound, clock.elapsedMillis());
+                trace.record(negotiationId, currentRound, Role.BUYER, Decision.DEADLINE, null, Double.NaN);
+                LocalContentExchange.discard(msg);
+                closeOpenBundles();
+                end();
                 return;
             }
 
             try {
-                Serializable content = receivedProposalMsg.getContentObject();
-                if (content instanceof Proposal) {
-                    Proposal p = (Proposal) content;
-                    if (p.getBids() != null && !p.getBids().isEmpty()) {
-
-                        // TODO (Simplificação de Arquitetura): Esta é a falha central.
-                        // O código pega apenas o *primeiro* lance.
-                        // O artigo exige que o agente avalie CADA lance na lista p.getBids()
-                        // "bid-by-bid".
-                        // Isto deveria ser um LOOP (for each bid in p.getBids()).
-                        Bid receivedBid = p.getBids().get(0);
-
-                        // TODO (SINERGIA): O 'issueParams' usado aqui é genérico.
-                        // Para a sinergia, o EvaluationService deveria ser chamado com
-                        // parâmetros [min, max] específicos para o
-                        // 'receivedBid.getProductBundle()'.
-                        double utility = evalService.calculateUtility("buyer", receivedBid, weights, issueParams, buyerRiskBeta);
-                        logger.info("{}: Received bid utility = {} (Threshold = {})", myAgent.getLocalName(), String.format("%.4f", utility), String.format("%.4f", acceptanceThreshold));
-
-                        // Implementação da Eq. 7: U(Bid_s) >= U_min E U(Bid_s) >= U(Bid_b(t+1))
-                        Bid hypotheticalCounter = concessionService.generateCounterBid(receivedBid, currentRound + 1, maxRounds, buyerGamma, discountRate, issueParams, "buyer");
-                        double nextCounterUtility = evalService.calculateUtility("buyer", hypotheticalCounter, weights, issueParams, buyerRiskBeta);
-
-                        if (utility >= acceptanceThreshold && utility >= nextCounterUtility) {
-                            logger.info("{}: Offer is acceptable (Utility {} >= Threshold {} AND >= Next Counter {}). Accepting.",
-                                    myAgent.getLocalName(),
-                                    String.format("%.4f", utility),
-                                    String.format("%.4f", acceptanceThreshold),
-                                    String.format("%.4f", nextCounterUtility));
-                            finalAcceptedBid = receivedBid; // TODO: Deveria *adicionar* a uma lista de lances aceitos
-                            finalUtility = utility;
-                            transitionEvent = 1;
-                        } else {
-                            logger.info("{}: Offer not acceptable (Utility {}). Will make counter-offer.", myAgent.getLocalName(), String.format("%.4f", utility));
-                            transitionEvent = 0;
-                            // TODO: Deveria *adicionar* a uma lista de lances a serem contra-ofertados
+                Serializable content = LocalContentExchange.getContent(receivedProposalMsg);
+                if (!(content instanceof Proposal)) {
+                    logger.error("{}: Received unexpected content type: {}", name(), (content == null ? "null" : content.getClass().getName()));
+                    sendCancel(); // Libera a sessão do vendedor, que senão aguardaria até o seu timeout
+                    end();
+                    return;
+                }
+                List<Bid> bids = ((Proposal) content).getBids();
+                if (bids == null || bids.isEmpty()) {
+                    logger.warn("{}: Received empty proposal.", name());
+                    sendCancel();
+                    end();
+                    return;
+                }
+                for (Bid bid : bids) {
+                    openBundles.add(bid.getProductBundle());
+                }
+
+                double progress = clock.progress(currentRound);
+                double nextProgress = clock.nextProgress(currentRound);
+                boolean finalRound = clock.isFinalRound(currentRound);
+                Stream<Bid> stream = bids.size() >= parallelBidThreshold ? bids.parallelStream() : bids.stream();
+                roundDecisions = stream.map(bid -> decide(bid, progress, nextProgress, finalRound)).collect(Collectors.toList());
+
+                boolean anyCounter = false;
+                for (BidDecision decision : roundDecisions) {
+                    trace.record(negotiationId, currentRound, Role.BUYER,
+                            decision.isAccepted() ? Decision.ACCEPT : Decision.COUNTER, decision.bid, decision.utility);
+                    metrics.recordUtility(decision.utility);
+                    if (decision.isAccepted()) {
+                        if (logger.isInfoEnabled()) {
+                            logger.info("{}: Bid for {} is acceptable (Utility {} >= Threshold {}). Accepting.",
+                                    name(), decision.bid.getProductBundle(),
+                                    String.format("%.4f", decision.utility), String.format("%.4f", acceptanceThreshold));
                         }
+                        recordAgreement(decision.bid, decision.utility);
                     } else {
-                        logger.warn("{}: Received empty proposal.", myAgent.getLocalName());
+                        if (logger.isInfoEnabled()) {
+                            logger.info("{}: Bid for {} not acceptable (Utility {}). Will make counter-offer.",
+                                    name(), decision.bid.getProductBundle(), String.format("%.4f", decision.utility));
+                        }
+                        anyCounter = true;
                     }
+                }
+                if (anyCounter && finalRound) {
+                    // Sem tempo para outra rodada: fica com os lances aceitos e sai antes do fim do orçamento
+                    logger.info("{}: Budget almost exhausted ({} of {} ms). Accepting what is acceptable and exiting.",
+                            name(), clock.elapsedMillis(), clock.getBudgetMillis());
+                    trace.record(negotiationId, currentRound, Role.BUYER, Decision.DEADLINE, null, Double.NaN);
+                    acceptOffer();
+                } else if (anyCounter) {
+                    makeCounterOffer();
                 } else {
-                    logger.error("{}: Received unexpected content type: {}", myAgent.getLocalName(), (content == null ? "null" : content.getClass().getName()));
+                    acceptOffer();
                 }
             } catch (UnreadableException e) {
-                logger.error("{}: Failed to read proposal content.", myAgent.getLocalName(), e);
+                logger.error("{}: Failed to read proposal content.", name(), e);
+                sendCancel();
+                end();
             }
         }
 
-        @Override
-        public int onEnd() {
-            return transitionEvent;
-        }
-    }
-
-    /**
-     * Estado 4: Gera e envia uma contraproposta ao Vendedor.
-     */
-    private class MakeCounterOffer extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{} [R{}]: Generating counter-offer...", myAgent.getLocalName(), currentRound);
+        /**
+         * Estado 4: Aceita os lances aprovados nesta rodada (se houver) e envia
+         * uma contraproposta com um contra-lance para cada lance rejeitado.
+         */
+        private void makeCounterOffer() {
+            logger.info("{} [R{}]: Generating counter-offer...", name(), currentRound);
 
             try {
-                Proposal receivedP = (Proposal) receivedProposalMsg.getContentObject();
-                // TODO (Simplificação): Novamente, pega apenas o lance [0].
-                // Isto deveria ser um LOOP que gera contra-lances para CADA
-                // lance que foi rejeitado no estado EvaluateProposal.
-                Bid receivedB = receivedP.getBids().get(0);
-
-                // TODO (SINERGIA): 'issueParams' genérico. Deveria usar params
-                // específicos para o 'receivedB.getProductBundle()'.
-                Bid counterBid = concessionService.generateCounterBid(
-                        receivedB,
-                        currentRound,
-                        maxRounds,
-                        buyerGamma,
-                        discountRate,
-                        issueParams,
-                        "buyer"
-                );
-                lastSentCounterBid = counterBid;
-                // TODO (Simplificação): A contraproposta deveria ser uma *lista*
-                // de todos os contra-lances gerados no loop.
-                Proposal counterProposal = new Proposal(List.of(counterBid));
+                List<Bid> acceptedBids = acceptedBidsOfRound();
+                if (!acceptedBids.isEmpty()) {
+                    sendAcceptance(acceptedBids);
+                }
+
+                List<Bid> counterBids = new ArrayList<>();
+                for (BidDecision decision : roundDecisions) {
+                    if (!decision.isAccepted()) {
+                        counterBids.add(decision.counterBid);
+                        lastSentCounterBids.put(decision.counterBid.getProductBundle(), decision.counterBid);
+                    }
+                }
+                Proposal counterProposal = new Proposal(counterBids);
                 ACLMessage proposeMsg = new ACLMessage(ACLMessage.PROPOSE);
-                proposeMsg.addReceiver(sellerAgent);
+                proposeMsg.addReceiver(seller);
                 proposeMsg.setConversationId(negotiationId);
                 proposeMsg.setInReplyTo(receivedProposalMsg.getReplyWith());
                 lastMessageReplyWith = "prop-" + negotiationId + "-" + System.currentTimeMillis();
                 proposeMsg.setReplyWith(lastMessageReplyWith);
-                proposeMsg.setContentObject(counterProposal);
-                myAgent.send(proposeMsg);
-                logger.info("{}: Sent counter-proposal (Round {}) -> {}", myAgent.getLocalName(), currentRound, counterBid.getIssues().get(0));
+                LocalContentExchange.setContent(proposeMsg, counterProposal);
+                send(proposeMsg);
+                metrics.messageSent();
+                awaitReply();
+                logger.info("{}: Sent counter-proposal (Round {}) with {} bid(s) -> {}", name(), currentRound, counterBids.size(), counterBids.get(0).getIssues().get(0));
 
-            } catch (UnreadableException | IOException e) {
-                logger.error("{}: Error creating/sending counter-proposal", myAgent.getLocalName(), e);
+            } catch (IOException e) {
+                logger.error("{}: Error creating/sending counter-proposal", name(), e);
+                end();
             }
         }
-    }
 
-    /**
-     * Estado 5: Envia uma mensagem de aceitação para a proposta do Vendedor.
-     */
-    private class AcceptOffer extends OneShotBehaviour {
-        @Override
-        public void action() {
-            // TODO (Simplificação): O agente está aceitando a *proposta inteira*.
-            // Na implementação correta, ele deveria aceitar *lances específicos*
-            // que foram avaliados positivamente.
-            logger.info("{}: Sending acceptance message to {}", myAgent.getLocalName(), sellerAgent.getLocalName());
-            ACLMessage accept = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
-            accept.addReceiver(sellerAgent);
-            accept.setConversationId(negotiationId);
-            accept.setInReplyTo(receivedProposalMsg.getReplyWith());
-            accept.setContent("Offer accepted.");
-            myAgent.send(accept);
+        /**
+         * Estado 5: Envia uma mensagem de aceitação para os lances do Vendedor
+         * (todos os lances em aberto, ou, na última rodada do orçamento, os aceitáveis).
+         * Os pacotes que ficam sem acordo são encerrados junto do vendedor.
+         */
+        private void acceptOffer() {
+            try {
+                List<Bid> acceptedBids = acceptedBidsOfRound();
+                if (!acceptedBids.isEmpty()) {
+                    sendAcceptance(acceptedBids);
+                }
+            } catch (IOException e) {
+                logger.error("{}: Error sending acceptance", name(), e);
+            }
+            closeOpenBundles();
+            end();
         }
-    }
 
-    /**
-     * Estado Final (FSM): Ações de finalização da negociação.
-     */
-    private static class EndNegotiation extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Negotiation process finished.", myAgent.getLocalName());
+        /**
+         * Saída pelo prazo ou na última rodada com pacotes ainda em aberto: o vendedor aguardaria a próxima
+         * contraproposta até o seu timeout, ocupando a sessão além do orçamento; o CANCEL
+         * (o mesmo do {@link #cancel()}) a encerra de imediato, mantendo os lances já aceitos.
+         */
+        private void closeOpenBundles() {
+            if (!openBundles.isEmpty()) {
+                logger.info("{}: Closing {} open bundle(s) with {}.", name(), openBundles.size(), seller.getLocalName());
+                sendCancel();
+            }
         }
-    }
 
-    /**
-     * Comportamento Final: Informa o Coordenador sobre o resultado da negociação.
-     * Envia o lance final (se houver) ou uma mensagem de falha.
-     */
-    private class InformCoordinatorDone extends OneShotBehaviour {
-        @Override
-        public void action() {
+        /**
+         * Timeout: o vendedor não respondeu a tempo.
+         */
+        private void timeout() {
+            if (clock.isExpired(currentRound)) {
+                // O orçamento acabou enquanto aguardava: encerra pelo prazo, não por timeout
+                logger.warn("{}: Budget of {} ms exhausted waiting for {}. Ending negotiation.", name(), clock.getBudgetMillis(), seller.getLocalName());
+                trace.record(negotiationId, currentRound, Role.BUYER, Decision.DEADLINE, null, Double.NaN);
+                end();
+                return;
+            }
+            logger.warn("{}: Timeout waiting for proposal from {}. Ending negotiation.", getLocalName(), seller.getLocalName());
+            trace.record(negotiationId, currentRound, Role.BUYER, Decision.TIMEOUT, null, Double.NaN);
+            timedOut = true;
+            end();
+        }
+
+        /**
+         * Cancelamento pelo Coordenador: avisa o vendedor (que libera a sua sessão) e encerra,
+         * reportando os lances já acordados, se houver.
+         */
+        private void cancel() {
+            logger.info("{}: Negotiation cancelled by the Coordinator.", name());
+            sendCancel();
+            cancelled = true;
+            end();
+        }
+
+        private void sendCancel() {
+            ACLMessage cancelMsg = new ACLMessage(ACLMessage.CANCEL);
+            cancelMsg.addReceiver(seller);
+            cancelMsg.setConversationId(negotiationId);
+            send(cancelMsg);
+            metrics.messageSent();
+        }
+
+        /**
+         * Estado Final: encerra a sessão e informa o Coordenador sobre o resultado.
+         * Envia a lista de lances acordados (um NegotiationResult por pacote) ou uma mensagem de falha.
+         */
+        private void end() {
+            sessions.remove(negotiationId);
+            deadlines.cancel(negotiationId);
+            logger.info("{}: Negotiation process finished.", name());
+            Outcome outcome = !agreedResults.isEmpty() ? Outcome.COMPLETED
+                    : cancelled ? Outcome.CANCELLED : (timedOut ? Outcome.TIMED_OUT : Outcome.FAILED);
+            metrics.negotiationEnded(outcome, currentRound);
+
             ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
-            doneMsg.addReceiver(coordinatorAgent);
+            doneMsg.addReceiver(coordinator);
             doneMsg.setProtocol(PROTOCOL_REPORT_RESULT);
+            doneMsg.setConversationId(negotiationId);
+            doneMsg.addUserDefinedParameter(PARAM_SELLER, seller.getLocalName());
+            doneMsg.addUserDefinedParameter(PARAM_ROUNDS, String.valueOf(currentRound));
+            doneMsg.addUserDefinedParameter(PARAM_OUTCOME, outcome.name());
+            if (task != null) {
+                doneMsg.addUserDefinedParameter(PARAM_TASK, task);
+            }
             try {
-                // TODO (Simplificação): Envia apenas UM resultado.
-                // Na implementação correta, deveria enviar uma LISTA de
-                // NegotiationResult, contendo todos os lances acordados
-                // com este fornecedor específico.
-                if (finalAcceptedBid != null) {
-                    NegotiationResult result = new NegotiationResult(finalAcceptedBid, finalUtility, sellerAgent.getLocalName());
-                    doneMsg.setContentObject(result);
-                    logger.info("{}: Informing Coordinator of successful negotiation.", myAgent.getLocalName());
+                if (!agreedResults.isEmpty()) {
+                    LocalContentExchange.setContent(doneMsg, new ArrayList<>(agreedResults));
+                    logger.info("{}: Informing Coordinator of successful negotiation ({} bid(s) agreed).", name(), agreedResults.size());
                 } else {
                     doneMsg.setContent("NegotiationFailed");
-                    logger.info("{}: Informing Coordinator of failed negotiation.", myAgent.getLocalName());
+                    logger.info("{}: Informing Coordinator of failed negotiation.", name());
                 }
-                myAgent.send(doneMsg);
+                send(doneMsg);
+                metrics.messageSent();
             } catch (IOException e) {
-                logger.error("{}: Error sending result to Coordinator", myAgent.getLocalName(), e);
+                logger.error("{}: Error sending result to Coordinator", name(), e);
             }
         }
+
+        private void recordAgreement(Bid bid, double utility) {
+            openBundles.remove(bid.getProductBundle());
+            agreedResults.add(new NegotiationResult(bid, utility, seller.getLocalName()));
+        }
+
+        /**
+         * Envia ACCEPT_PROPOSAL contendo apenas os lances aceitos nesta rodada.
+         */
+        private void sendAcceptance(List<Bid> acceptedBids) throws IOException {
+            logger.info("{}: Sending acceptance of {} bid(s) to {}", getLocalName(), acceptedBids.size(), seller.getLocalName());
+            ACLMessage accept = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+            accept.addReceiver(seller);
+            accept.setConversationId(negotiationId);
+            accept.setInReplyTo(receivedProposalMsg.getReplyWith());
+            LocalContentExchange.setContent(accept, new Proposal(acceptedBids));
+            send(accept);
+            metrics.messageSent();
+        }
+
+        private List<Bid> acceptedBidsOfRound() {
+            return roundDecisions.stream().filter(BidDecision::isAccepted).map(d -> d.bid).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Resultado da avaliação de um lance: aceito (counterBid == null) ou contra-ofertado.
+     */
+    private static class BidDecision {
+        private final Bid bid;
+        private final double utility;
+        private final Bid counterBid;
+
+        private BidDecision(Bid bid, double utility, Bid counterBid) {
+            this.bid = bid;
+            this.utility = utility;
+            this.counterBid = counterBid;
+        }
+
+        private boolean isAccepted() {
+            return counterBid == null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package mas.agents;
+
+import jade.core.AID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de BuyerAgents "aquecidos", compartilhado na JVM e reaproveitado entre tarefas de compra.
+ * <p>
+ * Um BA do pool é criado sem argumentos (preferências e serviços já carregados no setup)
+ * e recebe cada negociação por mensagem ({@link BuyerAgent#PROTOCOL_ASSIGN_NEGOTIATION}).
+ * Ao receber o resultado, o Coordenador devolve o BA com {@link #release(AID)}; como o estado
+ * de cada negociação vive na sessão, que é descartada ao final, o BA volta limpo.
+ * Assim, tarefas repetidas não pagam o custo de criar agentes nem de montar as preferências.
+ */
+public final class BuyerPool {
+    private static final Logger logger = LoggerFactory.getLogger(BuyerPool.class);
+
+    private static final Deque<AID> idleBuyers = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger created = new AtomicInteger();
+    private static volatile String namePrefix = "";
+
+    private BuyerPool() {
+    }
+
+    /**
+     * Define um prefixo para os nomes dos BAs do pool, para que pools de JVMs diferentes
+     * (ex: sub-coordenadores em outros processos) não criem agentes com o mesmo nome.
+     * Vale o primeiro prefixo definido, antes de qualquer BA ser criado.
+     */
+    public static synchronized void usePrefix(String prefix) {
+        if (namePrefix.isEmpty() && created.get() == 0) {
+            namePrefix = prefix;
+        }
+    }
+
+    /**
+     * Empresta um BA ocioso. Se o pool estiver vazio e ainda abaixo de {@code maxSize}, pede a
+     * criação de um novo (no container escolhido pela {@link AgentPlacement} do solicitante),
+     * sem esperá-la: o BA entra no pool quando criado e {@code onCreated} é chamado, na thread
+     * do solicitante, para que ele tente de novo.
+     *
+     * @return O AID do BA emprestado, ou null se não há BA ocioso (pool esgotado ou BA em criação).
+     */
+    public static AID lease(AgentPlacement placement, int maxSize, Runnable onCreated) {
+        AID buyer = idleBuyers.pollFirst();
+        if (buyer != null) {
+            return buyer;
+        }
+        int index = created.getAndIncrement();
+        if (index >= maxSize) {
+            created.decrementAndGet();
+            return null;
+        }
+        String name = namePrefix + "buyer_pool_" + index;
+        placement.create(name, "mas.agents.BuyerAgent", aid -> {
+            if (aid == null) {
+                created.decrementAndGet();
+                return; // Como com o pool esgotado: a próxima devolução tenta de novo
+            }
+            logger.info("BuyerPool: Created {} ({} buyer(s) in pool).", name, index + 1);
+            idleBuyers.offerFirst(aid);
+            onCreated.run();
+        });
+        return null;
+    }
+
+    /**
+     * Devolve ao pool um BA cuja negociação terminou.
+     */
+    public static void release(AID buyer) {
+        idleBuyers.offerFirst(buyer); // LIFO: reaproveita o BA usado mais recentemente (cache quente)
+    }
+
+    public static int getCreatedCount() {
+        return created.get();
+    }
+
+    public static int getIdleCount() {
+        return idleBuyers.size();
+    }
+}
@@ -2,22 +2,40 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.OneShotBehaviour;
-import jade.core.behaviours.SequentialBehaviour;
-import jade.core.behaviours.TickerBehaviour;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import jade.lang.acl.UnreadableException;
 import jade.wrapper.AgentController;
-import jade.wrapper.StaleProxyException;
+import mas.logic.AdmissionController;
+import mas.logic.ConfigLoader;
+import mas.logic.PartialWinnerDetermination;
 import mas.logic.WinnerDeterminationService;
+import mas.metrics.NegotiationMetrics;
+import mas.metrics.NegotiationMetrics.Outcome;
+import mas.models.NegotiationEvent;
 import mas.models.NegotiationResult;
 import mas.models.ProductBundle;
+import mas.models.ShardAssignment;
+import mas.models.ShardSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * Agente central que orquestra o processo de seleção de fornecedores.
@@ -25,217 +43,1088 @@ import java.util.List;
  * 1. (Preparação) Obtém a tarefa do TDA e os pacotes (bundles) do SDA .
  * 2. (Barganha) Cria BAs para negociar com SAs.
  * 3. (Determinação) Coleta resultados e usa o WDS para selecionar vencedores.
+ * <p>
+ * Os resultados, o progresso de cada negociação e as soluções da WDP (parcial e final)
+ * são publicados em tempo real via {@link NegotiationEventSource} (interface O2A).
+ * <p>
+ * Com 'coordinator.hierarchy.shards' maior que zero, o CA atua como raiz: reparte os vendedores
+ * entre sub-coordenadores (esta mesma classe, criada com o argumento {@value #ROLE_SHARD}), que
+ * negociam com o seu shard e devolvem apenas um {@link ShardSummary}. A raiz combina os resumos
+ * com a {@link PartialWinnerDetermination}, de modo que as mensagens e o tempo de solução na raiz
+ * crescem com o número de shards, e não com o número de vendedores.
+ * <p>
+ * O CA conduz várias tarefas ao mesmo tempo, cada uma com o seu estado ({@link Task}, pelo id
+ * da tarefa). Nenhuma fase bloqueia a thread do agente: o pedido de pacotes e a busca no DF são
+ * conversas com prazo ('coordinator.prepare.timeoutMillis'), os relatórios dos BAs trazem a
+ * tarefa no parâmetro 'task' e a WDP final roda fora da thread do agente. Assim, a preparação de
+ * uma nova tarefa se sobrepõe às negociações e à WDP das anteriores, que compartilham o mesmo
+ * {@link AdmissionController} (as mais antigas são admitidas primeiro).
  */
-public class CoordinatorAgent extends Agent {
+public class CoordinatorAgent extends Agent implements NegotiationEventSource {
     private static final Logger logger = LoggerFactory.getLogger(CoordinatorAgent.class);
 
     private static final String PROTOCOL_GET_BUNDLES = "get-bundles-protocol";
     private static final String PROTOCOL_REPORT_RESULT = "report-negotiation-result";
-    private static final String PROTOCOL_DEFINE_TASK = "define-task-protocol";
-    private List<AID> sellerAgents;
-    private int finishedCounter = 0;
-    private WinnerDeterminationService wds;
-    private List<NegotiationResult> negotiationResults;
-    private int[] productDemand;
-    private List<ProductBundle> preferredBundles; // Armazena os pacotes preferidos
+    public static final String PROTOCOL_DEFINE_TASK = "define-task-protocol";
+    public static final String SERVICE_TYPE = "procurement-coordinator"; // Anúncio de prontidão no DF
+    private static final String PARAM_SELLER = "seller"; // Vendedor a que o relatório do BA se refere
+    private static final String PARAM_ROUNDS = "rounds"; // Rodadas usadas pelo BA
+    private static final String PARAM_OUTCOME = "outcome"; // Desfecho reportado pelo BA
+    private static final String PROTOCOL_ASSIGN_SHARD = "assign-shard";
+    private static final String PROTOCOL_SHARD_SUMMARY = "shard-summary";
+    static final String ROLE_SHARD = "shard"; // Argumento de criação de um sub-coordenador
+    private static final String DEFAULT_NAME = "ca"; // Nome do Coordenador único (destino do TDA)
+    private static final String DEADLINE_BUNDLES = "bundles:"; // Prazos da preparação, seguidos do id da tarefa
+    private static final String DEADLINE_DISCOVERY = "discovery:";
+    // A utilidade é normalizada em [0, 1] e cada fornecedor entra na solução com no máximo um lance
+    private static final double MAX_UTILITY_PER_SELLER = 1.0;
+    private final Map<String, Task> tasks = new LinkedHashMap<>(); // Id da tarefa -> estado, em ordem de chegada
+    private long taskSequence = 0;
+    private NegotiationEventPublisher eventPublisher;
+    private NegotiationMetrics metrics;
+    private DeadlineWatcher deadlines; // Prazos da preparação de todas as tarefas
+    private final Set<AID> leasedBuyers = new HashSet<>(); // BAs emprestados do BuyerPool
+    private final List<AID> multiplexedBuyers = new ArrayList<>(); // BAs fixos do modo multiplexado (de todas as tarefas)
+    private final List<AID> subCoordinators = new ArrayList<>(); // Sub-coordenadores da raiz (de todas as tarefas)
+    private double earlyStopGap; // Folga relativa aceita na solução em troca de cancelar negociações
+    private AdmissionController admission; // Limita as negociações simultâneas, somadas todas as tarefas
+    private AgentPlacement placement; // Containers onde os BAs são criados (consultados no setup)
+    private String buyerMode;
+    private int nextMultiplexedBuyer = 0;
+    private int pendingMultiplexedBuyers = 0; // BAs multiplexados em criação
+    private int nextSubCoordinator = 0;
+    private int pendingSubCoordinators = 0; // Sub-coordenadores em criação
+    private final List<Task> tasksAwaitingShards = new ArrayList<>(); // Raiz: tarefas à espera desses sub-coordenadores
+    private long prepareTimeoutMillis;
+    private boolean shardRole; // Sub-coordenador: recebe shards da raiz e devolve um resumo de cada um
+    private String buyerNamePrefix; // Evita nomes de BA repetidos entre Coordenadores da mesma plataforma
+
+    /**
+     * Fases de uma tarefa, na ordem em que ocorrem.
+     */
+    private enum Stage {
+        BUNDLES,      // Aguardando os pacotes preferidos do SDA
+        DISCOVERY,    // Aguardando as respostas do DF
+        NEGOTIATIONS, // Negociando com os vendedores (ou com o shard recebido da raiz)
+        SHARDS,       // Raiz: aguardando os resumos dos sub-coordenadores
+        WDP,          // Determinando os vencedores (fora da thread do agente)
+        DONE          // Solução (ou resumo do shard) já enviada
+    }
+
+    /**
+     * Estado de uma tarefa de compra, da chegada da demanda à solução da WDP.
+     */
+    private static final class Task {
+        private final String id;
+        private final List<String> requiredProducts; // Nomes dos produtos demandados (ex: P1, P2)
+        private final int[] productDemand;
+        private final List<ProductBundle> preferredBundles = new ArrayList<>(); // Armazena os pacotes preferidos
+        private List<AID> sellerAgents = new ArrayList<>();
+        private Map<String, List<ProductBundle>> catalogs = new HashMap<>(); // Nome do SA -> pacotes anunciados no DF
+        private int finishedCounter = 0;
+        private final List<NegotiationResult> negotiationResults = new ArrayList<>();
+        private final Map<String, String> sellerByBuyer = new HashMap<>(); // Nome do BA -> nome do SA
+        private final Deque<AID> pendingSellers = new ArrayDeque<>(); // Vendedores aguardando admissão (ou um BA do pool)
+        private final Map<String, Long> startedAt = new HashMap<>(); // Nome do SA -> início da negociação (nanos)
+        private final Map<String, AID> buyerBySeller = new HashMap<>(); // Nome do SA -> BA que negocia com ele
+        private final Set<String> cancelRequested = new HashSet<>(); // SAs cujas negociações foram canceladas
+        private double cancelledGainBound = 0.0; // Soma do que as negociações canceladas poderiam acrescentar
+        private boolean bestSoFarRunning; // Busca da melhor solução parcial em andamento (fora da thread do agente)
+        private boolean bestSoFarStale; // Chegaram resultados depois do início dessa busca
+        private Stage stage = Stage.BUNDLES;
+        private long stageStart; // Início do pedido de pacotes ou da busca no DF (nanos)
+        private long negotiationPhaseStart; // Início da fase de barganha (nanos)
+        private SupplierDirectory.Search search; // Busca no DF em andamento
+        private AID rootCoordinator; // Raiz que atribuiu o shard (apenas no papel de sub-coordenador)
+        private String rootConversation; // Tarefa da raiz a que o shard pertence
+        private final List<ShardSummary> summaries = new ArrayList<>(); // Raiz: resumos recebidos
+        private int requestedShards; // Raiz: sub-coordenadores desejados para a tarefa
+        private int expectedShards;
+        private int receivedShards;
+
+        private Task(String id, List<String> requiredProducts, int[] productDemand) {
+            this.id = id;
+            this.requiredProducts = requiredProducts;
+            this.productDemand = productDemand;
+        }
+    }
 
     protected void setup() {
         logger.info("Coordinator Agent {} is ready.", getAID().getName());
+        LocalContentExchange.register(this);
+
+        ConfigLoader config = ConfigLoader.getInstance();
+        this.eventPublisher = new NegotiationEventPublisher(ForkJoinPool.commonPool(),
+                config.getInt("coordinator.events.bufferSize"));
+        setEnabledO2ACommunication(true, 0);
+        registerO2AInterface(NegotiationEventSource.class, this);
+        this.metrics = NegotiationMetrics.register("CoordinatorAgent", getLocalName());
+        buyerMode = config.getString("coordinator.buyer.mode");
+        admission = AdmissionController.fromConfig();
+        earlyStopGap = config.getDouble("coordinator.earlyStop.gap");
+        prepareTimeoutMillis = config.getInt("coordinator.prepare.timeoutMillis");
+        // Consulta bloqueante ao AMS: feita uma vez, antes de atender tarefas, e não no meio delas
+        placement = AgentPlacement.discover(this);
+        deadlines = new DeadlineWatcher(this, this::preparationExpired);
+        addBehaviour(deadlines);
+        addBehaviour(new WaitForResults());
+        addBehaviour(new CompletionDispatcher());
+
+        Object[] args = getArguments();
+        shardRole = args != null && args.length > 0 && ROLE_SHARD.equals(args[0]);
+        // Sub-coordenadores e Coordenadores extras (ex: mas.load.LoadGenerator) podem coexistir com o "ca"
+        buyerNamePrefix = shardRole || !DEFAULT_NAME.equals(getLocalName()) ? getLocalName() + "_" : "";
+        if (shardRole) {
+            // A raiz já fez a preparação: cada shard chega pronto, com a demanda da tarefa
+            BuyerPool.usePrefix(getLocalName() + "_");
+            addBehaviour(new WaitForShardAssignment());
+            return;
+        }
+
+        addBehaviour(new WaitForTask());
+        addBehaviour(new WaitForBundles());
+        addBehaviour(new WaitForSellers());
+        addBehaviour(new WaitForShardSummaries());
+        // Pronto para receber tarefas: libera a ReadinessBarrier do TDA
+        ReadinessBarrier.announce(this, SERVICE_TYPE);
+    }
+
+    @Override
+    protected void takeDown() {
+        LocalContentExchange.deregister(this);
+        if (!shardRole) {
+            ReadinessBarrier.withdraw(this);
+        }
+        eventPublisher.close();
+        metrics.unregister();
+    }
+
+    @Override
+    public Flow.Publisher<NegotiationEvent> events() {
+        return eventPublisher;
+    }
+
+    /**
+     * Publica um evento da tarefa sem bloquear a thread do agente (ver {@link NegotiationEventPublisher}
+     * para o que acontece com assinantes lentos).
+     */
+    private void publish(Task task, NegotiationEvent event) {
+        if (!eventPublisher.hasSubscribers()) {
+            return;
+        }
+        eventPublisher.offer(event.withTask(task.id));
+    }
+
+    /**
+     * Resolve a WDP com os resultados recebidos até agora e usa essa melhor solução parcial
+     * (a incumbente) para publicá-la, se algum assinante estiver ouvindo, e para o encerramento
+     * antecipado ({@link #cancelHopelessNegotiations}).
+     * <p>
+     * A busca roda fora da thread do agente, como a WDP final, e no máximo uma por tarefa de cada
+     * vez: resultados que chegam durante uma busca são reunidos na seguinte. Uma solução que
+     * volta depois do fim das negociações da tarefa é descartada (a final já está a caminho).
+     */
+    private void updateBestSoFar(Task task) {
+        if (!eventPublisher.hasSubscribers() && earlyStopGap <= 0) {
+            return;
+        }
+        if (task.bestSoFarRunning) {
+            task.bestSoFarStale = true;
+            return;
+        }
+        task.bestSoFarRunning = true;
+        task.bestSoFarStale = false;
+        List<NegotiationResult> results = new ArrayList<>(task.negotiationResults);
+        CompletableFuture.supplyAsync(() -> new WinnerDeterminationService().solveWDPWithBranchAndBound(results, task.productDemand))
+                .whenComplete((partial, error) -> complete(() -> {
+                    task.bestSoFarRunning = false;
+                    if (task.stage != Stage.NEGOTIATIONS) {
+                        return;
+                    }
+                    if (error != null) {
+                        logger.warn("CA [{}]: Best-so-far winner determination failed.", task.id, error);
+                    } else if (!partial.isEmpty()) {
+                        publish(task, NegotiationEvent.solution(NegotiationEvent.Type.BEST_SO_FAR, partial));
+                        // Mesmo desatualizada, a incumbente é uma solução viável: serve de limitante inferior
+                        cancelHopelessNegotiations(task, partial);
+                    }
+                    if (task.bestSoFarStale) {
+                        updateBestSoFar(task);
+                    }
+                }));
+    }
 
-        this.wds = new WinnerDeterminationService();
-        this.negotiationResults = new ArrayList<>();
-        this.preferredBundles = new ArrayList<>(); // Inicializa a lista
+    /**
+     * Entrega a continuação à thread do agente pela fila O2A (ver {@link CompletionDispatcher}).
+     */
+    private void complete(Runnable completion) {
+        try {
+            putO2AObject(completion, AgentController.ASYNC);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publishPhase(Task task, NegotiationEvent.Phase phase, long startNanos) {
+        publish(task, NegotiationEvent.phaseCompleted(phase, System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Encerramento antecipado por limitante: cancela negociações que não podem melhorar a
+     * solução da WDP além da folga 'coordinator.earlyStop.gap'.
+     * <p>
+     * Cada negociação pendente acrescentaria à solução no máximo o limitante do vendedor
+     * ({@link #gainBound}): zero se nenhum pacote que ele anuncia no DF contém um produto
+     * demandado, e {@link #MAX_UTILITY_PER_SELLER} caso contrário. Os de limitante zero não
+     * podem melhorar a solução e são cancelados sem consumir a folga. Como a função objetivo é a soma das
+     * utilidades, os demais podem; por isso o corte é relativo: enquanto a soma dos limitantes
+     * das negociações canceladas couber em gap x (utilidade da incumbente), a solução final
+     * fica a no máximo essa fração da ótima. Com gap = 0 nada é cancelado.
+     * Vendedores ainda na fila de admissão são descartados primeiro (não custam mensagens);
+     * depois, as negociações em andamento mais recentes (as de menor progresso).
+     *
+     * @param incumbent Melhor solução (não vazia) com os resultados já recebidos.
+     */
+    private void cancelHopelessNegotiations(Task task, List<NegotiationResult> incumbent) {
+        if (earlyStopGap <= 0 || (task.pendingSellers.isEmpty() && task.startedAt.size() <= task.cancelRequested.size())) {
+            return;
+        }
+        double allowance = earlyStopGap * incumbent.stream().mapToDouble(NegotiationResult::getUtility).sum();
+
+        int dropped = 0;
+        Iterator<AID> queued = task.pendingSellers.descendingIterator();
+        while (queued.hasNext()) {
+            AID seller = queued.next();
+            double bound = gainBound(task, seller.getLocalName());
+            if (task.cancelledGainBound + bound > allowance) {
+                continue;
+            }
+            queued.remove();
+            task.cancelledGainBound += bound;
+            task.finishedCounter++;
+            publish(task, NegotiationEvent.finished(seller.getLocalName(), 0));
+            dropped++;
+        }
+
+        List<String> inFlight = task.startedAt.entrySet().stream()
+                .filter(e -> !task.cancelRequested.contains(e.getKey()) && task.buyerBySeller.containsKey(e.getKey()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        int cancelled = 0;
+        for (String sellerName : inFlight) {
+            double bound = gainBound(task, sellerName);
+            if (task.cancelledGainBound + bound > allowance) {
+                continue;
+            }
+            ACLMessage cancel = new ACLMessage(ACLMessage.CANCEL);
+            cancel.addReceiver(task.buyerBySeller.get(sellerName));
+            cancel.setProtocol(BuyerAgent.PROTOCOL_CANCEL_NEGOTIATION);
+            cancel.addUserDefinedParameter(PARAM_SELLER, sellerName);
+            cancel.addUserDefinedParameter(BuyerAgent.PARAM_TASK, task.id);
+            send(cancel);
+            metrics.messageSent();
+            task.cancelRequested.add(sellerName);
+            task.cancelledGainBound += bound;
+            cancelled++;
+        }
+        if (dropped > 0 || cancelled > 0) {
+            logger.info("CA [{}]: Early stop dropped {} queued and cancelled {} running negotiation(s); bound on lost utility {} (allowance {}).",
+                    task.id, dropped, cancelled, String.format("%.3f", task.cancelledGainBound), String.format("%.3f", allowance));
+        }
+    }
 
-        SequentialBehaviour preparationPhase = new SequentialBehaviour();
-        preparationPhase.addSubBehaviour(new WaitForTask());
-        preparationPhase.addSubBehaviour(new RequestProductBundles());
-        preparationPhase.addSubBehaviour(new StartNegotiations());
+    /**
+     * Quanto a negociação com o vendedor pode acrescentar à solução: um lance, de utilidade no
+     * máximo {@link #MAX_UTILITY_PER_SELLER}, para um dos pacotes que ele anuncia no DF; nada se
+     * nenhum deles contém um produto demandado. Sem o catálogo do vendedor, supõe o máximo.
+     */
+    private static double gainBound(Task task, String sellerName) {
+        List<ProductBundle> catalog = task.catalogs.get(sellerName);
+        if (catalog == null) {
+            return MAX_UTILITY_PER_SELLER;
+        }
+        for (ProductBundle bundle : catalog) {
+            int[] products = bundle.getProducts();
+            for (int i = 0; i < products.length && i < task.productDemand.length; i++) {
+                if (products[i] == 1 && task.productDemand[i] == 1) {
+                    return MAX_UTILITY_PER_SELLER;
+                }
+            }
+        }
+        return 0.0;
+    }
 
-        addBehaviour(preparationPhase);
+    /**
+     * Vetor de demanda indexado pela posição do produto nos pacotes (ex: P1,P2,P3,P4 -> [1,1,1,1];
+     * P3,P4 -> [0,0,1,1]). Nomes fora do padrão "P&lt;n&gt;" ocupam a posição em que aparecem.
+     */
+    static int[] demandVector(List<String> products) {
+        int[] indices = new int[products.size()];
+        int length = 0;
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = ProductBundle.positionOf(products.get(i), i);
+            length = Math.max(length, indices[i] + 1);
+        }
+        int[] demand = new int[length];
+        for (int index : indices) {
+            demand[index] = 1;
+        }
+        return demand;
     }
 
     // --- Comportamentos da Fase de Preparação ---
 
     /**
-     * Estado 1: Aguarda a definição da tarefa (produtos requeridos) do TDA.
+     * Estado 1: Recebe as tarefas (produtos requeridos) do TDA. Cada tarefa começa a sua
+     * preparação assim que chega, sem esperar as anteriores.
      */
-    private class WaitForTask extends OneShotBehaviour {
-        public void action() {
-            logger.info("CA: Waiting for product requirements from TDA...");
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
-                    MessageTemplate.MatchProtocol(PROTOCOL_DEFINE_TASK)
-            );
-            ACLMessage msg = myAgent.blockingReceive(mt);
+    private class WaitForTask extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                MessageTemplate.MatchProtocol(PROTOCOL_DEFINE_TASK)
+        );
 
+        public void action() {
+            ACLMessage msg = myAgent.receive(mt);
             if (msg == null) {
-                logger.warn("CA: No task message received (null).");
+                block();
                 return;
             }
 
+            metrics.messageReceived();
             String productList = msg.getContent();
-            logger.info("CA: Received task. Products required: {}", productList);
-            // Constrói o vetor de demanda (ex: P1,P2,P3,P4 -> [1,1,1,1])
-            productDemand = new int[productList.split(",").length];
-            for (int i = 0; i < productDemand.length; i++) {
-                productDemand[i] = 1;
+            List<String> requiredProducts = new ArrayList<>();
+            for (String product : productList.split(",")) {
+                requiredProducts.add(product.trim());
             }
-            logger.debug("CA: Product demand set to length {}.", productDemand.length);
+            Task task = new Task("t" + (++taskSequence), requiredProducts, demandVector(requiredProducts));
+            tasks.put(task.id, task);
+            logger.info("CA [{}]: Received task. Products required: {}", task.id, productList);
+            logger.debug("CA [{}]: Product demand set to length {}.", task.id, task.productDemand.length);
+            requestProductBundles(task);
         }
     }
 
     /**
-     * Estado 2: Solicita os pacotes de produtos (bundles) preferidos ao SDA.
+     * Estado 2: Solicita os pacotes de produtos (bundles) preferidos ao SDA. A resposta,
+     * identificada pelo id da tarefa, chega ao {@link WaitForBundles}.
      */
-    private class RequestProductBundles extends OneShotBehaviour {
+    private void requestProductBundles(Task task) {
+        logger.info("CA [{}]: Requesting preferred product bundles from SDA...", task.id);
+        task.stageStart = System.nanoTime();
+        ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+        msg.addReceiver(new AID("sda", AID.ISLOCALNAME));
+        msg.setContent("generate-bundles");
+        msg.setProtocol(PROTOCOL_GET_BUNDLES);
+        msg.addUserDefinedParameter(SynergyDeterminationAgent.PARAM_PRODUCTS, String.join(",", task.requiredProducts));
+        msg.setConversationId(task.id);
+        msg.setReplyWith("req-bundles-" + task.id + "-" + System.currentTimeMillis());
+        send(msg);
+        metrics.messageSent();
+        deadlines.schedule(DEADLINE_BUNDLES + task.id, prepareTimeoutMillis);
+    }
+
+    private class WaitForBundles extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchProtocol(PROTOCOL_GET_BUNDLES)
+        );
+
         public void action() {
-            logger.info("CA: Requesting preferred product bundles from SDA...");
-            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
-            msg.addReceiver(new AID("sda", AID.ISLOCALNAME));
-            msg.setContent("generate-bundles");
-            msg.setProtocol(PROTOCOL_GET_BUNDLES);
-            msg.setReplyWith("req-bundles-" + System.currentTimeMillis());
-            myAgent.send(msg);
-
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
-                    MessageTemplate.MatchProtocol(PROTOCOL_GET_BUNDLES)
-            );
-            ACLMessage reply = myAgent.blockingReceive(mt);
+            ACLMessage reply = myAgent.receive(mt);
             if (reply == null) {
-                logger.warn("CA: No reply received for bundle request.");
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            Task task = tasks.get(reply.getConversationId());
+            if (task == null || task.stage != Stage.BUNDLES) {
+                logger.warn("CA: Discarding late bundle reply for task {}.", reply.getConversationId());
+                LocalContentExchange.discard(reply);
                 return;
             }
+            deadlines.cancel(DEADLINE_BUNDLES + task.id);
+            publishPhase(task, NegotiationEvent.Phase.BUNDLE_REQUEST, task.stageStart);
             try {
                 // Armazena a lista de pacotes recebida
                 @SuppressWarnings("unchecked")
-                List<ProductBundle> bundles = (List<ProductBundle>) reply.getContentObject();
+                List<ProductBundle> bundles = (List<ProductBundle>) LocalContentExchange.getContent(reply);
                 if (bundles != null) {
-                    preferredBundles.addAll(bundles); // Salva na variável do agente
-                    logger.info("CA: Received {} preferred bundles from SDA.", bundles.size());
+                    task.preferredBundles.addAll(bundles); // Salva no estado da tarefa
+                    logger.info("CA [{}]: Received {} preferred bundles from SDA.", task.id, bundles.size());
                 } else {
-                    logger.warn("CA: Received null or empty bundle list from SDA.");
+                    logger.warn("CA [{}]: Received null or empty bundle list from SDA.", task.id);
                 }
             } catch (UnreadableException e) {
-                logger.error("CA: Failed to read bundles object from SDA.", e);
+                logger.error("CA [{}]: Failed to read bundles object from SDA.", task.id, e);
             }
+            discoverSellers(task);
         }
     }
 
     /**
-     * Estado 3: Identifica SAs e cria um BA para cada um, iniciando a fase de barganha.
+     * Estado 3: Pede ao DF os vendedores que fornecem ao menos um produto demandado.
+     * As respostas chegam ao {@link WaitForSellers}.
      */
-    private class StartNegotiations extends OneShotBehaviour {
+    private void discoverSellers(Task task) {
+        logger.info("CA [{}]: Preparation complete. Starting negotiation orchestration...", task.id);
+        task.stage = Stage.DISCOVERY;
+        task.stageStart = System.nanoTime();
+        task.search = SupplierDirectory.startSearch(this, task.requiredProducts);
+        if (task.search.isComplete()) {
+            sellersDiscovered(task); // Nenhum produto demandado
+        } else {
+            deadlines.schedule(DEADLINE_DISCOVERY + task.id, prepareTimeoutMillis);
+        }
+    }
+
+    /**
+     * Entrega cada resposta do DF à busca da tarefa que a pediu; as que chegam depois do
+     * prazo da busca são descartadas.
+     */
+    private class WaitForSellers extends CyclicBehaviour {
+        private final MessageTemplate mt = new MessageTemplate((MessageTemplate.MatchExpression) msg ->
+                SupplierDirectory.isSearchReply(CoordinatorAgent.this, msg));
+
         public void action() {
-            logger.info("CA: Preparation complete. Starting negotiation orchestration...");
-            // Simula a descoberta de fornecedores
-            sellerAgents = new ArrayList<>();
-            sellerAgents.add(new AID("s1", AID.ISLOCALNAME));
-            sellerAgents.add(new AID("s2", AID.ISLOCALNAME));
-            sellerAgents.add(new AID("s3", AID.ISLOCALNAME));
+            ACLMessage reply = myAgent.receive(mt);
+            if (reply == null) {
+                block();
+                return;
+            }
+            Task task = searchOf(reply);
+            if (task == null) {
+                logger.debug("CA: Discarding late DF reply {}.", reply.getInReplyTo());
+                return;
+            }
+            task.search.accept(reply);
+            if (task.search.isComplete()) {
+                deadlines.cancel(DEADLINE_DISCOVERY + task.id);
+                sellersDiscovered(task);
+            }
+        }
+    }
 
-            for (AID seller : sellerAgents) {
-                createBuyerFor(seller);
+    private Task searchOf(ACLMessage reply) {
+        for (Task task : tasks.values()) {
+            if (task.stage == Stage.DISCOVERY && task.search.isReply(reply)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prazo da preparação esgotado: a tarefa segue sem os pacotes do SDA, ou com os vendedores
+     * que o DF já informou.
+     */
+    private void preparationExpired(String deadline) {
+        if (deadline.startsWith(DEADLINE_BUNDLES)) {
+            Task task = tasks.get(deadline.substring(DEADLINE_BUNDLES.length()));
+            if (task != null && task.stage == Stage.BUNDLES) {
+                logger.warn("CA [{}]: No reply received for bundle request in {} ms.", task.id, prepareTimeoutMillis);
+                discoverSellers(task);
+            }
+        } else if (deadline.startsWith(DEADLINE_DISCOVERY)) {
+            Task task = tasks.get(deadline.substring(DEADLINE_DISCOVERY.length()));
+            if (task != null && task.stage == Stage.DISCOVERY) {
+                task.search.expire();
+                sellersDiscovered(task);
             }
-            // Adiciona o comportamento que ouve os resultados
-            myAgent.addBehaviour(new WaitForResults());
         }
     }
 
+    private void sellersDiscovered(Task task) {
+        task.sellerAgents = task.search.getSellers();
+        task.catalogs = task.search.getCatalogs();
+        task.search = null;
+        logger.info("CA [{}]: Discovered {} seller(s) for {} in {} ms.", task.id, task.sellerAgents.size(), task.requiredProducts,
+                (System.nanoTime() - task.stageStart) / 1_000_000);
+        publishPhase(task, NegotiationEvent.Phase.DISCOVERY, task.stageStart);
+        if (task.sellerAgents.isEmpty()) {
+            logger.warn("CA [{}]: No seller registered in the DF supplies the demanded products.", task.id);
+        }
+
+        int shards = ConfigLoader.getInstance().getInt("coordinator.hierarchy.shards");
+        if (shards > 0 && !PartialWinnerDetermination.supports(task.productDemand)) {
+            logger.warn("CA [{}]: {} demanded products exceed the {} supported by shard summaries; negotiating with all sellers directly.",
+                    task.id, task.requiredProducts.size(), PartialWinnerDetermination.MAX_DEMANDED_PRODUCTS);
+            shards = 0;
+        }
+        if (shards <= 0) {
+            startNegotiations(task);
+        } else {
+            distributeToShards(task, shards);
+        }
+    }
+
+    /**
+     * Inicia a fase de barganha da tarefa com os vendedores de {@code sellerAgents}
+     * (todos os descobertos, ou o shard recebido da raiz).
+     */
+    private void startNegotiations(Task task) {
+        task.stage = Stage.NEGOTIATIONS;
+        task.negotiationPhaseStart = System.nanoTime();
+        if ("multiplexed".equalsIgnoreCase(buyerMode)) {
+            createMultiplexedBuyers(ConfigLoader.getInstance().getInt("coordinator.buyer.agents"), task.sellerAgents.size());
+        }
+        // Todos os vendedores entram na fila; o controle de admissão decide quantos negociam ao mesmo tempo
+        task.pendingSellers.addAll(task.sellerAgents);
+        admitPendingSellers();
+        checkNegotiationsConcluded(task);
+    }
+
+    // --- Coordenação Hierárquica ---
+
+    /**
+     * Raiz: reparte os vendedores da tarefa entre até {@code shards} sub-coordenadores. Eles são
+     * criados na primeira tarefa que precisa deles (um por container, segundo a
+     * {@link AgentPlacement}) e atendem todas as tarefas seguintes; enquanto são criados, a
+     * tarefa aguarda em {@link #tasksAwaitingShards} e as demais seguem.
+     */
+    private void distributeToShards(Task task, int shards) {
+        task.negotiationPhaseStart = System.nanoTime();
+        task.stage = Stage.SHARDS;
+        task.requestedShards = Math.min(shards, task.sellerAgents.size());
+        tasksAwaitingShards.add(task);
+        while (subCoordinators.size() + pendingSubCoordinators < task.requestedShards) {
+            pendingSubCoordinators++;
+            placement.create(getLocalName() + "_shard_" + (nextSubCoordinator++), CoordinatorAgent.class.getName(),
+                    this::subCoordinatorCreated, ROLE_SHARD);
+        }
+        if (pendingSubCoordinators == 0) {
+            assignAwaitingShards();
+        }
+    }
+
+    private void subCoordinatorCreated(AID sub) {
+        pendingSubCoordinators--;
+        if (sub != null) {
+            subCoordinators.add(sub);
+        }
+        if (pendingSubCoordinators == 0) {
+            assignAwaitingShards();
+        }
+    }
+
+    private void assignAwaitingShards() {
+        List<Task> awaiting = new ArrayList<>(tasksAwaitingShards);
+        tasksAwaitingShards.clear();
+        for (Task task : awaiting) {
+            assignShards(task);
+        }
+    }
+
+    /**
+     * Envia a cada sub-coordenador já criado a sua parte dos vendedores da tarefa; sem nenhum,
+     * a raiz negocia sozinha.
+     */
+    private void assignShards(Task task) {
+        List<AID> targets = new ArrayList<>(subCoordinators.subList(0, Math.min(task.requestedShards, subCoordinators.size())));
+        if (targets.isEmpty()) {
+            if (task.requestedShards > 0) {
+                logger.warn("CA [{}]: Could not create sub-coordinators; negotiating with all sellers directly.", task.id);
+            }
+            startNegotiations(task);
+            return;
+        }
+
+        List<List<AID>> partitions = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < task.sellerAgents.size(); i++) {
+            partitions.get(i % targets.size()).add(task.sellerAgents.get(i));
+        }
+
+        for (int i = 0; i < targets.size(); i++) {
+            ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+            request.addReceiver(targets.get(i));
+            request.setProtocol(PROTOCOL_ASSIGN_SHARD);
+            request.setConversationId(task.id);
+            Map<String, List<ProductBundle>> catalogs = new HashMap<>();
+            for (AID seller : partitions.get(i)) {
+                List<ProductBundle> catalog = task.catalogs.get(seller.getLocalName());
+                if (catalog != null) {
+                    catalogs.put(seller.getLocalName(), catalog);
+                }
+            }
+            try {
+                LocalContentExchange.setContent(request, new ShardAssignment(partitions.get(i),
+                        new ArrayList<>(task.requiredProducts), task.productDemand, catalogs));
+            } catch (IOException e) {
+                logger.error("CA [{}]: Failed to encode shard for {}", task.id, targets.get(i).getLocalName(), e);
+                continue;
+            }
+            send(request);
+            metrics.messageSent();
+            task.expectedShards++;
+            logger.info("CA [{}]: Assigned {} seller(s) to {}", task.id, partitions.get(i).size(), targets.get(i).getLocalName());
+        }
+        checkShardsConcluded(task);
+    }
+
+    /**
+     * Sub-coordenador: resume os resultados do shard por máscara de cobertura e os envia à raiz.
+     */
+    private void sendShardSummary(Task task) {
+        ShardSummary summary = PartialWinnerDetermination.summarize(task.negotiationResults, task.productDemand);
+        ACLMessage inform = new ACLMessage(ACLMessage.INFORM);
+        inform.addReceiver(task.rootCoordinator);
+        inform.setProtocol(PROTOCOL_SHARD_SUMMARY);
+        inform.setConversationId(task.rootConversation);
+        try {
+            LocalContentExchange.setContent(inform, summary);
+        } catch (IOException e) {
+            // A raiz ainda precisa da resposta para não esperar indefinidamente
+            logger.error("CA {}: Failed to encode shard summary; reporting an empty shard.", getLocalName(), e);
+            inform.setContent("ShardFailed");
+        }
+        send(inform);
+        metrics.messageSent();
+        logger.info("CA {}: Sent {} to {}", getLocalName(), summary, task.rootCoordinator.getLocalName());
+    }
+
+    /**
+     * Imprime e publica a solução final da WDP.
+     */
+    private void reportSolution(Task task, List<NegotiationResult> optimalSolution) {
+        logger.info("\n--- OPTIMAL SOLUTION FOUND ({}) ---", task.id);
+        if (optimalSolution == null || optimalSolution.isEmpty()) {
+            logger.info("No combination of bids could satisfy the demand.");
+        } else {
+            double totalUtility = 0;
+            for (NegotiationResult res : optimalSolution) {
+                logger.info("-> {}", res);
+                totalUtility += res.getUtility();
+            }
+            logger.info("Total Maximized Utility: {}", String.format("%.3f", totalUtility));
+        }
+        publish(task, NegotiationEvent.solution(NegotiationEvent.Type.FINAL_SOLUTION,
+                optimalSolution == null ? new ArrayList<>() : optimalSolution));
+    }
+
+    /**
+     * Sub-coordenador: recebe os shards atribuídos pela raiz (um por tarefa da raiz) e inicia
+     * as negociações de cada um.
+     */
+    private class WaitForShardAssignment extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                MessageTemplate.MatchProtocol(PROTOCOL_ASSIGN_SHARD)
+        );
+
+        public void action() {
+            ACLMessage msg = myAgent.receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            Task task;
+            try {
+                ShardAssignment assignment = (ShardAssignment) LocalContentExchange.getContent(msg);
+                task = new Task("t" + (++taskSequence), new ArrayList<>(assignment.getRequiredProducts()), assignment.getProductDemand());
+                task.sellerAgents = new ArrayList<>(assignment.getSellers());
+                task.catalogs = new HashMap<>(assignment.getCatalogs());
+            } catch (UnreadableException | ClassCastException e) {
+                logger.error("CA {}: Failed to read shard assignment from {}", getLocalName(), msg.getSender().getLocalName(), e);
+                return;
+            }
+            task.rootCoordinator = msg.getSender();
+            task.rootConversation = msg.getConversationId();
+            tasks.put(task.id, task);
+            logger.info("CA {}: Received shard with {} seller(s) from {} (task {})", getLocalName(), task.sellerAgents.size(),
+                    task.rootCoordinator.getLocalName(), task.rootConversation);
+            startNegotiations(task);
+        }
+    }
+
+    /**
+     * Raiz: coleta os resumos dos sub-coordenadores, identificados pelo id da tarefa.
+     */
+    private class WaitForShardSummaries extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchProtocol(PROTOCOL_SHARD_SUMMARY)
+        );
+
+        public void action() {
+            ACLMessage msg = myAgent.receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            Task task = tasks.get(msg.getConversationId());
+            if (task == null || task.stage != Stage.SHARDS) {
+                logger.warn("CA: Discarding shard summary from {} for unknown task {}.", msg.getSender().getLocalName(), msg.getConversationId());
+                LocalContentExchange.discard(msg);
+                return;
+            }
+            task.receivedShards++;
+            try {
+                Object content = LocalContentExchange.getContent(msg);
+                if (content instanceof ShardSummary) {
+                    task.summaries.add((ShardSummary) content);
+                    logger.info("CA [{}]: {} from {}", task.id, content, msg.getSender().getLocalName());
+                } else {
+                    logger.warn("CA [{}]: Shard {} reported no summary -> {}", task.id, msg.getSender().getLocalName(), msg.getContent());
+                }
+            } catch (UnreadableException e) {
+                logger.warn("CA [{}]: Received unreadable shard summary from {}", task.id, msg.getSender().getLocalName());
+            }
+            checkShardsConcluded(task);
+        }
+    }
+
+    /**
+     * Raiz: quando todos os resumos da tarefa chegam, combina-os na solução global.
+     */
+    private void checkShardsConcluded(Task task) {
+        if (task.stage != Stage.SHARDS || task.receivedShards < task.expectedShards) {
+            return;
+        }
+        task.stage = Stage.DONE;
+        logger.info("--- CA [{}]: All {} shard(s) concluded. Merging partial winner determinations... ---", task.id, task.expectedShards);
+        publishPhase(task, NegotiationEvent.Phase.NEGOTIATIONS, task.negotiationPhaseStart);
+        long start = System.nanoTime();
+        List<NegotiationResult> optimalSolution = PartialWinnerDetermination.merge(task.summaries, task.productDemand);
+        logger.info("CA [{}]: Merged {} shard summaries in {} ms.", task.id, task.summaries.size(),
+                String.format("%.3f", (System.nanoTime() - start) / 1_000_000.0));
+        publishPhase(task, NegotiationEvent.Phase.WDP, start);
+        reportSolution(task, optimalSolution);
+        tasks.remove(task.id);
+    }
+
     // --- Métodos e Comportamentos de Orquestração ---
 
     /**
-     * Cria e inicia um novo BuyerAgent, passando os AIDs do Vendedor e do Coordenador.
+     * Cria um novo BuyerAgent dedicado ao vendedor, no container escolhido pela
+     * {@link AgentPlacement}, e lhe atribui a negociação por mensagem (o BA pode estar
+     * em outro processo, onde argumentos de criação não chegam como objetos). A criação não
+     * bloqueia o agente: a atribuição segue em {@link #buyerCreated}.
      *
      * @param sellerAgent O AID do Vendedor com quem o BA deve negociar.
      */
-    private void createBuyerFor(AID sellerAgent) {
-        String buyerName = "buyer_for_" + sellerAgent.getLocalName();
-        logger.info("CA: Creating {} to negotiate with {}", buyerName, sellerAgent.getLocalName());
+    private void createBuyerFor(Task task, AID sellerAgent) {
+        // O mesmo vendedor pode estar em várias tarefas ao mesmo tempo
+        String buyerName = buyerNamePrefix + task.id + "_buyer_for_" + sellerAgent.getLocalName();
+        logger.info("CA [{}]: Creating {} to negotiate with {}", task.id, buyerName, sellerAgent.getLocalName());
+
+        // TODO (Simplificação de Arquitetura): O CA deveria configurar a estratégia do BA.
+        // O artigo afirma que o CA deve "Configurar [as] estratégias de negociação dos BAs
+        // para diferentes fornecedores e diferentes pacotes de produtos".
+        // Atualmente, a atribuição leva apenas o AID do vendedor. A implementação correta
+        // passaria também a lista 'preferredBundles' e, potencialmente,
+        // estratégias (gamas/betas) específicas para este 'sellerAgent'.
+        placement.create(buyerName, "mas.agents.BuyerAgent", buyer -> buyerCreated(task, sellerAgent, buyer));
+    }
+
+    private void buyerCreated(Task task, AID seller, AID buyer) {
+        if (buyer != null && assign(task, buyer, seller)) {
+            negotiationStarted(task, seller);
+        } else {
+            negotiationNotStarted(task);
+            admitPendingSellers(); // A vaga liberada pode admitir outro vendedor (ou encerrar a tarefa)
+        }
+    }
+
+    /**
+     * Modo multiplexado: cria um pequeno número fixo de BAs, inicialmente sem vendedores,
+     * compartilhados por todas as tarefas. Os vendedores admitidos são distribuídos entre eles
+     * (round-robin) por mensagem, e cada BA conduz várias negociações ao mesmo tempo.
+     *
+     * @param buyerAgents Quantos BAs criar (no máximo um por vendedor da tarefa).
+     */
+    private void createMultiplexedBuyers(int buyerAgents, int sellers) {
+        int count = Math.max(1, Math.min(buyerAgents, sellers));
+        while (multiplexedBuyers.size() + pendingMultiplexedBuyers < count) {
+            String buyerName = buyerNamePrefix + "buyer_mux_" + (multiplexedBuyers.size() + pendingMultiplexedBuyers);
+            logger.info("CA: Creating {} for multiplexed negotiations", buyerName);
+            pendingMultiplexedBuyers++;
+            placement.create(buyerName, "mas.agents.BuyerAgent", buyer -> {
+                pendingMultiplexedBuyers--;
+                if (buyer != null) {
+                    multiplexedBuyers.add(buyer);
+                }
+                admitPendingSellers();
+            });
+        }
+    }
+
+    /**
+     * Inicia negociações com os vendedores pendentes enquanto o {@link AdmissionController}
+     * tiver vagas, começando pelas tarefas mais antigas. O BA de cada negociação depende de
+     * 'coordinator.buyer.mode': um BA dedicado, um dos BAs multiplexados ou um BA emprestado
+     * do {@link BuyerPool}.
+     */
+    private void admitPendingSellers() {
+        for (Task task : new ArrayList<>(tasks.values())) {
+            boolean admitted = admitPendingSellers(task);
+            checkNegotiationsConcluded(task); // Atribuições que falharam contam como encerradas
+            if (!admitted) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false se a tarefa ainda tem vendedores na fila (limite atingido ou pool esgotado).
+     */
+    private boolean admitPendingSellers(Task task) {
+        while (!task.pendingSellers.isEmpty() && admission.tryAcquire()) {
+            AID seller = task.pendingSellers.poll();
+            boolean started;
+            if ("multiplexed".equalsIgnoreCase(buyerMode)) {
+                if (multiplexedBuyers.isEmpty() && pendingMultiplexedBuyers > 0) {
+                    // Os BAs ainda estão sendo criados: o vendedor aguarda
+                    admission.release();
+                    task.pendingSellers.addFirst(seller);
+                    return false;
+                }
+                started = !multiplexedBuyers.isEmpty()
+                        && assign(task, multiplexedBuyers.get(nextMultiplexedBuyer++ % multiplexedBuyers.size()), seller);
+            } else if ("pooled".equalsIgnoreCase(buyerMode)) {
+                AID buyer = leasePooledBuyer();
+                if (buyer == null) {
+                    // Pool esgotado (ou BA em criação): o vendedor aguarda um BA livre
+                    admission.release();
+                    task.pendingSellers.addFirst(seller);
+                    logger.debug("CA [{}]: No idle pooled buyer, {} seller(s) waiting.", task.id, task.pendingSellers.size());
+                    return false;
+                }
+                started = assign(task, buyer, seller);
+                if (started) {
+                    leasedBuyers.add(buyer);
+                } else {
+                    BuyerPool.release(buyer);
+                }
+            } else {
+                createBuyerFor(task, seller); // A vaga fica reservada até o BA ser criado
+                continue;
+            }
+
+            if (started) {
+                negotiationStarted(task, seller);
+            } else {
+                negotiationNotStarted(task);
+            }
+        }
+        if (!task.pendingSellers.isEmpty()) {
+            logger.debug("CA [{}]: Admission limit {} reached, {} seller(s) queued.", task.id, admission.getLimit(), task.pendingSellers.size());
+            return false;
+        }
+        return true;
+    }
+
+    private void negotiationStarted(Task task, AID seller) {
+        task.startedAt.put(seller.getLocalName(), System.nanoTime());
+        placement.acquire(task.buyerBySeller.get(seller.getLocalName()));
+        metrics.negotiationStarted();
+        publish(task, NegotiationEvent.started(seller.getLocalName()));
+    }
+
+    /**
+     * Conta como negociação encerrada, para que o Coordenador não espere por ela.
+     */
+    private void negotiationNotStarted(Task task) {
+        admission.release();
+        task.finishedCounter++;
+    }
 
+    private AID leasePooledBuyer() {
+        return BuyerPool.lease(placement, ConfigLoader.getInstance().getInt("coordinator.buyerPool.maxSize"), this::admitPendingSellers);
+    }
+
+    /**
+     * Atribui, por mensagem, a negociação com um vendedor a um BA já existente. O BA
+     * devolve o id da tarefa no relatório.
+     */
+    private boolean assign(Task task, AID buyer, AID seller) {
+        ACLMessage assign = new ACLMessage(ACLMessage.REQUEST);
+        assign.addReceiver(buyer);
+        assign.setProtocol(BuyerAgent.PROTOCOL_ASSIGN_NEGOTIATION);
+        assign.addUserDefinedParameter(BuyerAgent.PARAM_TASK, task.id);
         try {
-            // TODO (Simplificação de Arquitetura): O CA deveria configurar a estratégia do BA.
-            // O artigo afirma que o CA deve "Configurar [as] estratégias de negociação dos BAs
-            // para diferentes fornecedores e diferentes pacotes de produtos".
-            // Atualmente, estamos passando apenas os AIDs. A implementação correta
-            // passaria também a lista 'preferredBundles' e, potencialmente,
-            // estratégias (gamas/betas) específicas para este 'sellerAgent'.
-            Object[] args = new Object[]{
-                    sellerAgent,    // Argumento 0: AID do Vendedor
-                    getAID(),       // Argumento 1: AID do Coordenador
-                    // TODO: Argumento 2: preferredBundles (a lista de pacotes)
-            };
-
-            AgentController buyerController = getContainerController().createNewAgent(
-                    buyerName,
-                    "mas.agents.BuyerAgent",
-                    args
-            );
-            buyerController.start();
-            logger.debug("CA: Buyer agent {} started successfully.", buyerName);
-        } catch (StaleProxyException e) {
-            logger.error("CA: Failed to create/start buyer agent " + buyerName, e);
-        }
-    }
-
-    /**
-     * Comportamento (Ticker) que coleta os resultados das negociações bilaterais.
-     * Quando todos os BAs terminam, ele aciona o WinnerDeterminationService.
-     */
-    private class WaitForResults extends TickerBehaviour {
-        public WaitForResults() {
-            super(CoordinatorAgent.this, 1000); // Verifica a cada 1 segundo
-        }
-
-        protected void onTick() {
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
-                    MessageTemplate.MatchProtocol(PROTOCOL_REPORT_RESULT)
-            );
+            LocalContentExchange.setContent(assign, seller);
+        } catch (IOException e) {
+            logger.error("CA [{}]: Failed to encode assignment of {} to {}", task.id, seller.getLocalName(), buyer.getLocalName(), e);
+            return false;
+        }
+        send(assign);
+        metrics.messageSent();
+        task.sellerByBuyer.put(buyer.getLocalName(), seller.getLocalName());
+        task.buyerBySeller.put(seller.getLocalName(), buyer);
+        logger.info("CA [{}]: Assigned {} to negotiate with {}", task.id, buyer.getLocalName(), seller.getLocalName());
+        return true;
+    }
+
+    /**
+     * A tarefa a que o relatório de um BA se refere: a do parâmetro 'task' ou, se ele faltar,
+     * a que atribuiu o vendedor ao remetente.
+     */
+    private Task taskOf(ACLMessage report) {
+        String taskId = report.getUserDefinedParameter(BuyerAgent.PARAM_TASK);
+        if (taskId != null) {
+            return tasks.get(taskId);
+        }
+        String sellerName = report.getUserDefinedParameter(PARAM_SELLER);
+        for (Task task : tasks.values()) {
+            if (report.getSender().equals(task.buyerBySeller.get(sellerName))
+                    || (sellerName == null && task.sellerByBuyer.containsKey(report.getSender().getLocalName()))) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Comportamento que coleta os resultados das negociações bilaterais de todas as tarefas,
+     * acordado pela chegada de cada relatório (sem polling).
+     */
+    private class WaitForResults extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchProtocol(PROTOCOL_REPORT_RESULT)
+        );
+
+        public void action() {
             ACLMessage msg = myAgent.receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
 
-            if (msg != null) {
-                finishedCounter++;
-                try {
-                    // TODO (Simplificação): O 'content' pode ser UMA NegotiationResult
-                    // ou uma LISTA<NegotiationResult>. O código atual só trata de UMA.
-                    Object content = msg.getContentObject();
-                    if (content instanceof NegotiationResult) {
-                        NegotiationResult result = (NegotiationResult) content;
-                        negotiationResults.add(result);
-                        logger.info("CA: Result received from {} -> {}", msg.getSender().getLocalName(), result);
-                    } else {
-                        // Trata falhas (ex: "NegotiationFailed" ou timeout)
-                        logger.info("CA: Notification received from {} -> {}", msg.getSender().getLocalName(), msg.getContent());
+            metrics.messageReceived();
+            List<NegotiationResult> received = new ArrayList<>();
+            try {
+                // O 'content' pode ser UMA NegotiationResult ou uma LISTA<NegotiationResult>
+                // (um resultado por lance acordado na negociação bid-by-bid).
+                Object content = LocalContentExchange.getContent(msg);
+                if (content instanceof NegotiationResult) {
+                    received.add((NegotiationResult) content);
+                } else if (content instanceof List) {
+                    for (Object item : (List<?>) content) {
+                        if (item instanceof NegotiationResult) {
+                            received.add((NegotiationResult) item);
+                        } else {
+                            logger.warn("CA: Ignoring malformed result from {}: {}", msg.getSender().getLocalName(), item);
+                        }
                     }
-                } catch (UnreadableException e) {
-                    logger.warn("CA: Received non-object notification from {}", msg.getSender().getLocalName());
+                } else {
+                    // Trata falhas (ex: "NegotiationFailed" ou timeout)
+                    logger.info("CA: Notification received from {} -> {}", msg.getSender().getLocalName(), msg.getContent());
                 }
+            } catch (UnreadableException e) {
+                logger.warn("CA: Received non-object notification from {}", msg.getSender().getLocalName());
             }
 
-            // Quando todos os BAs (um por SA) tiverem respondido
-            if (finishedCounter >= (sellerAgents == null ? 0 : sellerAgents.size())) {
-                logger.info("--- CA: All negotiations concluded. Determining winners... ---");
+            boolean cancelled = Outcome.CANCELLED.name().equals(msg.getUserDefinedParameter(PARAM_OUTCOME));
+            Task task = taskOf(msg);
+            String sellerName = msg.getUserDefinedParameter(PARAM_SELLER);
+            Long started = null;
+            if (task == null) {
+                logger.warn("CA: Report from {} matches no active task; discarding {} result(s).", msg.getSender().getLocalName(), received.size());
+            } else {
+                // O BA já reporta rodadas e timeouts nas suas próprias métricas
+                metrics.negotiationEnded(!received.isEmpty() ? Outcome.COMPLETED : (cancelled ? Outcome.CANCELLED : Outcome.FAILED), 0);
+                task.finishedCounter++;
+                if (sellerName == null) {
+                    sellerName = task.sellerByBuyer.getOrDefault(msg.getSender().getLocalName(), msg.getSender().getLocalName());
+                }
+                for (NegotiationResult result : received) {
+                    task.negotiationResults.add(result);
+                    metrics.recordUtility(result.getUtility());
+                    logger.info("CA [{}]: Result received from {} -> {} for {}", task.id, msg.getSender().getLocalName(), result, result.getFinalBid().getProductBundle());
+                    publish(task, NegotiationEvent.result(result));
+                }
+                task.buyerBySeller.remove(sellerName);
+                publish(task, NegotiationEvent.finished(sellerName, received.size()));
+                if (!received.isEmpty()) {
+                    updateBestSoFar(task);
+                }
+                started = task.startedAt.remove(sellerName);
+            }
+            placement.release(msg.getSender());
+            // BA emprestado: volta ao pool e pode atender o próximo vendedor pendente
+            if (leasedBuyers.remove(msg.getSender())) {
+                BuyerPool.release(msg.getSender());
+            }
+            // Ajusta o limite de concorrência pela latência por rodada e admite os próximos vendedores
+            String rounds = msg.getUserDefinedParameter(PARAM_ROUNDS);
+            double roundLatency = Double.NaN;
+            if (started != null && rounds != null && Integer.parseInt(rounds) > 0) {
+                roundLatency = (System.nanoTime() - started) / 1_000_000.0 / Integer.parseInt(rounds);
+            }
+            if (cancelled) {
+                admission.release(); // Encerrada por nós: não diz nada sobre a latência
+            } else {
+                admission.onComplete(roundLatency, Outcome.TIMED_OUT.name().equals(msg.getUserDefinedParameter(PARAM_OUTCOME)));
+            }
+            logger.debug("CA: Admission limit is now {} ({} in flight).", admission.getLimit(), admission.getInFlight());
+            admitPendingSellers();
+            if (task != null) {
+                checkNegotiationsConcluded(task);
+            }
+        }
+    }
 
-                // Aciona o WDS com todos os lances finais coletados
-                List<NegotiationResult> optimalSolution = wds.solveWDPWithBranchAndBound(negotiationResults, productDemand);
+    /**
+     * Quando todos os BAs da tarefa (um por SA) tiverem respondido, aciona a determinação dos
+     * vencedores (ou, no sub-coordenador, envia o resumo do shard à raiz).
+     */
+    private void checkNegotiationsConcluded(Task task) {
+        if (task.stage != Stage.NEGOTIATIONS || task.finishedCounter < task.sellerAgents.size()) {
+            return;
+        }
+        if (shardRole) {
+            // Sub-coordenador: a determinação global fica a cargo da raiz
+            logger.info("--- CA {}: All shard negotiations concluded (task {}). Summarizing... ---", getLocalName(), task.rootConversation);
+            task.stage = Stage.DONE;
+            sendShardSummary(task);
+            tasks.remove(task.id);
+            return;
+        }
+        logger.info("--- CA [{}]: All negotiations concluded. Determining winners... ---", task.id);
+        publishPhase(task, NegotiationEvent.Phase.NEGOTIATIONS, task.negotiationPhaseStart);
+        task.stage = Stage.WDP;
+        determineWinners(task);
+    }
 
-                // Imprime a solução final
-                logger.info("\n--- OPTIMAL SOLUTION FOUND ---");
-                if (optimalSolution == null || optimalSolution.isEmpty()) {
-                    logger.info("No combination of bids could satisfy the demand.");
-                } else {
-                    double totalUtility = 0;
-                    for (NegotiationResult res : optimalSolution) {
-                        logger.info("-> {}", res);
-                        totalUtility += res.getUtility();
+    /**
+     * Resolve a WDP final fora da thread do agente, com uma instância própria do
+     * WinnerDeterminationService (que guarda o estado da busca), para que as demais tarefas
+     * sigam negociando enquanto isso. A solução volta à thread do agente pela fila O2A.
+     */
+    private void determineWinners(Task task) {
+        List<NegotiationResult> results = new ArrayList<>(task.negotiationResults);
+        long start = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> new WinnerDeterminationService().solveWDPWithBranchAndBound(results, task.productDemand))
+                .whenComplete((optimalSolution, error) -> complete(() -> {
+                    if (error != null) {
+                        logger.error("CA [{}]: Winner determination failed.", task.id, error);
                     }
-                    logger.info("Total Maximized Utility: {:.3f}", totalUtility);
-                }
+                    publishPhase(task, NegotiationEvent.Phase.WDP, start);
+                    reportSolution(task, optimalSolution);
+                    task.stage = Stage.DONE;
+                    tasks.remove(task.id);
+                }));
+    }
 
-                stop(); // Para o TickerBehaviour
-                // myAgent.doDelete(); // Opcional: desliga o CA
+    /**
+     * Executa, na thread do agente, as continuações entregues pela fila O2A
+     * (ex: a solução da WDP calculada em outra thread).
+     */
+    private class CompletionDispatcher extends CyclicBehaviour {
+        public void action() {
+            Object completion = myAgent.getO2AObject();
+            if (completion == null) {
+                block();
+                return;
             }
+            ((Runnable) completion).run();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package mas.agents;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Temporizador único de um agente para os prazos de resposta de todas as suas conversas.
+ * <p>
+ * Os prazos ficam numa fila de prioridade e o comportamento dorme ({@code block(ms)}) até o
+ * prazo mais próximo, sem varredura periódica das sessões. Reagendar ou cancelar uma conversa
+ * apenas invalida a entrada antiga, descartada quando chega ao topo da fila.
+ */
+class DeadlineWatcher extends CyclicBehaviour {
+
+    private final Map<String, Long> deadlines = new HashMap<>(); // Id da conversa -> prazo vigente
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Consumer<String> onExpired;
+
+    /**
+     * @param agent     O agente dono das conversas.
+     * @param onExpired Chamado (na thread do agente) com o id da conversa cujo prazo expirou.
+     */
+    DeadlineWatcher(Agent agent, Consumer<String> onExpired) {
+        super(agent);
+        this.onExpired = onExpired;
+    }
+
+    /**
+     * Define (ou substitui) o prazo de resposta de uma conversa.
+     */
+    void schedule(String conversationId, long timeoutMillis) {
+        long at = System.currentTimeMillis() + timeoutMillis;
+        deadlines.put(conversationId, at);
+        Entry entry = new Entry(at, conversationId);
+        boolean earliest = queue.isEmpty() || at < queue.peek().at;
+        queue.add(entry);
+        if (earliest) {
+            restart(); // Recalcula o tempo de espera
+        }
+    }
+
+    void cancel(String conversationId) {
+        deadlines.remove(conversationId);
+    }
+
+    @Override
+    public void action() {
+        long now = System.currentTimeMillis();
+        while (!queue.isEmpty()) {
+            Entry head = queue.peek();
+            Long current = deadlines.get(head.conversationId);
+            if (current == null || current != head.at) {
+                queue.poll(); // Prazo cancelado ou reagendado
+            } else if (head.at <= now) {
+                queue.poll();
+                deadlines.remove(head.conversationId);
+                onExpired.accept(head.conversationId);
+            } else {
+                block(head.at - now);
+                return;
+            }
+        }
+        block();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long at;
+        private final String conversationId;
+
+        private Entry(long at, String conversationId) {
+            this.at = at;
+            this.conversationId = conversationId;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(at, other.at);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package mas.agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+import jade.wrapper.StaleProxyException;
+import mas.logic.ConfigLoader;
+import mas.models.NegotiationEvent;
+import mas.models.NegotiationEvent.Phase;
+import mas.models.NegotiationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Plataforma JADE headless (sem GUI) usada pelo mas.load.LoadGenerator e pelo
+ * mas.scenario.ScenarioRunner: um container principal com um {@link LoadDriverAgent}, pelo
+ * qual quem roda fora da plataforma age dentro dela.
+ * <p>
+ * A prontidão dos agentes (SDA, vendedores e cada CoordinatorAgent) é esperada com uma
+ * {@link ReadinessBarrier} executada no driver, notificada pelo DF a cada registro, em vez de
+ * consultas periódicas. Cada tarefa tem o seu próprio Coordenador, criado por
+ * {@link #submitTask} e encerrado quando a tarefa termina ou o prazo expira.
+ */
+public final class HeadlessPlatform implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessPlatform.class);
+
+    private final Runtime runtime;
+    private final ContainerController main;
+    private final AgentController driver;
+
+    private HeadlessPlatform(Runtime runtime, ContainerController main, AgentController driver) {
+        this.runtime = runtime;
+        this.main = main;
+        this.driver = driver;
+    }
+
+    /**
+     * Inicia o container principal e o driver {@code driverName}, já pronto para receber ações.
+     */
+    public static HeadlessPlatform start(String driverName) throws Exception {
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(false);
+        Profile p = new ProfileImpl();
+        p.setParameter(Profile.GUI, "false");
+        p.setParameter("jade_domain_df_maxresult", ConfigLoader.getInstance().getString("discovery.pageSize"));
+        ContainerController main = rt.createMainContainer(p);
+        try {
+            CountDownLatch driverReady = new CountDownLatch(1);
+            AgentController driver = main.createNewAgent(driverName, LoadDriverAgent.class.getName(), new Object[]{driverReady});
+            driver.start();
+            driverReady.await();
+            return new HeadlessPlatform(rt, main, driver);
+        } catch (Exception e) {
+            main.kill();
+            rt.shutDown();
+            throw e;
+        }
+    }
+
+    /**
+     * Inicia o SDA e os vendedores (nome -> argumentos de criação) e aguarda todos anunciarem
+     * prontidão no DF (o setup dos agentes é assíncrono).
+     */
+    public void startParticipants(Map<String, Object[]> sellers, long timeoutMillis) throws Exception {
+        main.createNewAgent("sda", SynergyDeterminationAgent.class.getName(), null).start();
+        for (Map.Entry<String, Object[]> seller : sellers.entrySet()) {
+            main.createNewAgent(seller.getKey(), SellerAgent.class.getName(), seller.getValue()).start();
+        }
+        await(timeoutMillis, barrier -> barrier
+                .require(SynergyDeterminationAgent.SERVICE_TYPE, 1)
+                .require(SupplierDirectory.SERVICE_TYPE, sellers.size()));
+        logger.info("Headless platform: SDA and {} seller(s) registered in the DF.", sellers.size());
+    }
+
+    /**
+     * Cria o Coordenador {@code coordinatorName}, assina os seus eventos e lhe envia a demanda
+     * pelo driver. O Coordenador é encerrado quando a tarefa termina ou em {@code timeoutMillis}
+     * (a solução do {@link TaskRun} então falha com TimeoutException).
+     */
+    public TaskRun submitTask(String coordinatorName, List<String> products, long timeoutMillis) throws Exception {
+        AgentController coordinator = main.createNewAgent(coordinatorName, CoordinatorAgent.class.getName(), null);
+        coordinator.start();
+        TaskRun run = new TaskRun();
+        try {
+            // A interface O2A é registrada no setup, antes do anúncio de prontidão
+            await(timeoutMillis, barrier -> barrier.requireAgent(CoordinatorAgent.SERVICE_TYPE, coordinatorName));
+            coordinator.getO2AInterface(NegotiationEventSource.class).events().subscribe(run);
+        } catch (Exception e) {
+            kill(coordinator);
+            throw e;
+        }
+        run.solution.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((solution, error) -> kill(coordinator));
+
+        String task = String.join(",", products);
+        driver.putO2AObject((Consumer<Agent>) agent -> {
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.addReceiver(new AID(coordinatorName, AID.ISLOCALNAME));
+            msg.setProtocol(CoordinatorAgent.PROTOCOL_DEFINE_TASK);
+            msg.setContent(task);
+            agent.send(msg);
+        }, AgentController.ASYNC);
+        return run;
+    }
+
+    /**
+     * Executa no driver uma barreira com os requisitos de {@code requirements} e aguarda o seu desfecho.
+     */
+    private void await(long timeoutMillis, Consumer<ReadinessBarrier> requirements) throws Exception {
+        CompletableFuture<Boolean> ready = new CompletableFuture<>();
+        driver.putO2AObject((Consumer<Agent>) agent -> {
+            ReadinessBarrier barrier = new ReadinessBarrier(agent, timeoutMillis, ready::complete);
+            requirements.accept(barrier);
+            agent.addBehaviour(barrier);
+        }, AgentController.ASYNC);
+        // A própria barreira encerra no prazo; a folga cobre a fila do driver
+        if (!ready.get(2 * timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Agents not ready within " + timeoutMillis + " ms");
+        }
+    }
+
+    private static void kill(AgentController agent) {
+        try {
+            agent.kill();
+        } catch (StaleProxyException e) {
+            logger.debug("Headless platform: Agent already terminated.", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            main.kill();
+        } catch (StaleProxyException e) {
+            logger.debug("Headless platform: Main container already terminated.", e);
+        }
+        runtime.shutDown();
+    }
+
+    /**
+     * Acompanha os eventos do Coordenador de uma tarefa até a solução final.
+     */
+    public static final class TaskRun implements Flow.Subscriber<NegotiationEvent> {
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<List<NegotiationResult>> solution = new CompletableFuture<>();
+        private final Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+        private volatile int negotiations;
+        private volatile long finishedNanos;
+
+        private TaskRun() {
+        }
+
+        /**
+         * A solução final (vazia se a demanda não pôde ser satisfeita); falha se o Coordenador
+         * encerrou antes dela ou se o prazo expirou.
+         */
+        public CompletableFuture<List<NegotiationResult>> solution() {
+            return solution;
+        }
+
+        public boolean finished() {
+            return solution.isDone() && !solution.isCompletedExceptionally();
+        }
+
+        /**
+         * Duração de cada fase concluída (nanos).
+         */
+        public synchronized Map<Phase, Long> phaseNanos() {
+            return new EnumMap<>(phases);
+        }
+
+        public int negotiations() {
+            return negotiations;
+        }
+
+        /**
+         * Instante (System.nanoTime) em que a solução final chegou, ou 0.
+         */
+        public long finishedNanos() {
+            return finishedNanos;
+        }
+
+        /**
+         * Tempo desde a submissão até a solução final (ou até agora, se ela não chegou).
+         */
+        public long elapsedNanos() {
+            return (finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startNanos;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(NegotiationEvent event) {
+            switch (event.getType()) {
+                case PHASE_COMPLETED:
+                    synchronized (this) {
+                        phases.put(event.getPhase(), event.getDurationNanos());
+                    }
+                    break;
+                case NEGOTIATION_FINISHED:
+                    negotiations++;
+                    break;
+                case FINAL_SOLUTION:
+                    finishedNanos = System.nanoTime();
+                    solution.complete(new ArrayList<>(event.getSolution()));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            solution.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            solution.completeExceptionally(new IllegalStateException("Coordinator closed before the final solution"));
+        }
+    }
+}
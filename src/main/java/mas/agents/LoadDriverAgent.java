@@ -0,0 +1,48 @@
+package mas.agents;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Agente auxiliar do mas.load.LoadGenerator e do mas.scenario.ScenarioRunner: executa, na sua
+ * própria thread, as ações que eles lhe entregam pela interface O2A (enviar a tarefa a um
+ * Coordenador, esperar agentes com uma {@link ReadinessBarrier}), via {@link HeadlessPlatform}. Assim quem roda fora da plataforma não usa
+ * a fila de mensagens de um agente a partir de outra thread.
+ * <p>
+ * O primeiro argumento de criação, se houver, é um {@link CountDownLatch} liberado ao fim do
+ * setup, quando o agente já aceita objetos O2A (antes disso o JADE os descartaria).
+ */
+public class LoadDriverAgent extends Agent {
+    private static final Logger logger = LoggerFactory.getLogger(LoadDriverAgent.class);
+
+    protected void setup() {
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new CyclicBehaviour() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void action() {
+                Object command = myAgent.getO2AObject();
+                if (command == null) {
+                    block();
+                    return;
+                }
+                try {
+                    ((Consumer<Agent>) command).accept(myAgent);
+                } catch (RuntimeException e) {
+                    logger.error("{}: Load command failed.", myAgent.getLocalName(), e);
+                }
+            }
+        });
+
+        Object[] args = getArguments();
+        if (args != null && args.length > 0 && args[0] instanceof CountDownLatch) {
+            ((CountDownLatch) args[0]).countDown();
+        }
+        logger.info("Load driver {} is ready.", getAID().getName());
+    }
+}
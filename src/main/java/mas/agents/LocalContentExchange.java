@@ -0,0 +1,210 @@
+package mas.agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.UnreadableException;
+import mas.logic.ConfigLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caminho rápido (fast path) para troca de conteúdo entre agentes na mesma JVM.
+ * <p>
+ * Quando remetente e destinatário estão registrados nesta JVM, o objeto do modelo
+ * (Proposal, NegotiationResult, lista de bundles...) é passado por referência através
+ * de um registro compartilhado, e apenas um pequeno "handle" viaja na ACLMessage.
+ * Se o destinatário não estiver registrado localmente (ex: outro container remoto),
+ * o conteúdo é serializado normalmente via {@code setContentObject}.
+ * <p>
+ * Os objetos trocados por aqui devem ser tratados como imutáveis pelos agentes.
+ * <p>
+ * Um conteúdo local fica no registro até ser lido ({@link #getContent}) ou descartado
+ * ({@link #discard}) pelo destinatário; quem ignora uma mensagem recebida deve descartá-la.
+ * Como salvaguarda, conteúdos não lidos há mais de 'messaging.localHandleTtlMillis' são
+ * removidos numa varredura feita, no máximo, a cada meio TTL durante os envios.
+ */
+public final class LocalContentExchange {
+    private static final Logger logger = LoggerFactory.getLogger(LocalContentExchange.class);
+
+    /** Parâmetro definido pelo usuário que marca uma mensagem com conteúdo local. */
+    static final String LOCAL_HANDLE_PARAM = "X-local-handle";
+
+    private static final Set<String> localAgents = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    private static final AtomicLong handleSequence = new AtomicLong();
+    private static final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+    private static volatile Boolean enabled;
+    private static volatile long ttlNanos = -1;
+
+    private LocalContentExchange() {
+    }
+
+    /**
+     * Registra o agente como residente nesta JVM. Deve ser chamado no setup().
+     */
+    public static void register(Agent agent) {
+        localAgents.add(agent.getAID().getName());
+    }
+
+    /**
+     * Remove o agente do registro e descarta conteúdos pendentes endereçados a ele.
+     * Deve ser chamado no takeDown().
+     */
+    public static void deregister(Agent agent) {
+        String name = agent.getAID().getName();
+        localAgents.remove(name);
+        pending.values().removeIf(entry -> entry.receiver.equals(name));
+    }
+
+    /**
+     * Define o conteúdo da mensagem, usando o caminho rápido quando o único
+     * destinatário está nesta JVM e serialização caso contrário.
+     */
+    public static void setContent(ACLMessage msg, Serializable content) throws IOException {
+        String receiver = singleLocalReceiver(msg);
+        if (receiver == null) {
+            msg.setContentObject(content);
+            return;
+        }
+        setLocal(msg, receiver, content);
+    }
+
+    /**
+     * Como {@link #setContent}, mas com o conteúdo já serializado por {@link #serialize} para o
+     * caso remoto: conteúdos reenviados muitas vezes (ex: respostas em cache) são serializados
+     * uma única vez. O destinatário lê a mensagem normalmente com {@link #getContent}.
+     *
+     * @param serialized {@code content} serializado; não é copiado nem alterado.
+     */
+    public static void setContent(ACLMessage msg, Serializable content, byte[] serialized) {
+        String receiver = singleLocalReceiver(msg);
+        if (receiver == null) {
+            msg.setByteSequenceContent(serialized); // O mesmo formato de setContentObject
+            return;
+        }
+        setLocal(msg, receiver, content);
+    }
+
+    /**
+     * Serializa o conteúdo no formato lido por {@code ACLMessage.getContentObject()}.
+     */
+    public static byte[] serialize(Serializable content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Obtém o conteúdo da mensagem recebida. Conteúdos locais são consumidos
+     * (removidos do registro) na primeira leitura; o chamador deve guardar a referência.
+     *
+     * @return O objeto transportado, ou null se o handle local não existir nesta JVM.
+     */
+    public static Serializable getContent(ACLMessage msg) throws UnreadableException {
+        String handle = msg.getUserDefinedParameter(LOCAL_HANDLE_PARAM);
+        if (handle == null) {
+            return msg.getContentObject();
+        }
+        Entry entry = pending.remove(handle);
+        if (entry == null) {
+            logger.warn("LocalContentExchange: handle '{}' from {} is not available in this JVM.", handle, msg.getSender().getName());
+            return null;
+        }
+        return entry.content;
+    }
+
+    /**
+     * Libera o conteúdo local de uma mensagem recebida que o agente vai ignorar sem ler
+     * (ex: resposta tardia ou de uma conversa encerrada). Sem efeito em mensagens serializadas.
+     */
+    public static void discard(ACLMessage msg) {
+        String handle = msg.getUserDefinedParameter(LOCAL_HANDLE_PARAM);
+        if (handle != null) {
+            pending.remove(handle);
+        }
+    }
+
+    private static void setLocal(ACLMessage msg, String receiver, Serializable content) {
+        long now = System.nanoTime();
+        String handle = "lx-" + handleSequence.incrementAndGet();
+        pending.put(handle, new Entry(receiver, content, now));
+        msg.setContent(handle);
+        msg.addUserDefinedParameter(LOCAL_HANDLE_PARAM, handle);
+        expireStale(now);
+    }
+
+    private static void expireStale(long now) {
+        long ttl = ttlNanos();
+        long last = lastSweepNanos.get();
+        if (now - last < ttl / 2 || !lastSweepNanos.compareAndSet(last, now)) {
+            return;
+        }
+        int before = pending.size();
+        pending.values().removeIf(entry -> now - entry.createdNanos > ttl);
+        int expired = before - pending.size();
+        if (expired > 0) {
+            logger.warn("LocalContentExchange: expired {} local content(s) never read by their receivers.", expired);
+        }
+    }
+
+    private static long ttlNanos() {
+        long value = ttlNanos;
+        if (value < 0) {
+            String millis = ConfigLoader.getInstance().getString("messaging.localHandleTtlMillis");
+            value = (millis == null ? 120_000L : Long.parseLong(millis.trim())) * 1_000_000L;
+            ttlNanos = value;
+        }
+        return value;
+    }
+
+    private static String singleLocalReceiver(ACLMessage msg) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Iterator<?> it = msg.getAllReceiver();
+        if (!it.hasNext()) {
+            return null;
+        }
+        AID receiver = (AID) it.next();
+        if (it.hasNext()) {
+            return null; // Várias cópias da mensagem: usa serialização
+        }
+        return localAgents.contains(receiver.getName()) ? receiver.getName() : null;
+    }
+
+    private static boolean isEnabled() {
+        Boolean value = enabled;
+        if (value == null) {
+            String flag = ConfigLoader.getInstance().getString("messaging.localFastPath");
+            value = flag == null || Boolean.parseBoolean(flag.trim());
+            enabled = value;
+            logger.debug("LocalContentExchange: fast path enabled = {}", value);
+        }
+        return value;
+    }
+
+    private static final class Entry {
+        private final String receiver;
+        private final Serializable content;
+        private final long createdNanos;
+
+        private Entry(String receiver, Serializable content, long createdNanos) {
+            this.receiver = receiver;
+            this.content = content;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package mas.agents;
+
+import mas.models.NegotiationEvent;
+import mas.models.NegotiationEvent.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publisher dos eventos do Coordenador, com backpressure por assinante e sem nunca bloquear
+ * a thread do agente.
+ * <p>
+ * Cada assinante tem uma fila de até 'coordinator.events.bufferSize' eventos, entregues no
+ * {@link Executor} conforme os seus request(n). Com a fila cheia, só eventos de progresso
+ * (NEGOTIATION_STARTED/FINISHED e BEST_SO_FAR) são descartados: o que chega, se for de
+ * progresso, ou o de progresso mais antigo da fila, para dar lugar a um essencial (RESULT,
+ * PHASE_COMPLETED, FINAL_SOLUTION). Se a fila só tem eventos essenciais, o assinante não os
+ * perde em silêncio: recebe onError e deixa de ser atendido.
+ */
+final class NegotiationEventPublisher implements Flow.Publisher<NegotiationEvent>, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NegotiationEventPublisher.class);
+
+    private static final Set<Type> SHEDDABLE = EnumSet.of(Type.NEGOTIATION_STARTED, Type.NEGOTIATION_FINISHED, Type.BEST_SO_FAR);
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    NegotiationEventPublisher(Executor executor, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1: " + bufferSize);
+        }
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super NegotiationEvent> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        EventSubscription subscription = new EventSubscription(subscriber);
+        if (closed) {
+            subscription.complete();
+        } else {
+            subscriptions.add(subscription);
+        }
+        subscription.schedule();
+    }
+
+    boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Enfileira o evento para todos os assinantes e retorna em seguida.
+     */
+    void offer(NegotiationEvent event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.enqueue(event);
+        }
+    }
+
+    /**
+     * Entrega os eventos já enfileirados e, depois deles, onComplete a cada assinante.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+            subscription.schedule();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * Assinatura de um assinante. As chamadas ao assinante são feitas uma de cada vez, em ordem,
+     * por um único laço de entrega agendado no executor ('wip' conta os pedidos de entrega).
+     */
+    private final class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super NegotiationEvent> subscriber;
+        private final AtomicInteger wip = new AtomicInteger();
+        // Protegidos por 'this'
+        private final ArrayDeque<NegotiationEvent> queue = new ArrayDeque<>();
+        private long demand;
+        private boolean completed;
+        private Throwable error;
+        private long dropped;
+        // Usados apenas no laço de entrega
+        private boolean subscribed;
+        private boolean terminated;
+        private volatile boolean cancelled;
+
+        private EventSubscription(Flow.Subscriber<? super NegotiationEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void enqueue(NegotiationEvent event) {
+            boolean overflow = false;
+            synchronized (this) {
+                if (cancelled || completed || error != null) {
+                    return;
+                }
+                if (queue.size() >= bufferSize) {
+                    if (SHEDDABLE.contains(event.getType())) {
+                        dropped++;
+                        logger.debug("CA events: Subscriber buffer full, dropping {} ({} dropped so far)", event, dropped);
+                        return;
+                    }
+                    if (!dropOldestSheddable()) {
+                        error = new IllegalStateException("Subscriber fell " + bufferSize
+                                + " essential events behind; cannot deliver " + event);
+                        queue.clear();
+                        overflow = true;
+                    }
+                }
+                if (!overflow) {
+                    queue.addLast(event);
+                }
+            }
+            if (overflow) {
+                logger.warn("CA events: Subscriber {} is too slow; failing its subscription.", subscriber);
+            }
+            schedule();
+        }
+
+        private boolean dropOldestSheddable() {
+            Iterator<NegotiationEvent> it = queue.iterator();
+            while (it.hasNext()) {
+                if (SHEDDABLE.contains(it.next().getType())) {
+                    it.remove();
+                    dropped++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("request(n) requires n > 0: " + n); // Regra 3.9
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                queue.clear();
+            }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                deliver();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            while (!terminated && !cancelled) {
+                NegotiationEvent next = null;
+                Throwable failure;
+                boolean done = false;
+                synchronized (this) {
+                    failure = error;
+                    if (failure == null && demand > 0 && !queue.isEmpty()) {
+                        next = queue.pollFirst();
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                    } else if (failure == null && completed && queue.isEmpty()) {
+                        done = true;
+                    }
+                }
+                if (failure != null) {
+                    terminated = true;
+                    subscriptions.remove(this);
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (done) {
+                    terminated = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                if (next == null) {
+                    return; // Sem demanda ou sem eventos: o próximo request/offer agenda nova entrega
+                }
+                try {
+                    subscriber.onNext(next);
+                } catch (RuntimeException e) {
+                    logger.warn("CA events: Subscriber {} failed on {}; cancelling its subscription.", subscriber, next, e);
+                    cancel();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package mas.agents;
+
+import mas.models.NegotiationEvent;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Interface O2A (Object-to-Agent) do CoordinatorAgent para sistemas externos.
+ * Obtida via {@code AgentController.getO2AInterface(NegotiationEventSource.class)}.
+ * <p>
+ * O Publisher respeita o backpressure de cada assinante (request(n)) sem bloquear a
+ * thread do agente. Um assinante lento pode perder eventos de progresso (NEGOTIATION_*,
+ * BEST_SO_FAR), mas nunca RESULT, PHASE_COMPLETED ou FINAL_SOLUTION: se não couberem,
+ * a assinatura termina com onError.
+ */
+public interface NegotiationEventSource {
+
+    Flow.Publisher<NegotiationEvent> events();
+}
@@ -0,0 +1,198 @@
+package mas.agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Barreira de prontidão baseada no Directory Facilitator (DF).
+ * <p>
+ * Cada agente anuncia que está pronto registrando no DF um serviço do seu papel ao fim do setup
+ * ({@link #announce}); os vendedores já o fazem ao se registrar como {@value SupplierDirectory#SERVICE_TYPE}.
+ * A barreira assina o DF (FIPA subscribe) para cada papel exigido e é notificada de cada registro
+ * e remoção, sem consultas periódicas. Assim que todos os requisitos são atendidos, ou o prazo
+ * expira, ela cancela as assinaturas e chama {@code onDone} (na thread do agente) com
+ * {@code true} se todos ficaram prontos.
+ */
+public class ReadinessBarrier extends SimpleBehaviour {
+    private static final Logger logger = LoggerFactory.getLogger(ReadinessBarrier.class);
+    private static final AtomicLong SEQUENCE = new AtomicLong(); // Barreiras simultâneas do mesmo agente
+
+    private final long timeoutMillis;
+    private final Consumer<Boolean> onDone;
+    private final Map<String, Integer> minimumByType = new LinkedHashMap<>(); // Tipo de serviço -> mínimo de agentes
+    private final Map<String, Set<String>> namedByType = new HashMap<>(); // Tipo de serviço -> agentes exigidos
+    private final Map<String, Set<String>> readyByType = new HashMap<>(); // Tipo de serviço -> agentes registrados
+    private final Map<String, ACLMessage> subscriptions = new HashMap<>(); // Id da conversa -> assinatura
+    private final Map<String, String> typeByConversation = new HashMap<>();
+    private MessageTemplate template;
+    private long deadline;
+    private boolean finished = false;
+
+    /**
+     * @param timeoutMillis Prazo máximo de espera.
+     * @param onDone        Chamado uma única vez: true se todos os requisitos foram atendidos, false no timeout.
+     */
+    public ReadinessBarrier(Agent agent, long timeoutMillis, Consumer<Boolean> onDone) {
+        super(agent);
+        this.timeoutMillis = timeoutMillis;
+        this.onDone = onDone;
+    }
+
+    /**
+     * Exige ao menos {@code count} agentes registrados com o serviço {@code serviceType}.
+     */
+    public ReadinessBarrier require(String serviceType, int count) {
+        minimumByType.merge(serviceType, count, Math::max);
+        return this;
+    }
+
+    /**
+     * Exige que o agente {@code localName} esteja registrado com o serviço {@code serviceType}.
+     */
+    public ReadinessBarrier requireAgent(String serviceType, String localName) {
+        minimumByType.putIfAbsent(serviceType, 0);
+        namedByType.computeIfAbsent(serviceType, t -> new HashSet<>()).add(localName);
+        return this;
+    }
+
+    /**
+     * Anuncia no DF que o agente está pronto para o papel {@code serviceType}.
+     */
+    public static void announce(Agent agent, String serviceType) {
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(serviceType);
+        sd.setName(agent.getLocalName());
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(agent.getAID());
+        dfd.addServices(sd);
+        try {
+            DFService.register(agent, dfd);
+            logger.debug("{}: Announced readiness as {}", agent.getLocalName(), serviceType);
+        } catch (FIPAException e) {
+            logger.error("{}: Failed to announce readiness as {}.", agent.getLocalName(), serviceType, e);
+        }
+    }
+
+    /**
+     * Remove o anúncio feito por {@link #announce} (no takeDown do agente).
+     */
+    public static void withdraw(Agent agent) {
+        try {
+            DFService.deregister(agent);
+        } catch (FIPAException e) {
+            logger.warn("{}: Failed to withdraw readiness from DF.", agent.getLocalName(), e);
+        }
+    }
+
+    @Override
+    public void onStart() {
+        deadline = System.currentTimeMillis() + timeoutMillis;
+        AID df = myAgent.getDefaultDF();
+        for (String type : minimumByType.keySet()) {
+            ServiceDescription sd = new ServiceDescription();
+            sd.setType(type);
+            DFAgentDescription dfd = new DFAgentDescription();
+            dfd.addServices(sd);
+            ACLMessage subscribe = DFService.createSubscriptionMessage(myAgent, df, dfd, new SearchConstraints());
+            String conversationId = "ready-" + myAgent.getLocalName() + "-" + type + "-" + SEQUENCE.incrementAndGet();
+            subscribe.setConversationId(conversationId);
+            myAgent.send(subscribe);
+            subscriptions.put(conversationId, subscribe);
+            typeByConversation.put(conversationId, type);
+            readyByType.put(type, new HashSet<>());
+        }
+        template = new MessageTemplate((MessageTemplate.MatchExpression) msg ->
+                msg.getConversationId() != null && subscriptions.containsKey(msg.getConversationId()));
+    }
+
+    @Override
+    public void action() {
+        ACLMessage msg = myAgent.receive(template);
+        if (msg != null) {
+            String type = typeByConversation.get(msg.getConversationId());
+            if (msg.getPerformative() == ACLMessage.INFORM) {
+                try {
+                    for (DFAgentDescription dfd : DFService.decodeNotification(msg.getContent())) {
+                        Set<String> ready = readyByType.get(type);
+                        // Uma descrição sem serviços notifica a remoção do registro
+                        if (dfd.getAllServices().hasNext()) {
+                            ready.add(dfd.getName().getLocalName());
+                        } else {
+                            ready.remove(dfd.getName().getLocalName());
+                        }
+                    }
+                } catch (FIPAException e) {
+                    logger.warn("{}: Failed to decode DF notification for {}.", myAgent.getLocalName(), type, e);
+                }
+            } else if (msg.getPerformative() != ACLMessage.AGREE) {
+                logger.warn("{}: DF refused readiness subscription for {}: {}", myAgent.getLocalName(), type, msg.getContent());
+            }
+        }
+
+        if (isSatisfied()) {
+            logger.info("{}: All required agents are ready ({}).", myAgent.getLocalName(), describe());
+            finish(true);
+        } else if (System.currentTimeMillis() >= deadline) {
+            logger.warn("{}: Readiness timeout after {} ms ({}).", myAgent.getLocalName(), timeoutMillis, describe());
+            finish(false);
+        } else if (msg == null) {
+            block(deadline - System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public boolean done() {
+        return finished;
+    }
+
+    private boolean isSatisfied() {
+        for (Map.Entry<String, Integer> requirement : minimumByType.entrySet()) {
+            Set<String> ready = readyByType.get(requirement.getKey());
+            if (ready.size() < requirement.getValue()
+                    || !ready.containsAll(namedByType.getOrDefault(requirement.getKey(), Set.of()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (String type : minimumByType.keySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(type).append(": ").append(readyByType.get(type).size());
+        }
+        return sb.toString();
+    }
+
+    private void finish(boolean ready) {
+        finished = true;
+        AID df = myAgent.getDefaultDF();
+        for (Iterator<ACLMessage> it = subscriptions.values().iterator(); it.hasNext(); ) {
+            myAgent.send(DFService.createCancelMessage(myAgent, df, it.next()));
+            it.remove();
+        }
+        onDone.accept(ready);
+    }
+}
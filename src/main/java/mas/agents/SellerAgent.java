@@ -2,21 +2,26 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.Behaviour;
-import jade.core.behaviours.FSMBehaviour;
-import jade.core.behaviours.OneShotBehaviour;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import jade.lang.acl.UnreadableException;
+import mas.logic.AdaptiveTimeout;
 import mas.logic.ConcessionService;
 import mas.logic.ConfigLoader;
 import mas.logic.EvaluationService;
 import mas.logic.EvaluationService.IssueParameters;
 import mas.logic.EvaluationService.IssueType;
+import mas.logic.NegotiationClock;
+import mas.metrics.NegotiationMetrics;
+import mas.metrics.NegotiationMetrics.Outcome;
 import mas.models.Bid;
 import mas.models.NegotiationIssue;
 import mas.models.ProductBundle;
 import mas.models.Proposal;
+import mas.trace.NegotiationTraceRecorder;
+import mas.trace.NegotiationTraceRecorder.Decision;
+import mas.trace.NegotiationTraceRecorder.Role;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,100 +29,90 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Representa um fornecedor (supplier) na negociação bilateral.
- * Este agente responde ao "Call for Proposal" do BuyerAgent e entra
+ * Este agente responde ao "Call for Proposal" dos BuyerAgents e entra
  * na barganha de oferta alternada.
  * <p>
- * TODO (Simplificação de Arquitetura):
- * Assim como o BuyerAgent, esta implementação negocia apenas UM ÚNICO LANCE (Bid).
- * O artigo exige que o SA envie uma Proposta com MÚLTIPLOS LANCES,
- * um para cada pacote (bundle) que ele deseja ofertar.
- * A lógica deve ser refatorada para gerar e avaliar múltiplos lances "bid-by-bid".
+ * O SA envia uma Proposta com MÚLTIPLOS LANCES, um para cada pacote do seu
+ * catálogo ('seller.catalog.&lt;nome&gt;'), e negocia "bid-by-bid": cada
+ * contra-lance é aceito ou respondido com um novo lance individualmente.
+ * <p>
+ * O vendedor atende várias negociações ao mesmo tempo (de compradores e coordenadores
+ * diferentes): cada REQUEST abre uma {@link SellerSession}, indexada pelo id da conversa,
+ * e um único comportamento ({@link MessageDispatcher}) processa as mensagens sem bloquear.
+ * O modelo de preferências e o catálogo são compartilhados entre as sessões.
  */
 public class SellerAgent extends Agent {
     private static final Logger logger = LoggerFactory.getLogger(SellerAgent.class);
 
-    // Nomes dos estados
-    private static final String STATE_WAIT_FOR_REQUEST = "WaitForRequest";
-    private static final String STATE_SEND_INITIAL_PROPOSAL = "SendInitialProposal";
-    private static final String STATE_WAIT_FOR_RESPONSE = "WaitForResponse";
-    private static final String STATE_EVALUATE_COUNTER = "EvaluateCounterProposal";
-    private static final String STATE_ACCEPT_COUNTER = "AcceptCounterOffer";
-    private static final String STATE_MAKE_NEW_PROPOSAL = "MakeNewProposal";
-    private static final String STATE_END_NEGOTIATION = "EndNegotiation";
-
-    // Variáveis de estado
-    private AID buyerAgent;
-    private ACLMessage receivedCounterMsg;
-    private int currentRound = 0;
-    private String negotiationId;
-    private ACLMessage initialRequestMsg;
-    // Serviços e Configurações
+    private final Map<String, SellerSession> sessions = new HashMap<>(); // Id da conversa -> sessão
+    private AdaptiveTimeout timeouts; // RTT das conversas -> prazo de resposta do comprador
+    private DeadlineWatcher deadlines; // Temporizador único de todas as sessões
+    private List<ProductBundle> catalog;
+    private List<NegotiationIssue> initialIssues;
+    // Serviços e Configurações (compartilhados por todas as sessões)
     private EvaluationService evalService;
     private ConcessionService concessionService;
+    private NegotiationTraceRecorder trace;
+    private NegotiationMetrics metrics;
     private Map<String, Double> sellerWeights;
     private Map<String, IssueParameters> sellerIssueParams; // TODO: Deve ser um Map<String, Map<String, IssueParameters>>
     private double sellerAcceptanceThreshold;
     private double sellerRiskBeta;
     private double sellerGamma;
-    private int maxRounds;
     private double discountRate;
+    private int parallelBidThreshold;
 
     protected void setup() {
         logger.info("Seller Agent {} is ready.", getAID().getName());
+        LocalContentExchange.register(this);
         setupSellerPreferences();
-
-        FSMBehaviour fsm = new FSMBehaviour(this) {
-            @Override
-            public int onEnd() {
-                logger.info("{}: FSM finished.", myAgent.getLocalName());
-                return super.onEnd();
+        metrics = NegotiationMetrics.register("SellerAgent", getLocalName());
+        SupplierDirectory.register(this, catalog);
+
+        addBehaviour(new MessageDispatcher());
+        timeouts = AdaptiveTimeout.fromConfig();
+        deadlines = new DeadlineWatcher(this, conversationId -> {
+            SellerSession session = sessions.get(conversationId);
+            if (session != null) {
+                session.timeout();
             }
-        };
-
-        // REGISTRA ESTADOS
-        fsm.registerFirstState(new WaitForRequest(), STATE_WAIT_FOR_REQUEST);
-        fsm.registerState(new SendInitialProposal(), STATE_SEND_INITIAL_PROPOSAL);
-        fsm.registerState(new WaitForResponse(this), STATE_WAIT_FOR_RESPONSE);
-        fsm.registerState(new EvaluateCounterProposal(), STATE_EVALUATE_COUNTER);
-        fsm.registerState(new AcceptCounterOffer(), STATE_ACCEPT_COUNTER);
-        fsm.registerState(new MakeNewProposal(), STATE_MAKE_NEW_PROPOSAL);
-        fsm.registerLastState(new EndNegotiation(), STATE_END_NEGOTIATION);
-
-        // REGISTRA TRANSIÇÕES
-        fsm.registerDefaultTransition(STATE_WAIT_FOR_REQUEST, STATE_SEND_INITIAL_PROPOSAL);
-        fsm.registerDefaultTransition(STATE_SEND_INITIAL_PROPOSAL, STATE_WAIT_FOR_RESPONSE);
-        fsm.registerTransition(STATE_WAIT_FOR_RESPONSE, STATE_EVALUATE_COUNTER, 1); // Counter recebido
-        fsm.registerTransition(STATE_WAIT_FOR_RESPONSE, STATE_END_NEGOTIATION, 0);  // Aceitação recebida ou Timeout
-        fsm.registerTransition(STATE_EVALUATE_COUNTER, STATE_ACCEPT_COUNTER, 1);
-        fsm.registerTransition(STATE_EVALUATE_COUNTER, STATE_MAKE_NEW_PROPOSAL, 0);
-        fsm.registerTransition(STATE_EVALUATE_COUNTER, STATE_END_NEGOTIATION, 2);
-        fsm.registerDefaultTransition(STATE_ACCEPT_COUNTER, STATE_END_NEGOTIATION);
-        fsm.registerDefaultTransition(STATE_MAKE_NEW_PROPOSAL, STATE_WAIT_FOR_RESPONSE);
-
-        addBehaviour(fsm);
+        });
+        addBehaviour(deadlines);
+    }
+
+    @Override
+    protected void takeDown() {
+        LocalContentExchange.deregister(this);
+        SupplierDirectory.deregister(this);
+        metrics.unregister();
     }
 
     private void setupSellerPreferences() {
         ConfigLoader config = ConfigLoader.getInstance();
         this.evalService = new EvaluationService();
         this.concessionService = new ConcessionService();
+        this.trace = NegotiationTraceRecorder.getInstance();
 
-        this.sellerAcceptanceThreshold = config.getDouble("seller.acceptanceThreshold");
-        this.sellerRiskBeta = config.getDouble("seller.riskBeta");
-        this.sellerGamma = config.getDouble("seller.gamma");
-        this.maxRounds = config.getInt("negotiation.maxRounds");
+        this.sellerAcceptanceThreshold = Double.parseDouble(setting("acceptanceThreshold"));
+        this.sellerRiskBeta = Double.parseDouble(setting("riskBeta"));
+        this.sellerGamma = Double.parseDouble(setting("gamma"));
         this.discountRate = config.getDouble("negotiation.discountRate");
+        this.parallelBidThreshold = config.getInt("negotiation.parallelBidThreshold");
 
         sellerWeights = new HashMap<>();
-        sellerWeights.put("price", config.getDouble("seller.weights.price"));
-        sellerWeights.put("quality", config.getDouble("seller.weights.quality")); // Adicionado
-        sellerWeights.put("delivery", config.getDouble("seller.weights.delivery")); // Adicionado
-        sellerWeights.put("service", config.getDouble("seller.weights.service"));
+        sellerWeights.put("price", Double.parseDouble(setting("weights.price")));
+        sellerWeights.put("quality", Double.parseDouble(setting("weights.quality"))); // Adicionado
+        sellerWeights.put("delivery", Double.parseDouble(setting("weights.delivery"))); // Adicionado
+        sellerWeights.put("service", Double.parseDouble(setting("weights.service")));
 
 
         sellerIssueParams = new HashMap<>();
@@ -125,16 +120,33 @@ public class SellerAgent extends Agent {
         // O Vendedor também deve ter diferentes [min, max] (seus custos/limites)
         // para diferentes pacotes de produtos.
         // Esta estrutura de dados é inadequada.
-        loadIssueParams(config, "price", IssueType.COST, "seller.params.");
-        loadIssueParams(config, "delivery", IssueType.COST, "seller.params.");
+        loadIssueParams("price", IssueType.COST);
+        loadIssueParams("delivery", IssueType.COST);
         sellerIssueParams.put("quality", new IssueParameters(0, 1, IssueType.QUALITATIVE));
         sellerIssueParams.put("service", new IssueParameters(0, 1, IssueType.QUALITATIVE));
 
+        // Catálogo e valores da Proposta Inicial (iguais para todas as sessões)
+        this.catalog = loadCatalog();
+        this.initialIssues = new ArrayList<>();
+        initialIssues.add(new NegotiationIssue("Price", Double.parseDouble(setting("initial.price"))));
+        initialIssues.add(new NegotiationIssue("Quality", setting("initial.quality")));
+        initialIssues.add(new NegotiationIssue("Delivery", Double.parseDouble(setting("initial.delivery"))));
+        initialIssues.add(new NegotiationIssue("Service", setting("initial.service")));
     }
 
-    private void loadIssueParams(ConfigLoader config, String issueName, IssueType type, String prefix) {
-        String key = prefix + issueName;
-        String value = config.getString(key);
+    /**
+     * Valor de 'seller.&lt;chave&gt;' para este vendedor: 'seller.&lt;nome&gt;.&lt;chave&gt;', se existir
+     * (ex: as preferências de cada vendedor de um arquivo de cenário), ou o valor comum a todos.
+     */
+    private String setting(String key) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String own = config.getString("seller." + getLocalName() + "." + key);
+        return own != null ? own : config.getString("seller." + key);
+    }
+
+    private void loadIssueParams(String issueName, IssueType type) {
+        String key = "seller.params." + issueName;
+        String value = setting("params." + issueName);
         if (value != null && !value.isEmpty()) {
             String[] parts = value.split(",");
             if (parts.length == 2) {
@@ -152,87 +164,180 @@ public class SellerAgent extends Agent {
     }
 
 
-    // --- Comportamentos da FSM ---
+    /**
+     * Carrega os pacotes que este vendedor oferta: o primeiro argumento de criação, se houver
+     * (ex: os catálogos variados do mas.load.LoadGenerator), 'seller.<nome>.catalog' ou
+     * 'seller.catalog.<nome>' (ex: "1100,1000"). Vendedores sem catálogo próprio usam 'seller.catalog.default'.
+     */
+    private List<ProductBundle> loadCatalog() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        Object[] args = getArguments();
+        String value = args != null && args.length > 0 && args[0] instanceof String
+                ? (String) args[0] : config.getString("seller." + getLocalName() + ".catalog");
+        if (value == null || value.isEmpty()) {
+            value = config.getString("seller.catalog." + getLocalName());
+        }
+        if (value == null || value.isEmpty()) {
+            value = config.getString("seller.catalog.default");
+        }
+        List<ProductBundle> catalog = new ArrayList<>();
+        for (String mask : value.split(",")) {
+            catalog.add(ProductBundle.parse(mask));
+        }
+        return catalog;
+    }
 
     /**
-     * Estado 1: Aguarda o "Call for Proposal" (CFP) do BuyerAgent.
+     * Quantidade ofertada de cada produto do pacote ('seller.quantities', por produto).
      */
-    private class WaitForRequest extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Waiting for negotiation request...", myAgent.getLocalName());
-            MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.REQUEST);
-            ACLMessage msg = myAgent.blockingReceive(mt);
-            if (msg != null) {
-                initialRequestMsg = msg;
-                buyerAgent = msg.getSender();
-                negotiationId = msg.getConversationId();
-                currentRound = 1;
-                logger.info("{} [R{}]: Received request from {}", myAgent.getLocalName(), currentRound, buyerAgent.getLocalName());
-            } else {
-                logger.error("{}: Failed to receive initial request. Terminating.", myAgent.getLocalName());
-                myAgent.doDelete();
-            }
+    private int[] quantitiesFor(ProductBundle pb) {
+        String[] perProduct = setting("quantities").split(",");
+        int[] products = pb.getProducts();
+        int[] quantities = new int[products.length];
+        for (int i = 0; i < products.length; i++) {
+            quantities[i] = products[i] == 1 && i < perProduct.length ? Integer.parseInt(perProduct[i].trim()) : 0;
         }
+        return quantities;
+    }
 
-        @Override
-        public int onEnd() {
-            return (buyerAgent != null ? 0 : 1);
+    /**
+     * Avalia um contra-lance do comprador e, se não for aceitável, já gera o novo lance.
+     * Não altera o estado do agente, podendo ser executado em paralelo para vários lances.
+     */
+    private BidDecision decide(Bid counterBid, double progress) {
+        // TODO (SINERGIA): 'sellerIssueParams' genérico.
+        // Deveria usar params específicos para o 'counterBid.getProductBundle()'.
+        double utilityForSeller = evalService.calculateUtility("seller", counterBid, sellerWeights, sellerIssueParams, sellerRiskBeta);
+        if (utilityForSeller >= sellerAcceptanceThreshold) {
+            return new BidDecision(counterBid, utilityForSeller, null);
         }
+        Bid newSellerBid = concessionService.generateCounterBid(
+                counterBid,
+                progress,
+                sellerGamma,
+                discountRate,
+                sellerIssueParams,
+                "seller"
+        );
+        return new BidDecision(counterBid, utilityForSeller, newSellerBid);
     }
 
+    // --- Comportamentos ---
+
     /**
-     * Estado 2: Envia a Proposta inicial.
-     * Na implementação atual (simplificada), envia UM ÚNICO lance,
-     * com um pacote de produtos hard-coded baseado no nome do agente.
+     * Comportamento único que processa as mensagens de todos os compradores, sem bloquear:
+     * um REQUEST abre uma nova sessão; PROPOSE, ACCEPT_PROPOSAL e CANCEL são entregues à sessão
+     * da conversa correspondente.
      */
-    private class SendInitialProposal extends OneShotBehaviour {
+    private class MessageDispatcher extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.or(
+                MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                MessageTemplate.or(
+                        MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                        MessageTemplate.or(
+                                MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL),
+                                MessageTemplate.MatchPerformative(ACLMessage.CANCEL)
+                        )
+                )
+        );
+
         @Override
         public void action() {
-            logger.info("{} [R{}]: Sending initial proposal to {}", myAgent.getLocalName(), currentRound, buyerAgent != null ? buyerAgent.getLocalName() : "unknown");
-            ConfigLoader config = ConfigLoader.getInstance();
-            double initialPrice = config.getDouble("seller.initial.price");
-            String initialQuality = config.getString("seller.initial.quality");
-            double initialDelivery = config.getDouble("seller.initial.delivery");
-            String initialService = config.getString("seller.initial.service");
-
-            List<NegotiationIssue> issues = new ArrayList<>();
-            issues.add(new NegotiationIssue("Price", initialPrice));
-            issues.add(new NegotiationIssue("Quality", initialQuality));
-            issues.add(new NegotiationIssue("Delivery", initialDelivery));
-            issues.add(new NegotiationIssue("Service", initialService));
-
-            // A lógica abaixo simula diferentes fornecedores oferecendo diferentes pacotes.
-            // Esta é uma SIMULAÇÃO CORRETA para testar o WinnerDetermination.
-            ProductBundle pb;
-            int[] quantities;
-            String myName = myAgent.getLocalName();
-
-            if (myName.equals("s1")) {
-                pb = new ProductBundle(new int[]{1, 1, 0, 0}); // P1+P2
-                quantities = new int[]{1000, 1000, 0, 0};
-                logger.info("{}: Offering bundle P1+P2", myName);
-            } else if (myName.equals("s2")) {
-                pb = new ProductBundle(new int[]{0, 0, 1, 1}); // P3+P4
-                quantities = new int[]{0, 0, 2000, 2000};
-                logger.info("{}: Offering bundle P3+P4", myName);
-            } else { // s3
-                pb = new ProductBundle(new int[]{1, 0, 1, 0}); // P1+P3
-                quantities = new int[]{1000, 0, 2000, 0};
-                logger.info("{}: Offering bundle P1+P3", myName);
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
+                return;
+            }
+            metrics.messageReceived();
+            String conversationId = msg.getConversationId();
+            if (msg.getPerformative() == ACLMessage.REQUEST) {
+                if (conversationId == null || sessions.containsKey(conversationId)) {
+                    logger.warn("{}: Ignoring request from {} with missing/duplicate conversation id {}",
+                            myAgent.getLocalName(), msg.getSender().getLocalName(), conversationId);
+                    LocalContentExchange.discard(msg);
+                    return;
+                }
+                SellerSession session = new SellerSession(msg);
+                sessions.put(conversationId, session);
+                session.sendInitialProposal();
+                return;
             }
-            Bid initialBid = new Bid(pb, issues, quantities);
-
-            // TODO (Simplificação de Arquitetura): Envia UMA Proposal com UM Bid.
-            // O artigo exige que o SA envie uma Proposal com MÚLTIPLOS Bids
-            // (ex: um para P1, um para P2, um para P1+P2), permitindo ao
-            // comprador escolher o pacote.
-            // A lógica aqui deveria ser:
-            // 1. Obter a lista de pacotes permitidos (do SDA, via BA/CA).
-            // 2. Gerar um Bid inicial para CADA pacote que ele pode fornecer.
-            // 3. Adicionar TODOS esses Bids a 'List<Bid> allBids'.
-            // 4. new Proposal(allBids);
-            Proposal proposal = new Proposal(List.of(initialBid));
+
+            SellerSession session = conversationId == null ? null : sessions.get(conversationId);
+            if (session == null || !session.buyerAgent.equals(msg.getSender())) {
+                logger.debug("{}: Discarding message from {} for unknown conversation {}.",
+                        myAgent.getLocalName(), msg.getSender().getLocalName(), conversationId);
+                LocalContentExchange.discard(msg);
+                return;
+            }
+            if (msg.getPerformative() == ACLMessage.CANCEL) {
+                session.cancel();
+                return;
+            }
+            session.replyReceived();
+            if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
+                session.handleBuyerAcceptance(msg);
+            } else {
+                session.evaluateCounterProposal(msg);
+            }
+        }
+    }
+
+    /**
+     * Estado de uma negociação com um comprador.
+     * Cada método corresponde a um estado do protocolo; as transições acontecem
+     * conforme as mensagens do comprador são entregues pelo {@link MessageDispatcher}.
+     */
+    private class SellerSession {
+        private final AID buyerAgent;
+        private final String negotiationId;
+        private final ACLMessage initialRequestMsg;
+        private final Set<ProductBundle> openBundles = new LinkedHashSet<>(); // Pacotes ainda em negociação
+        private final List<Bid> agreedBids = new ArrayList<>();
+        private List<BidDecision> roundDecisions = new ArrayList<>();
+        private ACLMessage receivedCounterMsg;
+        private int currentRound;
+        private final AdaptiveTimeout.Conversation rtt = timeouts.newConversation();
+        private final NegotiationClock clock; // Prazo por rodadas ou pelo orçamento enviado pelo comprador
+        private long sentAt; // Envio da última mensagem ainda sem resposta (0 se nenhuma)
+        private boolean timedOut = false;
+        private boolean cancelled = false;
+
+        /**
+         * Estado 1: Recebe o "Call for Proposal" (CFP) do BuyerAgent.
+         */
+        private SellerSession(ACLMessage request) {
+            this.initialRequestMsg = request;
+            this.buyerAgent = request.getSender();
+            this.negotiationId = request.getConversationId();
+            this.currentRound = 1;
+            String budget = request.getUserDefinedParameter(BuyerAgent.PARAM_BUDGET);
+            this.clock = NegotiationClock.start(budget == null ? 0 : Long.parseLong(budget));
+            metrics.negotiationStarted();
+            logger.info("{} [R{}]: Received request from {}", getLocalName(), currentRound, buyerAgent.getLocalName());
+        }
+
+        private String name() {
+            return getLocalName() + "/" + buyerAgent.getLocalName();
+        }
+
+        /**
+         * Estado 2: Envia a Proposta inicial, com um lance para cada pacote do catálogo.
+         */
+        private void sendInitialProposal() {
+            logger.info("{} [R{}]: Sending initial proposal to {}", getLocalName(), currentRound, buyerAgent.getLocalName());
+
+            // TODO: Obter a lista de pacotes permitidos (do SDA, via BA/CA) e
+            // ofertar apenas os pacotes do catálogo que estejam nela.
+            List<Bid> allBids = new ArrayList<>();
+            for (ProductBundle pb : catalog) {
+                Bid bid = new Bid(pb, initialIssues, quantitiesFor(pb));
+                allBids.add(bid);
+                openBundles.add(pb);
+                trace.record(negotiationId, currentRound, Role.SELLER, Decision.PROPOSE, bid, Double.NaN);
+            }
+            logger.info("{}: Offering bundles {}", name(), openBundles);
+            Proposal proposal = new Proposal(allBids);
 
             ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
             msg.addReceiver(buyerAgent);
@@ -240,213 +345,241 @@ public class SellerAgent extends Agent {
             msg.setInReplyTo(initialRequestMsg.getReplyWith());
             msg.setReplyWith("prop-" + negotiationId + "-" + System.currentTimeMillis());
             try {
-                msg.setContentObject(proposal);
-                myAgent.send(msg);
-                logger.info("{}: Sent initial proposal -> Price: {}", myAgent.getLocalName(), initialPrice);
+                LocalContentExchange.setContent(msg, proposal);
+                send(msg);
+                metrics.messageSent();
+                awaitReply();
+                logger.info("{}: Sent initial proposal with {} bid(s) -> {}", name(), allBids.size(), initialIssues.get(0));
             } catch (IOException e) {
-                logger.error("{}: Error sending initial proposal", myAgent.getLocalName(), e);
+                logger.error("{}: Error sending initial proposal", name(), e);
+                end();
             }
         }
-    }
-
-    /**
-     * Estado 3: Aguarda a resposta do Comprador (Aceitação ou Contraproposta).
-     * Esta lógica está correta (ao contrário do BuyerAgent).
-     */
-    private class WaitForResponse extends Behaviour {
-        private boolean responseReceived = false;
-        private int nextTransition = 0; // 0=Timeout/Accept, 1=CounterProposal
-        private long startTime;
 
-        public WaitForResponse(Agent a) {
-            super(a);
+        /**
+         * Arma o prazo de resposta do comprador, adaptado ao RTT medido nesta conversa.
+         */
+        private void awaitReply() {
+            sentAt = System.currentTimeMillis();
+            deadlines.schedule(negotiationId, rtt.timeoutMillis());
         }
 
-        @Override
-        public void onStart() {
-            responseReceived = false;
-            startTime = System.currentTimeMillis();
+        /**
+         * Registra o RTT da rodada na chegada da (primeira) resposta à última mensagem enviada.
+         */
+        private void replyReceived() {
+            if (sentAt > 0) {
+                rtt.sample(System.currentTimeMillis() - sentAt);
+                sentAt = 0;
+            }
+            deadlines.cancel(negotiationId);
         }
 
-        @Override
-        public void action() {
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchSender(buyerAgent),
-                    MessageTemplate.and(
-                            MessageTemplate.or(
-                                    MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL),
-                                    MessageTemplate.MatchPerformative(ACLMessage.PROPOSE)
-                            ),
-                            MessageTemplate.MatchConversationId(negotiationId)
-                    )
-            );
-            ACLMessage msg = myAgent.receive(mt);
-
-            if (msg != null) {
-                if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
-                    logger.info("{}: Buyer accepted my last offer!", myAgent.getLocalName());
-                    nextTransition = 0; // Vai para EndNegotiation
-                } else { // É PROPOSE (contraproposta)
-                    receivedCounterMsg = msg;
-                    nextTransition = 1; // Vai para EvaluateCounterProposal
-                }
-                responseReceived = true;
-            } else {
-                long elapsed = System.currentTimeMillis() - startTime;
-                long timeoutMillis = 15000;
-                if (elapsed > timeoutMillis) {
-                    logger.info("{}: Timeout waiting for response from {}. Ending negotiation.", myAgent.getLocalName(), buyerAgent != null ? buyerAgent.getLocalName() : "unknown");
-                    nextTransition = 0;
-                    responseReceived = true;
+        /**
+         * Estado 3: Aceitação do Comprador. Uma aceitação pode cobrir apenas parte dos lances
+         * em aberto; nesse caso a sessão continua aguardando a contraproposta com os lances restantes.
+         */
+        private void handleBuyerAcceptance(ACLMessage msg) {
+            try {
+                Serializable content = LocalContentExchange.getContent(msg);
+                if (!(content instanceof Proposal)) {
+                    logger.warn("{}: Buyer acceptance without bids: {}", name(), msg.getContent());
+                    openBundles.clear();
                 } else {
-                    block(500);
+                    for (Bid acceptedBid : ((Proposal) content).getBids()) {
+                        openBundles.remove(acceptedBid.getProductBundle());
+                        agreedBids.add(acceptedBid);
+                        logger.info("{}: Buyer accepted my bid for {}.", name(), acceptedBid.getProductBundle());
+                    }
                 }
+            } catch (UnreadableException e) {
+                logger.error("{}: Failed to read buyer acceptance content.", name(), e);
+                openBundles.clear();
+            }
+            if (openBundles.isEmpty()) {
+                logger.info("{}: Buyer accepted all my open bids!", name());
+                end();
+            } else {
+                // A contraproposta com os lances restantes vem em seguida
+                deadlines.schedule(negotiationId, rtt.timeoutMillis());
             }
         }
 
-        @Override
-        public boolean done() {
-            return responseReceived;
-        }
-
-        @Override
-        public int onEnd() {
-            return nextTransition;
-        }
-    }
-
-    /**
-     * Estado 4: Avalia a contraproposta recebida do Comprador.
-     */
-    private class EvaluateCounterProposal extends OneShotBehaviour {
-        private int transitionEvent = 2; // Default: falha/deadline
-
-        @Override
-        public void action() {
+        /**
+         * Estado 4: Avalia, lance a lance, a contraproposta recebida do Comprador.
+         * Com muitos lances, a avaliação é feita em paralelo.
+         */
+        private void evaluateCounterProposal(ACLMessage msg) {
+            receivedCounterMsg = msg;
+            roundDecisions = new ArrayList<>();
             currentRound++;
-            logger.info("{} [R{}]: Evaluating counter-proposal from {}", myAgent.getLocalName(), currentRound, buyerAgent != null ? buyerAgent.getLocalName() : "unknown");
+            logger.info("{} [R{}]: Evaluating counter-proposal from {}", getLocalName(), currentRound, buyerAgent.getLocalName());
 
-            if (currentRound > maxRounds) {
-                logger.info("{}: Deadline reached ({}/{}). Ending negotiation.", myAgent.getLocalName(), currentRound, maxRounds);
-                transitionEvent = 2;
+            if (clock.isExpired(currentRound)) {
+                logger.info("{}: Deadline reached (round {}, {} ms). Ending negotiation.", name(), currentRound, clock.elapsedMillis());
+                trace.record(negotiationId, currentRound, Role.SELLER, Decision.DEADLINE, null, Double.NaN);
+                LocalContentExchange.discard(msg);
+                end();
                 return;
             }
 
             try {
-                Serializable content = receivedCounterMsg.getContentObject();
-                if (content instanceof Proposal) {
-                    Proposal p = (Proposal) content;
-                    if (p.getBids() != null && !p.getBids().isEmpty()) {
-
-                        // TODO (Simplificação de Arquitetura): Falha idêntica ao BuyerAgent.
-                        // Pega apenas o lance [0]. Deveria ser um LOOP "bid-by-bid".
-                        Bid counterBid = p.getBids().get(0);
-
-                        // TODO (SINERGIA): 'sellerIssueParams' genérico.
-                        // Deveria usar params específicos para o 'counterBid.getProductBundle()'.
-                        double utilityForSeller = evalService.calculateUtility("seller", counterBid, sellerWeights, sellerIssueParams, sellerRiskBeta);
-                        logger.info("{}: Received counter utility = {} (Threshold = {})",
-                                myAgent.getLocalName(),
-                                String.format("%.4f", utilityForSeller),
-                                String.format("%.4f", sellerAcceptanceThreshold));
-
-                        // TODO (Simplificação): Esta lógica é "tudo ou nada".
-                        // O agente aceita ou rejeita a proposta inteira (de 1 item).
-                        // Na implementação correta, ele decidiria por lance.
-                        if (utilityForSeller >= sellerAcceptanceThreshold) {
-                            logger.info("{}: Counter-offer is acceptable. Accepting.", myAgent.getLocalName());
-                            transitionEvent = 1; // Aceitar
-                        } else {
-                            logger.info("{}: Counter-offer not acceptable. Will make new proposal for round {}", myAgent.getLocalName(), (currentRound + 1));
-                            transitionEvent = 0; // Rejeitar
-                        }
-                    } else {
-                        transitionEvent = 2;
+                Serializable content = LocalContentExchange.getContent(receivedCounterMsg);
+                if (!(content instanceof Proposal) || ((Proposal) content).getBids() == null || ((Proposal) content).getBids().isEmpty()) {
+                    end();
+                    return;
+                }
+                List<Bid> counterBids = ((Proposal) content).getBids();
+                double progress = clock.progress(currentRound);
+                Stream<Bid> stream = counterBids.size() >= parallelBidThreshold ? counterBids.parallelStream() : counterBids.stream();
+                roundDecisions = stream.map(bid -> decide(bid, progress)).collect(Collectors.toList());
+
+                boolean anyRejected = false;
+                for (BidDecision decision : roundDecisions) {
+                    trace.record(negotiationId, currentRound, Role.SELLER,
+                            decision.isAccepted() ? Decision.ACCEPT : Decision.COUNTER, decision.bid, decision.utility);
+                    metrics.recordUtility(decision.utility);
+                    if (logger.isInfoEnabled()) {
+                        logger.info("{}: Counter-bid for {} utility = {} (Threshold = {}) -> {}",
+                                name(),
+                                decision.bid.getProductBundle(),
+                                String.format("%.4f", decision.utility),
+                                String.format("%.4f", sellerAcceptanceThreshold),
+                                decision.isAccepted() ? "accept" : "new proposal");
                     }
+                    anyRejected |= !decision.isAccepted();
+                }
+                if (anyRejected) {
+                    makeNewProposal();
                 } else {
-                    transitionEvent = 2;
+                    acceptCounterOffer();
                 }
             } catch (UnreadableException e) {
-                logger.error("{}: Failed to read counter-proposal content.", myAgent.getLocalName(), e);
-                transitionEvent = 2;
+                logger.error("{}: Failed to read counter-proposal content.", name(), e);
+                end();
             }
         }
 
-        @Override
-        public int onEnd() {
-            return transitionEvent;
-        }
-    }
-
-    /**
-     * Estado 5: Aceita a contraproposta do Comprador.
-     */
-    private class AcceptCounterOffer extends OneShotBehaviour {
-        @Override
-        public void action() {
-            // TODO (Simplificação): Aceita a proposta/lance [0].
-            // Na implementação correta, deveria aceitar lances específicos.
-            logger.info("{}: Sending acceptance for buyer's counter-offer.", myAgent.getLocalName());
-            ACLMessage acceptMsg = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
-            acceptMsg.addReceiver(buyerAgent);
-            acceptMsg.setConversationId(negotiationId);
-            acceptMsg.setInReplyTo(receivedCounterMsg.getReplyWith());
-            acceptMsg.setContent("Accepted your counter-offer.");
-            myAgent.send(acceptMsg);
+        /**
+         * Estado 5: Aceita os contra-lances do Comprador (todos os lances em aberto
+         * foram aceitos nesta rodada).
+         */
+        private void acceptCounterOffer() {
+            try {
+                sendAcceptance(acceptedBidsOfRound());
+            } catch (IOException e) {
+                logger.error("{}: Error sending acceptance", name(), e);
+            }
+            end();
         }
-    }
 
-    /**
-     * Estado 6: Gera e envia uma nova proposta (rejeitando a contraproposta).
-     */
-    private class MakeNewProposal extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{} [R{}]: Generating new proposal...", myAgent.getLocalName(), currentRound);
+        /**
+         * Estado 6: Aceita os contra-lances aprovados (se houver) e envia uma nova
+         * proposta com um novo lance para cada contra-lance rejeitado.
+         */
+        private void makeNewProposal() {
+            logger.info("{} [R{}]: Generating new proposal...", name(), currentRound);
 
             try {
-                Proposal receivedP = (Proposal) receivedCounterMsg.getContentObject();
-                // TODO (Simplificação): Pega apenas o lance [0] como referência.
-                // Deveria ser um LOOP, gerando novas propostas para
-                // todos os lances que o comprador contra-ofertou.
-                Bid receivedB = receivedP.getBids().get(0);
-
-                // TODO (SINERGIA): 'sellerIssueParams' genérico.
-                Bid newSellerBid = concessionService.generateCounterBid(
-                        receivedB,
-                        currentRound,
-                        maxRounds,
-                        sellerGamma,
-                        discountRate,
-                        sellerIssueParams,
-                        "seller"
-                );
-
-                // TODO (Simplificação): Envia uma lista de 1 lance.
-                // Deveria ser uma lista de todos os lances recém-gerados.
-                Proposal newProposal = new Proposal(List.of(newSellerBid));
+                List<Bid> acceptedBids = acceptedBidsOfRound();
+                if (!acceptedBids.isEmpty()) {
+                    sendAcceptance(acceptedBids);
+                }
+
+                List<Bid> newSellerBids = new ArrayList<>();
+                for (BidDecision decision : roundDecisions) {
+                    if (!decision.isAccepted()) {
+                        newSellerBids.add(decision.newBid);
+                    }
+                }
+                Proposal newProposal = new Proposal(newSellerBids);
                 ACLMessage proposeMsg = new ACLMessage(ACLMessage.PROPOSE);
                 proposeMsg.addReceiver(buyerAgent);
                 proposeMsg.setConversationId(negotiationId);
                 proposeMsg.setInReplyTo(receivedCounterMsg.getReplyWith());
                 proposeMsg.setReplyWith("prop-" + negotiationId + "-" + System.currentTimeMillis());
-                proposeMsg.setContentObject(newProposal);
-                myAgent.send(proposeMsg);
-                logger.info("{}: Sent new proposal (Round {}) -> {}", myAgent.getLocalName(), currentRound, newSellerBid.getIssues().get(0));
+                LocalContentExchange.setContent(proposeMsg, newProposal);
+                send(proposeMsg);
+                metrics.messageSent();
+                awaitReply();
+                logger.info("{}: Sent new proposal (Round {}) with {} bid(s) -> {}", name(), currentRound, newSellerBids.size(), newSellerBids.get(0).getIssues().get(0));
+
+            } catch (IOException e) {
+                logger.error("{}: Error creating/sending new proposal", name(), e);
+                end();
+            }
+        }
+
+        /**
+         * Timeout: o comprador não respondeu a tempo.
+         */
+        private void timeout() {
+            logger.info("{}: Timeout waiting for response from {}. Ending negotiation.", getLocalName(), buyerAgent.getLocalName());
+            trace.record(negotiationId, currentRound, Role.SELLER, Decision.TIMEOUT, null, Double.NaN);
+            timedOut = true;
+            end();
+        }
+
+        /**
+         * Cancelamento: o comprador desistiu a pedido do Coordenador.
+         */
+        private void cancel() {
+            logger.info("{}: Negotiation cancelled by {}.", name(), buyerAgent.getLocalName());
+            cancelled = true;
+            end();
+        }
+
+        /**
+         * Estado Final: encerra a sessão. O agente continua atendendo outras negociações.
+         */
+        private void end() {
+            sessions.remove(negotiationId);
+            deadlines.cancel(negotiationId);
+            Outcome outcome = !agreedBids.isEmpty() ? Outcome.COMPLETED
+                    : cancelled ? Outcome.CANCELLED : (timedOut ? Outcome.TIMED_OUT : Outcome.FAILED);
+            metrics.negotiationEnded(outcome, currentRound);
+            logger.info("{}: Negotiation process finished ({} bid(s) agreed).", name(), agreedBids.size());
+        }
 
-            } catch (UnreadableException | IOException e) {
-                logger.error("{}: Error creating/sending new proposal", myAgent.getLocalName(), e);
+        /**
+         * Envia ACCEPT_PROPOSAL contendo apenas os contra-lances aceitos nesta rodada.
+         */
+        private void sendAcceptance(List<Bid> acceptedBids) throws IOException {
+            logger.info("{}: Sending acceptance of {} counter-bid(s) to {}", getLocalName(), acceptedBids.size(), buyerAgent.getLocalName());
+            ACLMessage acceptMsg = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+            acceptMsg.addReceiver(buyerAgent);
+            acceptMsg.setConversationId(negotiationId);
+            acceptMsg.setInReplyTo(receivedCounterMsg.getReplyWith());
+            LocalContentExchange.setContent(acceptMsg, new Proposal(acceptedBids));
+            send(acceptMsg);
+            metrics.messageSent();
+            for (Bid bid : acceptedBids) {
+                openBundles.remove(bid.getProductBundle());
+                agreedBids.add(bid);
             }
         }
+
+        private List<Bid> acceptedBidsOfRound() {
+            return roundDecisions.stream().filter(BidDecision::isAccepted).map(d -> d.bid).collect(Collectors.toList());
+        }
     }
 
     /**
-     * Estado Final (FSM): Ações de finalização da negociação.
+     * Resultado da avaliação de um contra-lance: aceito (newBid == null) ou respondido com novo lance.
      */
-    private static class EndNegotiation extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Negotiation process finished.", myAgent.getLocalName());
+    private static class BidDecision {
+        private final Bid bid;
+        private final double utility;
+        private final Bid newBid;
+
+        private BidDecision(Bid bid, double utility, Bid newBid) {
+            this.bid = bid;
+            this.utility = utility;
+            this.newBid = newBid;
+        }
+
+        private boolean isAccepted() {
+            return newBid == null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,328 @@
+package mas.agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import jade.lang.acl.ACLMessage;
+import mas.logic.ConfigLoader;
+import mas.models.ProductBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Descoberta dinâmica de fornecedores através do Directory Facilitator (DF) do JADE.
+ * <p>
+ * Cada SellerAgent se registra com um serviço do tipo {@value #SERVICE_TYPE}, anunciando
+ * os pacotes do seu catálogo e uma propriedade 'product' para cada produto que consegue
+ * fornecer. O Coordenador busca apenas os produtos demandados, de modo que vendedores que
+ * não cobrem nenhum deles nunca são encontrados.
+ * <p>
+ * Para escalar a dezenas de milhares de vendedores, os registros são divididos em
+ * 'discovery.shards' partições por um hash do nome do vendedor, e cada busca (produto x
+ * partição) é uma página de no máximo 'discovery.pageSize' resultados. Uma página cheia pode
+ * ter deixado vendedores de fora, então é dividida em {@link #SPLIT_FANOUT} sub-partições,
+ * buscadas em seguida, até 'discovery.splitLevels' níveis abaixo da partição inicial. Para isso
+ * o vendedor anuncia a sua partição em todos os níveis (propriedade 'shard' com valores
+ * "&lt;número de partições&gt;:&lt;partição&gt;"). Só as páginas cheias são divididas: poucos
+ * vendedores custam 'discovery.shards' páginas por produto; muitos, as necessárias.
+ * <p>
+ * Todas as páginas são pedidas ao DF de uma vez por {@link #startSearch}, que retorna sem
+ * esperar: o agente entrega cada resposta à {@link Search} no seu próprio behaviour e decide
+ * o prazo da busca, sem bloquear a sua thread.
+ */
+public final class SupplierDirectory {
+    private static final Logger logger = LoggerFactory.getLogger(SupplierDirectory.class);
+
+    public static final String SERVICE_TYPE = "supplier";
+    private static final String PROP_PRODUCT = "product";
+    private static final String PROP_BUNDLES = "bundles";
+    private static final String PROP_SHARD = "shard";
+    private static final int SPLIT_FANOUT = 4; // Sub-partições de uma página cheia
+    private static final AtomicLong SEARCH_SEQUENCE = new AtomicLong(); // Buscas simultâneas do mesmo agente
+
+    private SupplierDirectory() {
+    }
+
+    /**
+     * Nome do produto na posição do vetor de pacote (0 -> "P1").
+     */
+    public static String productName(int index) {
+        return "P" + (index + 1);
+    }
+
+    /**
+     * Registra o vendedor no DF, anunciando os pacotes e produtos do seu catálogo.
+     */
+    public static void register(Agent seller, Collection<ProductBundle> catalog) {
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SERVICE_TYPE);
+        sd.setName(seller.getLocalName());
+
+        Set<String> products = new LinkedHashSet<>();
+        for (ProductBundle pb : catalog) {
+            int[] mask = pb.getProducts();
+            for (int i = 0; i < mask.length; i++) {
+                if (mask[i] == 1) {
+                    products.add(productName(i));
+                }
+            }
+        }
+        for (String product : products) {
+            sd.addProperties(new Property(PROP_PRODUCT, product));
+        }
+        sd.addProperties(new Property(PROP_BUNDLES, catalog.stream().map(SupplierDirectory::mask).collect(Collectors.joining(","))));
+        int shards = ConfigLoader.getInstance().getInt("discovery.shards");
+        int levels = ConfigLoader.getInstance().getInt("discovery.splitLevels");
+        int hash = shardHash(seller.getLocalName());
+        for (int level = 0, partitions = shards; level <= levels; level++, partitions *= SPLIT_FANOUT) {
+            sd.addProperties(new Property(PROP_SHARD, partition(partitions, Math.floorMod(hash, partitions))));
+        }
+
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(seller.getAID());
+        dfd.addServices(sd);
+        try {
+            DFService.register(seller, dfd);
+            logger.debug("{}: Registered in DF offering {}", seller.getLocalName(), products);
+        } catch (FIPAException e) {
+            logger.error("{}: Failed to register in DF.", seller.getLocalName(), e);
+        }
+    }
+
+    public static void deregister(Agent seller) {
+        try {
+            DFService.deregister(seller);
+        } catch (FIPAException e) {
+            logger.warn("{}: Failed to deregister from DF.", seller.getLocalName(), e);
+        }
+    }
+
+    /**
+     * Envia ao DF todas as páginas da busca (uma por produto e partição) e retorna sem esperar
+     * as respostas, que devem ser entregues a {@link Search#accept}. Permite buscar sem bloquear
+     * a thread do agente (ex: o Coordenador preparando várias tarefas ao mesmo tempo).
+     */
+    public static Search startSearch(Agent requester, Collection<String> products) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        int shards = config.getInt("discovery.shards");
+        String prefix = searchPrefix(requester) + System.currentTimeMillis() + "-" + SEARCH_SEQUENCE.incrementAndGet() + "-";
+        Search search = new Search(requester, prefix, config.getInt("discovery.pageSize"),
+                shards * (int) Math.pow(SPLIT_FANOUT, config.getInt("discovery.splitLevels")));
+        for (String product : products) {
+            for (int shard = 0; shard < shards; shard++) {
+                search.requestPage(new Page(product, shards, shard));
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Se a mensagem responde a alguma busca do agente, inclusive a páginas de buscas que
+     * já expiraram (para que o agente possa descartá-las).
+     */
+    public static boolean isSearchReply(Agent requester, ACLMessage msg) {
+        return msg.getInReplyTo() != null && msg.getInReplyTo().startsWith(searchPrefix(requester));
+    }
+
+    private static String searchPrefix(Agent requester) {
+        return "df-search-" + requester.getLocalName() + "-";
+    }
+
+    private static String partition(int partitions, int shard) {
+        return partitions + ":" + shard;
+    }
+
+    /**
+     * Uma página da busca: os vendedores de um produto numa partição (de {@code partitions}).
+     */
+    private static final class Page {
+        private final String product;
+        private final int partitions;
+        private final int shard;
+
+        private Page(String product, int partitions, int shard) {
+            this.product = product;
+            this.partitions = partitions;
+            this.shard = shard;
+        }
+
+        @Override
+        public String toString() {
+            return product + "/" + partition(partitions, shard);
+        }
+    }
+
+    /**
+     * Uma busca em andamento: as páginas pedidas ao DF e os vendedores já encontrados.
+     */
+    public static final class Search {
+        private final Agent requester;
+        private final String prefix;
+        private final long pageSize;
+        private final int maxPartitions; // Partições no nível mais fundo ('discovery.splitLevels')
+        private final Map<String, Page> pendingPages = new LinkedHashMap<>(); // reply-with -> página
+        private final Set<AID> found = new LinkedHashSet<>();
+        private final Map<String, List<ProductBundle>> catalogs = new HashMap<>(); // Nome do vendedor -> pacotes anunciados
+        private int requestedPages;
+
+        private Search(Agent requester, String prefix, long pageSize, int maxPartitions) {
+            this.requester = requester;
+            this.prefix = prefix;
+            this.pageSize = pageSize;
+            this.maxPartitions = maxPartitions;
+        }
+
+        private void requestPage(Page page) {
+            ServiceDescription sd = new ServiceDescription();
+            sd.setType(SERVICE_TYPE);
+            sd.addProperties(new Property(PROP_PRODUCT, page.product));
+            sd.addProperties(new Property(PROP_SHARD, partition(page.partitions, page.shard)));
+            DFAgentDescription dfTemplate = new DFAgentDescription();
+            dfTemplate.addServices(sd);
+            SearchConstraints constraints = new SearchConstraints();
+            constraints.setMaxResults(pageSize);
+
+            ACLMessage request = DFService.createRequestMessage(requester, requester.getDefaultDF(), "search", dfTemplate, constraints);
+            String replyWith = prefix + requestedPages++;
+            request.setReplyWith(replyWith);
+            request.setConversationId(replyWith);
+            requester.send(request);
+            pendingPages.put(replyWith, page);
+        }
+
+        /**
+         * Página cheia: busca as sub-partições, cujos vendedores juntos são os da página.
+         */
+        private void split(Page page, int results) {
+            if (page.partitions >= maxPartitions) {
+                logger.error("{}: DF page {} is full ({} results) at the deepest split level; sellers may be missing. "
+                        + "Increase discovery.splitLevels or discovery.pageSize.", requester.getLocalName(), page, results);
+                return;
+            }
+            int partitions = page.partitions * SPLIT_FANOUT;
+            logger.debug("{}: DF page {} is full; searching {} sub-partitions.", requester.getLocalName(), page, SPLIT_FANOUT);
+            for (int i = 0; i < SPLIT_FANOUT; i++) {
+                requestPage(new Page(page.product, partitions, page.shard + i * page.partitions));
+            }
+        }
+
+        /**
+         * Se a mensagem é a resposta a uma página ainda pendente desta busca.
+         */
+        public boolean isReply(ACLMessage msg) {
+            return msg.getInReplyTo() != null && pendingPages.containsKey(msg.getInReplyTo());
+        }
+
+        /**
+         * Registra a resposta do DF a uma das páginas.
+         */
+        public void accept(ACLMessage reply) {
+            Page page = pendingPages.remove(reply.getInReplyTo());
+            if (page == null) {
+                return;
+            }
+            if (reply.getPerformative() != ACLMessage.INFORM) {
+                logger.warn("{}: DF refused search page {}: {}", requester.getLocalName(), page, reply.getContent());
+                return;
+            }
+            try {
+                DFAgentDescription[] results = DFService.decodeResult(reply.getContent());
+                for (DFAgentDescription result : results) {
+                    if (found.add(result.getName())) {
+                        catalogs.put(result.getName().getLocalName(), advertisedBundles(result));
+                    }
+                }
+                if (results.length >= pageSize) {
+                    split(page, results.length);
+                }
+            } catch (FIPAException e) {
+                logger.error("{}: Failed to decode DF search result for page {}.", requester.getLocalName(), page, e);
+            }
+        }
+
+        /**
+         * Encerra a busca por timeout, descartando as páginas ainda sem resposta.
+         */
+        public void expire() {
+            if (!pendingPages.isEmpty()) {
+                logger.warn("{}: DF search timed out; {} page(s) unanswered.", requester.getLocalName(), pendingPages.size());
+                pendingPages.clear();
+            }
+        }
+
+        public boolean isComplete() {
+            return pendingPages.isEmpty();
+        }
+
+        /**
+         * Os vendedores encontrados até agora, sem repetição, na ordem de descoberta.
+         */
+        public List<AID> getSellers() {
+            return new ArrayList<>(found);
+        }
+
+        /**
+         * Os pacotes que cada vendedor encontrado anuncia no DF, pelo nome local do vendedor.
+         */
+        public Map<String, List<ProductBundle>> getCatalogs() {
+            return new HashMap<>(catalogs);
+        }
+    }
+
+    /**
+     * Os pacotes da propriedade 'bundles' do registro (ex: "1100,0011").
+     */
+    private static List<ProductBundle> advertisedBundles(DFAgentDescription result) {
+        List<ProductBundle> bundles = new ArrayList<>();
+        Iterator<?> services = result.getAllServices();
+        while (services.hasNext()) {
+            Iterator<?> properties = ((ServiceDescription) services.next()).getAllProperties();
+            while (properties.hasNext()) {
+                Property property = (Property) properties.next();
+                if (PROP_BUNDLES.equals(property.getName()) && property.getValue() != null) {
+                    for (String mask : property.getValue().toString().split(",")) {
+                        if (!mask.isBlank()) {
+                            bundles.add(ProductBundle.parse(mask.trim()));
+                        }
+                    }
+                }
+            }
+        }
+        return bundles;
+    }
+
+    /**
+     * Hash do nome do vendedor que define as suas partições: a partição entre n é hash mod n,
+     * de modo que as sub-partições de s (entre n) são s + i x n (entre {@link #SPLIT_FANOUT} x n).
+     */
+    static int shardHash(String sellerName) {
+        // Espalha os bits do hash: nomes sequenciais (s1, s2, ...) não devem cair nas mesmas partições
+        int h = sellerName.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static String mask(ProductBundle pb) {
+        StringBuilder sb = new StringBuilder();
+        for (int p : pb.getProducts()) {
+            sb.append(p);
+        }
+        return sb.toString();
+    }
+}
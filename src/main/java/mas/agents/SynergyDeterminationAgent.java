@@ -4,6 +4,11 @@ import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import mas.logic.BundleGenerator;
+import mas.logic.ConfigLoader;
+import mas.logic.SynergyCache;
+import mas.logic.SynergyModel;
+import mas.metrics.SynergyCacheMetrics;
 import mas.models.ProductBundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,14 +16,43 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Agente que determina os pacotes de produtos preferidos para a demanda de cada tarefa.
+ * <p>
+ * Os pacotes são os 'sda.topK' de maior sinergia segundo o {@link SynergyModel} da configuração,
+ * enumerados sob demanda pelo {@link BundleGenerator}. A demanda vem no parâmetro
+ * {@value #PARAM_PRODUCTS} do pedido (ex: "P1,P2"); sem ele, valem os produtos de 'sda.products'.
+ * <p>
+ * As respostas ficam num {@link SynergyCache} ('sda.cache.maxEntries'), pela demanda canônica e
+ * versão do modelo, e são reenviadas já serializadas. Um pedido {@value #PROTOCOL_UPDATE_SYNERGY}
+ * altera as sinergias de um produto (parâmetro {@value #PARAM_PRODUCT}, conteúdo "P2=0.4,P3=-0.1")
+ * e descarta só as entradas do cache que envolvem esse produto.
+ */
 public class SynergyDeterminationAgent extends Agent {
 
     private static final Logger logger = LoggerFactory.getLogger(SynergyDeterminationAgent.class);
 
+    public static final String SERVICE_TYPE = "synergy-determination"; // Anúncio de prontidão no DF
+    public static final String PROTOCOL_UPDATE_SYNERGY = "update-synergy-protocol";
+    static final String PARAM_PRODUCTS = "products"; // Produtos demandados pela tarefa
+    static final String PARAM_PRODUCT = "product"; // Produto cujas sinergias mudaram
+
+    private BundleGenerator generator;
+    private int topK;
+    private SynergyCacheMetrics cacheMetrics;
+    private SynergyCache cache;
+
     protected void setup() {
         logger.info("SDA {} is ready.", getAID().getName());
+        LocalContentExchange.register(this);
+        generator = BundleGenerator.fromConfig(SynergyModel.fromConfig());
+        topK = ConfigLoader.getInstance().getInt("sda.topK");
+        cacheMetrics = SynergyCacheMetrics.register(getLocalName());
+        cache = new SynergyCache(ConfigLoader.getInstance().getInt("sda.cache.maxEntries"), cacheMetrics);
 
         // Comportamento para aguardar e responder a pedidos de pacotes de produtos
         addBehaviour(new CyclicBehaviour() {
@@ -32,14 +66,11 @@ public class SynergyDeterminationAgent extends Agent {
                 if (msg != null) {
                     logger.info("SDA: Received request for product bundles from {}", msg.getSender().getName());
 
-                    // Simula o algoritmo de determinação de pacotes.
-                    // Baseado no Experimento 1, Passo 3.
-                    List<ProductBundle> preferredBundles = generatePreferredBundles();
-
                     ACLMessage reply = msg.createReply();
                     reply.setPerformative(ACLMessage.INFORM);
                     try {
-                        reply.setContentObject((Serializable) preferredBundles);
+                        SynergyCache.Entry bundles = preferredBundles(msg.getUserDefinedParameter(PARAM_PRODUCTS));
+                        LocalContentExchange.setContent(reply, (Serializable) bundles.getBundles(), bundles.getSerialized());
                         myAgent.send(reply);
                         logger.info("SDA: Sent preferred product bundles back to CA (to {}).", msg.getSender().getName());
                     } catch (IOException e) {
@@ -51,22 +82,109 @@ public class SynergyDeterminationAgent extends Agent {
                 }
             }
         });
+
+        // Comportamento para aplicar mudanças nas sinergias de um produto
+        addBehaviour(new CyclicBehaviour() {
+            public void action() {
+                MessageTemplate mt = MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                        MessageTemplate.MatchProtocol(PROTOCOL_UPDATE_SYNERGY)
+                );
+                ACLMessage msg = myAgent.receive(mt);
+
+                if (msg != null) {
+                    ACLMessage reply = msg.createReply();
+                    try {
+                        long version = updateSynergy(msg.getUserDefinedParameter(PARAM_PRODUCT), msg.getContent());
+                        reply.setPerformative(ACLMessage.INFORM);
+                        reply.setContent(Long.toString(version));
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("SDA: Rejected synergy update from {}: {}", msg.getSender().getName(), e.getMessage());
+                        reply.setPerformative(ACLMessage.FAILURE);
+                        reply.setContent(e.getMessage());
+                    }
+                    myAgent.send(reply);
+                } else {
+                    block();
+                }
+            }
+        });
+        ReadinessBarrier.announce(this, SERVICE_TYPE);
+    }
+
+    @Override
+    protected void takeDown() {
+        LocalContentExchange.deregister(this);
+        ReadinessBarrier.withdraw(this);
+        if (cacheMetrics != null) {
+            cacheMetrics.unregister();
+        }
     }
 
-    private List<ProductBundle> generatePreferredBundles() {
-        List<ProductBundle> bundles = new ArrayList<>();
-        // Pacotes de um único produto
-        bundles.add(new ProductBundle(new int[]{1, 0, 0, 0})); // P1
-        bundles.add(new ProductBundle(new int[]{0, 1, 0, 0})); // P2
-        bundles.add(new ProductBundle(new int[]{0, 0, 1, 0})); // P3
-        bundles.add(new ProductBundle(new int[]{0, 0, 0, 1})); // P4
-        // Pacotes de dois produtos (sinergia)
-        bundles.add(new ProductBundle(new int[]{1, 1, 0, 0})); // P1P2
-        bundles.add(new ProductBundle(new int[]{1, 0, 1, 0})); // P1P3
-        bundles.add(new ProductBundle(new int[]{1, 0, 0, 1})); // P1P4
-        bundles.add(new ProductBundle(new int[]{0, 1, 1, 0})); // P2P3
-        bundles.add(new ProductBundle(new int[]{0, 1, 0, 1})); // P2P4
-        bundles.add(new ProductBundle(new int[]{0, 0, 1, 1})); // P3P4
-        return bundles;
+    /**
+     * Os pacotes de maior sinergia entre os produtos demandados, do cache se já calculados
+     * com a versão atual do modelo.
+     *
+     * @param productList Os produtos separados por vírgula, ou null para os de 'sda.products'.
+     */
+    private SynergyCache.Entry preferredBundles(String productList) throws IOException {
+        List<String> products = new ArrayList<>();
+        String list = productList != null ? productList : ConfigLoader.getInstance().getString("sda.products");
+        for (String product : list.split(",")) {
+            if (!product.trim().isEmpty()) {
+                products.add(product.trim());
+            }
+        }
+        List<String> canonical = SynergyCache.canonical(products);
+        String signature = SynergyCache.signature(canonical);
+        long version = generator.getModel().getVersion();
+        SynergyCache.Entry cached = cache.get(signature, version);
+        if (cached != null) {
+            logger.info("SDA: Served {} cached bundle(s) for [{}] (model v{}).", cached.getBundles().size(), signature, version);
+            return cached;
+        }
+
+        long start = System.nanoTime();
+        ArrayList<ProductBundle> bundles = new ArrayList<>();
+        for (BundleGenerator.ScoredBundle scored : generator.top(canonical, topK)) {
+            bundles.add(scored.getBundle());
+            logger.debug("SDA: Preferred bundle {}", scored);
+        }
+        logger.info("SDA: Selected {} bundle(s) out of {} product(s) in {} ms.", bundles.size(), canonical.size(),
+                String.format("%.3f", (System.nanoTime() - start) / 1_000_000.0));
+        return cache.put(canonical, version, bundles, LocalContentExchange.serialize(bundles));
+    }
+
+    /**
+     * Aplica as novas sinergias de um produto e atualiza o cache incrementalmente.
+     *
+     * @param synergies Pares "outro=valor" separados por vírgula (ex: "P2=0.4,P3=-0.1").
+     * @return A nova versão do modelo.
+     */
+    private long updateSynergy(String product, String synergies) {
+        if (product == null || product.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing '" + PARAM_PRODUCT + "' parameter");
+        }
+        Map<String, Double> values = new HashMap<>();
+        for (String pair : (synergies == null ? "" : synergies).split(",")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid synergy pair (<product>=<value>): " + pair.trim());
+            }
+            try {
+                values.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid synergy value: " + pair.trim());
+            }
+        }
+        SynergyModel model = generator.getModel().withProduct(product.trim(), values);
+        generator = generator.withModel(model);
+        int invalidated = cache.productChanged(product.trim(), model.getVersion());
+        logger.info("SDA: Synergies of {} updated ({} pair(s)); model v{}, {} cached demand(s) invalidated, {} kept.",
+                product.trim(), values.size(), model.getVersion(), invalidated, cache.size());
+        return model.getVersion();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,288 @@
+package mas.engine;
+
+import mas.logic.NegotiationClock;
+import mas.metrics.NegotiationMetrics.Outcome;
+import mas.models.Bid;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Protocolo de oferta alternada, bid-by-bid, de uma negociação bilateral, sem JADE: o lado do
+ * comprador espelha a NegotiationSession do BuyerAgent e o do vendedor, a SellerSession do
+ * SellerAgent. O transporte das mensagens é de quem conduz a negociação (a caixa postal
+ * síncrona do {@link HeadlessNegotiationEngine} ou os eventos com latência do
+ * {@link DiscreteEventSimulator}). Não é thread-safe: cada negociação é conduzida por uma thread.
+ */
+final class BilateralNegotiation {
+
+    enum Performative { REQUEST, PROPOSE, ACCEPT_PROPOSAL, CANCEL }
+
+    /**
+     * Mensagem em memória entre as duas partes.
+     */
+    static final class Message {
+        final boolean toSeller;
+        final Performative performative;
+        final List<Bid> bids;
+
+        private Message(boolean toSeller, Performative performative, List<Bid> bids) {
+            this.toSeller = toSeller;
+            this.performative = performative;
+            this.bids = bids;
+        }
+
+        /**
+         * Se quem envia passa a aguardar uma resposta (o ACCEPT_PROPOSAL isolado e o CANCEL não têm resposta).
+         */
+        boolean expectsReply() {
+            return performative != Performative.ACCEPT_PROPOSAL && performative != Performative.CANCEL;
+        }
+    }
+
+    /**
+     * Entrega as mensagens enviadas por uma das partes.
+     */
+    interface Transport {
+        void send(Message msg);
+    }
+
+    private final HeadlessNegotiationEngine engine;
+    private final SellerProfile profile;
+    private final Transport transport;
+    private final BuyerSide buyerSide;
+    private final SellerSide sellerSide;
+
+    BilateralNegotiation(HeadlessNegotiationEngine engine, SellerProfile profile, Transport transport) {
+        this.engine = engine;
+        this.profile = profile;
+        this.transport = transport;
+        this.buyerSide = new BuyerSide();
+        this.sellerSide = new SellerSide();
+    }
+
+    /**
+     * O comprador envia o "Call for Proposal".
+     */
+    void start() {
+        buyerSide.sendRequest();
+    }
+
+    /**
+     * Entrega uma mensagem à parte destinatária; mensagens para uma parte já encerrada são descartadas.
+     */
+    void deliver(Message msg) {
+        if (msg.toSeller) {
+            if (!sellerSide.ended) {
+                sellerSide.receive(msg);
+            }
+        } else if (!buyerSide.ended) {
+            buyerSide.receive(msg);
+        }
+    }
+
+    boolean isBuyerEnded() {
+        return buyerSide.ended;
+    }
+
+    int getBuyerRound() {
+        return buyerSide.currentRound;
+    }
+
+    /**
+     * Tempo restante do orçamento do comprador (Long.MAX_VALUE no modo por rodadas).
+     */
+    long buyerRemainingMillis() {
+        return buyerSide.clock.remainingMillis();
+    }
+
+    /**
+     * O vendedor não respondeu a tempo (ou encerrou sem responder).
+     */
+    void buyerTimeout() {
+        // O orçamento acabou enquanto aguardava: encerra pelo prazo, não por timeout
+        buyerSide.timedOut = !buyerSide.clock.isExpired(buyerSide.currentRound);
+        buyerSide.ended = true;
+    }
+
+    /**
+     * Desfecho do ponto de vista do comprador, como no relatório do BA ao Coordenador.
+     */
+    NegotiationOutcome outcome(long elapsedNanos) {
+        Outcome outcome = !buyerSide.agreedResults.isEmpty() ? Outcome.COMPLETED
+                : (buyerSide.timedOut ? Outcome.TIMED_OUT : Outcome.FAILED);
+        return new NegotiationOutcome(profile.getName(), outcome, buyerSide.currentRound,
+                buyerSide.agreedResults, buyerSide.sellerUtilities, elapsedNanos);
+    }
+
+    /**
+     * Lado do comprador: espelha a NegotiationSession do BuyerAgent.
+     */
+    private final class BuyerSide {
+        private final NegotiationPreferences buyer = engine.buyer();
+        private final NegotiationClock clock = engine.clocks().get();
+        private final List<NegotiationResult> agreedResults = new ArrayList<>();
+        private final List<Double> sellerUtilities = new ArrayList<>();
+        private final Set<ProductBundle> openBundles = new LinkedHashSet<>();
+        private final Map<ProductBundle, Bid> lastSentCounterBids = new HashMap<>();
+        private int currentRound = 0;
+        private boolean timedOut = false;
+        private boolean ended = false;
+
+        private void sendRequest() {
+            currentRound = 1;
+            transport.send(new Message(true, Performative.REQUEST, null));
+        }
+
+        private void receive(Message msg) {
+            if (msg.performative == Performative.PROPOSE) {
+                evaluateProposal(msg.bids);
+            } else {
+                handleSellerAcceptance(msg.bids);
+            }
+        }
+
+        private void handleSellerAcceptance(List<Bid> acceptedBids) {
+            for (Bid acceptedBid : acceptedBids) {
+                Bid counterBid = lastSentCounterBids.get(acceptedBid.getProductBundle());
+                if (counterBid != null) {
+                    recordAgreement(counterBid, engine.utility(buyer, counterBid));
+                }
+            }
+            if (openBundles.isEmpty()) {
+                ended = true;
+            }
+        }
+
+        private void evaluateProposal(List<Bid> bids) {
+            currentRound++;
+            if (clock.isExpired(currentRound)) {
+                closeOpenBundles();
+                ended = true;
+                return;
+            }
+            for (Bid bid : bids) {
+                openBundles.add(bid.getProductBundle());
+            }
+            double progress = clock.progress(currentRound);
+            double nextProgress = clock.nextProgress(currentRound);
+            boolean finalRound = clock.isFinalRound(currentRound);
+
+            List<Bid> acceptedBids = new ArrayList<>();
+            List<Bid> counterBids = new ArrayList<>();
+            for (Bid bid : bids) {
+                // Eq. 7: U(Bid_s) >= U_min E U(Bid_s) >= U(Bid_b(t+1)), como no BuyerAgent
+                double utility = engine.utility(buyer, bid);
+                Bid hypotheticalCounter = engine.counter(buyer, bid, nextProgress);
+                if (utility >= buyer.getAcceptanceThreshold()
+                        && (finalRound || utility >= engine.utility(buyer, hypotheticalCounter))) {
+                    acceptedBids.add(bid);
+                    recordAgreement(bid, utility);
+                } else {
+                    counterBids.add(engine.counter(buyer, bid, progress));
+                }
+            }
+            if (!acceptedBids.isEmpty()) {
+                transport.send(new Message(true, Performative.ACCEPT_PROPOSAL, acceptedBids));
+            }
+            if (counterBids.isEmpty() || finalRound) {
+                closeOpenBundles();
+                ended = true;
+                return;
+            }
+            for (Bid counterBid : counterBids) {
+                lastSentCounterBids.put(counterBid.getProductBundle(), counterBid);
+            }
+            transport.send(new Message(true, Performative.PROPOSE, counterBids));
+        }
+
+        /**
+         * Saída pelo prazo ou na última rodada com pacotes em aberto: avisa o vendedor, como o BuyerAgent.
+         */
+        private void closeOpenBundles() {
+            if (!openBundles.isEmpty()) {
+                transport.send(new Message(true, Performative.CANCEL, null));
+            }
+        }
+
+        private void recordAgreement(Bid bid, double utility) {
+            openBundles.remove(bid.getProductBundle());
+            agreedResults.add(new NegotiationResult(bid, utility, profile.getName()));
+            sellerUtilities.add(engine.utility(engine.seller(), bid));
+        }
+    }
+
+    /**
+     * Lado do vendedor: espelha a SellerSession do SellerAgent.
+     */
+    private final class SellerSide {
+        private final NegotiationPreferences seller = engine.seller();
+        private final Set<ProductBundle> openBundles = new LinkedHashSet<>();
+        private NegotiationClock clock; // Começa ao receber o REQUEST, como no SellerAgent
+        private int currentRound = 1;
+        private boolean ended = false;
+
+        private void receive(Message msg) {
+            switch (msg.performative) {
+                case REQUEST:
+                    sendInitialProposal();
+                    break;
+                case ACCEPT_PROPOSAL:
+                    for (Bid acceptedBid : msg.bids) {
+                        openBundles.remove(acceptedBid.getProductBundle());
+                    }
+                    ended = openBundles.isEmpty();
+                    break;
+                case CANCEL:
+                    ended = true;
+                    break;
+                default:
+                    evaluateCounterProposal(msg.bids);
+            }
+        }
+
+        private void sendInitialProposal() {
+            clock = engine.clocks().get();
+            List<Bid> bids = profile.initialBids();
+            for (Bid bid : bids) {
+                openBundles.add(bid.getProductBundle());
+            }
+            transport.send(new Message(false, Performative.PROPOSE, bids));
+        }
+
+        private void evaluateCounterProposal(List<Bid> counterBids) {
+            currentRound++;
+            if (clock.isExpired(currentRound)) {
+                ended = true; // Encerra sem responder, como o SellerAgent
+                return;
+            }
+            double progress = clock.progress(currentRound);
+            List<Bid> acceptedBids = new ArrayList<>();
+            List<Bid> newBids = new ArrayList<>();
+            for (Bid counterBid : counterBids) {
+                if (engine.utility(seller, counterBid) >= seller.getAcceptanceThreshold()) {
+                    acceptedBids.add(counterBid);
+                } else {
+                    newBids.add(engine.counter(seller, counterBid, progress));
+                }
+            }
+            if (!acceptedBids.isEmpty()) {
+                for (Bid bid : acceptedBids) {
+                    openBundles.remove(bid.getProductBundle());
+                }
+                transport.send(new Message(false, Performative.ACCEPT_PROPOSAL, acceptedBids));
+            }
+            if (newBids.isEmpty()) {
+                ended = true;
+                return;
+            }
+            transport.send(new Message(false, Performative.PROPOSE, newBids));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package mas.engine;
+
+import java.util.PriorityQueue;
+
+/**
+ * Simulador de eventos discretos com relógio virtual: os eventos ficam numa fila de
+ * prioridade ordenada pelo instante (em ms virtuais) e são executados em sequência, saltando
+ * o relógio direto para o próximo evento. Eventos no mesmo instante seguem a ordem em que
+ * foram agendados, de modo que a mesma sequência de agendamentos dá sempre o mesmo resultado.
+ * Não é thread-safe: os eventos rodam na thread que chama {@link #run()}.
+ */
+public class DiscreteEventSimulator {
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private long now = 0;
+    private long sequence = 0;
+    private long processedEvents = 0;
+
+    /**
+     * Instante atual, em milissegundos virtuais desde o início da simulação.
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Agenda uma ação para daqui a {@code delayMillis} ms virtuais (no mínimo, o instante atual).
+     */
+    public void schedule(long delayMillis, Runnable action) {
+        queue.add(new Event(now + Math.max(0, delayMillis), sequence++, action));
+    }
+
+    /**
+     * Executa os eventos até a fila esvaziar.
+     */
+    public void run() {
+        run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Executa os eventos com instante até {@code untilMillis}; os posteriores continuam na fila.
+     */
+    public void run(long untilMillis) {
+        while (!queue.isEmpty() && queue.peek().time <= untilMillis) {
+            Event event = queue.poll();
+            now = event.time;
+            processedEvents++;
+            event.action.run();
+        }
+    }
+
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    public int getPendingEvents() {
+        return queue.size();
+    }
+
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final Runnable action;
+
+        private Event(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
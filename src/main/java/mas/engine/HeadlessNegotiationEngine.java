@@ -0,0 +1,172 @@
+package mas.engine;
+
+import mas.logic.ConcessionService;
+import mas.logic.ConfigLoader;
+import mas.logic.EvaluationService;
+import mas.logic.NegotiationClock;
+import mas.models.Bid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de negociação headless, independente do JADE, para análises "e se" com centenas de
+ * milhares de negociações bilaterais.
+ * <p>
+ * Executa o mesmo protocolo de oferta alternada, bid-by-bid, do BuyerAgent e do SellerAgent,
+ * chamando diretamente o {@link EvaluationService} e o {@link ConcessionService}: com as mesmas
+ * preferências e o mesmo prazo, os lances acordados, utilidades e rodadas são os dos agentes.
+ * As mensagens trocadas são objetos em memória numa caixa postal por negociação (sem ACL,
+ * serialização, DF ou GUI), e cada negociação é uma tarefa leve, executada em uma virtual
+ * thread quando a JVM as oferece (Java 21+) ou, senão, num pool work-stealing.
+ * <p>
+ * O protocolo fica na {@link BilateralNegotiation}; aqui a troca é síncrona, e uma parte que
+ * encerra sem responder (ex: o vendedor ao atingir o prazo) é percebida imediatamente pela
+ * outra como timeout, sem esperar o relógio. O {@link DiscreteEventSimulator} usa o mesmo
+ * protocolo com latências e timeouts em tempo virtual.
+ * Não registra métricas JMX nem o trace binário: o desfecho de cada negociação é devolvido
+ * como {@link NegotiationOutcome}.
+ */
+public class HeadlessNegotiationEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessNegotiationEngine.class);
+
+    private final NegotiationPreferences buyer;
+    private final NegotiationPreferences seller;
+    private final double discountRate;
+    private final Supplier<NegotiationClock> clocks;
+    private final EvaluationService evalService = new EvaluationService();
+    private final ConcessionService concessionService = new ConcessionService();
+    private ExecutorService executor; // Criado no primeiro uso assíncrono
+
+    /**
+     * @param clocks Fábrica do prazo de cada lado de cada negociação (ver {@link NegotiationClock#factory}).
+     */
+    public HeadlessNegotiationEngine(NegotiationPreferences buyer, NegotiationPreferences seller,
+                                     double discountRate, Supplier<NegotiationClock> clocks) {
+        this.buyer = buyer;
+        this.seller = seller;
+        this.discountRate = discountRate;
+        this.clocks = clocks;
+    }
+
+    /**
+     * Motor com as preferências, o fator de desconto e o prazo do config.properties.
+     */
+    public static HeadlessNegotiationEngine fromConfig() {
+        return new HeadlessNegotiationEngine(
+                NegotiationPreferences.buyerFromConfig(),
+                NegotiationPreferences.sellerFromConfig(),
+                ConfigLoader.getInstance().getDouble("negotiation.discountRate"),
+                NegotiationClock.factory(System::currentTimeMillis));
+    }
+
+    /**
+     * Executa uma negociação completa na thread chamadora.
+     */
+    public NegotiationOutcome negotiate(SellerProfile profile) {
+        return new Exchange(profile).run();
+    }
+
+    /**
+     * Agenda uma negociação como tarefa independente (uma virtual thread, quando disponível).
+     */
+    public CompletableFuture<NegotiationOutcome> submit(SellerProfile profile) {
+        return CompletableFuture.supplyAsync(() -> negotiate(profile), executor());
+    }
+
+    /**
+     * Executa uma negociação com cada vendedor, todas ao mesmo tempo, e devolve os desfechos na ordem dos vendedores.
+     */
+    public List<NegotiationOutcome> negotiateAll(List<SellerProfile> profiles) {
+        List<CompletableFuture<NegotiationOutcome>> futures = profiles.stream().map(this::submit).collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = newTaskExecutor();
+        }
+        return executor;
+    }
+
+    /**
+     * Um executor com uma virtual thread por tarefa (Java 21+). Obtido por reflexão para que o
+     * projeto continue compilando em JDKs anteriores, onde o motor usa um pool work-stealing.
+     */
+    static ExecutorService newTaskExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("HeadlessNegotiationEngine: Running negotiations on virtual threads.");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            logger.info("HeadlessNegotiationEngine: Virtual threads unavailable (Java {}); using a work-stealing pool.",
+                    System.getProperty("java.specification.version"));
+            return Executors.newWorkStealingPool();
+        }
+    }
+
+    /**
+     * Uma negociação síncrona: as mensagens vão para uma caixa postal entregue em ordem de envio.
+     */
+    private final class Exchange {
+        private final Deque<BilateralNegotiation.Message> mailbox = new ArrayDeque<>();
+        private final BilateralNegotiation negotiation;
+
+        private Exchange(SellerProfile profile) {
+            this.negotiation = new BilateralNegotiation(HeadlessNegotiationEngine.this, profile, mailbox::add);
+        }
+
+        private NegotiationOutcome run() {
+            long start = System.nanoTime();
+            negotiation.start();
+            while (!mailbox.isEmpty()) {
+                negotiation.deliver(mailbox.poll());
+            }
+            // Nenhuma mensagem em trânsito: se o comprador ainda aguarda resposta, não a receberá
+            if (!negotiation.isBuyerEnded()) {
+                negotiation.buyerTimeout();
+            }
+            NegotiationOutcome result = negotiation.outcome(System.nanoTime() - start);
+            if (logger.isDebugEnabled()) {
+                logger.debug("HeadlessNegotiationEngine: {}", result);
+            }
+            return result;
+        }
+    }
+
+    Supplier<NegotiationClock> clocks() {
+        return clocks;
+    }
+
+    NegotiationPreferences buyer() {
+        return buyer;
+    }
+
+    NegotiationPreferences seller() {
+        return seller;
+    }
+
+    double utility(NegotiationPreferences side, Bid bid) {
+        return evalService.calculateUtility(side.getAgentType(), bid, side.getWeights(), side.getIssueParams(), side.getRiskBeta());
+    }
+
+    Bid counter(NegotiationPreferences side, Bid reference, double progress) {
+        return concessionService.generateCounterBid(reference, progress, side.getGamma(), discountRate,
+                side.getIssueParams(), side.getAgentType());
+    }
+}
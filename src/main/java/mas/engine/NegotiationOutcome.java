@@ -0,0 +1,47 @@
+package mas.engine;
+
+import mas.metrics.NegotiationMetrics.Outcome;
+import mas.models.NegotiationResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma negociação bilateral no motor headless: o desfecho, as rodadas usadas
+ * e os lances acordados, com a utilidade de cada lado.
+ */
+public final class NegotiationOutcome {
+
+    private final String sellerName;
+    private final Outcome outcome;
+    private final int rounds;
+    private final List<NegotiationResult> results; // Utilidade do comprador, como os relatórios do BA
+    private final List<Double> sellerUtilities; // Utilidade do vendedor, na mesma ordem de 'results'
+    private final long elapsedNanos;
+
+    NegotiationOutcome(String sellerName, Outcome outcome, int rounds, List<NegotiationResult> results,
+                       List<Double> sellerUtilities, long elapsedNanos) {
+        this.sellerName = sellerName;
+        this.outcome = outcome;
+        this.rounds = rounds;
+        this.results = Collections.unmodifiableList(results);
+        this.sellerUtilities = Collections.unmodifiableList(sellerUtilities);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getSellerName() { return sellerName; }
+    public Outcome getOutcome() { return outcome; }
+    public int getRounds() { return rounds; }
+    public List<NegotiationResult> getResults() { return results; }
+    public List<Double> getSellerUtilities() { return sellerUtilities; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public boolean isAgreement() {
+        return !results.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Outcome with %s: %s after %d round(s), %d bid(s) agreed", sellerName, outcome, rounds, results.size());
+    }
+}
@@ -0,0 +1,75 @@
+package mas.engine;
+
+import mas.logic.ConfigLoader;
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.EvaluationService.IssueType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Preferências e estratégia de um lado da negociação (comprador ou vendedor), as mesmas que
+ * o BuyerAgent e o SellerAgent carregam no setup: pesos (ωk), limites [min, max] dos issues,
+ * limiar de aceitação, fator de risco (β) e fator de concessão (γ). Imutável, podendo ser
+ * compartilhada por todas as negociações do motor.
+ */
+public final class NegotiationPreferences {
+
+    private final String agentType; // "buyer" ou "seller"
+    private final Map<String, Double> weights;
+    private final Map<String, IssueParameters> issueParams;
+    private final double acceptanceThreshold;
+    private final double riskBeta;
+    private final double gamma;
+
+    public NegotiationPreferences(String agentType, Map<String, Double> weights, Map<String, IssueParameters> issueParams,
+                                  double acceptanceThreshold, double riskBeta, double gamma) {
+        this.agentType = agentType;
+        this.weights = Collections.unmodifiableMap(new HashMap<>(weights));
+        this.issueParams = Collections.unmodifiableMap(new HashMap<>(issueParams));
+        this.acceptanceThreshold = acceptanceThreshold;
+        this.riskBeta = riskBeta;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Preferências do comprador ('buyer.*', 'weights.*' e 'params.*').
+     */
+    public static NegotiationPreferences buyerFromConfig() {
+        return fromConfig("buyer", "buyer.", "weights.", "params.");
+    }
+
+    /**
+     * Preferências do vendedor ('seller.*', 'seller.weights.*' e 'seller.params.*').
+     */
+    public static NegotiationPreferences sellerFromConfig() {
+        return fromConfig("seller", "seller.", "seller.weights.", "seller.params.");
+    }
+
+    private static NegotiationPreferences fromConfig(String agentType, String prefix, String weightsPrefix, String paramsPrefix) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        Map<String, Double> weights = new HashMap<>();
+        for (String issue : new String[]{"price", "quality", "delivery", "service"}) {
+            weights.put(issue, config.getDouble(weightsPrefix + issue));
+        }
+        Map<String, IssueParameters> issueParams = new HashMap<>();
+        for (String issue : new String[]{"price", "delivery"}) {
+            String[] parts = config.getString(paramsPrefix + issue).split(",");
+            issueParams.put(issue, new IssueParameters(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()), IssueType.COST));
+        }
+        issueParams.put("quality", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+        issueParams.put("service", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+        return new NegotiationPreferences(agentType, weights, issueParams,
+                config.getDouble(prefix + "acceptanceThreshold"),
+                config.getDouble(prefix + "riskBeta"),
+                config.getDouble(prefix + "gamma"));
+    }
+
+    public String getAgentType() { return agentType; }
+    public Map<String, Double> getWeights() { return weights; }
+    public Map<String, IssueParameters> getIssueParams() { return issueParams; }
+    public double getAcceptanceThreshold() { return acceptanceThreshold; }
+    public double getRiskBeta() { return riskBeta; }
+    public double getGamma() { return gamma; }
+}
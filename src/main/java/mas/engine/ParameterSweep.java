@@ -0,0 +1,364 @@
+package mas.engine;
+
+import mas.logic.ConfigLoader;
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.NegotiationClock;
+import mas.metrics.NegotiationMetrics.Outcome;
+import mas.models.NegotiationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Varredura de parâmetros da estratégia de negociação, sobre o {@link HeadlessNegotiationEngine}.
+ * <p>
+ * Cada {@link Range} varia uma chave do config.properties ('buyer.gamma', 'buyer.riskBeta',
+ * 'buyer.acceptanceThreshold', 'weights.*', 'negotiation.discountRate' e as equivalentes
+ * 'seller.*'); as demais chaves ficam com o valor do config. Os pontos são a grade completa
+ * ({@link Mode#GRID}) ou amostras uniformes ({@link Mode#RANDOM}, reprodutíveis pela semente).
+ * Em cada ponto o comprador negocia com cada vendedor da lista; os pesos de cada lado são
+ * renormalizados para somar 1, de modo que variar um peso redistribui os demais.
+ * <p>
+ * Os pontos são avaliados em paralelo num {@link ForkJoinPool} e cada linha do CSV é escrita
+ * assim que o ponto termina (a ordem das linhas segue a conclusão; a coluna 'point' dá o índice).
+ */
+public class ParameterSweep {
+    private static final Logger logger = LoggerFactory.getLogger(ParameterSweep.class);
+
+    private static final String RANGE_PREFIX = "sweep.range.";
+    private static final String[] ISSUES = {"price", "quality", "delivery", "service"};
+
+    public enum Mode { GRID, RANDOM }
+
+    private final List<Range> ranges;
+    private final Mode mode;
+    private final long samples;
+    private final long seed;
+    private final List<SellerProfile> sellers;
+    private final int parallelism;
+    private final Supplier<NegotiationClock> clocks = NegotiationClock.factory(System::currentTimeMillis);
+    private final NegotiationPreferences baseBuyer = NegotiationPreferences.buyerFromConfig();
+    private final NegotiationPreferences baseSeller = NegotiationPreferences.sellerFromConfig();
+    private final double baseDiscountRate = ConfigLoader.getInstance().getDouble("negotiation.discountRate");
+
+    /**
+     * @param samples     Pontos sorteados no modo RANDOM (ignorado no modo GRID).
+     * @param parallelism Threads do pool (0 = número de processadores).
+     */
+    public ParameterSweep(List<Range> ranges, Mode mode, long samples, long seed, List<SellerProfile> sellers, int parallelism) {
+        this.ranges = Collections.unmodifiableList(new ArrayList<>(ranges));
+        this.mode = mode;
+        this.samples = samples;
+        this.seed = seed;
+        this.sellers = Collections.unmodifiableList(new ArrayList<>(sellers));
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Varredura com as chaves 'sweep.*' do config.properties.
+     */
+    public static ParameterSweep fromConfig() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        List<Range> ranges = new ArrayList<>();
+        for (String key : config.getKeys(RANGE_PREFIX)) {
+            ranges.add(Range.parse(key.substring(RANGE_PREFIX.length()), config.getString(key)));
+        }
+        List<SellerProfile> sellers = new ArrayList<>();
+        for (String name : config.getString("sweep.sellers").split(",")) {
+            sellers.add(SellerProfile.fromConfig(name.trim()));
+        }
+        return new ParameterSweep(ranges,
+                "random".equalsIgnoreCase(config.getString("sweep.mode").trim()) ? Mode.RANDOM : Mode.GRID,
+                config.getInt("sweep.samples"),
+                Long.parseLong(config.getString("sweep.seed").trim()),
+                sellers,
+                config.getInt("sweep.parallelism"));
+    }
+
+    /**
+     * Executa a varredura do config; o CSV vai para 'sweep.output' ou para o caminho do primeiro argumento.
+     */
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : ConfigLoader.getInstance().getString("sweep.output"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            fromConfig().run(writer);
+        }
+        logger.info("ParameterSweep: Results written to {}", output.toAbsolutePath());
+    }
+
+    public long getPointCount() {
+        if (mode == Mode.RANDOM) {
+            return samples;
+        }
+        long count = 1;
+        for (Range range : ranges) {
+            count = Math.multiplyExact(count, range.values.length);
+        }
+        return count;
+    }
+
+    /**
+     * Avalia todos os pontos e escreve o CSV (cabeçalho e uma linha por ponto).
+     *
+     * @return O número de negociações executadas.
+     */
+    public long run(Writer out) throws IOException {
+        BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+        writer.write(header());
+        writer.newLine();
+
+        long points = getPointCount();
+        logger.info("ParameterSweep: {} point(s) ({}) x {} seller(s) over {} thread(s).",
+                points, mode, sellers.size(), parallelism);
+        AtomicLong negotiations = new AtomicLong();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> LongStream.range(0, points).parallel().forEach(index -> {
+                PointResult result = evaluate(point(index));
+                negotiations.addAndGet(result.negotiations);
+                String row = result.toCsv(index);
+                synchronized (writer) {
+                    try {
+                        writer.write(row);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Sweep failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        writer.flush();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        logger.info("ParameterSweep: {} negotiation(s) in {} s ({} per hour).", negotiations.get(),
+                String.format(Locale.ROOT, "%.2f", seconds),
+                String.format(Locale.ROOT, "%.0f", negotiations.get() / Math.max(seconds, 1e-9) * 3600));
+        return negotiations.get();
+    }
+
+    /**
+     * Valores das chaves variadas no ponto {@code index}: na grade, o índice em base mista
+     * (a última faixa varia mais rápido); no modo aleatório, um sorteio determinado pela semente e pelo índice.
+     */
+    Map<String, Double> point(long index) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        if (mode == Mode.RANDOM) {
+            SplittableRandom random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+            for (Range range : ranges) {
+                values.put(range.key, range.sample(random));
+            }
+            return values;
+        }
+        long remainder = index;
+        double[] chosen = new double[ranges.size()];
+        for (int i = ranges.size() - 1; i >= 0; i--) {
+            double[] options = ranges.get(i).values;
+            chosen[i] = options[(int) (remainder % options.length)];
+            remainder /= options.length;
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            values.put(ranges.get(i).key, chosen[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Negocia com cada vendedor usando as preferências do ponto.
+     */
+    PointResult evaluate(Map<String, Double> point) {
+        NegotiationPreferences buyer = override(baseBuyer, "buyer.", "weights.", point);
+        NegotiationPreferences seller = override(baseSeller, "seller.", "seller.weights.", point);
+        double discountRate = point.getOrDefault("negotiation.discountRate", baseDiscountRate);
+        HeadlessNegotiationEngine engine = new HeadlessNegotiationEngine(buyer, seller, discountRate, clocks);
+
+        PointResult result = new PointResult(point);
+        long start = System.nanoTime();
+        for (SellerProfile profile : sellers) {
+            result.add(engine.negotiate(profile));
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static NegotiationPreferences override(NegotiationPreferences base, String prefix, String weightsPrefix,
+                                                   Map<String, Double> point) {
+        Map<String, Double> weights = new HashMap<>();
+        double total = 0.0;
+        for (String issue : ISSUES) {
+            double weight = point.getOrDefault(weightsPrefix + issue, base.getWeights().getOrDefault(issue, 0.0));
+            weights.put(issue, weight);
+            total += weight;
+        }
+        if (total > 0) {
+            for (String issue : ISSUES) {
+                weights.put(issue, weights.get(issue) / total);
+            }
+        }
+        Map<String, IssueParameters> issueParams = base.getIssueParams();
+        return new NegotiationPreferences(base.getAgentType(), weights, issueParams,
+                point.getOrDefault(prefix + "acceptanceThreshold", base.getAcceptanceThreshold()),
+                point.getOrDefault(prefix + "riskBeta", base.getRiskBeta()),
+                point.getOrDefault(prefix + "gamma", base.getGamma()));
+    }
+
+    private String header() {
+        List<String> columns = new ArrayList<>();
+        columns.add("point");
+        for (Range range : ranges) {
+            columns.add(range.key);
+        }
+        Collections.addAll(columns, "negotiations", "agreement_rate", "timeout_rate", "agreed_bids",
+                "mean_buyer_utility", "mean_seller_utility", "mean_rounds", "mean_micros");
+        return String.join(",", columns);
+    }
+
+    /**
+     * Faixa de valores de uma chave do config: "min:max:passos" (passos igualmente espaçados,
+     * extremos incluídos) ou uma lista "a,b,c". No modo aleatório, a faixa é sorteada
+     * uniformemente em [min, max] e a lista, por um de seus valores.
+     */
+    public static final class Range {
+        private final String key;
+        private final double[] values;
+        private final boolean continuous;
+
+        private Range(String key, double[] values, boolean continuous) {
+            this.key = key;
+            this.values = values;
+            this.continuous = continuous;
+        }
+
+        public static Range parse(String key, String spec) {
+            String trimmed = spec.trim();
+            if (trimmed.contains(":")) {
+                String[] parts = trimmed.split(":");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Invalid range for " + key + ": " + spec);
+                }
+                double min = Double.parseDouble(parts[0].trim());
+                double max = Double.parseDouble(parts[1].trim());
+                int steps = Integer.parseInt(parts[2].trim());
+                if (steps < 1) {
+                    throw new IllegalArgumentException("Invalid range for " + key + ": " + spec);
+                }
+                double[] values = new double[steps];
+                for (int i = 0; i < steps; i++) {
+                    values[i] = steps == 1 ? min : min + (max - min) * i / (steps - 1);
+                }
+                return new Range(key, values, true);
+            }
+            String[] parts = trimmed.split(",");
+            double[] values = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Double.parseDouble(parts[i].trim());
+            }
+            return new Range(key, values, false);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        private double sample(SplittableRandom random) {
+            if (!continuous || values.length == 1) {
+                return values[random.nextInt(values.length)];
+            }
+            return values[0] + (values[values.length - 1] - values[0]) * random.nextDouble();
+        }
+    }
+
+    /**
+     * Métricas agregadas das negociações de um ponto.
+     */
+    static final class PointResult {
+        private final Map<String, Double> point;
+        private int negotiations;
+        private int agreements;
+        private int timeouts;
+        private int agreedBids;
+        private double buyerUtility;
+        private double sellerUtility;
+        private long rounds;
+        private long elapsedNanos;
+
+        private PointResult(Map<String, Double> point) {
+            this.point = point;
+        }
+
+        private void add(NegotiationOutcome outcome) {
+            negotiations++;
+            rounds += outcome.getRounds();
+            if (outcome.isAgreement()) {
+                agreements++;
+            } else if (outcome.getOutcome() == Outcome.TIMED_OUT) {
+                timeouts++;
+            }
+            for (NegotiationResult result : outcome.getResults()) {
+                agreedBids++;
+                buyerUtility += result.getUtility();
+            }
+            for (double utility : outcome.getSellerUtilities()) {
+                sellerUtility += utility;
+            }
+        }
+
+        double getAgreementRate() {
+            return negotiations == 0 ? 0.0 : (double) agreements / negotiations;
+        }
+
+        double getMeanBuyerUtility() {
+            return agreedBids == 0 ? 0.0 : buyerUtility / agreedBids;
+        }
+
+        private String toCsv(long index) {
+            String values = point.values().stream()
+                    .map(v -> String.format(Locale.ROOT, "%.6g", v))
+                    .collect(Collectors.joining(","));
+            return String.format(Locale.ROOT, "%d,%s%s%d,%.4f,%.4f,%d,%.6f,%.6f,%.3f,%.2f",
+                    index, values, values.isEmpty() ? "" : ",", negotiations,
+                    getAgreementRate(),
+                    negotiations == 0 ? 0.0 : (double) timeouts / negotiations,
+                    agreedBids,
+                    getMeanBuyerUtility(),
+                    agreedBids == 0 ? 0.0 : sellerUtility / agreedBids,
+                    negotiations == 0 ? 0.0 : (double) rounds / negotiations,
+                    negotiations == 0 ? 0.0 : elapsedNanos / 1000.0 / negotiations);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package mas.engine;
+
+import mas.logic.AdaptiveTimeout;
+import mas.logic.AdmissionController;
+import mas.logic.ConfigLoader;
+import mas.logic.NegotiationClock;
+import mas.logic.PartialWinnerDetermination;
+import mas.metrics.NegotiationMetrics.Outcome;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulação de eventos discretos de um período de compras (ex: um dia), em tempo virtual.
+ * <p>
+ * Tarefas de compra chegam ao Coordenador num processo de Poisson. Para cada tarefa o modelo
+ * segue o protocolo dos agentes: pedido dos pacotes ao SDA, descoberta dos vendedores que
+ * fornecem algum produto demandado, admissão das negociações pelo {@link AdmissionController},
+ * atribuição a um BA, a negociação bilateral ({@link BilateralNegotiation}) com prazos pelo
+ * {@link NegotiationClock} e timeouts pelo {@link AdaptiveTimeout}, o relatório ao Coordenador
+ * e, ao final, a determinação do vencedor. Toda mensagem sofre uma latência aleatória
+ * (mínimo + exponencial) e uma fração dos vendedores não responde, provocando timeouts.
+ * <p>
+ * O relógio salta de evento em evento ({@link DiscreteEventSimulator}), então esperas de
+ * segundos custam o mesmo que as de milissegundos, e um dia com milhares de vendedores roda
+ * em segundos. Tudo roda numa thread com um único {@link Random} semeado: a mesma semente e o
+ * mesmo config dão sempre o mesmo {@link SimulationReport}.
+ * <p>
+ * Simplificações: o processamento dos agentes não consome tempo virtual (apenas a latência
+ * das mensagens) e a WDP de cada tarefa usa a {@link PartialWinnerDetermination}, que dá o
+ * mesmo ótimo do Branch-and-Bound em tempo linear no número de lances.
+ */
+public class ProcurementSimulation {
+    private static final Logger logger = LoggerFactory.getLogger(ProcurementSimulation.class);
+
+    private static final int MAX_BUNDLES_PER_SELLER = 3;
+
+    private final long seed;
+    private final long durationMillis;
+    private final long taskIntervalMillis;
+    private final int sellerCount;
+    private final long latencyMinMillis;
+    private final long latencyMeanMillis;
+    private final double unresponsiveProbability;
+
+    // Estado de uma execução (recriado a cada run())
+    private DiscreteEventSimulator simulator;
+    private Random random;
+    private HeadlessNegotiationEngine engine;
+    private AdaptiveTimeout timeouts;
+    private List<SellerProfile> sellers;
+    private int tasks, tasksWithoutSolution, negotiations, completed, failed, timedOut;
+    private long totalRounds;
+    private double totalSolutionUtility;
+    private List<Long> taskLatencies;
+
+    /**
+     * @param durationMillis          Período simulado em que novas tarefas chegam (as já iniciadas terminam depois dele).
+     * @param taskIntervalMillis      Intervalo médio entre tarefas.
+     * @param sellerCount             Vendedores na plataforma, com catálogos sorteados.
+     * @param latencyMinMillis        Latência mínima de uma mensagem.
+     * @param latencyMeanMillis       Latência média de uma mensagem.
+     * @param unresponsiveProbability Fração das negociações em que o vendedor não responde.
+     */
+    public ProcurementSimulation(long seed, long durationMillis, long taskIntervalMillis, int sellerCount,
+                                 long latencyMinMillis, long latencyMeanMillis, double unresponsiveProbability) {
+        this.seed = seed;
+        this.durationMillis = durationMillis;
+        this.taskIntervalMillis = taskIntervalMillis;
+        this.sellerCount = sellerCount;
+        this.latencyMinMillis = latencyMinMillis;
+        this.latencyMeanMillis = Math.max(latencyMinMillis, latencyMeanMillis);
+        this.unresponsiveProbability = unresponsiveProbability;
+    }
+
+    /**
+     * Simulação com as chaves 'simulation.*' do config.properties.
+     */
+    public static ProcurementSimulation fromConfig() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        return new ProcurementSimulation(
+                Long.parseLong(config.getString("simulation.seed").trim()),
+                Long.parseLong(config.getString("simulation.durationMillis").trim()),
+                Long.parseLong(config.getString("simulation.taskIntervalMillis").trim()),
+                config.getInt("simulation.sellers"),
+                config.getInt("simulation.latency.minMillis"),
+                config.getInt("simulation.latency.meanMillis"),
+                config.getDouble("simulation.unresponsiveProbability"));
+    }
+
+    public static void main(String[] args) {
+        SimulationReport report = fromConfig().run();
+        logger.info("{}", report);
+    }
+
+    /**
+     * Executa a simulação do início ao fim.
+     */
+    public SimulationReport run() {
+        long wallStart = System.currentTimeMillis();
+        simulator = new DiscreteEventSimulator();
+        random = new Random(seed);
+        engine = new HeadlessNegotiationEngine(
+                NegotiationPreferences.buyerFromConfig(),
+                NegotiationPreferences.sellerFromConfig(),
+                ConfigLoader.getInstance().getDouble("negotiation.discountRate"),
+                NegotiationClock.factory(simulator::now));
+        timeouts = AdaptiveTimeout.fromConfig(); // BAs do Coordenador compartilham a estimativa de RTT
+        sellers = generateSellers(SellerProfile.fromConfig("default"));
+        tasks = tasksWithoutSolution = negotiations = completed = failed = timedOut = 0;
+        totalRounds = 0;
+        totalSolutionUtility = 0.0;
+        taskLatencies = new ArrayList<>();
+
+        logger.info("ProcurementSimulation: Simulating {} ms with {} seller(s), one task every {} ms on average (seed {}).",
+                durationMillis, sellers.size(), taskIntervalMillis, seed);
+        scheduleNextTask();
+        simulator.run();
+
+        long[] latencies = taskLatencies.stream().mapToLong(Long::longValue).toArray();
+        return new SimulationReport(seed, tasks, tasksWithoutSolution, negotiations, completed, failed, timedOut,
+                totalRounds, totalSolutionUtility, latencies, simulator.now(), simulator.getProcessedEvents(),
+                System.currentTimeMillis() - wallStart);
+    }
+
+    /**
+     * Vendedores "sim_i", cada um com 1 a {@value #MAX_BUNDLES_PER_SELLER} pacotes distintos sorteados.
+     */
+    private List<SellerProfile> generateSellers(SellerProfile template) {
+        int products = template.getProductCount();
+        List<SellerProfile> generated = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            int bundles = 1 + random.nextInt(MAX_BUNDLES_PER_SELLER);
+            List<ProductBundle> catalog = new ArrayList<>();
+            while (catalog.size() < bundles) {
+                ProductBundle bundle = new ProductBundle(toProducts(1 + random.nextInt((1 << products) - 1), products));
+                if (catalog.stream().noneMatch(b -> b.equals(bundle))) {
+                    catalog.add(bundle);
+                }
+            }
+            generated.add(template.withCatalog("sim_" + i, catalog));
+        }
+        return generated;
+    }
+
+    private static int[] toProducts(int mask, int products) {
+        int[] vector = new int[products];
+        for (int i = 0; i < products; i++) {
+            vector[i] = (mask >> i) & 1;
+        }
+        return vector;
+    }
+
+    private long latency() {
+        return latencyMinMillis + (long) (-Math.log(1 - random.nextDouble()) * (latencyMeanMillis - latencyMinMillis));
+    }
+
+    private void scheduleNextTask() {
+        long interval = (long) (-Math.log(1 - random.nextDouble()) * taskIntervalMillis);
+        if (simulator.now() + interval < durationMillis) {
+            simulator.schedule(interval, () -> {
+                new SimulatedTask().start();
+                scheduleNextTask();
+            });
+        }
+    }
+
+    /**
+     * Uma tarefa de compra no Coordenador, da chegada à solução da WDP.
+     */
+    private final class SimulatedTask {
+        private final long arrivedAt = simulator.now();
+        private final int[] productDemand;
+        private final List<SellerProfile> candidates = new ArrayList<>();
+        private final Deque<SellerProfile> pendingSellers = new ArrayDeque<>();
+        private final AdmissionController admission = AdmissionController.fromConfig();
+        private final List<NegotiationResult> results = new ArrayList<>();
+        private int finished = 0;
+
+        private SimulatedTask() {
+            tasks++;
+            int products = sellers.isEmpty() ? 1 : sellers.get(0).getProductCount();
+            productDemand = toProducts(1 + random.nextInt((1 << products) - 1), products);
+            // Descoberta no DF: vendedores com algum pacote que contenha um produto demandado
+            for (SellerProfile seller : sellers) {
+                if (suppliesDemand(seller)) {
+                    candidates.add(seller);
+                }
+            }
+            pendingSellers.addAll(candidates);
+        }
+
+        private boolean suppliesDemand(SellerProfile seller) {
+            for (ProductBundle bundle : seller.getCatalog()) {
+                int[] products = bundle.getProducts();
+                for (int i = 0; i < products.length && i < productDemand.length; i++) {
+                    if (products[i] == 1 && productDemand[i] == 1) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Pedido dos pacotes ao SDA (ida e volta) e, com a resposta, a fase de barganha.
+         */
+        private void start() {
+            simulator.schedule(latency() + latency(), () -> {
+                if (candidates.isEmpty()) {
+                    determineWinners();
+                } else {
+                    admitPendingSellers();
+                }
+            });
+        }
+
+        private void admitPendingSellers() {
+            while (!pendingSellers.isEmpty() && admission.tryAcquire()) {
+                SellerProfile seller = pendingSellers.poll();
+                // Atribuição da negociação ao BA
+                simulator.schedule(latency(), () -> new SimulatedNegotiation(this, seller).start());
+            }
+        }
+
+        /**
+         * Chegada do relatório do BA ao Coordenador.
+         */
+        private void negotiationEnded(NegotiationOutcome outcome, long startedAt) {
+            finished++;
+            results.addAll(outcome.getResults());
+            double roundLatency = outcome.getRounds() > 0
+                    ? (double) (simulator.now() - startedAt) / outcome.getRounds() : Double.NaN;
+            admission.onComplete(roundLatency, outcome.getOutcome() == Outcome.TIMED_OUT);
+            admitPendingSellers();
+            if (finished >= candidates.size()) {
+                determineWinners();
+            }
+        }
+
+        private void determineWinners() {
+            List<NegotiationResult> solution = PartialWinnerDetermination.merge(
+                    Collections.singletonList(PartialWinnerDetermination.summarize(results, productDemand)), productDemand);
+            if (solution.isEmpty()) {
+                tasksWithoutSolution++;
+            } else {
+                totalSolutionUtility += solution.stream().mapToDouble(NegotiationResult::getUtility).sum();
+            }
+            taskLatencies.add(simulator.now() - arrivedAt);
+        }
+    }
+
+    /**
+     * Uma negociação bilateral com latência nas mensagens e o prazo de resposta do BA em tempo virtual.
+     */
+    private final class SimulatedNegotiation {
+        private final SimulatedTask task;
+        private final BilateralNegotiation negotiation;
+        private final AdaptiveTimeout.Conversation rtt = timeouts.newConversation();
+        private final boolean unresponsive = random.nextDouble() < unresponsiveProbability;
+        private long startedAt;
+        private long sentAt = -1; // Envio da última mensagem do BA ainda sem resposta
+        private long timerToken = 0; // Invalida os timeouts armados antes (cancelamento preguiçoso)
+        private boolean armed = false;
+        private boolean reported = false;
+
+        private SimulatedNegotiation(SimulatedTask task, SellerProfile seller) {
+            this.task = task;
+            this.negotiation = new BilateralNegotiation(engine, seller, this::send);
+        }
+
+        private void start() {
+            startedAt = simulator.now();
+            negotiations++;
+            negotiation.start();
+        }
+
+        private void send(BilateralNegotiation.Message msg) {
+            if (!(msg.toSeller && unresponsive)) {
+                simulator.schedule(latency(), () -> deliver(msg));
+            }
+            if (msg.toSeller && msg.expectsReply()) {
+                sentAt = simulator.now();
+                arm();
+            }
+        }
+
+        private void deliver(BilateralNegotiation.Message msg) {
+            if (reported) {
+                return;
+            }
+            if (!msg.toSeller) {
+                if (sentAt >= 0) {
+                    rtt.sample(simulator.now() - sentAt);
+                    sentAt = -1;
+                }
+                disarm();
+            }
+            negotiation.deliver(msg);
+            if (negotiation.isBuyerEnded()) {
+                finish();
+            } else if (!armed) {
+                arm(); // Aceitação parcial: o BA aguarda a nova proposta com os lances restantes
+            }
+        }
+
+        private void arm() {
+            armed = true;
+            long token = ++timerToken;
+            simulator.schedule(Math.min(rtt.timeoutMillis(), negotiation.buyerRemainingMillis()), () -> {
+                if (token == timerToken && !reported) {
+                    negotiation.buyerTimeout();
+                    finish();
+                }
+            });
+        }
+
+        private void disarm() {
+            armed = false;
+            timerToken++;
+        }
+
+        private void finish() {
+            reported = true;
+            disarm();
+            NegotiationOutcome outcome = negotiation.outcome((simulator.now() - startedAt) * 1_000_000);
+            totalRounds += outcome.getRounds();
+            switch (outcome.getOutcome()) {
+                case COMPLETED: completed++; break;
+                case TIMED_OUT: timedOut++; break;
+                default: failed++;
+            }
+            // Relatório do BA ao Coordenador
+            simulator.schedule(latency(), () -> task.negotiationEnded(outcome, startedAt));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package mas.engine;
+
+import mas.logic.ConfigLoader;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * O que um vendedor oferta: o catálogo de pacotes, os valores da proposta inicial e as
+ * quantidades por produto. Equivale ao que o SellerAgent lê de 'seller.catalog.&lt;nome&gt;',
+ * 'seller.initial.*' e 'seller.quantities'.
+ */
+public final class SellerProfile {
+
+    private final String name;
+    private final List<ProductBundle> catalog;
+    private final List<NegotiationIssue> initialIssues;
+    private final int[] quantities; // Quantidade ofertada de cada produto
+
+    public SellerProfile(String name, List<ProductBundle> catalog, List<NegotiationIssue> initialIssues, int[] quantities) {
+        this.name = name;
+        this.catalog = Collections.unmodifiableList(new ArrayList<>(catalog));
+        this.initialIssues = Collections.unmodifiableList(new ArrayList<>(initialIssues));
+        this.quantities = quantities.clone();
+    }
+
+    /**
+     * Perfil do vendedor {@code name} no config.properties (catálogo próprio ou 'seller.catalog.default').
+     */
+    public static SellerProfile fromConfig(String name) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String value = config.getString("seller.catalog." + name);
+        if (value == null || value.isEmpty()) {
+            value = config.getString("seller.catalog.default");
+        }
+        List<ProductBundle> catalog = new ArrayList<>();
+        for (String mask : value.split(",")) {
+            catalog.add(ProductBundle.parse(mask));
+        }
+        List<NegotiationIssue> initialIssues = new ArrayList<>();
+        initialIssues.add(new NegotiationIssue("Price", config.getDouble("seller.initial.price")));
+        initialIssues.add(new NegotiationIssue("Quality", config.getString("seller.initial.quality")));
+        initialIssues.add(new NegotiationIssue("Delivery", config.getDouble("seller.initial.delivery")));
+        initialIssues.add(new NegotiationIssue("Service", config.getString("seller.initial.service")));
+        String[] perProduct = config.getString("seller.quantities").split(",");
+        int[] quantities = new int[perProduct.length];
+        for (int i = 0; i < perProduct.length; i++) {
+            quantities[i] = Integer.parseInt(perProduct[i].trim());
+        }
+        return new SellerProfile(name, catalog, initialIssues, quantities);
+    }
+
+    /**
+     * Outro vendedor com os mesmos valores iniciais e quantidades, mas nome e catálogo próprios.
+     */
+    public SellerProfile withCatalog(String name, List<ProductBundle> catalog) {
+        return new SellerProfile(name, catalog, initialIssues, quantities);
+    }
+
+    public String getName() { return name; }
+    public List<ProductBundle> getCatalog() { return catalog; }
+
+    /**
+     * Número de produtos da tarefa (tamanho do vetor de quantidades).
+     */
+    public int getProductCount() {
+        return quantities.length;
+    }
+
+    /**
+     * Proposta inicial: um lance por pacote do catálogo, com os valores iniciais.
+     */
+    List<Bid> initialBids() {
+        List<Bid> bids = new ArrayList<>(catalog.size());
+        for (ProductBundle pb : catalog) {
+            int[] products = pb.getProducts();
+            int[] bundleQuantities = new int[products.length];
+            for (int i = 0; i < products.length; i++) {
+                bundleQuantities[i] = products[i] == 1 && i < quantities.length ? quantities[i] : 0;
+            }
+            bids.add(new Bid(pb, initialIssues, bundleQuantities));
+        }
+        return bids;
+    }
+}
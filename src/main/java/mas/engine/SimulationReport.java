@@ -0,0 +1,99 @@
+package mas.engine;
+
+import java.util.Arrays;
+
+/**
+ * Resumo de uma execução da {@link ProcurementSimulation}. Tempos "virtuais" são do relógio da
+ * simulação; o tempo de parede é quanto a execução levou de fato.
+ */
+public final class SimulationReport {
+
+    private final long seed;
+    private final int tasks;
+    private final int tasksWithoutSolution;
+    private final int negotiations;
+    private final int completed;
+    private final int failed;
+    private final int timedOut;
+    private final long totalRounds;
+    private final double totalSolutionUtility;
+    private final long[] taskLatenciesMillis; // Ordenadas
+    private final long virtualMillis;
+    private final long events;
+    private final long wallMillis;
+
+    SimulationReport(long seed, int tasks, int tasksWithoutSolution, int negotiations, int completed, int failed,
+                     int timedOut, long totalRounds, double totalSolutionUtility, long[] taskLatenciesMillis,
+                     long virtualMillis, long events, long wallMillis) {
+        this.seed = seed;
+        this.tasks = tasks;
+        this.tasksWithoutSolution = tasksWithoutSolution;
+        this.negotiations = negotiations;
+        this.completed = completed;
+        this.failed = failed;
+        this.timedOut = timedOut;
+        this.totalRounds = totalRounds;
+        this.totalSolutionUtility = totalSolutionUtility;
+        this.taskLatenciesMillis = taskLatenciesMillis.clone();
+        Arrays.sort(this.taskLatenciesMillis);
+        this.virtualMillis = virtualMillis;
+        this.events = events;
+        this.wallMillis = wallMillis;
+    }
+
+    public long getSeed() { return seed; }
+    public int getTasks() { return tasks; }
+    public int getTasksWithoutSolution() { return tasksWithoutSolution; }
+    public int getNegotiations() { return negotiations; }
+    public int getCompleted() { return completed; }
+    public int getFailed() { return failed; }
+    public int getTimedOut() { return timedOut; }
+    public long getVirtualMillis() { return virtualMillis; }
+    public long getEvents() { return events; }
+    public long getWallMillis() { return wallMillis; }
+
+    public double getMeanRounds() {
+        return negotiations == 0 ? 0.0 : (double) totalRounds / negotiations;
+    }
+
+    /**
+     * Utilidade média da solução da WDP, entre as tarefas com solução.
+     */
+    public double getMeanSolutionUtility() {
+        int solved = tasks - tasksWithoutSolution;
+        return solved == 0 ? 0.0 : totalSolutionUtility / solved;
+    }
+
+    /**
+     * Percentil (0..100) da latência virtual das tarefas, da chegada à solução da WDP.
+     */
+    public long getTaskLatencyPercentile(double percentile) {
+        if (taskLatenciesMillis.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * taskLatenciesMillis.length) - 1;
+        return taskLatenciesMillis[Math.max(0, Math.min(taskLatenciesMillis.length - 1, index))];
+    }
+
+    /**
+     * Mesma semente e mesmo config devem dar o mesmo relatório (o tempo de parede não conta).
+     */
+    public boolean sameOutcomeAs(SimulationReport other) {
+        return tasks == other.tasks && tasksWithoutSolution == other.tasksWithoutSolution
+                && negotiations == other.negotiations && completed == other.completed
+                && failed == other.failed && timedOut == other.timedOut && totalRounds == other.totalRounds
+                && Double.compare(totalSolutionUtility, other.totalSolutionUtility) == 0
+                && Arrays.equals(taskLatenciesMillis, other.taskLatenciesMillis)
+                && virtualMillis == other.virtualMillis && events == other.events;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Simulated %.1f h (seed %d) in %d ms: %d task(s) (%d without solution), %d negotiation(s) "
+                        + "[%d completed, %d failed, %d timed out, %.2f rounds avg], mean utility %.3f, "
+                        + "task latency p50 %d ms / p99 %d ms, %d event(s)",
+                virtualMillis / 3_600_000.0, seed, wallMillis, tasks, tasksWithoutSolution, negotiations,
+                completed, failed, timedOut, getMeanRounds(), getMeanSolutionUtility(),
+                getTaskLatencyPercentile(50), getTaskLatencyPercentile(99), events);
+    }
+}
@@ -0,0 +1,45 @@
+package mas.load;
+
+import java.util.Arrays;
+
+/**
+ * Registra latências (em nanos) de várias threads e calcula percentis exatos sobre todas as
+ * amostras. Adequado às execuções do {@link LoadGenerator}, com milhares de amostras por fase.
+ */
+public final class LatencyRecorder {
+
+    private long[] samples = new long[64];
+    private int count = 0;
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Percentil (0..100) pelo método do posto mais próximo; 0 se não houver amostras.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    public synchronized double getMean() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+}
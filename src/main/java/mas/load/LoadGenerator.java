@@ -0,0 +1,240 @@
+package mas.load;
+
+import mas.agents.HeadlessPlatform;
+import mas.agents.HeadlessPlatform.TaskRun;
+import mas.agents.LoadDriverAgent;
+import mas.agents.NegotiationEventSource;
+import mas.logic.ConfigLoader;
+import mas.models.NegotiationEvent.Phase;
+import mas.models.NegotiationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Gerador de carga ponta a ponta: ferramenta de capacidade e de regressão de desempenho.
+ * <p>
+ * Inicia uma plataforma JADE headless (sem GUI) com o SDA, 'load.sellers' SellerAgents com
+ * catálogos sorteados e um {@link LoadDriverAgent}; espera todos os vendedores aparecerem no
+ * DF e então submete 'load.tasks' tarefas de compra a 'load.ratePerSecond' tarefas por segundo.
+ * Cada tarefa tem o seu próprio CoordinatorAgent ("ca_load_N"), cujos eventos (via
+ * {@link NegotiationEventSource}) dão a duração de cada fase: pedido de pacotes ao SDA,
+ * descoberta no DF, negociações e WDP. Ao final, o relatório traz a vazão (tarefas e
+ * negociações por segundo) e os percentis p50/p99/p999 de cada fase e da tarefa completa.
+ * <p>
+ * As chegadas seguem uma agenda fixa (carga aberta) e a latência da tarefa conta a partir do
+ * instante previsto de chegada, e não do envio efetivo: se o sistema atrasar as submissões,
+ * o atraso aparece na latência em vez de reduzir a carga sem ser visto. As primeiras
+ * 'load.warmupTasks' tarefas ficam fora das estatísticas.
+ * <p>
+ * Com 'coordinator.buyer.mode' = dedicated, cada tarefa deixa os seus BAs na plataforma; para
+ * execuções longas, use 'pooled'.
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final int sellers;
+    private final int bundlesPerSeller;
+    private final List<String> products;
+    private final double ratePerSecond;
+    private final int tasks;
+    private final int warmupTasks;
+    private final long seed;
+    private final long taskTimeoutMillis;
+
+    private final Map<Phase, LatencyRecorder> phaseLatencies = new EnumMap<>(Phase.class);
+    private final LatencyRecorder taskLatencies = new LatencyRecorder();
+    private final AtomicLong negotiations = new AtomicLong();
+    private final AtomicInteger unsolvedTasks = new AtomicInteger();
+    private final AtomicInteger failedTasks = new AtomicInteger();
+
+    public LoadGenerator(int sellers, int bundlesPerSeller, List<String> products, double ratePerSecond,
+                         int tasks, int warmupTasks, long seed, long taskTimeoutMillis) {
+        this.sellers = sellers;
+        this.bundlesPerSeller = bundlesPerSeller;
+        this.products = new ArrayList<>(products);
+        this.ratePerSecond = ratePerSecond;
+        this.tasks = tasks;
+        this.warmupTasks = warmupTasks;
+        this.seed = seed;
+        this.taskTimeoutMillis = taskTimeoutMillis;
+        for (Phase phase : Phase.values()) {
+            phaseLatencies.put(phase, new LatencyRecorder());
+        }
+    }
+
+    /**
+     * Gerador com as chaves 'load.*' do config.properties.
+     */
+    public static LoadGenerator fromConfig() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        return new LoadGenerator(
+                config.getInt("load.sellers"),
+                config.getInt("load.bundlesPerSeller"),
+                Arrays.stream(config.getString("load.products").split(",")).map(String::trim).collect(Collectors.toList()),
+                config.getDouble("load.ratePerSecond"),
+                config.getInt("load.tasks"),
+                config.getInt("load.warmupTasks"),
+                Long.parseLong(config.getString("load.seed").trim()),
+                config.getInt("load.taskTimeoutMillis"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean allCompleted = fromConfig().run();
+        // Threads do JADE podem sobreviver ao encerramento da plataforma
+        System.exit(allCompleted ? 0 : 1);
+    }
+
+    /**
+     * Executa a carga completa e registra o relatório no log.
+     *
+     * @return false se alguma tarefa não terminou (timeout ou Coordenador encerrado sem solução).
+     */
+    public boolean run() throws Exception {
+        ConfigLoader config = ConfigLoader.getInstance();
+        if ("dedicated".equalsIgnoreCase(config.getString("coordinator.buyer.mode"))) {
+            logger.warn("LoadGenerator: coordinator.buyer.mode=dedicated leaves one idle BA per seller and task; consider 'pooled'.");
+        }
+        try (HeadlessPlatform platform = HeadlessPlatform.start("load_driver")) {
+            List<String> catalogs = generateCatalogs();
+            Map<String, Object[]> sellerAgents = new LinkedHashMap<>();
+            for (int i = 0; i < sellers; i++) {
+                sellerAgents.put("s" + (i + 1), new Object[]{catalogs.get(i)});
+            }
+            platform.startParticipants(sellerAgents, taskTimeoutMillis);
+            return runTasks(platform);
+        }
+    }
+
+    /**
+     * Um catálogo por vendedor: de 1 a 'load.bundlesPerSeller' pacotes distintos, cada um com
+     * um ou dois produtos (como os pacotes do SDA), sorteados com 'load.seed'.
+     */
+    List<String> generateCatalogs() {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> catalogs = new ArrayList<>();
+        for (int i = 0; i < sellers; i++) {
+            int bundles = 1 + random.nextInt(Math.max(1, bundlesPerSeller));
+            Set<String> masks = new LinkedHashSet<>();
+            while (masks.size() < bundles) {
+                char[] mask = new char[products.size()];
+                Arrays.fill(mask, '0');
+                mask[random.nextInt(mask.length)] = '1';
+                if (mask.length > 1 && random.nextBoolean()) {
+                    mask[random.nextInt(mask.length)] = '1';
+                }
+                masks.add(new String(mask));
+            }
+            catalogs.add(String.join(",", masks));
+        }
+        return catalogs;
+    }
+
+    private boolean runTasks(HeadlessPlatform platform) throws Exception {
+        int total = warmupTasks + tasks;
+        long periodNanos = (long) (1_000_000_000L / ratePerSecond);
+        logger.info("LoadGenerator: Submitting {} task(s) ({} warm-up) at {}/s to {} seller(s).",
+                total, warmupTasks, ratePerSecond, sellers);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        List<CompletableFuture<Long>> completions = new ArrayList<>();
+        long origin = System.nanoTime();
+        long measuredOrigin = origin + warmupTasks * periodNanos;
+        for (int i = 0; i < total; i++) {
+            int index = i;
+            long intendedStart = origin + i * periodNanos;
+            CompletableFuture<Long> completion = new CompletableFuture<>();
+            completions.add(completion);
+            scheduler.schedule(() -> submit(platform, index, intendedStart, completion),
+                    intendedStart - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        long lastCompletion = measuredOrigin;
+        int completed = 0;
+        for (int i = 0; i < total; i++) {
+            try {
+                long finishedAt = completions.get(i).get();
+                if (i >= warmupTasks) {
+                    lastCompletion = Math.max(lastCompletion, finishedAt);
+                    completed++;
+                }
+            } catch (Exception e) {
+                failedTasks.incrementAndGet();
+                logger.warn("LoadGenerator: Task {} did not complete: {}", i, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        scheduler.shutdownNow();
+        report(completed, (lastCompletion - measuredOrigin) / 1_000_000_000.0);
+        return failedTasks.get() == 0;
+    }
+
+    /**
+     * Submete a tarefa ao seu próprio Coordenador e, quando ela termina, registra as suas latências.
+     */
+    private void submit(HeadlessPlatform platform, int index, long intendedStart, CompletableFuture<Long> completion) {
+        try {
+            TaskRun run = platform.submitTask("ca_load_" + index, products, taskTimeoutMillis);
+            run.solution().whenComplete((solution, error) -> {
+                if (error != null) {
+                    completion.completeExceptionally(error);
+                    return;
+                }
+                if (index >= warmupTasks) {
+                    record(run, solution, intendedStart);
+                }
+                completion.complete(run.finishedNanos());
+            });
+        } catch (Exception e) {
+            completion.completeExceptionally(e);
+        }
+    }
+
+    private void record(TaskRun run, List<NegotiationResult> solution, long intendedStart) {
+        for (Map.Entry<Phase, Long> phase : run.phaseNanos().entrySet()) {
+            phaseLatencies.get(phase.getKey()).record(phase.getValue());
+        }
+        negotiations.addAndGet(run.negotiations());
+        taskLatencies.record(run.finishedNanos() - intendedStart);
+        if (solution.isEmpty()) {
+            unsolvedTasks.incrementAndGet();
+        }
+    }
+
+    private void report(int completed, double seconds) {
+        logger.info("LoadGenerator: {} measured task(s): {} completed, {} failed, {} without solution, in {} s.",
+                tasks, completed, failedTasks.get(), unsolvedTasks.get(), String.format(Locale.ROOT, "%.2f", seconds));
+        logger.info("LoadGenerator: Throughput {} task(s)/s, {} negotiation(s)/s.",
+                String.format(Locale.ROOT, "%.2f", completed / Math.max(seconds, 1e-9)),
+                String.format(Locale.ROOT, "%.2f", negotiations.get() / Math.max(seconds, 1e-9)));
+        logger.info(String.format(Locale.ROOT, "LoadGenerator: %-16s %7s %10s %10s %10s %10s %10s",
+                "phase", "count", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Phase phase : Phase.values()) {
+            logger.info(row(phase.name(), phaseLatencies.get(phase)));
+        }
+        logger.info(row("TASK", taskLatencies));
+    }
+
+    private static String row(String label, LatencyRecorder recorder) {
+        return String.format(Locale.ROOT, "LoadGenerator: %-16s %7d %10.3f %10.3f %10.3f %10.3f %10.3f",
+                label, recorder.getCount(), recorder.getMean() / 1e6,
+                recorder.getPercentile(50) / 1e6, recorder.getPercentile(99) / 1e6,
+                recorder.getPercentile(99.9) / 1e6, recorder.getPercentile(100) / 1e6);
+    }
+}
@@ -0,0 +1,122 @@
+package mas.logic;
+
+/**
+ * Timeout adaptativo das negociações, calculado a partir do tempo de ida e volta (RTT)
+ * medido entre o envio de uma mensagem e a resposta da contraparte.
+ * <p>
+ * O timeout de uma conversa é {@code média + k·desvio padrão} dos seus RTTs, limitado a
+ * ['timeout.minMillis', 'timeout.maxMillis']. Enquanto a conversa tem menos de duas
+ * amostras, usa-se a estimativa do agente inteiro (média e variância exponencialmente
+ * ponderadas de todas as conversas) e, sem nenhuma amostra, 'timeout.initialMillis'.
+ * Assim, rodadas normais terminam rápido e contrapartes mortas são descartadas em poucos RTTs.
+ * <p>
+ * Não é thread-safe: cada agente JADE usa a sua instância apenas na thread do agente.
+ */
+public class AdaptiveTimeout {
+
+    private static final double AGENT_WEIGHT = 0.125; // Peso de cada nova amostra na estimativa do agente
+
+    private final double k;
+    private final long initialMillis;
+    private final long minMillis;
+    private final long maxMillis;
+
+    private long agentSamples;
+    private double agentMean;
+    private double agentVariance;
+
+    public AdaptiveTimeout(double k, long initialMillis, long minMillis, long maxMillis) {
+        this.k = k;
+        this.minMillis = Math.max(1, minMillis);
+        this.maxMillis = Math.max(this.minMillis, maxMillis);
+        this.initialMillis = clamp(initialMillis);
+    }
+
+    /**
+     * Cria o timeout a partir das chaves 'timeout.*' do config.properties.
+     */
+    public static AdaptiveTimeout fromConfig() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        return new AdaptiveTimeout(
+                config.getDouble("timeout.k"),
+                config.getInt("timeout.initialMillis"),
+                config.getInt("timeout.minMillis"),
+                config.getInt("timeout.maxMillis"));
+    }
+
+    /**
+     * Cria o estimador de RTT de uma nova conversa.
+     */
+    public Conversation newConversation() {
+        return new Conversation();
+    }
+
+    /**
+     * Timeout do agente inteiro, usado por conversas ainda sem amostras suficientes.
+     */
+    public long agentTimeoutMillis() {
+        if (agentSamples == 0) {
+            return initialMillis;
+        }
+        if (agentSamples == 1) {
+            // Uma única amostra não estima a variância: tolera até o timeout inicial
+            return clamp(Math.max((long) (agentMean * (1 + k)), initialMillis));
+        }
+        return clamp((long) Math.ceil(agentMean + k * Math.sqrt(agentVariance)));
+    }
+
+    private void sampleAgent(double rttMillis) {
+        agentSamples++;
+        if (agentSamples == 1) {
+            agentMean = rttMillis;
+            agentVariance = 0.0;
+            return;
+        }
+        double diff = rttMillis - agentMean;
+        double increment = AGENT_WEIGHT * diff;
+        agentMean += increment;
+        agentVariance = (1 - AGENT_WEIGHT) * (agentVariance + diff * increment);
+    }
+
+    private long clamp(long millis) {
+        return Math.max(minMillis, Math.min(maxMillis, millis));
+    }
+
+    /**
+     * Estatísticas de RTT de uma conversa (média e variância de Welford).
+     */
+    public class Conversation {
+        private long samples;
+        private double mean;
+        private double m2;
+
+        private Conversation() {
+        }
+
+        /**
+         * Registra o RTT de uma rodada desta conversa (alimenta também a estimativa do agente).
+         */
+        public void sample(double rttMillis) {
+            samples++;
+            double diff = rttMillis - mean;
+            mean += diff / samples;
+            m2 += diff * (rttMillis - mean);
+            sampleAgent(rttMillis);
+        }
+
+        /**
+         * @return Quanto esperar pela próxima resposta da contraparte, em milissegundos.
+         */
+        public long timeoutMillis() {
+            if (samples < 2) {
+                return agentTimeoutMillis();
+            }
+            double stddev = Math.sqrt(m2 / (samples - 1));
+            return clamp((long) Math.ceil(mean + k * stddev));
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package mas.logic;
+
+/**
+ * Controle de admissão das negociações do Coordenador, com limite de concorrência adaptativo (AIMD).
+ * <p>
+ * No máximo {@link #getLimit()} negociações ficam em andamento; as demais aguardam na fila
+ * do Coordenador. A cada negociação concluída o limite é ajustado pela latência por rodada
+ * observada e pelos timeouts:
+ * <ul>
+ *   <li>Sem congestionamento: aumento aditivo (+1 por negociação concluída até o primeiro
+ *       congestionamento — "slow start" — e depois +1 a cada {@code limit} concluídas);</li>
+ *   <li>Congestionamento (timeout, ou latência por rodada acima de {@code latencyTolerance}
+ *       vezes a latência base): redução multiplicativa por {@code decreaseFactor}, no máximo
+ *       uma vez por "janela" (as negociações que já estavam em andamento na última redução).</li>
+ * </ul>
+ * A latência base é a menor latência por rodada observada, que sobe lentamente para
+ * acompanhar mudanças permanentes do sistema. O limite converge para a concorrência com
+ * mais negociações concluídas por segundo, antes de a latência (e os timeouts) dispararem.
+ */
+public class AdmissionController {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final boolean enabled;
+    private final double minLimit;
+    private final double maxLimit;
+    private final double decreaseFactor;
+    private final double latencyTolerance;
+
+    private double limit;
+    private int inFlight;
+    private boolean slowStart = true;
+    private double baselineLatency = Double.NaN;
+    private long completedSinceDecrease;
+    private long decreaseWindow; // Concluídas necessárias antes de uma nova redução
+    private long completed;
+    private final long startNanos = System.nanoTime();
+
+    public AdmissionController(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                               double decreaseFactor, double latencyTolerance) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.decreaseFactor = decreaseFactor;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+    }
+
+    /**
+     * Cria o controlador a partir das chaves 'admission.*' do config.properties.
+     */
+    public static AdmissionController fromConfig() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String flag = config.getString("admission.enabled");
+        return new AdmissionController(
+                flag == null || Boolean.parseBoolean(flag.trim()),
+                config.getInt("admission.initialLimit"),
+                config.getInt("admission.minLimit"),
+                config.getInt("admission.maxLimit"),
+                config.getDouble("admission.decreaseFactor"),
+                config.getDouble("admission.latencyTolerance"));
+    }
+
+    /**
+     * Tenta admitir uma nova negociação.
+     *
+     * @return true se há vaga (a negociação deve ser iniciada), false se deve aguardar na fila.
+     */
+    public synchronized boolean tryAcquire() {
+        if (enabled && inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Libera a vaga de uma negociação que não chegou a ser iniciada (sem amostra de latência).
+     */
+    public synchronized void release() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    /**
+     * Registra o fim de uma negociação, libera a vaga e ajusta o limite.
+     *
+     * @param roundLatencyMillis Duração média de uma rodada da negociação (NaN se desconhecida).
+     * @param timedOut           Se a negociação terminou por timeout da contraparte.
+     */
+    public synchronized void onComplete(double roundLatencyMillis, boolean timedOut) {
+        inFlight = Math.max(0, inFlight - 1);
+        completed++;
+        completedSinceDecrease++;
+
+        boolean latencyCongested = false;
+        if (!Double.isNaN(roundLatencyMillis)) {
+            if (Double.isNaN(baselineLatency) || roundLatencyMillis < baselineLatency) {
+                baselineLatency = roundLatencyMillis;
+            } else {
+                latencyCongested = roundLatencyMillis > baselineLatency * latencyTolerance;
+                baselineLatency += (roundLatencyMillis - baselineLatency) * BASELINE_DRIFT;
+            }
+        }
+
+        if (timedOut || latencyCongested) {
+            if (completedSinceDecrease > decreaseWindow) {
+                limit = Math.max(minLimit, limit * decreaseFactor);
+                slowStart = false;
+                completedSinceDecrease = 0;
+                decreaseWindow = inFlight;
+            }
+        } else if (slowStart) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return enabled ? (int) limit : Integer.MAX_VALUE;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized double getBaselineLatencyMillis() {
+        return baselineLatency;
+    }
+
+    public synchronized double getCompletedPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds <= 0 ? 0.0 : completed / seconds;
+    }
+}
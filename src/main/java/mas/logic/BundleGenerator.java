@@ -0,0 +1,309 @@
+package mas.logic;
+
+import mas.models.ProductBundle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Gera os pacotes preferidos do SDA em ordem decrescente de sinergia ({@link SynergyModel}),
+ * sem montar o conjunto das partes dos produtos.
+ * <p>
+ * É uma busca best-first sobre a árvore de subconjuntos, em que cada nó estende o pacote só com
+ * produtos de índice maior que o último (cada pacote aparece uma única vez). A fila guarda dois
+ * tipos de entrada: pacotes prontos, com a sinergia exata, e nós a expandir, com um limitante
+ * superior da sinergia de qualquer pacote maior que descenda deles. Uma entrada pronta que chega
+ * ao topo é maior ou igual a tudo o que ainda falta gerar, e pode ser devolvida de imediato;
+ * nós cujo limitante fica abaixo de 'sda.minSynergy' são podados. O limitante de um nó só é
+ * calculado quando ele chega ao topo (até lá vale o do pai), de modo que o custo e a memória
+ * crescem com os pacotes pedidos (top-k), e não com 2^n.
+ * <p>
+ * Limitante: com r vagas restantes no pacote B, o ganho de uma extensão se divide entre os pares
+ * (novo, B) e os pares (novo, novo). Os primeiros somam no máximo os r maiores valores de
+ * max(0, sinergia de j com B) entre os candidatos j; os segundos, no máximo r(r-1)/2 vezes a maior
+ * sinergia positiva entre dois candidatos, ou, se menor, a soma dos r maiores (r-1) x (maior
+ * sinergia positiva de j com um candidato de índice maior). Nos empates, os nós mais profundos são
+ * expandidos primeiro, chegando logo aos pacotes prontos mesmo com sinergias uniformes.
+ */
+public final class BundleGenerator {
+
+    // Resolução da ordem na fila: somas iguais em ordens diferentes diferem no último bit
+    private static final double RESOLUTION = 1e-9;
+
+    private final SynergyModel model;
+    private final int maxBundleSize;
+    private final double minSynergy;
+
+    /**
+     * @param maxBundleSize Maior número de produtos num pacote.
+     * @param minSynergy    Sinergia mínima de um pacote devolvido.
+     */
+    public BundleGenerator(SynergyModel model, int maxBundleSize, double minSynergy) {
+        if (maxBundleSize < 1) {
+            throw new IllegalArgumentException("maxBundleSize must be at least 1: " + maxBundleSize);
+        }
+        this.model = model;
+        this.maxBundleSize = maxBundleSize;
+        this.minSynergy = minSynergy;
+    }
+
+    public static BundleGenerator fromConfig(SynergyModel model) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        return new BundleGenerator(model, config.getInt("sda.maxBundleSize"), config.getDouble("sda.minSynergy"));
+    }
+
+    /**
+     * O mesmo gerador (tamanho e sinergia mínima) sobre outro modelo de sinergia.
+     */
+    public BundleGenerator withModel(SynergyModel model) {
+        return new BundleGenerator(model, maxBundleSize, minSynergy);
+    }
+
+    public SynergyModel getModel() {
+        return model;
+    }
+
+    /**
+     * Os {@code k} pacotes de maior sinergia entre os produtos informados.
+     */
+    public List<ScoredBundle> top(List<String> products, int k) {
+        List<ScoredBundle> bundles = new ArrayList<>();
+        Iterator<ScoredBundle> it = enumerate(products);
+        while (bundles.size() < k && it.hasNext()) {
+            bundles.add(it.next());
+        }
+        return bundles;
+    }
+
+    /**
+     * Enumera, sob demanda, os pacotes dos produtos informados em ordem decrescente de
+     * sinergia. A ordem dos empates é determinística (a mesma entrada gera a mesma sequência).
+     */
+    public Iterator<ScoredBundle> enumerate(List<String> products) {
+        return new Search(products);
+    }
+
+    /**
+     * Um pacote gerado e a sua sinergia.
+     */
+    public static final class ScoredBundle {
+        private final ProductBundle bundle;
+        private final List<String> products;
+        private final double synergy;
+
+        ScoredBundle(ProductBundle bundle, List<String> products, double synergy) {
+            this.bundle = bundle;
+            this.products = Collections.unmodifiableList(products);
+            this.synergy = synergy;
+        }
+
+        public ProductBundle getBundle() { return bundle; }
+        public List<String> getProducts() { return products; }
+        public double getSynergy() { return synergy; }
+
+        @Override
+        public String toString() {
+            return String.format("%s (Synergy: %.3f)", products, synergy);
+        }
+    }
+
+    /**
+     * Nó da busca: um pacote (índices crescentes na lista de produtos) e o valor pelo qual
+     * é ordenado na fila (a sinergia exata, se pronto; o limitante, se a expandir).
+     */
+    private static final class Node {
+        private final int[] members;
+        private final double synergy;
+        private final double value;
+        private final long rank; // Valor na resolução da fila: empates seguem as regras de desempate
+        private final boolean ready;
+        private final boolean refined; // Limitante já calculado para o próprio nó (e não herdado do pai)
+
+        private Node(int[] members, double synergy, double value, boolean ready, boolean refined) {
+            this.members = members;
+            this.synergy = synergy;
+            this.value = value;
+            this.rank = Math.round(value / RESOLUTION);
+            this.ready = ready;
+            this.refined = refined;
+        }
+
+        private int last() {
+            return members.length == 0 ? -1 : members[members.length - 1];
+        }
+    }
+
+    private static final Comparator<Node> ORDER = (a, b) -> {
+        int byValue = Long.compare(b.rank, a.rank);
+        if (byValue != 0) {
+            return byValue;
+        }
+        if (a.ready != b.ready) {
+            return a.ready ? -1 : 1; // Pronto antes de expandir: nenhum descendente o supera
+        }
+        if (a.members.length != b.members.length) {
+            // Prontos: os menores primeiro; a expandir: os mais profundos primeiro
+            return a.ready ? Integer.compare(a.members.length, b.members.length)
+                    : Integer.compare(b.members.length, a.members.length);
+        }
+        return Arrays.compare(a.members, b.members);
+    };
+
+    private final class Search implements Iterator<ScoredBundle> {
+        private final List<String> products;
+        private final double[][] synergy; // Sinergia de cada par de produtos
+        private final double[] bestFollowing; // Maior sinergia positiva do produto com um de índice maior
+        private final double[] bestPairFrom; // Maior sinergia positiva entre dois produtos de índice >= i
+        private final int[] positions; // Posição de cada produto no vetor do pacote
+        private final int vectorLength;
+        private final int maxSize;
+        private final PriorityQueue<Node> queue = new PriorityQueue<>(ORDER);
+        private ScoredBundle next;
+
+        private Search(List<String> products) {
+            this.products = new ArrayList<>(products);
+            int n = products.size();
+            this.maxSize = Math.min(maxBundleSize, n);
+            this.synergy = new double[n][n];
+            this.bestFollowing = new double[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double value = model.synergy(products.get(i), products.get(j));
+                    synergy[i][j] = value;
+                    synergy[j][i] = value;
+                    bestFollowing[i] = Math.max(bestFollowing[i], value);
+                }
+            }
+            this.bestPairFrom = new double[n + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                bestPairFrom[i] = Math.max(bestPairFrom[i + 1], bestFollowing[i]);
+            }
+            this.positions = new int[n];
+            int length = 0;
+            for (int i = 0; i < n; i++) {
+                positions[i] = ProductBundle.positionOf(products.get(i), i);
+                length = Math.max(length, positions[i] + 1);
+            }
+            this.vectorLength = length;
+            if (n > 0) {
+                queue.add(new Node(new int[0], 0.0, Double.POSITIVE_INFINITY, false, false));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public ScoredBundle next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ScoredBundle current = next;
+            next = null;
+            return current;
+        }
+
+        private ScoredBundle advance() {
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                if (node.ready) {
+                    return toBundle(node);
+                }
+                double bound = node.value;
+                if (!node.refined) {
+                    bound = bound(node);
+                    if (bound < minSynergy) {
+                        continue;
+                    }
+                    Node refined = new Node(node.members, node.synergy, bound, false, true);
+                    if (refined.rank < node.rank) {
+                        queue.add(refined);
+                        continue;
+                    }
+                    // O limitante próprio não o tira do topo: expande sem voltar à fila
+                }
+                expand(node, bound);
+            }
+            return null;
+        }
+
+        /**
+         * Maior sinergia possível de um pacote que estenda o nó com produtos de índice maior.
+         */
+        private double bound(Node node) {
+            int remaining = maxSize - node.members.length;
+            int first = node.last() + 1;
+            double[] withMembers = new double[remaining]; // Os r maiores ganhos com B, em ordem decrescente
+            double[] withFollowing = new double[remaining]; // Os r maiores ganhos com B e entre os novos
+            for (int j = first; j < products.size(); j++) {
+                double gain = 0.0;
+                for (int i : node.members) {
+                    gain += synergy[i][j];
+                }
+                gain = Math.max(0.0, gain);
+                insert(withMembers, gain);
+                insert(withFollowing, gain + (remaining - 1) * bestFollowing[j]);
+            }
+            double pairs = remaining * (remaining - 1) / 2.0 * bestPairFrom[Math.min(first, products.size())];
+            return node.synergy + Math.min(sum(withMembers) + pairs, sum(withFollowing));
+        }
+
+        private void insert(double[] best, double gain) {
+            for (int slot = 0; slot < best.length; slot++) {
+                if (gain > best[slot]) {
+                    System.arraycopy(best, slot, best, slot + 1, best.length - slot - 1);
+                    best[slot] = gain;
+                    return;
+                }
+            }
+        }
+
+        private double sum(double[] values) {
+            double total = 0.0;
+            for (double value : values) {
+                total += value;
+            }
+            return total;
+        }
+
+        private void expand(Node node, double bound) {
+            int size = node.members.length + 1;
+            for (int j = node.last() + 1; j < products.size(); j++) {
+                int[] members = Arrays.copyOf(node.members, size);
+                members[size - 1] = j;
+                double value = node.synergy;
+                for (int i : node.members) {
+                    value += synergy[i][j];
+                }
+                if (value >= minSynergy) {
+                    queue.add(new Node(members, value, value, true, true));
+                }
+                if (size < maxSize && j < products.size() - 1) {
+                    // Herda o limitante do pai, calculado de fato só se chegar ao topo
+                    queue.add(new Node(members, value, bound, false, false));
+                }
+            }
+        }
+
+        private ScoredBundle toBundle(Node node) {
+            int[] vector = new int[vectorLength];
+            List<String> names = new ArrayList<>();
+            for (int i : node.members) {
+                vector[positions[i]] = 1;
+                names.add(products.get(i));
+            }
+            return new ScoredBundle(new ProductBundle(vector), names, node.synergy);
+        }
+    }
+}
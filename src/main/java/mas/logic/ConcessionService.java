@@ -30,6 +30,18 @@ public class ConcessionService {
      */
     public Bid generateCounterBid(Bid referenceBid, int currentRound, int maxRounds, double gamma,
                                   double discountRate, Map<String, IssueParameters> issueParams, String agentType) {
+        return generateCounterBid(referenceBid, NegotiationClock.roundProgress(currentRound, maxRounds),
+                gamma, discountRate, issueParams, agentType);
+    }
+
+    /**
+     * Gera um contra-lance (Bid) a partir do progresso da negociação, por rodadas ou por
+     * tempo decorrido sobre o orçamento (ver {@link NegotiationClock}).
+     *
+     * @param progress O progresso da negociação (t-1)/(t_max-1) ou t/T, entre 0 e 1.
+     */
+    public Bid generateCounterBid(Bid referenceBid, double progress, double gamma,
+                                  double discountRate, Map<String, IssueParameters> issueParams, String agentType) {
 
         List<NegotiationIssue> counterIssues = new ArrayList<>();
 
@@ -48,7 +60,7 @@ public class ConcessionService {
             }
 
             // Calcula a taxa de concessão (Eq. 5)
-            double concessionRate = calculateConcessionRate(currentRound, maxRounds, gamma, discountRate);
+            double concessionRate = calculateConcessionRate(progress, gamma, discountRate);
 
             Object newValue;
             if (params.getType() == IssueType.QUALITATIVE) {
@@ -70,11 +82,8 @@ public class ConcessionService {
      * Calcula a taxa de concessão α(t) usando a Equação 5.
      * Esta implementação está CORRETA.
      */
-    private double calculateConcessionRate(int t, int t_max, double gamma, double b_k) {
-        if (t > t_max) t = t_max;
-        if (t <= 0) t = 1;
-
-        double timeRatio = (t_max <= 1) ? 1.0 : (double) (t - 1) / (t_max - 1);
+    private double calculateConcessionRate(double progress, double gamma, double b_k) {
+        double timeRatio = Math.max(0.0, Math.min(1.0, progress));
 
         b_k = Math.max(0.001, Math.min(0.999, b_k));
         gamma = Math.max(0.001, gamma);
@@ -2,7 +2,9 @@ package mas.logic;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 /**
  * Classe utilitária para carregar configurações do arquivo config.properties.
@@ -44,4 +46,24 @@ public class ConfigLoader {
     public int getInt(String key) {
         return Integer.parseInt(properties.getProperty(key));
     }
+
+    /**
+     * Sobrepõe as chaves informadas às do config.properties (ex: as de um arquivo de cenário).
+     * Deve ser chamado antes de os agentes e serviços lerem a configuração.
+     */
+    public void override(Properties overrides) {
+        for (String key : overrides.stringPropertyNames()) {
+            properties.setProperty(key, overrides.getProperty(key));
+        }
+    }
+
+    /**
+     * Chaves que começam com o prefixo informado, em ordem alfabética.
+     */
+    public List<String> getKeys(String prefix) {
+        return properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(prefix))
+                .sorted()
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -127,7 +127,7 @@ public class EvaluationService {
      * Normaliza um issue qualitativo (Eq. 3).
      * Esta implementação está CORRETA.
      */
-    private double normalizeQualitativeUtility(String agentType, String linguisticValue) {
+    double normalizeQualitativeUtility(String agentType, String linguisticValue) {
         Map<String, double[]> tfnMap = agentType.equalsIgnoreCase("seller") ? this.tfnMapSeller : this.tfnMapBuyer;
         String lookupKey = linguisticValue.replace("_", " ").trim().toLowerCase();
         double[] tfn = tfnMap.get(lookupKey);
@@ -147,7 +147,7 @@ public class EvaluationService {
      * Esta implementação está CORRETA para as fórmulas, mas
      * usa parâmetros (min/max) genéricos.
      */
-    private double normalizeQuantitativeUtility(double value, IssueParameters params, double riskBeta) {
+    double normalizeQuantitativeUtility(double value, IssueParameters params, double riskBeta) {
         // TODO (SINERGIA): 'params' (min/max) são genéricos.
         // A lógica de sinergia exige que [min, max] sejam
         // específicos do ProductBundle que está sendo avaliado.
@@ -0,0 +1,126 @@
+package mas.logic;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Prazo de uma negociação bilateral e o progresso (0..1) usado na curva de concessão (Eq. 5).
+ * <p>
+ * Modo {@link Mode#ROUNDS} (padrão): o prazo é 'negotiation.maxRounds' e o progresso da
+ * rodada t é (t-1)/(t_max-1), como no artigo. Modo {@link Mode#TIME}: cada negociação tem um
+ * orçamento de 'negotiation.budgetMillis' e o progresso é o tempo decorrido sobre o orçamento,
+ * de modo que uma contraparte lenta não estica a negociação além do SLA. O limite de rodadas
+ * continua valendo como teto nos dois modos.
+ */
+public class NegotiationClock {
+
+    public enum Mode { ROUNDS, TIME }
+
+    private final Mode mode;
+    private final int maxRounds;
+    private final long budgetMillis;
+    private final LongSupplier clock;
+    private final long startMillis;
+
+    public NegotiationClock(Mode mode, int maxRounds, long budgetMillis, LongSupplier clock) {
+        this.mode = mode;
+        this.maxRounds = maxRounds;
+        this.budgetMillis = Math.max(1, budgetMillis);
+        this.clock = clock;
+        this.startMillis = clock.getAsLong();
+    }
+
+    /**
+     * Inicia o prazo de uma negociação com as chaves 'negotiation.*' do config.properties.
+     *
+     * @param budgetMillis Orçamento em ms (modo TIME), ou um valor <= 0 para usar 'negotiation.budgetMillis'.
+     */
+    public static NegotiationClock start(long budgetMillis) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String mode = config.getString("negotiation.deadline.mode");
+        return new NegotiationClock(
+                "time".equalsIgnoreCase(mode == null ? "" : mode.trim()) ? Mode.TIME : Mode.ROUNDS,
+                config.getInt("negotiation.maxRounds"),
+                budgetMillis > 0 ? budgetMillis : config.getInt("negotiation.budgetMillis"),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Lê as chaves 'negotiation.*' uma única vez e devolve uma fábrica de prazos sobre o relógio
+     * informado (ex: o relógio de parede, ou um relógio virtual), para quem inicia muitas negociações.
+     */
+    public static Supplier<NegotiationClock> factory(LongSupplier clock) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String mode = config.getString("negotiation.deadline.mode");
+        Mode parsed = "time".equalsIgnoreCase(mode == null ? "" : mode.trim()) ? Mode.TIME : Mode.ROUNDS;
+        int maxRounds = config.getInt("negotiation.maxRounds");
+        long budgetMillis = config.getInt("negotiation.budgetMillis");
+        return () -> new NegotiationClock(parsed, maxRounds, budgetMillis, clock);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    public long elapsedMillis() {
+        return clock.getAsLong() - startMillis;
+    }
+
+    /**
+     * @return O tempo restante do orçamento (Long.MAX_VALUE no modo ROUNDS).
+     */
+    public long remainingMillis() {
+        return mode == Mode.TIME ? Math.max(0, budgetMillis - elapsedMillis()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Progresso da negociação na rodada atual, para a curva de concessão.
+     */
+    public double progress(int round) {
+        if (mode == Mode.TIME) {
+            return Math.min(1.0, (double) elapsedMillis() / budgetMillis);
+        }
+        return roundProgress(round, maxRounds);
+    }
+
+    /**
+     * Progresso estimado da próxima rodada (o do próximo contra-lance, na Eq. 7).
+     * No modo TIME, estima a duração de uma rodada pela média das rodadas já feitas.
+     */
+    public double nextProgress(int round) {
+        if (mode == Mode.TIME) {
+            long elapsed = elapsedMillis();
+            double averageRound = (double) elapsed / Math.max(1, round - 1);
+            return Math.min(1.0, (elapsed + averageRound) / budgetMillis);
+        }
+        return roundProgress(round + 1, maxRounds);
+    }
+
+    /**
+     * Se não há tempo para mais uma rodada: a resposta a um novo contra-lance chegaria
+     * depois do fim do orçamento. Sempre false no modo ROUNDS.
+     */
+    public boolean isFinalRound(int round) {
+        return mode == Mode.TIME && nextProgress(round) >= 1.0;
+    }
+
+    /**
+     * Se o prazo acabou (rodadas esgotadas ou, no modo TIME, orçamento esgotado).
+     */
+    public boolean isExpired(int round) {
+        return round > maxRounds || (mode == Mode.TIME && elapsedMillis() >= budgetMillis);
+    }
+
+    /**
+     * Progresso da rodada t com prazo t_max: (t-1)/(t_max-1), limitado a [0, 1].
+     */
+    public static double roundProgress(int t, int tMax) {
+        if (t > tMax) t = tMax;
+        if (t <= 0) t = 1;
+        return (tMax <= 1) ? 1.0 : (double) (t - 1) / (tMax - 1);
+    }
+}
@@ -0,0 +1,158 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mas.models.NegotiationResult;
+import mas.models.ShardSummary;
+
+/**
+ * Determinação do vencedor em dois níveis, usada pelos coordenadores hierárquicos.
+ * <p>
+ * Cada sub-coordenador resume seu shard com {@link #summarize}: uma programação dinâmica sobre os
+ * fornecedores cujo estado é a máscara de cobertura dos produtos demandados, guardando a melhor
+ * combinação por máscara. Como a utilidade é aditiva e cada fornecedor pertence a um único shard,
+ * manter só o melhor por máscara não perde o ótimo. A raiz aplica a mesma programação dinâmica em
+ * {@link #merge}, tratando cada shard como um "fornecedor" cujas opções são as entradas do resumo,
+ * de modo que o custo na raiz depende do número de shards e de máscaras, não do número de lances.
+ * <p>
+ * O bit k da máscara é o k-ésimo produto demandado (não a posição do produto no vetor da
+ * demanda, que pode passar de 31 mesmo com poucos produtos, ex: "P40"); por isso a demanda
+ * pode ter no máximo {@link #MAX_DEMANDED_PRODUCTS} produtos (ver {@link #supports}).
+ */
+public final class PartialWinnerDetermination {
+
+    /**
+     * Produtos demandados que cabem na máscara de cobertura (um bit de um int cada).
+     */
+    public static final int MAX_DEMANDED_PRODUCTS = Integer.SIZE - 1;
+
+    private PartialWinnerDetermination() {
+    }
+
+    /**
+     * Resume os resultados de um shard: melhor combinação (no máximo um lance por fornecedor)
+     * para cada máscara de cobertura alcançável, incluindo a máscara vazia.
+     */
+    public static ShardSummary summarize(List<NegotiationResult> results, int[] productDemand) {
+        requireSupported(productDemand);
+        // Agrupa por fornecedor: cada grupo contribui com no máximo uma opção.
+        Map<String, List<NegotiationResult>> bySupplier = new LinkedHashMap<>();
+        for (NegotiationResult result : results) {
+            bySupplier.computeIfAbsent(result.getSupplierName(), k -> new ArrayList<>()).add(result);
+        }
+
+        Map<Integer, ShardSummary.Entry> states = initialStates();
+        for (List<NegotiationResult> group : bySupplier.values()) {
+            Map<Integer, ShardSummary.Entry> next = new HashMap<>(states);
+            for (NegotiationResult result : group) {
+                int mask = coverageMask(result, productDemand);
+                for (Map.Entry<Integer, ShardSummary.Entry> state : states.entrySet()) {
+                    relax(next, state.getKey() | mask, state.getValue(), result.getUtility(), List.of(result));
+                }
+            }
+            states = next;
+        }
+        return new ShardSummary(states, results.size());
+    }
+
+    /**
+     * Combina os resumos dos shards e devolve a combinação ótima que satisfaz a demanda,
+     * ou uma lista vazia quando nenhuma combinação com utilidade positiva a satisfaz
+     * (mesmo critério do {@link WinnerDeterminationService}).
+     */
+    public static List<NegotiationResult> merge(List<ShardSummary> summaries, int[] productDemand) {
+        requireSupported(productDemand);
+        Map<Integer, ShardSummary.Entry> states = initialStates();
+        for (ShardSummary summary : summaries) {
+            Map<Integer, ShardSummary.Entry> next = new HashMap<>(states);
+            for (Map.Entry<Integer, ShardSummary.Entry> option : summary.getEntries().entrySet()) {
+                ShardSummary.Entry entry = option.getValue();
+                for (Map.Entry<Integer, ShardSummary.Entry> state : states.entrySet()) {
+                    relax(next, state.getKey() | option.getKey(), state.getValue(),
+                          entry.getUtility(), entry.getResults());
+                }
+            }
+            states = next;
+        }
+
+        int demandMask = demandMask(productDemand);
+        ShardSummary.Entry best = null;
+        for (Map.Entry<Integer, ShardSummary.Entry> state : states.entrySet()) {
+            if ((state.getKey() & demandMask) == demandMask
+                    && (best == null || state.getValue().getUtility() > best.getUtility())) {
+                best = state.getValue();
+            }
+        }
+        return best == null || best.getUtility() <= 0.0 ? new ArrayList<>() : new ArrayList<>(best.getResults());
+    }
+
+    /**
+     * Se a demanda cabe na máscara de cobertura; do contrário a tarefa deve ser resolvida
+     * sem hierarquia, pelo {@link WinnerDeterminationService}.
+     */
+    public static boolean supports(int[] productDemand) {
+        return demandedProducts(productDemand) <= MAX_DEMANDED_PRODUCTS;
+    }
+
+    private static void requireSupported(int[] productDemand) {
+        int demanded = demandedProducts(productDemand);
+        if (demanded > MAX_DEMANDED_PRODUCTS) {
+            throw new IllegalArgumentException("Coverage masks support at most " + MAX_DEMANDED_PRODUCTS
+                    + " demanded products, got " + demanded);
+        }
+    }
+
+    private static int demandedProducts(int[] productDemand) {
+        int demanded = 0;
+        for (int demand : productDemand) {
+            if (demand == 1) {
+                demanded++;
+            }
+        }
+        return demanded;
+    }
+
+    /**
+     * Máscara dos produtos demandados cobertos pelo pacote do lance (bit k = k-ésimo produto
+     * demandado); produtos fora da demanda são ignorados.
+     */
+    static int coverageMask(NegotiationResult result, int[] productDemand) {
+        int[] products = result.getFinalBid().getProductBundle().getProducts();
+        int mask = 0;
+        int bit = 0;
+        for (int i = 0; i < productDemand.length; i++) {
+            if (productDemand[i] == 1) {
+                if (i < products.length && products[i] == 1) {
+                    mask |= 1 << bit;
+                }
+                bit++;
+            }
+        }
+        return mask;
+    }
+
+    static int demandMask(int[] productDemand) {
+        return (1 << demandedProducts(productDemand)) - 1;
+    }
+
+    private static Map<Integer, ShardSummary.Entry> initialStates() {
+        Map<Integer, ShardSummary.Entry> states = new HashMap<>();
+        states.put(0, new ShardSummary.Entry(0.0, List.of()));
+        return states;
+    }
+
+    private static void relax(Map<Integer, ShardSummary.Entry> states, int mask, ShardSummary.Entry base,
+                              double utility, List<NegotiationResult> added) {
+        double candidate = base.getUtility() + utility;
+        ShardSummary.Entry current = states.get(mask);
+        if (current == null || candidate > current.getUtility()) {
+            List<NegotiationResult> combination = new ArrayList<>(base.getResults());
+            combination.addAll(added);
+            states.put(mask, new ShardSummary.Entry(candidate, combination));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Política de distribuição de agentes entre containers JADE.
+ * <ul>
+ *   <li>{@link Kind#ROUND_ROBIN}: alterna entre os containers, na ordem dada;</li>
+ *   <li>{@link Kind#LEAST_LOADED}: escolhe o container com menor carga (ex: negociações em
+ *       andamento), desempatando pela ordem round-robin.</li>
+ * </ul>
+ * A carga é informada por quem usa a política ({@link #acquire(String)} / {@link #release(String)}).
+ */
+public class PlacementPolicy {
+
+    public enum Kind { ROUND_ROBIN, LEAST_LOADED }
+
+    private final Kind kind;
+    private final List<String> containers;
+    private final Map<String, Integer> load = new HashMap<>();
+    private int next = 0;
+
+    public PlacementPolicy(Kind kind, List<String> containers) {
+        if (containers.isEmpty()) {
+            throw new IllegalArgumentException("At least one container is required");
+        }
+        this.kind = kind;
+        this.containers = new ArrayList<>(containers);
+        for (String container : containers) {
+            load.put(container, 0);
+        }
+    }
+
+    /**
+     * Converte o valor de 'placement.policy' ("round-robin" ou "least-loaded").
+     */
+    public static Kind parse(String value) {
+        return "least-loaded".equalsIgnoreCase(value == null ? "" : value.trim()) ? Kind.LEAST_LOADED : Kind.ROUND_ROBIN;
+    }
+
+    /**
+     * @return O container onde o próximo agente (ou negociação) deve ser colocado.
+     */
+    public synchronized String choose() {
+        int chosen = next % containers.size();
+        if (kind == Kind.LEAST_LOADED) {
+            for (int i = 1; i < containers.size(); i++) {
+                int candidate = (next + i) % containers.size();
+                if (load.get(containers.get(candidate)) < load.get(containers.get(chosen))) {
+                    chosen = candidate;
+                }
+            }
+        }
+        next = chosen + 1;
+        return containers.get(chosen);
+    }
+
+    public synchronized void acquire(String container) {
+        load.computeIfPresent(container, (c, l) -> l + 1);
+    }
+
+    public synchronized void release(String container) {
+        load.computeIfPresent(container, (c, l) -> Math.max(0, l - 1));
+    }
+
+    public synchronized int getLoad(String container) {
+        return load.getOrDefault(container, 0);
+    }
+
+    public List<String> getContainers() {
+        return new ArrayList<>(containers);
+    }
+}
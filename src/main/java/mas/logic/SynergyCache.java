@@ -0,0 +1,165 @@
+package mas.logic;
+
+import mas.metrics.SynergyCacheMetrics;
+import mas.models.ProductBundle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache dos pacotes preferidos calculados pelo SDA, por assinatura canônica da demanda e
+ * versão do {@link SynergyModel}.
+ * <p>
+ * Uma entrada só é servida se foi calculada com a versão atual do modelo. Quando as sinergias
+ * de um produto mudam ({@link #productChanged}), só as entradas cuja demanda contém o produto
+ * são descartadas; as demais não dependem dos pares alterados e passam para a nova versão sem
+ * recálculo. Cada entrada guarda também o conteúdo já serializado da resposta, para que os
+ * acertos não paguem a serialização de novo. A capacidade é limitada por LRU.
+ * <p>
+ * Não é thread-safe: pertence ao comportamento do agente que o usa.
+ */
+public final class SynergyCache {
+
+    // Produtos no padrão "P<n>" seguem a posição no vetor; os demais dependem da ordem da demanda
+    private static final Comparator<String> CANONICAL_ORDER = Comparator
+            .comparingInt((String product) -> ProductBundle.positionOf(product, Integer.MAX_VALUE))
+            .thenComparing(Comparator.naturalOrder());
+
+    private final int maxEntries;
+    private final SynergyCacheMetrics metrics;
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * @param maxEntries Número máximo de demandas guardadas (as menos usadas saem primeiro).
+     */
+    public SynergyCache(int maxEntries, SynergyCacheMetrics metrics) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * A demanda em forma canônica: sem repetições e, se todos os produtos seguem o padrão
+     * "P&lt;n&gt;" (posição no vetor independente da ordem), ordenada pela posição. Demandas
+     * com outros nomes mantêm a ordem, que define o vetor dos pacotes.
+     */
+    public static List<String> canonical(Collection<String> products) {
+        List<String> canonical = new ArrayList<>(new LinkedHashSet<>(products));
+        for (String product : canonical) {
+            if (ProductBundle.positionOf(product, -1) < 0) {
+                return canonical;
+            }
+        }
+        canonical.sort(CANONICAL_ORDER);
+        return canonical;
+    }
+
+    /**
+     * Chave do cache de uma demanda já canônica.
+     */
+    public static String signature(List<String> canonical) {
+        return String.join(",", canonical);
+    }
+
+    /**
+     * A entrada da demanda, se calculada com a versão informada do modelo; registra acerto ou falta.
+     */
+    public Entry get(String signature, long version) {
+        Entry entry = entries.get(signature);
+        if (entry != null && entry.version != version) {
+            entries.remove(signature); // Calculada com outro modelo (ex: trocado por inteiro)
+            metrics.size(entries.size());
+            entry = null;
+        }
+        if (entry == null) {
+            metrics.miss();
+            return null;
+        }
+        metrics.hit();
+        return entry;
+    }
+
+    /**
+     * Guarda os pacotes de uma demanda calculados com a versão informada do modelo.
+     *
+     * @param serialized O conteúdo da resposta já serializado.
+     */
+    public Entry put(List<String> canonical, long version, List<ProductBundle> bundles, byte[] serialized) {
+        Entry entry = new Entry(canonical, version, bundles, serialized);
+        entries.put(signature(canonical), entry);
+        if (entries.size() > maxEntries) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            eldest.next();
+            eldest.remove();
+            metrics.evicted();
+        }
+        metrics.size(entries.size());
+        return entry;
+    }
+
+    /**
+     * Atualiza o cache para a nova versão do modelo, em que só mudaram as sinergias do produto:
+     * descarta as entradas que o contêm e mantém as demais.
+     *
+     * @return Quantas entradas foram descartadas.
+     */
+    public int productChanged(String product, long version) {
+        int invalidated = 0;
+        int carried = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.products.contains(product)) {
+                it.remove();
+                invalidated++;
+            } else {
+                entry.version = version;
+                carried++;
+            }
+        }
+        metrics.modelChanged(version, invalidated, carried);
+        metrics.size(entries.size());
+        return invalidated;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Pacotes de uma demanda, calculados com uma versão do modelo.
+     */
+    public static final class Entry {
+        private final Set<String> products;
+        private final List<ProductBundle> bundles;
+        private final byte[] serialized;
+        private long version;
+
+        private Entry(List<String> products, long version, List<ProductBundle> bundles, byte[] serialized) {
+            this.products = new LinkedHashSet<>(products);
+            this.version = version;
+            this.bundles = Collections.unmodifiableList(new ArrayList<>(bundles));
+            this.serialized = serialized;
+        }
+
+        public List<ProductBundle> getBundles() { return bundles; }
+
+        /**
+         * O conteúdo serializado da resposta; não deve ser alterado.
+         */
+        public byte[] getSerialized() { return serialized; }
+
+        public long getVersion() { return version; }
+    }
+}
@@ -0,0 +1,90 @@
+package mas.logic;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Modelo de sinergia entre produtos, usado pelo SDA para ordenar os pacotes candidatos.
+ * <p>
+ * A sinergia de um pacote é a soma das sinergias dos seus pares de produtos: positiva para
+ * produtos complementares (vale mais comprá-los juntos), negativa para substitutos. Pares sem
+ * valor próprio ('synergy.pair.&lt;A&gt;.&lt;B&gt;') usam 'synergy.default'.
+ * <p>
+ * O modelo é imutável: {@link #withProduct} devolve um novo modelo com a versão seguinte, que
+ * identifica os resultados calculados com ele (ex: o cache de pacotes do SDA).
+ */
+public final class SynergyModel {
+
+    private static final String PAIR_PREFIX = "synergy.pair.";
+
+    private final double defaultSynergy;
+    private final Map<String, Map<String, Double>> pairs; // Produto -> (outro produto -> sinergia), simétrico
+    private final long version;
+
+    public SynergyModel(double defaultSynergy, Map<String, Map<String, Double>> pairs) {
+        this(defaultSynergy, pairs, 0);
+    }
+
+    private SynergyModel(double defaultSynergy, Map<String, Map<String, Double>> pairs, long version) {
+        this.defaultSynergy = defaultSynergy;
+        this.pairs = pairs;
+        this.version = version;
+    }
+
+    public static SynergyModel fromConfig() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        Map<String, Map<String, Double>> pairs = new HashMap<>();
+        for (String key : config.getKeys(PAIR_PREFIX)) {
+            String[] products = key.substring(PAIR_PREFIX.length()).split("\\.");
+            if (products.length != 2 || products[0].equals(products[1])) {
+                throw new IllegalArgumentException("Invalid synergy pair key (" + PAIR_PREFIX + "<A>.<B>): " + key);
+            }
+            double value = config.getDouble(key);
+            pairs.computeIfAbsent(products[0], p -> new HashMap<>()).put(products[1], value);
+            pairs.computeIfAbsent(products[1], p -> new HashMap<>()).put(products[0], value);
+        }
+        return new SynergyModel(config.getDouble("synergy.default"), pairs);
+    }
+
+    /**
+     * Sinergia do par de produtos (a mesma nas duas ordens).
+     */
+    public double synergy(String a, String b) {
+        return pairs.getOrDefault(a, Collections.emptyMap()).getOrDefault(b, defaultSynergy);
+    }
+
+    /**
+     * Novo modelo (versão seguinte) com as sinergias informadas do produto com outros produtos.
+     * Os pares não informados mantêm o valor atual; só os mapas dos produtos envolvidos são copiados.
+     *
+     * @param synergies Outro produto -> nova sinergia do par.
+     */
+    public SynergyModel withProduct(String product, Map<String, Double> synergies) {
+        Map<String, Map<String, Double>> updated = new HashMap<>(pairs);
+        Map<String, Double> own = new HashMap<>(pairs.getOrDefault(product, Collections.emptyMap()));
+        for (Map.Entry<String, Double> pair : synergies.entrySet()) {
+            String other = pair.getKey();
+            if (other.equals(product)) {
+                throw new IllegalArgumentException("A product has no synergy with itself: " + product);
+            }
+            own.put(other, pair.getValue());
+            Map<String, Double> reverse = new HashMap<>(updated.getOrDefault(other, Collections.emptyMap()));
+            reverse.put(product, pair.getValue());
+            updated.put(other, reverse);
+        }
+        updated.put(product, own);
+        return new SynergyModel(defaultSynergy, updated, version + 1);
+    }
+
+    public double getDefaultSynergy() {
+        return defaultSynergy;
+    }
+
+    /**
+     * Versão do modelo: 0 para o da configuração, incrementada a cada {@link #withProduct}.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import mas.metrics.WinnerDeterminationMetrics;
 import mas.models.NegotiationResult;
 
 public class WinnerDeterminationService {
@@ -13,6 +14,8 @@ public class WinnerDeterminationService {
     private List<NegotiationResult> bestCombination;
     private double maxUtility;
     private int[] productDemand;
+    private long nodesExpanded; // Nós visitados na execução atual (reportados ao final, via JMX)
+    private final WinnerDeterminationMetrics metrics = WinnerDeterminationMetrics.getInstance();
 
     /**
      * Resolve o Problema de Determinação do Vencedor (WDP) usando Branch-and-Bound.
@@ -25,6 +28,8 @@ public class WinnerDeterminationService {
         this.bestCombination = new ArrayList<>();
         this.maxUtility = 0.0;
         this.productDemand = productDemand;
+        this.nodesExpanded = 0;
+        long start = System.nanoTime();
 
         // Pré-processamento: Ordenar os lances por utilidade decrescente.
         results.sort(Comparator.comparingDouble(NegotiationResult::getUtility).reversed());
@@ -32,6 +37,7 @@ public class WinnerDeterminationService {
         // Inicia a busca recursiva a partir do primeiro lance (índice 0)
         branchAndBoundRecursive(results, 0, new ArrayList<>(), 0.0, new HashSet<>());
 
+        metrics.recordSolve(nodesExpanded, System.nanoTime() - start);
         return this.bestCombination;
     }
 
@@ -46,6 +52,7 @@ public class WinnerDeterminationService {
     private void branchAndBoundRecursive(List<NegotiationResult> allResults, int index,
                                          List<NegotiationResult> currentCombination, double currentUtility,
                                          Set<String> usedSuppliers) {
+        nodesExpanded++;
 
         // --- PODA (PRUNING) ---
         // Calcula o limite superior (upper bound) para este caminho.
@@ -103,7 +110,8 @@ public class WinnerDeterminationService {
         int[] coveredDemand = new int[this.productDemand.length];
         for (NegotiationResult result : combination) {
             int[] productsInBundle = result.getFinalBid().getProductBundle().getProducts();
-            for (int i = 0; i < productsInBundle.length; i++) {
+            // Produtos do pacote fora da demanda (além do fim do vetor) não contam
+            for (int i = 0; i < productsInBundle.length && i < coveredDemand.length; i++) {
                 if (productsInBundle[i] == 1) {
                     coveredDemand[i] = 1;
                 }
@@ -0,0 +1,80 @@
+package mas.metrics;
+
+import mas.logic.ConfigLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registro das MBeans do sistema no MBeanServer da plataforma (domínio "mas").
+ * Desabilitado por 'metrics.jmx.enabled=false': os contadores continuam funcionando,
+ * apenas não são expostos via JMX.
+ */
+final class JmxRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(JmxRegistry.class);
+
+    static final String DOMAIN = "mas";
+
+    private JmxRegistry() {
+    }
+
+    static boolean isEnabled() {
+        String flag = ConfigLoader.getInstance().getString("metrics.jmx.enabled");
+        return flag == null || Boolean.parseBoolean(flag.trim());
+    }
+
+    static ObjectName nameFor(String type, String name) {
+        try {
+            String base = DOMAIN + ":type=" + type;
+            if (name == null) {
+                return new ObjectName(base);
+            }
+            try {
+                return new ObjectName(base + ",name=" + name);
+            } catch (MalformedObjectNameException e) {
+                return new ObjectName(base + ",name=" + ObjectName.quote(name));
+            }
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid MBean name for " + type + "/" + name, e);
+        }
+    }
+
+    /**
+     * Registra a MBean, substituindo uma registrada anteriormente com o mesmo nome
+     * (ex: agente recriado com o mesmo nome local).
+     */
+    static void register(ObjectName objectName, Object mbean) {
+        if (!isEnabled()) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+            logger.debug("JMX: Registered {}", objectName);
+        } catch (JMException e) {
+            logger.warn("JMX: Failed to register {}", objectName, e);
+        }
+    }
+
+    static void unregister(ObjectName objectName) {
+        if (!isEnabled()) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("JMX: Failed to unregister {}", objectName, e);
+        }
+    }
+}
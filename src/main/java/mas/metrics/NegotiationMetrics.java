@@ -0,0 +1,245 @@
+package mas.metrics;
+
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de negociação de um agente (Buyer, Seller ou Coordinator), expostas via JMX
+ * como "mas:type=&lt;tipo&gt;,name=&lt;nome local&gt;".
+ * <p>
+ * Todas as atualizações usam contadores listrados/sem lock ({@link LongAdder},
+ * {@link LongAccumulator}, {@link DoubleAccumulator}): no caminho crítico da negociação
+ * cada registro é um incremento sem contenção; a agregação só é feita quando o
+ * JConsole (ou outro cliente JMX) lê o atributo.
+ */
+public class NegotiationMetrics implements NegotiationMetricsMBean {
+
+    public static final int UTILITY_BUCKETS = 10;
+
+    /**
+     * Como uma negociação terminou.
+     */
+    public enum Outcome {
+        COMPLETED, // Ao menos um lance acordado
+        FAILED,    // Sem acordo (deadline, rejeição ou erro)
+        TIMED_OUT, // Contraparte não respondeu
+        CANCELLED  // Cancelada pelo Coordenador (não poderia melhorar a solução)
+    }
+
+    private final ObjectName objectName;
+
+    private final LongAdder active = new LongAdder();
+    private final LongAccumulator activePeak = new LongAccumulator(Math::max, 0);
+    private volatile long windowStartNanos = System.nanoTime();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder roundsTotal = new LongAdder();
+    private final LongAdder roundsSamples = new LongAdder();
+    private final LongAccumulator roundsMax = new LongAccumulator(Math::max, 0);
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final DoubleAccumulator utilitySum = new DoubleAccumulator(Double::sum, 0.0);
+    private final LongAdder utilitySamples = new LongAdder();
+    private final DoubleAccumulator utilityMin = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private final DoubleAccumulator utilityMax = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    private final LongAdder[] utilityHistogram = new LongAdder[UTILITY_BUCKETS];
+
+    private NegotiationMetrics(ObjectName objectName) {
+        this.objectName = objectName;
+        for (int i = 0; i < UTILITY_BUCKETS; i++) {
+            utilityHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Cria as métricas de um agente e as registra no MBeanServer da plataforma.
+     *
+     * @param type Tipo do agente (ex: "BuyerAgent").
+     * @param name Nome local do agente.
+     */
+    public static NegotiationMetrics register(String type, String name) {
+        NegotiationMetrics metrics = new NegotiationMetrics(JmxRegistry.nameFor(type, name));
+        JmxRegistry.register(metrics.objectName, metrics);
+        return metrics;
+    }
+
+    /**
+     * Remove a MBean do MBeanServer (chamado no takeDown do agente).
+     */
+    public void unregister() {
+        JmxRegistry.unregister(objectName);
+    }
+
+    // --- Registro (caminho crítico) ---
+
+    public void negotiationStarted() {
+        active.increment();
+        activePeak.accumulate(active.sum());
+    }
+
+    /**
+     * @param rounds Rodadas da negociação; valores &lt;= 0 não entram na média de rodadas.
+     */
+    public void negotiationEnded(Outcome outcome, int rounds) {
+        active.decrement();
+        switch (outcome) {
+            case COMPLETED:
+                completed.increment();
+                break;
+            case TIMED_OUT:
+                timedOut.increment();
+                break;
+            case CANCELLED:
+                cancelled.increment();
+                break;
+            default:
+                failed.increment();
+                break;
+        }
+        if (rounds > 0) {
+            roundsTotal.add(rounds);
+            roundsSamples.increment();
+            roundsMax.accumulate(rounds);
+        }
+    }
+
+    public void messageSent() {
+        messagesSent.increment();
+    }
+
+    public void messageReceived() {
+        messagesReceived.increment();
+    }
+
+    public void recordUtility(double utility) {
+        if (Double.isNaN(utility)) {
+            return;
+        }
+        utilitySum.accumulate(utility);
+        utilitySamples.increment();
+        utilityMin.accumulate(utility);
+        utilityMax.accumulate(utility);
+        int bucket = (int) (utility * UTILITY_BUCKETS);
+        utilityHistogram[Math.max(0, Math.min(UTILITY_BUCKETS - 1, bucket))].increment();
+    }
+
+    // --- Atributos JMX ---
+
+    @Override
+    public long getActiveNegotiations() {
+        return active.sum();
+    }
+
+    @Override
+    public long getPeakActiveNegotiations() {
+        return activePeak.get();
+    }
+
+    @Override
+    public double getNegotiationsPerSecond() {
+        double seconds = (System.nanoTime() - windowStartNanos) / 1_000_000_000.0;
+        long ended = completed.sum() + failed.sum() + timedOut.sum() + cancelled.sum();
+        return seconds <= 0 ? 0.0 : ended / seconds;
+    }
+
+    @Override
+    public long getCompletedNegotiations() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getFailedNegotiations() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getTimedOutNegotiations() {
+        return timedOut.sum();
+    }
+
+    @Override
+    public long getCancelledNegotiations() {
+        return cancelled.sum();
+    }
+
+    @Override
+    public double getMeanRoundsPerNegotiation() {
+        long samples = roundsSamples.sum();
+        return samples == 0 ? 0.0 : (double) roundsTotal.sum() / samples;
+    }
+
+    @Override
+    public long getMaxRoundsPerNegotiation() {
+        return roundsMax.get();
+    }
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    @Override
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    @Override
+    public long getUtilitySamples() {
+        return utilitySamples.sum();
+    }
+
+    @Override
+    public double getMeanUtility() {
+        long samples = utilitySamples.sum();
+        return samples == 0 ? 0.0 : utilitySum.get() / samples;
+    }
+
+    @Override
+    public double getMinUtility() {
+        return utilitySamples.sum() == 0 ? 0.0 : utilityMin.get();
+    }
+
+    @Override
+    public double getMaxUtility() {
+        return utilitySamples.sum() == 0 ? 0.0 : utilityMax.get();
+    }
+
+    @Override
+    public long[] getUtilityHistogram() {
+        long[] histogram = new long[UTILITY_BUCKETS];
+        for (int i = 0; i < UTILITY_BUCKETS; i++) {
+            histogram[i] = utilityHistogram[i].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * Zera os contadores acumulados. Negociações ativas não são afetadas.
+     */
+    @Override
+    public void reset() {
+        windowStartNanos = System.nanoTime();
+        activePeak.reset();
+        activePeak.accumulate(active.sum());
+        completed.reset();
+        failed.reset();
+        timedOut.reset();
+        cancelled.reset();
+        roundsTotal.reset();
+        roundsSamples.reset();
+        roundsMax.reset();
+        messagesSent.reset();
+        messagesReceived.reset();
+        utilitySum.reset();
+        utilitySamples.reset();
+        utilityMin.reset();
+        utilityMax.reset();
+        for (LongAdder bucket : utilityHistogram) {
+            bucket.reset();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package mas.metrics;
+
+/**
+ * Interface de gerenciamento (JMX) das métricas de negociação de um agente.
+ * Visível no JConsole/VisualVM sob o domínio "mas".
+ */
+public interface NegotiationMetricsMBean {
+
+    long getActiveNegotiations();
+
+    long getPeakActiveNegotiations();
+
+    /**
+     * Negociações encerradas por segundo desde a criação (ou o último reset) das métricas.
+     */
+    double getNegotiationsPerSecond();
+
+    long getCompletedNegotiations();
+
+    long getFailedNegotiations();
+
+    long getTimedOutNegotiations();
+
+    long getCancelledNegotiations();
+
+    double getMeanRoundsPerNegotiation();
+
+    long getMaxRoundsPerNegotiation();
+
+    long getMessagesSent();
+
+    long getMessagesReceived();
+
+    long getUtilitySamples();
+
+    double getMeanUtility();
+
+    double getMinUtility();
+
+    double getMaxUtility();
+
+    /**
+     * Distribuição das utilidades em {@link NegotiationMetrics#UTILITY_BUCKETS} faixas iguais de [0, 1].
+     */
+    long[] getUtilityHistogram();
+
+    void reset();
+}
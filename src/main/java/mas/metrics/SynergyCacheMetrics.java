@@ -0,0 +1,137 @@
+package mas.metrics;
+
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas do cache de pacotes de um SDA, expostas via JMX como "mas:type=SynergyCache,name=&lt;nome local&gt;".
+ * <p>
+ * Os contadores são atualizados pelo agente dono do cache e lidos pelo cliente JMX em outra thread;
+ * o tamanho e a versão do modelo são medidas instantâneas publicadas pelo próprio cache.
+ */
+public class SynergyCacheMetrics implements SynergyCacheMetricsMBean {
+
+    private final ObjectName objectName;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder carriedOver = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long entries;
+    private volatile long modelVersion;
+
+    private SynergyCacheMetrics(ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    /**
+     * Métricas que não são registradas no MBeanServer (ex: testes e caches sem agente).
+     */
+    public static SynergyCacheMetrics detached() {
+        return new SynergyCacheMetrics(null);
+    }
+
+    /**
+     * Cria as métricas do cache de um SDA e as registra no MBeanServer da plataforma.
+     *
+     * @param name Nome local do agente.
+     */
+    public static SynergyCacheMetrics register(String name) {
+        SynergyCacheMetrics metrics = new SynergyCacheMetrics(JmxRegistry.nameFor("SynergyCache", name));
+        JmxRegistry.register(metrics.objectName, metrics);
+        return metrics;
+    }
+
+    /**
+     * Remove a MBean do MBeanServer (chamado no takeDown do agente).
+     */
+    public void unregister() {
+        if (objectName != null) {
+            JmxRegistry.unregister(objectName);
+        }
+    }
+
+    // --- Registro ---
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Uma mudança de modelo: quantas entradas foram descartadas e quantas seguiram válidas.
+     */
+    public void modelChanged(long version, int invalidated, int carried) {
+        modelVersion = version;
+        invalidations.add(invalidated);
+        carriedOver.add(carried);
+    }
+
+    public void evicted() {
+        evictions.increment();
+    }
+
+    public void size(int size) {
+        entries = size;
+    }
+
+    // --- Atributos JMX ---
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public long getCarriedOver() {
+        return carriedOver.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getEntries() {
+        return entries;
+    }
+
+    @Override
+    public long getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Zera os contadores acumulados. O conteúdo do cache não é afetado.
+     */
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        invalidations.reset();
+        carriedOver.reset();
+        evictions.reset();
+    }
+}
@@ -0,0 +1,35 @@
+package mas.metrics;
+
+/**
+ * Interface de gerenciamento (JMX) das métricas do cache de pacotes do SDA.
+ * Visível no JConsole/VisualVM sob o domínio "mas".
+ */
+public interface SynergyCacheMetricsMBean {
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Fração dos pedidos atendidos pelo cache desde a criação (ou o último reset) das métricas.
+     */
+    double getHitRatio();
+
+    /**
+     * Entradas descartadas por envolverem um produto cujas sinergias mudaram.
+     */
+    long getInvalidations();
+
+    /**
+     * Entradas mantidas numa mudança de modelo, por não envolverem o produto alterado.
+     */
+    long getCarriedOver();
+
+    long getEvictions();
+
+    long getEntries();
+
+    long getModelVersion();
+
+    void reset();
+}
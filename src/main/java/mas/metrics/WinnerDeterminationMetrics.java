@@ -0,0 +1,93 @@
+package mas.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas agregadas de todas as instâncias do WinnerDeterminationService da JVM,
+ * expostas via JMX como "mas:type=WinnerDetermination".
+ * Registrada uma única vez, no primeiro uso.
+ */
+public class WinnerDeterminationMetrics implements WinnerDeterminationMetricsMBean {
+
+    private static volatile WinnerDeterminationMetrics instance;
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder solveNanosTotal = new LongAdder();
+    private final LongAccumulator solveNanosMax = new LongAccumulator(Math::max, 0);
+    private volatile long lastSolveNanos;
+    private volatile long lastNodesExpanded;
+
+    private WinnerDeterminationMetrics() {
+    }
+
+    public static WinnerDeterminationMetrics getInstance() {
+        if (instance == null) {
+            synchronized (WinnerDeterminationMetrics.class) {
+                if (instance == null) {
+                    WinnerDeterminationMetrics metrics = new WinnerDeterminationMetrics();
+                    JmxRegistry.register(JmxRegistry.nameFor("WinnerDetermination", null), metrics);
+                    instance = metrics;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Registra uma execução do solver.
+     *
+     * @param nodes      Nós da árvore de Branch-and-Bound expandidos nesta execução.
+     * @param solveNanos Tempo de execução, em nanossegundos.
+     */
+    public void recordSolve(long nodes, long solveNanos) {
+        solves.increment();
+        nodesExpanded.add(nodes);
+        solveNanosTotal.add(solveNanos);
+        solveNanosMax.accumulate(solveNanos);
+        lastNodesExpanded = nodes;
+        lastSolveNanos = solveNanos;
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    @Override
+    public long getLastNodesExpanded() {
+        return lastNodesExpanded;
+    }
+
+    @Override
+    public double getMeanSolveTimeMillis() {
+        long count = solves.sum();
+        return count == 0 ? 0.0 : solveNanosTotal.sum() / (count * 1_000_000.0);
+    }
+
+    @Override
+    public double getMaxSolveTimeMillis() {
+        return solveNanosMax.get() / 1_000_000.0;
+    }
+
+    @Override
+    public double getLastSolveTimeMillis() {
+        return lastSolveNanos / 1_000_000.0;
+    }
+
+    @Override
+    public void reset() {
+        solves.reset();
+        nodesExpanded.reset();
+        solveNanosTotal.reset();
+        solveNanosMax.reset();
+        lastSolveNanos = 0;
+        lastNodesExpanded = 0;
+    }
+}
@@ -0,0 +1,21 @@
+package mas.metrics;
+
+/**
+ * Interface de gerenciamento (JMX) das métricas do WinnerDeterminationService.
+ */
+public interface WinnerDeterminationMetricsMBean {
+
+    long getSolveCount();
+
+    long getNodesExpanded();
+
+    long getLastNodesExpanded();
+
+    double getMeanSolveTimeMillis();
+
+    double getMaxSolveTimeMillis();
+
+    double getLastSolveTimeMillis();
+
+    void reset();
+}
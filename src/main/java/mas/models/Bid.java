@@ -2,6 +2,7 @@ package mas.models;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,7 +19,7 @@ public class Bid implements Serializable {
 
     public Bid(ProductBundle productBundle, List<NegotiationIssue> issues, int[] quantities) {
         this.productBundle = productBundle;
-        this.issues = issues;
+        this.issues = issues == null ? null : Collections.unmodifiableList(issues);
         this.quantities = quantities;
     }
 
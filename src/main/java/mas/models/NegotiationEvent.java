@@ -0,0 +1,138 @@
+package mas.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Evento publicado pelo CoordinatorAgent para consumidores externos (ERP, dashboards).
+ * Cada evento tem um tipo; os demais campos são preenchidos conforme o tipo:
+ * <ul>
+ *   <li>NEGOTIATION_STARTED / NEGOTIATION_FINISHED: supplierName (e resultCount no fim).</li>
+ *   <li>RESULT: supplierName e result (um lance acordado).</li>
+ *   <li>BEST_SO_FAR / FINAL_SOLUTION: solution e totalUtility da WDP.</li>
+ *   <li>PHASE_COMPLETED: phase e durationNanos (publicado antes do FINAL_SOLUTION).</li>
+ * </ul>
+ * Todos os eventos trazem o taskId da tarefa do Coordenador a que se referem (null se publicados
+ * fora de uma tarefa), já que o Coordenador pode conduzir várias tarefas ao mesmo tempo.
+ */
+public class NegotiationEvent {
+
+    public enum Type {
+        NEGOTIATION_STARTED,
+        NEGOTIATION_FINISHED,
+        RESULT,
+        BEST_SO_FAR,
+        FINAL_SOLUTION,
+        PHASE_COMPLETED
+    }
+
+    /**
+     * Fases de uma tarefa no Coordenador, na ordem em que ocorrem.
+     */
+    public enum Phase {
+        BUNDLE_REQUEST, // Pedido dos pacotes preferidos ao SDA
+        DISCOVERY,      // Busca dos vendedores no DF
+        NEGOTIATIONS,   // Da primeira admissão ao último relatório (ou resumo de shard)
+        WDP             // Determinação dos vencedores
+    }
+
+    private final Type type;
+    private final String supplierName;
+    private final NegotiationResult result;
+    private final int resultCount;
+    private final List<NegotiationResult> solution;
+    private final double totalUtility;
+    private final Phase phase;
+    private final long durationNanos;
+    private final long timestamp;
+    private final String taskId;
+
+    private NegotiationEvent(Type type, String supplierName, NegotiationResult result, int resultCount,
+                             List<NegotiationResult> solution, double totalUtility) {
+        this(type, supplierName, result, resultCount, solution, totalUtility, null, 0L);
+    }
+
+    private NegotiationEvent(Type type, String supplierName, NegotiationResult result, int resultCount,
+                             List<NegotiationResult> solution, double totalUtility, Phase phase, long durationNanos) {
+        this.type = type;
+        this.supplierName = supplierName;
+        this.result = result;
+        this.resultCount = resultCount;
+        this.solution = solution;
+        this.totalUtility = totalUtility;
+        this.phase = phase;
+        this.durationNanos = durationNanos;
+        this.timestamp = System.currentTimeMillis();
+        this.taskId = null;
+    }
+
+    private NegotiationEvent(NegotiationEvent event, String taskId) {
+        this.type = event.type;
+        this.supplierName = event.supplierName;
+        this.result = event.result;
+        this.resultCount = event.resultCount;
+        this.solution = event.solution;
+        this.totalUtility = event.totalUtility;
+        this.phase = event.phase;
+        this.durationNanos = event.durationNanos;
+        this.timestamp = event.timestamp;
+        this.taskId = taskId;
+    }
+
+    public static NegotiationEvent started(String supplierName) {
+        return new NegotiationEvent(Type.NEGOTIATION_STARTED, supplierName, null, 0, Collections.emptyList(), 0.0);
+    }
+
+    public static NegotiationEvent finished(String supplierName, int resultCount) {
+        return new NegotiationEvent(Type.NEGOTIATION_FINISHED, supplierName, null, resultCount, Collections.emptyList(), 0.0);
+    }
+
+    public static NegotiationEvent result(NegotiationResult result) {
+        return new NegotiationEvent(Type.RESULT, result.getSupplierName(), result, 1, Collections.emptyList(), result.getUtility());
+    }
+
+    public static NegotiationEvent solution(Type type, List<NegotiationResult> solution) {
+        double total = 0.0;
+        for (NegotiationResult res : solution) {
+            total += res.getUtility();
+        }
+        return new NegotiationEvent(type, null, null, solution.size(), Collections.unmodifiableList(solution), total);
+    }
+
+    public static NegotiationEvent phaseCompleted(Phase phase, long durationNanos) {
+        return new NegotiationEvent(Type.PHASE_COMPLETED, null, null, 0, Collections.emptyList(), 0.0, phase, durationNanos);
+    }
+
+    /**
+     * Uma cópia do evento associada à tarefa {@code taskId}.
+     */
+    public NegotiationEvent withTask(String taskId) {
+        return new NegotiationEvent(this, taskId);
+    }
+
+    public Type getType() { return type; }
+    public String getSupplierName() { return supplierName; }
+    public NegotiationResult getResult() { return result; }
+    public int getResultCount() { return resultCount; }
+    public List<NegotiationResult> getSolution() { return solution; }
+    public double getTotalUtility() { return totalUtility; }
+    public Phase getPhase() { return phase; }
+    public long getDurationNanos() { return durationNanos; }
+    public long getTimestamp() { return timestamp; }
+    public String getTaskId() { return taskId; }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case RESULT:
+                return String.format("%s %s", type, result);
+            case BEST_SO_FAR:
+            case FINAL_SOLUTION:
+                return String.format("%s (%d bid(s), Utility: %.3f)", type, resultCount, totalUtility);
+            case PHASE_COMPLETED:
+                return String.format("%s %s in %.3f ms", type, phase, durationNanos / 1_000_000.0);
+            default:
+                return String.format("%s %s", type, supplierName);
+        }
+    }
+}
@@ -18,10 +18,60 @@ public class ProductBundle implements Serializable {
         this.products = products;
     }
 
+    /**
+     * Cria um pacote a partir da sua representação textual (ex: "1100" = P1+P2).
+     */
+    public static ProductBundle parse(String mask) {
+        String trimmed = mask.trim();
+        int[] products = new int[trimmed.length()];
+        for (int i = 0; i < products.length; i++) {
+            char c = trimmed.charAt(i);
+            if (c != '0' && c != '1') {
+                throw new IllegalArgumentException("Invalid product bundle mask: " + mask);
+            }
+            products[i] = c - '0';
+        }
+        return new ProductBundle(products);
+    }
+
+    /**
+     * Posição do produto no vetor dos pacotes e da demanda: "P&lt;n&gt;" ocupa a posição n-1
+     * (ex: P3 -> 2); nomes fora desse padrão ocupam a posição {@code order} em que aparecem.
+     */
+    public static int positionOf(String product, int order) {
+        if (product.startsWith("P")) {
+            try {
+                int position = Integer.parseInt(product.substring(1)) - 1;
+                if (position >= 0) {
+                    return position;
+                }
+            } catch (NumberFormatException e) {
+                // Nome fora do padrão: usa a ordem
+            }
+        }
+        return order;
+    }
+
     public int[] getProducts() {
         return products;
     }
 
+    /**
+     * Dois pacotes são iguais se contêm os mesmos produtos. Permite identificar
+     * o mesmo lance (pelo seu pacote) ao longo das rodadas de negociação.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProductBundle)) return false;
+        return Arrays.equals(products, ((ProductBundle) o).products);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(products);
+    }
+
     @Override
     public String toString() {
         return "Bundle" + Arrays.toString(products);
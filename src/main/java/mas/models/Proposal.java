@@ -1,6 +1,7 @@
 package mas.models;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,7 +14,7 @@ public class Proposal implements Serializable {
     private final List<Bid> bids;
 
     public Proposal(List<Bid> bids) {
-        this.bids = bids;
+        this.bids = bids == null ? null : Collections.unmodifiableList(bids);
     }
 
     public List<Bid> getBids() {
@@ -0,0 +1,40 @@
+package mas.models;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import jade.core.AID;
+
+/**
+ * Atribuição de um shard de vendedores a um sub-coordenador, junto com a demanda da tarefa
+ * que a raiz recebeu do TDA e os pacotes que esses vendedores anunciam no DF (o
+ * sub-coordenador não participa da fase de preparação).
+ */
+public class ShardAssignment implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<AID> sellers;
+    private final List<String> requiredProducts;
+    private final int[] productDemand;
+    private final Map<String, List<ProductBundle>> catalogs; // Nome do vendedor -> pacotes anunciados
+
+    public ShardAssignment(List<AID> sellers, List<String> requiredProducts, int[] productDemand,
+                           Map<String, List<ProductBundle>> catalogs) {
+        this.sellers = Collections.unmodifiableList(sellers);
+        this.requiredProducts = Collections.unmodifiableList(requiredProducts);
+        this.productDemand = productDemand;
+        this.catalogs = Collections.unmodifiableMap(catalogs);
+    }
+
+    public List<AID> getSellers() { return sellers; }
+    public List<String> getRequiredProducts() { return requiredProducts; }
+    public int[] getProductDemand() { return productDemand; }
+    public Map<String, List<ProductBundle>> getCatalogs() { return catalogs; }
+
+    @Override
+    public String toString() {
+        return String.format("ShardAssignment (%d sellers)", sellers.size());
+    }
+}
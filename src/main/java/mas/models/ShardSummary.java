@@ -0,0 +1,49 @@
+package mas.models;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumo compacto de um shard de vendedores, enviado por um sub-coordenador ao coordenador raiz.
+ * Para cada máscara de cobertura (bits dos produtos demandados que a combinação cobre) guarda
+ * apenas a melhor combinação de lances do shard, o que basta para a raiz reconstruir o ótimo global.
+ */
+public class ShardSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Integer, Entry> entries; // máscara de cobertura -> melhor combinação
+    private final int negotiatedResults; // Quantidade de resultados bem-sucedidos que originaram o resumo
+
+    public ShardSummary(Map<Integer, Entry> entries, int negotiatedResults) {
+        this.entries = Collections.unmodifiableMap(entries);
+        this.negotiatedResults = negotiatedResults;
+    }
+
+    public Map<Integer, Entry> getEntries() { return entries; }
+    public int getNegotiatedResults() { return negotiatedResults; }
+
+    @Override
+    public String toString() {
+        return String.format("ShardSummary (%d masks from %d results)", entries.size(), negotiatedResults);
+    }
+
+    /**
+     * Melhor combinação de lances encontrada para uma máscara de cobertura.
+     */
+    public static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final double utility;
+        private final List<NegotiationResult> results;
+
+        public Entry(double utility, List<NegotiationResult> results) {
+            this.utility = utility;
+            this.results = Collections.unmodifiableList(results);
+        }
+
+        public double getUtility() { return utility; }
+        public List<NegotiationResult> getResults() { return results; }
+    }
+}
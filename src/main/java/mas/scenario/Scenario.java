@@ -0,0 +1,158 @@
+package mas.scenario;
+
+import mas.logic.ConfigLoader;
+import mas.models.ProductBundle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Um cenário de execução em lote, lido de um arquivo no formato do config.properties.
+ * <p>
+ * As chaves 'scenario.*' descrevem a execução:
+ * <ul>
+ *   <li>'scenario.sellers': nomes dos SellerAgents (ex: "s1,s2,s3");</li>
+ *   <li>'scenario.task.&lt;n&gt;': a demanda de cada tarefa (ex: "P1,P2"), executadas em ordem de n;</li>
+ *   <li>'scenario.output' e 'scenario.taskTimeoutMillis': opcionais, com padrão no config.properties.</li>
+ * </ul>
+ * Todas as demais chaves sobrepõem as do config.properties: o perfil do comprador ('buyer.*',
+ * 'weights.*', 'params.*'), as preferências comuns dos vendedores ('seller.*') e as de cada
+ * vendedor ('seller.&lt;nome&gt;.catalog', 'seller.&lt;nome&gt;.gamma', 'seller.&lt;nome&gt;.weights.price', ...).
+ */
+public final class Scenario {
+
+    private static final String PREFIX = "scenario.";
+    private static final String TASK_PREFIX = PREFIX + "task.";
+
+    private final List<String> sellers;
+    private final List<List<String>> tasks;
+    private final Properties overrides;
+    private final Path output;
+    private final long taskTimeoutMillis;
+
+    private Scenario(List<String> sellers, List<List<String>> tasks, Properties overrides, Path output, long taskTimeoutMillis) {
+        this.sellers = Collections.unmodifiableList(sellers);
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.overrides = overrides;
+        this.output = output;
+        this.taskTimeoutMillis = taskTimeoutMillis;
+    }
+
+    public static Scenario load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * @throws IllegalArgumentException se o cenário não tiver vendedores ou tarefas, ou se algum
+     *                                  catálogo ou valor numérico for inválido.
+     */
+    public static Scenario parse(Properties properties) {
+        List<String> sellers = split(properties.getProperty(PREFIX + "sellers"));
+        if (sellers.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no sellers (" + PREFIX + "sellers)");
+        }
+        if (new LinkedHashSet<>(sellers).size() != sellers.size()) {
+            throw new IllegalArgumentException("Scenario has duplicate sellers: " + sellers);
+        }
+
+        List<String> taskKeys = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(TASK_PREFIX)) {
+                taskNumber(key); // Valida a numeração
+                taskKeys.add(key);
+            }
+        }
+        taskKeys.sort(Comparator.comparingLong(Scenario::taskNumber));
+        List<List<String>> tasks = new ArrayList<>();
+        for (String key : taskKeys) {
+            List<String> products = split(properties.getProperty(key));
+            if (products.isEmpty()) {
+                throw new IllegalArgumentException("Task " + key + " demands no products");
+            }
+            tasks.add(products);
+        }
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no tasks (" + TASK_PREFIX + "<n>)");
+        }
+
+        Properties overrides = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX)) {
+                overrides.setProperty(key, properties.getProperty(key).trim());
+            }
+        }
+        for (String seller : sellers) {
+            String catalog = overrides.getProperty("seller." + seller + ".catalog");
+            if (catalog != null) {
+                split(catalog).forEach(ProductBundle::parse); // Falha já na leitura, e não no setup do agente
+            }
+        }
+
+        ConfigLoader config = ConfigLoader.getInstance();
+        String output = properties.getProperty(PREFIX + "output", config.getString(PREFIX + "output"));
+        String timeout = properties.getProperty(PREFIX + "taskTimeoutMillis", config.getString(PREFIX + "taskTimeoutMillis"));
+        try {
+            return new Scenario(sellers, tasks, overrides, Paths.get(output.trim()), Long.parseLong(timeout.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + PREFIX + "taskTimeoutMillis: " + timeout, e);
+        }
+    }
+
+    private static long taskNumber(String key) {
+        try {
+            return Long.parseLong(key.substring(TASK_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Task keys must be numbered (" + TASK_PREFIX + "<n>): " + key, e);
+        }
+    }
+
+    private static List<String> split(String value) {
+        List<String> items = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(",")) {
+                if (!item.trim().isEmpty()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    public List<String> getSellers() { return sellers; }
+    public List<List<String>> getTasks() { return tasks; }
+    public Path getOutput() { return output; }
+    public long getTaskTimeoutMillis() { return taskTimeoutMillis; }
+
+    /**
+     * As chaves que sobrepõem o config.properties (todas, exceto as 'scenario.*').
+     */
+    public Properties getOverrides() {
+        Properties copy = new Properties();
+        copy.putAll(overrides);
+        return copy;
+    }
+
+    /**
+     * Todos os produtos demandados pelas tarefas, sem repetição, na ordem em que aparecem.
+     */
+    public Set<String> getDemandedProducts() {
+        Set<String> products = new LinkedHashSet<>();
+        tasks.forEach(products::addAll);
+        return products;
+    }
+}
@@ -0,0 +1,171 @@
+package mas.scenario;
+
+import mas.agents.HeadlessPlatform;
+import mas.agents.HeadlessPlatform.TaskRun;
+import mas.logic.ConfigLoader;
+import mas.models.NegotiationEvent.Phase;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executa um {@link Scenario} sem interface gráfica e sem intervenção: sobrepõe as chaves do
+ * cenário ao config.properties, inicia uma plataforma JADE headless com o SDA e os vendedores do
+ * cenário, espera os vendedores aparecerem no DF e executa as tarefas uma a uma, cada uma com o
+ * seu próprio CoordinatorAgent ("ca_task_N"). Cada tarefa vira uma linha CSV no arquivo de saída
+ * (vencedores, utilidade e a duração de cada fase) assim que termina. Ao final a plataforma é
+ * encerrada e o processo sai com um código que resume a execução:
+ * <ul>
+ *   <li>{@value #EXIT_OK}: todas as tarefas terminaram (com ou sem solução);</li>
+ *   <li>{@value #EXIT_TASK_FAILED}: alguma tarefa não terminou no prazo 'scenario.taskTimeoutMillis';</li>
+ *   <li>{@value #EXIT_INVALID_SCENARIO}: o arquivo de cenário não pôde ser lido ou é inválido;</li>
+ *   <li>{@value #EXIT_PLATFORM_ERROR}: a plataforma ou o arquivo de saída falharam.</li>
+ * </ul>
+ * Uso: {@code ScenarioRunner <cenario.properties> [saida.csv]}.
+ */
+public class ScenarioRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioRunner.class);
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_TASK_FAILED = 1;
+    public static final int EXIT_INVALID_SCENARIO = 2;
+    public static final int EXIT_PLATFORM_ERROR = 3;
+
+    private final Scenario scenario;
+
+    public ScenarioRunner(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            logger.error("Usage: ScenarioRunner <scenario.properties> [output.csv]");
+            System.exit(EXIT_INVALID_SCENARIO);
+        }
+        Scenario scenario;
+        try {
+            scenario = Scenario.load(Paths.get(args[0]));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("ScenarioRunner: Invalid scenario {}: {}", args[0], e.getMessage());
+            System.exit(EXIT_INVALID_SCENARIO);
+            return;
+        }
+        Path output = args.length > 1 ? Paths.get(args[1]) : scenario.getOutput();
+        int exitCode;
+        try {
+            exitCode = new ScenarioRunner(scenario).run(output) ? EXIT_OK : EXIT_TASK_FAILED;
+        } catch (Exception e) {
+            logger.error("ScenarioRunner: Run aborted.", e);
+            exitCode = EXIT_PLATFORM_ERROR;
+        }
+        // Threads do JADE podem sobreviver ao encerramento da plataforma
+        System.exit(exitCode);
+    }
+
+    /**
+     * Executa todas as tarefas do cenário e grava os resultados em {@code output}.
+     *
+     * @return false se alguma tarefa não terminou no prazo.
+     */
+    public boolean run(Path output) throws Exception {
+        ConfigLoader config = ConfigLoader.getInstance();
+        config.override(scenario.getOverrides());
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        long start = System.nanoTime();
+        try (HeadlessPlatform platform = HeadlessPlatform.start("scenario_driver");
+             BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            Map<String, Object[]> sellers = new LinkedHashMap<>();
+            for (String seller : scenario.getSellers()) {
+                sellers.put(seller, null);
+            }
+            platform.startParticipants(sellers, scenario.getTaskTimeoutMillis());
+
+            out.write("task,products,status,winners,total_utility,negotiations,"
+                    + "bundle_request_ms,discovery_ms,negotiations_ms,wdp_ms,elapsed_ms\n");
+            int failed = 0;
+            List<List<String>> tasks = scenario.getTasks();
+            for (int i = 0; i < tasks.size(); i++) {
+                TaskRun run = runTask(platform, i, tasks.get(i));
+                if (!run.finished()) {
+                    failed++;
+                }
+                write(out, i, tasks.get(i), run);
+                out.flush();
+            }
+            logger.info("ScenarioRunner: {} task(s), {} failed, in {} s; results in {}.", tasks.size(), failed,
+                    String.format(Locale.ROOT, "%.2f", (System.nanoTime() - start) / 1e9), output);
+            return failed == 0;
+        }
+    }
+
+    /**
+     * Submete a tarefa ao seu próprio Coordenador e espera a solução final.
+     */
+    private TaskRun runTask(HeadlessPlatform platform, int index, List<String> products) throws Exception {
+        logger.info("ScenarioRunner: Task {} demands {}.", index, products);
+        TaskRun run = platform.submitTask("ca_task_" + index, products, scenario.getTaskTimeoutMillis());
+        try {
+            run.solution().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                logger.warn("ScenarioRunner: Task {} did not finish within {} ms.", index, scenario.getTaskTimeoutMillis());
+            } else {
+                logger.warn("ScenarioRunner: Task {} failed: {}", index, e.getCause().getMessage());
+            }
+        }
+        return run;
+    }
+
+    private static void write(Writer out, int index, List<String> products, TaskRun run) throws IOException {
+        StringBuilder winners = new StringBuilder();
+        double totalUtility = 0.0;
+        String status;
+        if (!run.finished()) {
+            status = "failed";
+        } else {
+            List<NegotiationResult> solution = run.solution().join();
+            status = solution.isEmpty() ? "no_solution" : "solved";
+            for (NegotiationResult result : solution) {
+                if (winners.length() > 0) {
+                    winners.append(' ');
+                }
+                winners.append(result.getSupplierName()).append(':').append(mask(result.getFinalBid().getProductBundle()));
+                totalUtility += result.getUtility();
+            }
+        }
+        out.write(String.format(Locale.ROOT, "%d,%s,%s,%s,%.4f,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                index, String.join(" ", products), status, winners, totalUtility, run.negotiations(),
+                phaseMillis(run, Phase.BUNDLE_REQUEST), phaseMillis(run, Phase.DISCOVERY),
+                phaseMillis(run, Phase.NEGOTIATIONS), phaseMillis(run, Phase.WDP), run.elapsedNanos() / 1e6));
+    }
+
+    private static double phaseMillis(TaskRun run, Phase phase) {
+        return run.phaseNanos().getOrDefault(phase, 0L) / 1e6;
+    }
+
+    private static String mask(ProductBundle pb) {
+        StringBuilder sb = new StringBuilder();
+        for (int p : pb.getProducts()) {
+            sb.append(p);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,222 @@
+package mas.trace;
+
+import mas.logic.ConfigLoader;
+import mas.trace.NegotiationTraceRecorder.Decision;
+import mas.trace.NegotiationTraceRecorder.Role;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static mas.trace.NegotiationTraceRecorder.*;
+
+/**
+ * Analisador offline do trace binário gravado pelo {@link NegotiationTraceRecorder}.
+ * Calcula, por negociação: rodadas até o acordo, trajetórias de utilidade (por papel e
+ * por pacote) e latência (do primeiro ao último evento).
+ * <p>
+ * Uso: {@code java -cp ... mas.trace.NegotiationTraceAnalyzer [arquivo-de-trace]}
+ */
+public class NegotiationTraceAnalyzer {
+
+    /**
+     * Um evento lido do trace.
+     */
+    public static class TraceEvent {
+        public final long sequence;
+        public final long timestampNanos;
+        public final long conversation;
+        public final int round;
+        public final int bundleMask;
+        public final int productCount;
+        public final double utility;
+        public final double price;
+        public final double delivery;
+        public final int quality;
+        public final int service;
+        public final Role role;
+        public final Decision decision;
+
+        TraceEvent(ByteBuffer buf, int base) {
+            this.sequence = buf.getLong(base + OFF_SEQ);
+            this.timestampNanos = buf.getLong(base + OFF_TIMESTAMP);
+            this.conversation = buf.getLong(base + OFF_CONVERSATION);
+            this.round = buf.getInt(base + OFF_ROUND);
+            this.bundleMask = buf.getInt(base + OFF_BUNDLE);
+            this.productCount = buf.get(base + OFF_PRODUCTS);
+            this.utility = buf.getDouble(base + OFF_UTILITY);
+            this.price = buf.getDouble(base + OFF_PRICE);
+            this.delivery = buf.getDouble(base + OFF_DELIVERY);
+            this.quality = buf.get(base + OFF_QUALITY);
+            this.service = buf.get(base + OFF_SERVICE);
+            this.role = Role.values()[buf.get(base + OFF_ROLE)];
+            this.decision = Decision.values()[buf.get(base + OFF_DECISION)];
+        }
+    }
+
+    /**
+     * Métricas de uma negociação (uma conversa).
+     */
+    public static class NegotiationSummary {
+        private final String conversationId;
+        private final List<TraceEvent> events = new ArrayList<>();
+        private int productCount;
+        // Papel -> pacote -> utilidade por rodada
+        private final Map<Role, Map<Integer, TreeMap<Integer, Double>>> trajectories = new HashMap<>();
+
+        NegotiationSummary(String conversationId) {
+            this.conversationId = conversationId;
+        }
+
+        void add(TraceEvent event) {
+            events.add(event);
+            productCount = Math.max(productCount, event.productCount);
+            if (!Double.isNaN(event.utility) && (event.decision == Decision.COUNTER || event.decision == Decision.ACCEPT)) {
+                trajectories.computeIfAbsent(event.role, r -> new TreeMap<>())
+                        .computeIfAbsent(event.bundleMask, b -> new TreeMap<>())
+                        .put(event.round, event.utility);
+            }
+        }
+
+        public String getConversationId() { return conversationId; }
+
+        public int getEventCount() { return events.size(); }
+
+        public int getProductCount() { return productCount; }
+
+        public boolean isAgreed() {
+            return events.stream().anyMatch(e -> e.decision == Decision.ACCEPT);
+        }
+
+        /** Rodada do último acordo (todos os pacotes acordados), ou -1 se não houve acordo. */
+        public int getRoundsToAgreement() {
+            return events.stream().filter(e -> e.decision == Decision.ACCEPT).mapToInt(e -> e.round).max().orElse(-1);
+        }
+
+        public int getRounds() {
+            return events.stream().mapToInt(e -> e.round).max().orElse(0);
+        }
+
+        public double getLatencyMillis() {
+            long first = events.stream().mapToLong(e -> e.timestampNanos).min().orElse(0);
+            long last = events.stream().mapToLong(e -> e.timestampNanos).max().orElse(0);
+            return (last - first) / 1_000_000.0;
+        }
+
+        /** Trajetória de utilidade (rodada -> utilidade) de um papel para um pacote. */
+        public Map<Integer, Map<Integer, Double>> getUtilityTrajectories(Role role) {
+            return new TreeMap<>(trajectories.getOrDefault(role, new HashMap<>()));
+        }
+    }
+
+    /**
+     * Lê o trace e agrupa os eventos por negociação, em ordem de gravação.
+     */
+    public static List<NegotiationSummary> analyze(Path traceFile) throws IOException {
+        Map<Long, String> names = readConversationIds(traceFile);
+        List<TraceEvent> events = readEvents(traceFile);
+        Map<Long, NegotiationSummary> byConversation = new LinkedHashMap<>();
+        for (TraceEvent event : events) {
+            byConversation.computeIfAbsent(event.conversation,
+                    key -> new NegotiationSummary(names.getOrDefault(key, Long.toHexString(key)))).add(event);
+        }
+        return new ArrayList<>(byConversation.values());
+    }
+
+    static List<TraceEvent> readEvents(Path traceFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(traceFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION || buf.getInt(8) != RECORD_SIZE) {
+                throw new IOException("Not a negotiation trace file (or unsupported version): " + traceFile);
+            }
+            int capacity = buf.getInt(12);
+            List<TraceEvent> events = new ArrayList<>();
+            for (int i = 0; i < capacity; i++) {
+                int base = HEADER_SIZE + i * RECORD_SIZE;
+                if (buf.getLong(base + OFF_SEQ) != 0) {
+                    events.add(new TraceEvent(buf, base));
+                }
+            }
+            events.sort(Comparator.comparingLong(e -> e.sequence));
+            return events;
+        }
+    }
+
+    static Map<Long, String> readConversationIds(Path traceFile) throws IOException {
+        Map<Long, String> names = new HashMap<>();
+        Path idsFile = idsFileFor(traceFile);
+        if (Files.exists(idsFile)) {
+            for (String line : Files.readAllLines(idsFile, StandardCharsets.UTF_8)) {
+                int sep = line.indexOf('=');
+                if (sep > 0) {
+                    names.put(Long.parseUnsignedLong(line.substring(0, sep), 16), line.substring(sep + 1));
+                }
+            }
+        }
+        return names;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path traceFile = Paths.get(args.length > 0 ? args[0] : ConfigLoader.getInstance().getString("trace.file"));
+        List<NegotiationSummary> summaries = analyze(traceFile);
+
+        int agreed = 0;
+        double totalRounds = 0;
+        List<Double> latencies = new ArrayList<>();
+        for (NegotiationSummary summary : summaries) {
+            System.out.printf("%s: %d event(s), %s, rounds=%d, latency=%.2f ms%n",
+                    summary.getConversationId(), summary.getEventCount(),
+                    summary.isAgreed() ? "agreed at round " + summary.getRoundsToAgreement() : "no agreement",
+                    summary.getRounds(), summary.getLatencyMillis());
+            for (Role role : Role.values()) {
+                for (Map.Entry<Integer, Map<Integer, Double>> entry : summary.getUtilityTrajectories(role).entrySet()) {
+                    StringBuilder sb = new StringBuilder();
+                    for (Map.Entry<Integer, Double> point : entry.getValue().entrySet()) {
+                        sb.append(String.format(" R%d=%.3f", point.getKey(), point.getValue()));
+                    }
+                    System.out.printf("  %s utility, bundle %s:%s%n", role, bundleString(entry.getKey(), summary.getProductCount()), sb);
+                }
+            }
+            if (summary.isAgreed()) {
+                agreed++;
+                totalRounds += summary.getRoundsToAgreement();
+            }
+            latencies.add(summary.getLatencyMillis());
+        }
+
+        latencies.sort(Double::compare);
+        System.out.printf("%nNegotiations: %d, agreed: %d (%.1f%%), mean rounds to agreement: %.2f%n",
+                summaries.size(), agreed, summaries.isEmpty() ? 0.0 : 100.0 * agreed / summaries.size(),
+                agreed == 0 ? 0.0 : totalRounds / agreed);
+        if (!latencies.isEmpty()) {
+            System.out.printf("Latency ms: p50=%.2f p99=%.2f max=%.2f%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies.get(latencies.size() - 1));
+        }
+    }
+
+    private static double percentile(List<Double> sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    private static String bundleString(int mask, int productCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < productCount; i++) {
+            sb.append((mask >>> i) & 1);
+        }
+        return sb.toString();
+    }
+}
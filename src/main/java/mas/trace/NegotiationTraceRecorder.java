@@ -0,0 +1,299 @@
+package mas.trace;
+
+import mas.logic.ConfigLoader;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gravador de trace binário das negociações, com custo baixo no caminho crítico.
+ * <p>
+ * Cada evento (rodada, conversa, valores dos issues, utilidade, decisão, timestamp) ocupa
+ * um registro de tamanho fixo ({@link #RECORD_SIZE} bytes) num ring buffer pré-alocado
+ * que é o próprio arquivo mapeado em memória: gravar é apenas reservar um slot (contador
+ * atômico) e escrever nele, sem formatação de String e sem locks. Os nomes dos issues e os
+ * termos linguísticos são comparados sem criar Strings, de modo que gravar um evento aloca
+ * pouco: o iterador dos issues do lance e, na consulta ao dicionário de conversas, o hash
+ * em caixa (ver abaixo).
+ * Ao encher, o buffer sobrescreve os eventos mais antigos.
+ * <p>
+ * Os ids de conversa são gravados como hash de 64 bits. O dicionário hash -> id recebe cada
+ * conversa no primeiro evento gravado por este processo (qualquer que seja a rodada, pois os
+ * compradores podem gravar em outra JVM que os vendedores), guarda as {@code capacity} mais recentes
+ * (tantas quanto os registros do buffer) e é escrito num arquivo auxiliar ("&lt;arquivo&gt;.ids")
+ * ao fechar; conversas fora dele aparecem pelo hash no {@link NegotiationTraceAnalyzer}. Os dados são descarregados em disco
+ * em {@link #close()} (também chamado por um shutdown hook).
+ * <p>
+ * Habilitado por 'trace.enabled'; quando desabilitado, {@link #record} não faz nada.
+ * Use {@link NegotiationTraceAnalyzer} para analisar o arquivo offline.
+ */
+public class NegotiationTraceRecorder implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NegotiationTraceRecorder.class);
+
+    static final int MAGIC = 0x4E545231; // "NTR1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 64;
+
+    // Layout do registro (offsets em bytes)
+    static final int OFF_SEQ = 0;          // long: sequência (1..n), 0 = slot vazio
+    static final int OFF_TIMESTAMP = 8;    // long: System.nanoTime()
+    static final int OFF_CONVERSATION = 16; // long: hash do id da conversa
+    static final int OFF_ROUND = 24;       // int
+    static final int OFF_BUNDLE = 28;      // int: máscara de bits dos produtos (até 32 produtos)
+    static final int OFF_UTILITY = 32;     // double
+    static final int OFF_PRICE = 40;       // double
+    static final int OFF_DELIVERY = 48;    // double
+    static final int OFF_QUALITY = 56;     // byte: código do termo linguístico
+    static final int OFF_SERVICE = 57;     // byte
+    static final int OFF_ROLE = 58;        // byte
+    static final int OFF_DECISION = 59;    // byte
+    static final int OFF_PRODUCTS = 60;    // byte: número de produtos do pacote
+
+    /** Termos linguísticos, na ordem dos códigos gravados (-1 = ausente/desconhecido). */
+    static final String[] QUALITATIVE_TERMS = {"very poor", "poor", "medium", "good", "very good"};
+
+    public enum Role {
+        BUYER,
+        SELLER
+    }
+
+    public enum Decision {
+        PROPOSE,   // Lance inicial do vendedor
+        COUNTER,   // Lance rejeitado, contra-lance enviado
+        ACCEPT,    // Lance aceito
+        TIMEOUT,   // Sem resposta da contraparte
+        DEADLINE   // negotiation.maxRounds atingido
+    }
+
+    private static volatile NegotiationTraceRecorder instance;
+
+    private final boolean enabled;
+    private final Path file;
+    private final int capacity;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, String> conversationNames = new ConcurrentHashMap<>();
+    private final Queue<Long> conversationOrder = new ConcurrentLinkedQueue<>(); // Ordem de entrada, para descartar as mais antigas
+    private MappedByteBuffer buffer; // O mapeamento continua válido após fechar o arquivo
+
+    private NegotiationTraceRecorder(boolean enabled, Path file, int capacity) {
+        this.enabled = enabled;
+        this.file = file;
+        this.capacity = capacity;
+        if (enabled) {
+            open();
+        }
+    }
+
+    public static NegotiationTraceRecorder getInstance() {
+        if (instance == null) {
+            synchronized (NegotiationTraceRecorder.class) {
+                if (instance == null) {
+                    ConfigLoader config = ConfigLoader.getInstance();
+                    String flag = config.getString("trace.enabled");
+                    boolean enabled = flag != null && Boolean.parseBoolean(flag.trim());
+                    NegotiationTraceRecorder recorder = enabled
+                            ? new NegotiationTraceRecorder(true, Paths.get(config.getString("trace.file")), config.getInt("trace.capacity"))
+                            : new NegotiationTraceRecorder(false, null, 0);
+                    if (enabled) {
+                        Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "trace-recorder-flush"));
+                    }
+                    instance = recorder;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Cria um gravador independente (ex: testes ou ferramentas), fora do singleton.
+     */
+    public static NegotiationTraceRecorder open(Path file, int capacity) {
+        return new NegotiationTraceRecorder(true, file, capacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void open() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(0); // Descarta um trace anterior
+                raf.setLength(size);
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, capacity);
+            logger.info("NegotiationTraceRecorder: recording to {} ({} records).", file, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open negotiation trace file " + file, e);
+        }
+    }
+
+    /**
+     * Grava um evento de negociação. Seguro para chamadas concorrentes de vários agentes.
+     *
+     * @param conversationId O id da conversa (negotiationId).
+     * @param round          A rodada atual.
+     * @param role           Quem tomou a decisão.
+     * @param decision       A decisão tomada.
+     * @param bid            O lance avaliado (pode ser null para TIMEOUT/DEADLINE).
+     * @param utility        A utilidade do lance para quem decidiu (NaN se não calculada).
+     */
+    public void record(String conversationId, int round, Role role, Decision decision, Bid bid, double utility) {
+        if (!enabled) {
+            return;
+        }
+        long key = hash(conversationId);
+        // A consulta sem escrita cobre os eventos seguintes da conversa
+        if (!conversationNames.containsKey(key) && conversationNames.putIfAbsent(key, conversationId) == null) {
+            conversationOrder.add(key);
+            if (conversationNames.size() > capacity) {
+                Long eldest = conversationOrder.poll();
+                if (eldest != null) {
+                    conversationNames.remove(eldest);
+                }
+            }
+        }
+
+        long seq = sequence.incrementAndGet();
+        int base = HEADER_SIZE + (int) ((seq - 1) % capacity) * RECORD_SIZE;
+        MappedByteBuffer buf = buffer;
+        buf.putLong(base + OFF_TIMESTAMP, System.nanoTime());
+        buf.putLong(base + OFF_CONVERSATION, key);
+        buf.putInt(base + OFF_ROUND, round);
+        buf.putDouble(base + OFF_UTILITY, utility);
+        buf.put(base + OFF_ROLE, (byte) role.ordinal());
+        buf.put(base + OFF_DECISION, (byte) decision.ordinal());
+
+        int bundleMask = 0;
+        byte productCount = 0;
+        double price = Double.NaN;
+        double delivery = Double.NaN;
+        byte quality = -1;
+        byte service = -1;
+        if (bid != null) {
+            int[] products = bid.getProductBundle().getProducts();
+            productCount = (byte) Math.min(products.length, 32);
+            for (int i = 0; i < products.length && i < 32; i++) {
+                if (products[i] == 1) bundleMask |= 1 << i;
+            }
+            for (NegotiationIssue issue : bid.getIssues()) {
+                Object value = issue.getValue();
+                String name = issue.getName();
+                if (name.equalsIgnoreCase("price")) {
+                    if (value instanceof Number) price = ((Number) value).doubleValue();
+                } else if (name.equalsIgnoreCase("delivery")) {
+                    if (value instanceof Number) delivery = ((Number) value).doubleValue();
+                } else if (name.equalsIgnoreCase("quality")) {
+                    quality = termCode(value);
+                } else if (name.equalsIgnoreCase("service")) {
+                    service = termCode(value);
+                }
+            }
+        }
+        buf.putInt(base + OFF_BUNDLE, bundleMask);
+        buf.put(base + OFF_PRODUCTS, productCount);
+        buf.putDouble(base + OFF_PRICE, price);
+        buf.putDouble(base + OFF_DELIVERY, delivery);
+        buf.put(base + OFF_QUALITY, quality);
+        buf.put(base + OFF_SERVICE, service);
+        buf.putLong(base + OFF_SEQ, seq); // Gravado por último: marca o registro como completo
+    }
+
+    /**
+     * Descarrega o buffer mapeado em disco e grava o dicionário de conversas.
+     */
+    @Override
+    public synchronized void close() {
+        if (!enabled || buffer == null) {
+            return;
+        }
+        buffer.force();
+        Path idsFile = idsFileFor(file);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(idsFile, StandardCharsets.UTF_8))) {
+            for (Map.Entry<Long, String> entry : conversationNames.entrySet()) {
+                out.println(Long.toHexString(entry.getKey()) + "=" + entry.getValue());
+            }
+        } catch (IOException e) {
+            logger.error("NegotiationTraceRecorder: failed to write conversation ids to {}", idsFile, e);
+        }
+        logger.info("NegotiationTraceRecorder: flushed {} event(s) to {}.", sequence.get(), file);
+    }
+
+    static Path idsFileFor(Path traceFile) {
+        return traceFile.resolveSibling(traceFile.getFileName() + ".ids");
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits do id da conversa.
+     */
+    static long hash(String conversationId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < conversationId.length(); i++) {
+            h ^= conversationId.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Código do termo linguístico, ignorando maiúsculas, espaços nas pontas e '_' no lugar de
+     * espaço ("Very_Good" = "very good"), sem criar Strings.
+     */
+    static byte termCode(Object value) {
+        if (!(value instanceof String)) {
+            return -1;
+        }
+        String text = (String) value;
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        for (int i = 0; i < QUALITATIVE_TERMS.length; i++) {
+            if (matchesTerm(text, start, end, QUALITATIVE_TERMS[i])) {
+                return (byte) i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesTerm(String text, int start, int end, String term) {
+        if (end - start != term.length()) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            char c = text.charAt(start + i);
+            if (c == '_') {
+                c = ' ';
+            }
+            if (Character.toLowerCase(c) != term.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
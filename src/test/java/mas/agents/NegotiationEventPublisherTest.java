@@ -0,0 +1,110 @@
+package mas.agents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.models.NegotiationEvent;
+import mas.models.NegotiationEvent.Type;
+
+public class NegotiationEventPublisherTest {
+
+    /**
+     * Assinante que só pede eventos quando o teste manda.
+     */
+    private static final class Probe implements Flow.Subscriber<NegotiationEvent> {
+        private final List<Type> received = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(NegotiationEvent item) {
+            received.add(item.getType());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static NegotiationEvent progress() {
+        return NegotiationEvent.started("seller");
+    }
+
+    private static NegotiationEvent finalSolution() {
+        return NegotiationEvent.solution(Type.FINAL_SOLUTION, Collections.emptyList());
+    }
+
+    private static NegotiationEvent phase() {
+        return NegotiationEvent.phaseCompleted(NegotiationEvent.Phase.WDP, 1L);
+    }
+
+    @Test
+    void testFullBufferShedsProgressButKeepsEssentialEvents() {
+        NegotiationEventPublisher publisher = new NegotiationEventPublisher(Runnable::run, 3);
+        Probe probe = new Probe();
+        publisher.subscribe(probe);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.offer(progress());
+        }
+        publisher.offer(phase());
+        publisher.offer(finalSolution());
+        probe.subscription.request(10);
+
+        assertEquals(List.of(Type.NEGOTIATION_STARTED, Type.PHASE_COMPLETED, Type.FINAL_SOLUTION), probe.received);
+        assertNull(probe.error);
+    }
+
+    @Test
+    void testSubscriberTooSlowForEssentialEventsFailsInsteadOfDropping() {
+        NegotiationEventPublisher publisher = new NegotiationEventPublisher(Runnable::run, 2);
+        Probe probe = new Probe();
+        publisher.subscribe(probe);
+
+        publisher.offer(phase());
+        publisher.offer(phase());
+        publisher.offer(finalSolution());
+
+        assertTrue(probe.error instanceof IllegalStateException);
+        assertFalse(publisher.hasSubscribers());
+        assertTrue(probe.received.isEmpty());
+    }
+
+    @Test
+    void testDeliversOnDemandAndCompletesAfterPendingEvents() {
+        NegotiationEventPublisher publisher = new NegotiationEventPublisher(Runnable::run, 8);
+        Probe probe = new Probe();
+        publisher.subscribe(probe);
+
+        publisher.offer(progress());
+        publisher.offer(finalSolution());
+        probe.subscription.request(1);
+        assertEquals(List.of(Type.NEGOTIATION_STARTED), probe.received);
+
+        publisher.close();
+        assertFalse(probe.completed); // O FINAL_SOLUTION ainda aguarda demanda
+        probe.subscription.request(1);
+        assertEquals(List.of(Type.NEGOTIATION_STARTED, Type.FINAL_SOLUTION), probe.received);
+        assertTrue(probe.completed);
+    }
+}
@@ -0,0 +1,59 @@
+package mas.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.logic.NegotiationClock;
+import mas.metrics.NegotiationMetrics.Outcome;
+import mas.models.NegotiationResult;
+
+public class HeadlessNegotiationEngineTest {
+
+    @Test
+    void testDefaultConfigMatchesAgentNegotiation() {
+        // Com o config.properties padrão, cada BA acorda os dois lances do catálogo na 2ª rodada,
+        // com utilidade 0.833 para o comprador e 0.4875 para o vendedor.
+        try (HeadlessNegotiationEngine engine = HeadlessNegotiationEngine.fromConfig()) {
+            List<NegotiationOutcome> outcomes = engine.negotiateAll(Arrays.asList(
+                    SellerProfile.fromConfig("s1"), SellerProfile.fromConfig("s2"), SellerProfile.fromConfig("s3")));
+
+            assertEquals(3, outcomes.size());
+            for (NegotiationOutcome outcome : outcomes) {
+                assertEquals(Outcome.COMPLETED, outcome.getOutcome());
+                assertEquals(2, outcome.getRounds());
+                assertEquals(2, outcome.getResults().size());
+                for (NegotiationResult result : outcome.getResults()) {
+                    assertEquals(outcome.getSellerName(), result.getSupplierName());
+                    assertEquals(0.833, result.getUtility(), 1e-3);
+                }
+                for (double sellerUtility : outcome.getSellerUtilities()) {
+                    assertEquals(0.4875, sellerUtility, 1e-9);
+                }
+            }
+            assertEquals("s2", outcomes.get(1).getSellerName(), "outcomes keep the order of the sellers");
+        }
+    }
+
+    @Test
+    void testNegotiationFailsAtDeadline() {
+        NegotiationPreferences buyer = NegotiationPreferences.buyerFromConfig();
+        NegotiationPreferences seller = NegotiationPreferences.sellerFromConfig();
+        NegotiationPreferences demandingBuyer = new NegotiationPreferences("buyer", buyer.getWeights(), buyer.getIssueParams(),
+                1.1, buyer.getRiskBeta(), buyer.getGamma());
+        NegotiationPreferences demandingSeller = new NegotiationPreferences("seller", seller.getWeights(), seller.getIssueParams(),
+                1.1, seller.getRiskBeta(), seller.getGamma());
+        HeadlessNegotiationEngine engine = new HeadlessNegotiationEngine(demandingBuyer, demandingSeller, 0.1,
+                () -> new NegotiationClock(NegotiationClock.Mode.ROUNDS, 10, 1000, System::currentTimeMillis));
+
+        NegotiationOutcome outcome = engine.negotiate(SellerProfile.fromConfig("s1"));
+
+        // A proposta da rodada 11 chega ao comprador depois do prazo (negotiation.maxRounds = 10)
+        assertEquals(Outcome.FAILED, outcome.getOutcome());
+        assertEquals(11, outcome.getRounds());
+        assertTrue(outcome.getResults().isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package mas.engine;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.engine.ParameterSweep.Mode;
+import mas.engine.ParameterSweep.Range;
+
+public class ParameterSweepTest {
+
+    private static final List<SellerProfile> SELLERS = Arrays.asList(SellerProfile.fromConfig("s1"), SellerProfile.fromConfig("s2"));
+
+    @Test
+    void testGridEnumeratesEveryCombination() {
+        ParameterSweep sweep = new ParameterSweep(Arrays.asList(
+                Range.parse("buyer.gamma", "0.5:1.5:3"),
+                Range.parse("buyer.riskBeta", "0.5, 2.0")), Mode.GRID, 0, 1, SELLERS, 1);
+
+        assertEquals(6, sweep.getPointCount());
+        assertEquals(Map.of("buyer.gamma", 0.5, "buyer.riskBeta", 0.5), sweep.point(0));
+        assertEquals(Map.of("buyer.gamma", 0.5, "buyer.riskBeta", 2.0), sweep.point(1));
+        assertEquals(Map.of("buyer.gamma", 1.5, "buyer.riskBeta", 2.0), sweep.point(5));
+    }
+
+    @Test
+    void testRandomPointsAreReproducibleAndInRange() {
+        ParameterSweep sweep = new ParameterSweep(List.of(Range.parse("buyer.acceptanceThreshold", "0.3:0.7:5")),
+                Mode.RANDOM, 100, 42, SELLERS, 1);
+        ParameterSweep same = new ParameterSweep(List.of(Range.parse("buyer.acceptanceThreshold", "0.3:0.7:5")),
+                Mode.RANDOM, 100, 42, SELLERS, 1);
+
+        assertEquals(100, sweep.getPointCount());
+        for (long i = 0; i < 100; i++) {
+            double value = sweep.point(i).get("buyer.acceptanceThreshold");
+            assertTrue(value >= 0.3 && value <= 0.7);
+            assertEquals(value, same.point(i).get("buyer.acceptanceThreshold"));
+        }
+    }
+
+    @Test
+    void testRunWritesOneRowPerPoint() throws IOException {
+        ParameterSweep sweep = new ParameterSweep(List.of(Range.parse("buyer.acceptanceThreshold", "0.5,1.1")),
+                Mode.GRID, 0, 1, SELLERS, 2);
+        StringWriter out = new StringWriter();
+
+        assertEquals(4, sweep.run(out));
+
+        String[] lines = out.toString().trim().split("\\R");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("point,buyer.acceptanceThreshold,negotiations,agreement_rate"));
+        Arrays.sort(lines, 1, lines.length);
+        // Com o limiar padrão os dois vendedores fecham acordo
+        assertArrayEquals(new String[]{"0", "0.500000", "2", "1.0000"}, Arrays.copyOf(lines[1].split(","), 4));
+        assertTrue(lines[2].startsWith("1,1.10000,2,"));
+    }
+}
@@ -0,0 +1,48 @@
+package mas.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class ProcurementSimulationTest {
+
+    private static ProcurementSimulation hourWith(long seed, double unresponsiveProbability) {
+        return new ProcurementSimulation(seed, 3_600_000, 300_000, 60, 2, 20, unresponsiveProbability);
+    }
+
+    @Test
+    void testSameSeedGivesSameReport() {
+        SimulationReport first = hourWith(7, 0.05).run();
+        SimulationReport second = hourWith(7, 0.05).run();
+
+        assertTrue(first.getTasks() > 0);
+        assertTrue(first.getNegotiations() > 0);
+        assertTrue(first.sameOutcomeAs(second));
+    }
+
+    @Test
+    void testUnresponsiveSellersTimeOutInVirtualTime() {
+        SimulationReport report = hourWith(11, 1.0).run();
+
+        assertEquals(report.getNegotiations(), report.getTimedOut());
+        assertEquals(report.getTasks(), report.getTasksWithoutSolution());
+        // Cada tarefa espera ao menos um timeout (timeout.initialMillis) sem gastar tempo real
+        assertTrue(report.getTaskLatencyPercentile(50) >= 5000);
+    }
+
+    @Test
+    void testDiscreteEventSimulatorOrdersByTimeThenScheduling() {
+        DiscreteEventSimulator simulator = new DiscreteEventSimulator();
+        StringBuilder order = new StringBuilder();
+        simulator.schedule(10, () -> order.append('b'));
+        simulator.schedule(5, () -> {
+            order.append('a');
+            simulator.schedule(5, () -> order.append('c')); // Mesmo instante de 'b', agendado depois
+        });
+        simulator.run();
+
+        assertEquals("abc", order.toString());
+        assertEquals(10, simulator.now());
+        assertEquals(3, simulator.getProcessedEvents());
+    }
+}
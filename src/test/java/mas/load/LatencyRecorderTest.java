@@ -0,0 +1,31 @@
+package mas.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+public class LatencyRecorderTest {
+
+    @Test
+    void testPercentilesUseNearestRank() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        // Fora de ordem e acima da capacidade inicial
+        for (int i = 1000; i >= 1; i--) {
+            recorder.record(i);
+        }
+
+        assertEquals(1000, recorder.getCount());
+        assertEquals(500, recorder.getPercentile(50));
+        assertEquals(990, recorder.getPercentile(99));
+        assertEquals(999, recorder.getPercentile(99.9));
+        assertEquals(1000, recorder.getPercentile(100));
+        assertEquals(500.5, recorder.getMean(), 1e-9);
+    }
+
+    @Test
+    void testEmptyRecorder() {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        assertEquals(0, recorder.getPercentile(99));
+        assertEquals(0.0, recorder.getMean());
+    }
+}
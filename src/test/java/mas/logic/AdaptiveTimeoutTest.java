@@ -0,0 +1,48 @@
+package mas.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveTimeoutTest {
+
+    @Test
+    void testInitialTimeoutWithoutSamples() {
+        AdaptiveTimeout timeouts = new AdaptiveTimeout(4.0, 5000, 100, 15000);
+        assertEquals(5000, timeouts.newConversation().timeoutMillis());
+    }
+
+    @Test
+    void testConversationUsesMeanPlusKStddev() {
+        AdaptiveTimeout timeouts = new AdaptiveTimeout(4.0, 5000, 100, 15000);
+        AdaptiveTimeout.Conversation conversation = timeouts.newConversation();
+        conversation.sample(100);
+        conversation.sample(200);
+        conversation.sample(300);
+        // média 200, desvio padrão 100
+        assertEquals(600, conversation.timeoutMillis());
+    }
+
+    @Test
+    void testNewConversationFallsBackToAgentEstimate() {
+        AdaptiveTimeout timeouts = new AdaptiveTimeout(4.0, 5000, 100, 15000);
+        AdaptiveTimeout.Conversation warm = timeouts.newConversation();
+        for (int i = 0; i < 20; i++) {
+            warm.sample(i % 2 == 0 ? 40 : 60);
+        }
+        long fresh = timeouts.newConversation().timeoutMillis();
+        assertTrue(fresh >= 100 && fresh < 200, "Agent-wide estimate should replace the initial timeout: " + fresh);
+    }
+
+    @Test
+    void testTimeoutIsClamped() {
+        AdaptiveTimeout timeouts = new AdaptiveTimeout(4.0, 5000, 100, 1000);
+        AdaptiveTimeout.Conversation conversation = timeouts.newConversation();
+        conversation.sample(1);
+        conversation.sample(1);
+        assertEquals(100, conversation.timeoutMillis());
+        conversation.sample(5000);
+        assertEquals(1000, conversation.timeoutMillis());
+        assertEquals(1000, timeouts.newConversation().timeoutMillis(), "Initial timeout is clamped to the maximum");
+    }
+}
@@ -0,0 +1,74 @@
+package mas.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class AdmissionControllerTest {
+
+    private AdmissionController newController(int initialLimit) {
+        return new AdmissionController(true, initialLimit, 1, 100, 0.5, 2.0);
+    }
+
+    @Test
+    void testCapsInFlightNegotiations() {
+        AdmissionController controller = newController(2);
+        assertTrue(controller.tryAcquire());
+        assertTrue(controller.tryAcquire());
+        assertFalse(controller.tryAcquire(), "Third negotiation should wait in the queue");
+
+        controller.release();
+        assertTrue(controller.tryAcquire());
+        assertEquals(2, controller.getInFlight());
+    }
+
+    @Test
+    void testSlowStartThenMultiplicativeDecreaseOnTimeout() {
+        AdmissionController controller = newController(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(controller.tryAcquire());
+            controller.onComplete(10.0, false);
+        }
+        assertEquals(8, controller.getLimit(), "Slow start: +1 per completed negotiation");
+
+        controller.tryAcquire();
+        controller.onComplete(Double.NaN, true);
+        assertEquals(4, controller.getLimit(), "Timeout halves the limit");
+    }
+
+    @Test
+    void testLatencyAboveToleranceCountsAsCongestion() {
+        AdmissionController controller = newController(10);
+        controller.tryAcquire();
+        controller.onComplete(10.0, false); // Latência base
+        assertEquals(11, controller.getLimit());
+
+        controller.tryAcquire();
+        controller.onComplete(25.0, false); // 2.5x a base > tolerância de 2x
+        assertEquals(5, controller.getLimit());
+    }
+
+    @Test
+    void testOnlyOneDecreasePerWindow() {
+        AdmissionController controller = newController(8);
+        for (int i = 0; i < 8; i++) {
+            controller.tryAcquire();
+        }
+        controller.onComplete(Double.NaN, true);
+        assertEquals(4, controller.getLimit());
+        // As demais negociações da mesma janela também expiram, mas não reduzem de novo
+        for (int i = 0; i < 7; i++) {
+            controller.onComplete(Double.NaN, true);
+        }
+        assertEquals(4, controller.getLimit());
+    }
+
+    @Test
+    void testDisabledNeverQueues() {
+        AdmissionController controller = new AdmissionController(false, 1, 1, 1, 0.5, 2.0);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(controller.tryAcquire());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package mas.logic;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.logic.BundleGenerator.ScoredBundle;
+import mas.models.ProductBundle;
+
+public class BundleGeneratorTest {
+
+    private static List<String> products(int n) {
+        List<String> products = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            products.add("P" + i);
+        }
+        return products;
+    }
+
+    private static SynergyModel model(double defaultSynergy, Object... pairs) {
+        Map<String, Map<String, Double>> map = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 3) {
+            String a = (String) pairs[i];
+            String b = (String) pairs[i + 1];
+            double value = (Double) pairs[i + 2];
+            map.computeIfAbsent(a, p -> new HashMap<>()).put(b, value);
+            map.computeIfAbsent(b, p -> new HashMap<>()).put(a, value);
+        }
+        return new SynergyModel(defaultSynergy, map);
+    }
+
+    @Test
+    void testDefaultModelYieldsAllPairsThenSingles() {
+        List<ScoredBundle> bundles = new BundleGenerator(model(0.1), 2, 0.0).top(products(4), 10);
+
+        assertEquals(10, bundles.size());
+        Set<ProductBundle> distinct = new HashSet<>();
+        for (int i = 0; i < bundles.size(); i++) {
+            int size = bundles.get(i).getProducts().size();
+            assertEquals(i < 6 ? 2 : 1, size);
+            distinct.add(bundles.get(i).getBundle());
+        }
+        assertEquals(10, distinct.size());
+        assertTrue(distinct.contains(ProductBundle.parse("1100")));
+        assertTrue(distinct.contains(ProductBundle.parse("0001")));
+    }
+
+    @Test
+    void testEnumerationMatchesBruteForceOrder() {
+        Random random = new Random(7);
+        List<String> products = products(9);
+        Map<String, Map<String, Double>> pairs = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            for (int j = i + 1; j < products.size(); j++) {
+                double value = random.nextDouble() * 2.0 - 0.8;
+                pairs.computeIfAbsent(products.get(i), p -> new HashMap<>()).put(products.get(j), value);
+                pairs.computeIfAbsent(products.get(j), p -> new HashMap<>()).put(products.get(i), value);
+            }
+        }
+        SynergyModel model = new SynergyModel(0.0, pairs);
+        double minSynergy = 0.3;
+
+        // Referência: todos os subconjuntos de até 4 produtos
+        List<Double> expected = new ArrayList<>();
+        for (int mask = 1; mask < (1 << products.size()); mask++) {
+            if (Integer.bitCount(mask) > 4) {
+                continue;
+            }
+            double synergy = 0.0;
+            for (int i = 0; i < products.size(); i++) {
+                for (int j = i + 1; j < products.size(); j++) {
+                    if ((mask & (1 << i)) != 0 && (mask & (1 << j)) != 0) {
+                        synergy += model.synergy(products.get(i), products.get(j));
+                    }
+                }
+            }
+            if (synergy >= minSynergy) {
+                expected.add(synergy);
+            }
+        }
+        expected.sort((a, b) -> Double.compare(b, a));
+
+        List<Double> actual = new ArrayList<>();
+        Set<ProductBundle> seen = new HashSet<>();
+        Iterator<ScoredBundle> it = new BundleGenerator(model, 4, minSynergy).enumerate(products);
+        while (it.hasNext()) {
+            ScoredBundle bundle = it.next();
+            assertTrue(seen.add(bundle.getBundle()), "Duplicate " + bundle);
+            actual.add(bundle.getSynergy());
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), 1e-9);
+        }
+    }
+
+    @Test
+    void testHundredsOfProductsFindPlantedSynergiesQuickly() {
+        SynergyModel model = model(0.0,
+                "P10", "P250", 0.9,
+                "P250", "P399", 0.8,
+                "P10", "P399", 0.7,
+                "P3", "P4", 0.5);
+        List<ScoredBundle> bundles = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> new BundleGenerator(model, 3, 0.1).top(products(400), 5));
+
+        assertEquals(List.of("P10", "P250", "P399"), bundles.get(0).getProducts());
+        assertEquals(2.4, bundles.get(0).getSynergy(), 1e-9);
+        assertEquals(List.of("P10", "P250"), bundles.get(1).getProducts());
+        assertEquals(5, bundles.size());
+        assertEquals(400, bundles.get(0).getBundle().getProducts().length);
+    }
+
+    @Test
+    void testBundleVectorFollowsProductPositions() {
+        List<ScoredBundle> bundles = new BundleGenerator(model(0.2), 2, 0.1).top(List.of("P3", "P5"), 10);
+
+        assertEquals(1, bundles.size()); // Produtos isolados ficam abaixo da sinergia mínima
+        assertArrayEquals(new int[]{0, 0, 1, 0, 1}, bundles.get(0).getBundle().getProducts());
+    }
+}
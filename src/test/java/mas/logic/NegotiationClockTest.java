@@ -0,0 +1,47 @@
+package mas.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.logic.NegotiationClock.Mode;
+
+public class NegotiationClockTest {
+
+    @Test
+    void testRoundModeMatchesRoundRatio() {
+        NegotiationClock clock = new NegotiationClock(Mode.ROUNDS, 10, 1000, () -> 0L);
+        assertEquals(0.0, clock.progress(1), 1e-9);
+        assertEquals(1.0 / 9, clock.progress(2), 1e-9);
+        assertEquals(2.0 / 9, clock.nextProgress(2), 1e-9);
+        assertEquals(1.0, clock.progress(15), 1e-9);
+        assertFalse(clock.isFinalRound(10));
+        assertFalse(clock.isExpired(10));
+        assertTrue(clock.isExpired(11));
+        assertEquals(Long.MAX_VALUE, clock.remainingMillis());
+    }
+
+    @Test
+    void testTimeModeProgressFollowsElapsedTime() {
+        AtomicLong now = new AtomicLong(1_000);
+        NegotiationClock clock = new NegotiationClock(Mode.TIME, 100, 1000, now::get);
+
+        now.set(1_250);
+        assertEquals(0.25, clock.progress(2), 1e-9);
+        // Uma rodada levou 250 ms: a próxima deve terminar em 50% do orçamento
+        assertEquals(0.5, clock.nextProgress(2), 1e-9);
+        assertFalse(clock.isFinalRound(2));
+        assertEquals(750, clock.remainingMillis());
+
+        now.set(1_800);
+        assertTrue(clock.isFinalRound(4), "Average round of 267 ms does not fit in the 200 ms left");
+        assertFalse(clock.isExpired(4));
+
+        now.set(2_000);
+        assertTrue(clock.isExpired(4));
+        assertEquals(0, clock.remainingMillis());
+    }
+}
@@ -0,0 +1,110 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.models.Bid;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+import mas.models.ShardSummary;
+
+public class PartialWinnerDeterminationTest {
+
+    private static NegotiationResult result(String supplier, String bundle, double utility) {
+        return new NegotiationResult(new Bid(ProductBundle.parse(bundle), List.of(), new int[0]), utility, supplier);
+    }
+
+    private static double total(List<NegotiationResult> combination) {
+        return combination.stream().mapToDouble(NegotiationResult::getUtility).sum();
+    }
+
+    @Test
+    void testSummaryKeepsBestCombinationPerMask() {
+        int[] demand = {1, 1, 0, 1};
+        ShardSummary summary = PartialWinnerDetermination.summarize(Arrays.asList(
+                result("s1", "1100", 0.6),
+                result("s1", "1000", 0.7),
+                result("s2", "0001", 0.5)), demand);
+
+        // Produto 3 não é demandado: o produto 4 é o terceiro demandado (bit 2).
+        assertEquals(0.6, summary.getEntries().get(0b011).getUtility(), 1e-9);
+        assertEquals(0.7, summary.getEntries().get(0b001).getUtility(), 1e-9);
+        assertEquals(1.1, summary.getEntries().get(0b111).getUtility(), 1e-9);
+        assertEquals(1.2, summary.getEntries().get(0b101).getUtility(), 1e-9);
+        assertEquals(0.0, summary.getEntries().get(0).getUtility(), 1e-9);
+    }
+
+    @Test
+    void testMasksUseDemandedProductOrdinals() {
+        // "P40" e "P1": o vetor da demanda tem 40 posições, mas só dois produtos demandados
+        int[] demand = new int[40];
+        demand[0] = 1;
+        demand[39] = 1;
+        String p40 = "0".repeat(39) + "1";
+        String p1 = "1" + "0".repeat(39);
+        ShardSummary summary = PartialWinnerDetermination.summarize(List.of(
+                result("s1", p40, 0.8),
+                result("s2", p1, 0.4),
+                result("s3", "0".repeat(8) + "1" + "0".repeat(31), 0.9)), demand);
+
+        // s3 oferece só P9, não demandado: soma à utilidade sem cobrir nada
+        assertEquals(0.8 + 0.9, summary.getEntries().get(0b10).getUtility(), 1e-9);
+        assertEquals(0.4 + 0.9, summary.getEntries().get(0b01).getUtility(), 1e-9);
+        List<NegotiationResult> merged = PartialWinnerDetermination.merge(List.of(summary), demand);
+        assertEquals(2.1, total(merged), 1e-9);
+    }
+
+    @Test
+    void testRejectsDemandWiderThanMask() {
+        int[] demand = new int[PartialWinnerDetermination.MAX_DEMANDED_PRODUCTS + 1];
+        Arrays.fill(demand, 1);
+        assertFalse(PartialWinnerDetermination.supports(demand));
+        assertThrows(IllegalArgumentException.class, () -> PartialWinnerDetermination.summarize(List.of(), demand));
+    }
+
+    @Test
+    void testMergeMatchesFlatBranchAndBound() {
+        Random random = new Random(42);
+        int[] demand = {1, 1, 1, 1};
+        for (int trial = 0; trial < 50; trial++) {
+            List<NegotiationResult> all = new ArrayList<>();
+            List<List<NegotiationResult>> shards = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            for (int s = 0; s < 7; s++) {
+                int bids = 1 + random.nextInt(3);
+                for (int b = 0; b < bids; b++) {
+                    String bundle = String.format("%4s", Integer.toBinaryString(1 + random.nextInt(15))).replace(' ', '0');
+                    NegotiationResult r = result("s" + s, bundle, random.nextDouble());
+                    all.add(r);
+                    shards.get(s % shards.size()).add(r);
+                }
+            }
+
+            List<ShardSummary> summaries = new ArrayList<>();
+            for (List<NegotiationResult> shard : shards) {
+                summaries.add(PartialWinnerDetermination.summarize(shard, demand));
+            }
+            List<NegotiationResult> merged = PartialWinnerDetermination.merge(summaries, demand);
+            List<NegotiationResult> flat = new WinnerDeterminationService()
+                    .solveWDPWithBranchAndBound(new ArrayList<>(all), demand);
+
+            assertEquals(total(flat), total(merged), 1e-9, "trial " + trial);
+            assertEquals(merged.size(), merged.stream().map(NegotiationResult::getSupplierName).distinct().count(),
+                    "at most one bid per supplier");
+        }
+    }
+
+    @Test
+    void testMergeReturnsEmptyWhenDemandUncovered() {
+        int[] demand = {1, 1, 1, 1};
+        ShardSummary summary = PartialWinnerDetermination.summarize(List.of(result("s1", "1100", 0.9)), demand);
+        assertTrue(PartialWinnerDetermination.merge(List.of(summary), demand).isEmpty());
+    }
+}
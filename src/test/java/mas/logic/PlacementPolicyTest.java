@@ -0,0 +1,42 @@
+package mas.logic;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import mas.logic.PlacementPolicy.Kind;
+
+public class PlacementPolicyTest {
+
+    @Test
+    void testRoundRobinCyclesThroughContainers() {
+        PlacementPolicy policy = new PlacementPolicy(Kind.ROUND_ROBIN, Arrays.asList("c1", "c2", "c3"));
+        assertEquals("c1", policy.choose());
+        assertEquals("c2", policy.choose());
+        assertEquals("c3", policy.choose());
+        assertEquals("c1", policy.choose());
+    }
+
+    @Test
+    void testLeastLoadedPrefersIdleContainer() {
+        PlacementPolicy policy = new PlacementPolicy(Kind.LEAST_LOADED, Arrays.asList("c1", "c2", "c3"));
+        policy.acquire("c1");
+        policy.acquire("c1");
+        policy.acquire("c2");
+        assertEquals("c3", policy.choose());
+        policy.acquire("c3");
+        assertEquals("c2", policy.choose(), "c2 and c3 tie; round-robin order breaks the tie");
+
+        policy.release("c1");
+        policy.release("c1");
+        assertEquals("c1", policy.choose());
+    }
+
+    @Test
+    void testParse() {
+        assertEquals(Kind.LEAST_LOADED, PlacementPolicy.parse("least-loaded"));
+        assertEquals(Kind.ROUND_ROBIN, PlacementPolicy.parse("round-robin"));
+        assertEquals(Kind.ROUND_ROBIN, PlacementPolicy.parse(null));
+    }
+}
@@ -0,0 +1,99 @@
+package mas.logic;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import mas.metrics.SynergyCacheMetrics;
+import mas.models.ProductBundle;
+
+public class SynergyCacheTest {
+
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private static SynergyCache.Entry put(SynergyCache cache, long version, String... products) {
+        List<String> canonical = SynergyCache.canonical(List.of(products));
+        return cache.put(canonical, version, List.of(ProductBundle.parse("1")), NO_BYTES);
+    }
+
+    private static String key(String... products) {
+        return SynergyCache.signature(SynergyCache.canonical(List.of(products)));
+    }
+
+    @Test
+    void testSignatureIgnoresOrderAndRepetitions() {
+        assertEquals("P2,P10,P11", key("P11", "P2", "P10", "P2"));
+        assertEquals(key("P1", "P3"), key("P3", "P1"));
+        // Fora do padrão "P<n>", a ordem define o vetor do pacote e faz parte da demanda
+        assertEquals("B,A", key("B", "A", "B"));
+    }
+
+    @Test
+    void testHitsOnlyForCurrentModelVersion() {
+        SynergyCacheMetrics metrics = SynergyCacheMetrics.detached();
+        SynergyCache cache = new SynergyCache(8, metrics);
+        put(cache, 0, "P1", "P2");
+
+        assertNotNull(cache.get(key("P2", "P1"), 0));
+        assertNull(cache.get(key("P1", "P2"), 1));
+        assertNull(cache.get(key("P1", "P2"), 0)); // Descartada ao ser vista com outra versão
+        assertEquals(1, metrics.getHits());
+        assertEquals(2, metrics.getMisses());
+        assertEquals(0, metrics.getEntries());
+    }
+
+    @Test
+    void testProductChangeInvalidatesOnlyAffectedDemands() {
+        SynergyCacheMetrics metrics = SynergyCacheMetrics.detached();
+        SynergyCache cache = new SynergyCache(8, metrics);
+        put(cache, 0, "P1", "P2");
+        put(cache, 0, "P2", "P3");
+        put(cache, 0, "P3", "P4");
+
+        assertEquals(2, cache.productChanged("P2", 1));
+
+        assertNull(cache.get(key("P1", "P2"), 1));
+        assertNull(cache.get(key("P2", "P3"), 1));
+        assertNotNull(cache.get(key("P3", "P4"), 1));
+        assertEquals(2, metrics.getInvalidations());
+        assertEquals(1, metrics.getCarriedOver());
+        assertEquals(1, metrics.getModelVersion());
+    }
+
+    @Test
+    void testLeastRecentlyUsedDemandIsEvicted() {
+        SynergyCacheMetrics metrics = SynergyCacheMetrics.detached();
+        SynergyCache cache = new SynergyCache(2, metrics);
+        put(cache, 0, "P1");
+        put(cache, 0, "P2");
+        cache.get(key("P1"), 0);
+        put(cache, 0, "P3");
+
+        assertNotNull(cache.get(key("P1"), 0));
+        assertNull(cache.get(key("P2"), 0));
+        assertEquals(1, metrics.getEvictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testModelUpdateChangesOnlyTheProductPairs() {
+        Map<String, Map<String, Double>> pairs = new HashMap<>();
+        pairs.put("P1", new HashMap<>(Map.of("P2", 0.5)));
+        pairs.put("P2", new HashMap<>(Map.of("P1", 0.5)));
+        SynergyModel model = new SynergyModel(0.1, pairs);
+
+        SynergyModel updated = model.withProduct("P3", Map.of("P1", -0.4));
+
+        assertEquals(1, updated.getVersion());
+        assertEquals(-0.4, updated.synergy("P1", "P3"), 1e-12);
+        assertEquals(-0.4, updated.synergy("P3", "P1"), 1e-12);
+        assertEquals(0.5, updated.synergy("P2", "P1"), 1e-12);
+        assertEquals(0.1, model.synergy("P1", "P3"), 1e-12); // O modelo anterior não muda
+        assertEquals(0, model.getVersion());
+    }
+}
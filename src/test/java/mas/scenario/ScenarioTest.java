@@ -0,0 +1,58 @@
+package mas.scenario;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class ScenarioTest {
+
+    @Test
+    void testTasksRunInNumericOrderAndOtherKeysOverrideConfig() {
+        Properties p = new Properties();
+        p.setProperty("scenario.sellers", "s1, s2");
+        p.setProperty("scenario.task.10", "P3");
+        p.setProperty("scenario.task.2", "P1, P2");
+        p.setProperty("scenario.output", "out.csv");
+        p.setProperty("seller.s1.catalog", "1100");
+        p.setProperty("buyer.gamma", " 0.8 ");
+
+        Scenario scenario = Scenario.parse(p);
+
+        assertEquals(List.of("s1", "s2"), scenario.getSellers());
+        assertEquals(List.of(List.of("P1", "P2"), List.of("P3")), scenario.getTasks());
+        assertEquals(Paths.get("out.csv"), scenario.getOutput());
+        assertEquals(120000, scenario.getTaskTimeoutMillis()); // Padrão do config.properties
+        Properties overrides = scenario.getOverrides();
+        assertEquals(2, overrides.size());
+        assertEquals("0.8", overrides.getProperty("buyer.gamma"));
+        assertFalse(overrides.containsKey("scenario.output"));
+        assertEquals(List.of("P1", "P2", "P3"), List.copyOf(scenario.getDemandedProducts()));
+    }
+
+    @Test
+    void testInvalidScenariosAreRejected() {
+        Properties noTasks = new Properties();
+        noTasks.setProperty("scenario.sellers", "s1");
+        assertThrows(IllegalArgumentException.class, () -> Scenario.parse(noTasks));
+
+        Properties noSellers = new Properties();
+        noSellers.setProperty("scenario.task.1", "P1");
+        assertThrows(IllegalArgumentException.class, () -> Scenario.parse(noSellers));
+
+        Properties badCatalog = new Properties();
+        badCatalog.setProperty("scenario.sellers", "s1");
+        badCatalog.setProperty("scenario.task.1", "P1");
+        badCatalog.setProperty("seller.s1.catalog", "12");
+        assertThrows(IllegalArgumentException.class, () -> Scenario.parse(badCatalog));
+
+        Properties unnumbered = new Properties();
+        unnumbered.setProperty("scenario.sellers", "s1");
+        unnumbered.setProperty("scenario.task.first", "P1");
+        assertThrows(IllegalArgumentException.class, () -> Scenario.parse(unnumbered));
+    }
+}
@@ -0,0 +1,109 @@
+package mas.trace;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
+import mas.trace.NegotiationTraceAnalyzer.NegotiationSummary;
+import mas.trace.NegotiationTraceRecorder.Decision;
+import mas.trace.NegotiationTraceRecorder.Role;
+
+public class NegotiationTraceAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bid bid(String bundle, double price) {
+        List<NegotiationIssue> issues = new ArrayList<>();
+        issues.add(new NegotiationIssue("Price", price));
+        issues.add(new NegotiationIssue("Quality", "good"));
+        return new Bid(ProductBundle.parse(bundle), issues, new int[]{1000, 1000, 0, 0});
+    }
+
+    @Test
+    void testRoundTripComputesRoundsAndTrajectories() throws Exception {
+        Path file = tempDir.resolve("trace.bin");
+        try (NegotiationTraceRecorder recorder = NegotiationTraceRecorder.open(file, 16)) {
+            recorder.record("neg-s1", 1, Role.SELLER, Decision.PROPOSE, bid("1100", 58.0), Double.NaN);
+            recorder.record("neg-s1", 2, Role.BUYER, Decision.COUNTER, bid("1100", 58.0), 0.24);
+            recorder.record("neg-s1", 3, Role.SELLER, Decision.COUNTER, bid("1100", 51.0), 0.40);
+            recorder.record("neg-s1", 4, Role.BUYER, Decision.ACCEPT, bid("1100", 55.0), 0.55);
+            recorder.record("neg-s2", 2, Role.BUYER, Decision.TIMEOUT, null, Double.NaN);
+        }
+
+        List<NegotiationSummary> summaries = NegotiationTraceAnalyzer.analyze(file);
+        assertEquals(2, summaries.size());
+
+        NegotiationSummary s1 = summaries.get(0);
+        assertEquals("neg-s1", s1.getConversationId());
+        assertTrue(s1.isAgreed());
+        assertEquals(4, s1.getRoundsToAgreement());
+        Map<Integer, Map<Integer, Double>> buyer = s1.getUtilityTrajectories(Role.BUYER);
+        Map<Integer, Double> trajectory = buyer.values().iterator().next();
+        assertEquals(0.24, trajectory.get(2), 1e-9);
+        assertEquals(0.55, trajectory.get(4), 1e-9);
+
+        NegotiationSummary s2 = summaries.get(1);
+        assertFalse(s2.isAgreed());
+        assertEquals(-1, s2.getRoundsToAgreement());
+    }
+
+    @Test
+    void testRingBufferKeepsMostRecentEvents() throws Exception {
+        Path file = tempDir.resolve("ring.bin");
+        try (NegotiationTraceRecorder recorder = NegotiationTraceRecorder.open(file, 4)) {
+            for (int round = 1; round <= 10; round++) {
+                recorder.record("neg-ring", round, Role.BUYER, Decision.COUNTER, bid("1000", 50.0 + round), 0.1 * round);
+            }
+        }
+
+        List<NegotiationTraceAnalyzer.TraceEvent> events = NegotiationTraceAnalyzer.readEvents(file);
+        assertEquals(4, events.size());
+        assertEquals(7, events.get(0).round);
+        assertEquals(10, events.get(3).round);
+        assertEquals(60.0, events.get(3).price, 1e-9);
+    }
+
+    @Test
+    void testConversationNamesAreBoundedAndTermsNormalized() throws Exception {
+        Path file = tempDir.resolve("names.bin");
+        try (NegotiationTraceRecorder recorder = NegotiationTraceRecorder.open(file, 2)) {
+            recorder.record("neg-a", 1, Role.SELLER, Decision.PROPOSE, bid("1000", 50.0), Double.NaN);
+            recorder.record("neg-b", 1, Role.SELLER, Decision.PROPOSE, bid("1000", 50.0), Double.NaN);
+            recorder.record("neg-c", 1, Role.SELLER, Decision.PROPOSE, bid("1000", 50.0), Double.NaN);
+        }
+
+        Map<Long, String> names = NegotiationTraceAnalyzer.readConversationIds(file);
+        assertEquals(2, names.size());
+        assertEquals("neg-c", names.get(NegotiationTraceRecorder.hash("neg-c")));
+        assertFalse(names.containsKey(NegotiationTraceRecorder.hash("neg-a")));
+
+        assertEquals(4, NegotiationTraceRecorder.termCode(" Very_Good "));
+        assertEquals(0, NegotiationTraceRecorder.termCode("VERY POOR"));
+        assertEquals(-1, NegotiationTraceRecorder.termCode("goodish"));
+    }
+
+    @Test
+    void testConversationNamesRecordedWithoutSellerEvents() throws Exception {
+        // JVM só com compradores: o primeiro evento de cada conversa já é da rodada 2
+        Path file = tempDir.resolve("buyers.bin");
+        try (NegotiationTraceRecorder recorder = NegotiationTraceRecorder.open(file, 8)) {
+            recorder.record("neg-b1", 2, Role.BUYER, Decision.COUNTER, bid("1100", 58.0), 0.24);
+            recorder.record("neg-b1", 4, Role.BUYER, Decision.ACCEPT, bid("1100", 55.0), 0.55);
+        }
+
+        Map<Long, String> names = NegotiationTraceAnalyzer.readConversationIds(file);
+        assertEquals(1, names.size());
+        assertEquals("neg-b1", names.get(NegotiationTraceRecorder.hash("neg-b1")));
+    }
+}